@@ -0,0 +1,188 @@
+package com.meli.frescos.benchmark;
+
+import com.meli.frescos.controller.dto.OrderProductsRequest;
+import com.meli.frescos.controller.dto.PurchaseOrderRequest;
+import com.meli.frescos.exception.NotEnoughStockException;
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.model.OrderProductsModel;
+import com.meli.frescos.model.ProductModel;
+import com.meli.frescos.model.PurchaseOrderModel;
+import com.meli.frescos.model.SectionModel;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.service.IBatchStockService;
+import com.meli.frescos.service.IOrderProductService;
+import com.meli.frescos.service.IProductService;
+import com.meli.frescos.service.IPurchaseOrderService;
+import com.meli.frescos.service.ISectionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the BatchStockService hot paths
+ * Debit benchmarks compare the FEFO allocator with the previous load, sort and save path
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchStockServiceBenchmark extends SpringBenchmarkState {
+
+    private static final int ORDER_PRODUCTS = 5;
+
+    private static final int ORDER_COUNT = 64;
+
+    private static final int INBOUND_PRODUCTS = 10;
+
+    private static final int INBOUND_BATCHES_PER_PRODUCT = 50;
+
+    private IBatchStockService iBatchStockService;
+
+    private BatchStockRepository batchStockRepository;
+
+    private final List<PurchaseOrderModel> purchaseOrders = new ArrayList<>();
+
+    private ProductModel inboundProduct;
+
+    private final List<SectionModel> inboundSections = new ArrayList<>();
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    protected void prepare() throws Exception {
+        iBatchStockService = context.getBean(IBatchStockService.class);
+        batchStockRepository = context.getBean(BatchStockRepository.class);
+        IPurchaseOrderService iPurchaseOrderService = context.getBean(IPurchaseOrderService.class);
+        IOrderProductService iOrderProductService = context.getBean(IOrderProductService.class);
+
+        for (int order = 0; order < ORDER_COUNT; order++) {
+            PurchaseOrderModel purchaseOrder = iPurchaseOrderService.save(new PurchaseOrderRequest(LocalDate.now(), dataset.getBuyerId(), List.of()));
+            for (int line = 0; line < ORDER_PRODUCTS; line++) {
+                iOrderProductService.save(new OrderProductsRequest(productAt((long) order * ORDER_PRODUCTS + line), 1, purchaseOrder.getId()));
+            }
+            purchaseOrders.add(purchaseOrder);
+        }
+
+        inboundProduct = context.getBean(IProductService.class).getById(productAt(0));
+        ISectionService iSectionService = context.getBean(ISectionService.class);
+        for (int i = 0; i < 3; i++) {
+            inboundSections.add(iSectionService.getById(dataset.getSectionIds().get(inboundProduct.getCategory().ordinal() * BenchmarkDataset.SECTIONS_PER_CATEGORY + i)));
+        }
+    }
+
+    @Benchmark
+    public void debitBatchStock_fefoAllocator() throws NotEnoughStockException {
+        iBatchStockService.consumeBatchStockOnPurchase(nextPurchaseOrder());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void debitBatchStock_fefoAllocator_contended() throws NotEnoughStockException {
+        iBatchStockService.consumeBatchStockOnPurchase(nextPurchaseOrder());
+    }
+
+    @Benchmark
+    public void debitBatchStock_loadSortSave() throws NotEnoughStockException {
+        loadSortSave(nextPurchaseOrder());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void debitBatchStock_loadSortSave_contended() throws NotEnoughStockException {
+        loadSortSave(nextPurchaseOrder());
+    }
+
+    @Benchmark
+    public List<BatchStockModel> productFitsInSection() throws Exception {
+        List<BatchStockModel> inboundBatchStockList = new ArrayList<>();
+        for (SectionModel section : inboundSections) {
+            inboundBatchStockList.add(newInboundBatchStock(section));
+        }
+        iBatchStockService.validateBatches(inboundProduct, inboundBatchStockList);
+        return inboundBatchStockList;
+    }
+
+    @Benchmark
+    public List<BatchStockModel> saveInboundOrders() throws Exception {
+        List<BatchStockModel> inboundBatchStockList = new ArrayList<>();
+        for (int product = 0; product < INBOUND_PRODUCTS; product++) {
+            ProductModel newProduct = ProductModel.builder()
+                    .productTitle("Inbound")
+                    .description("Inbound")
+                    .price(inboundProduct.getPrice())
+                    .category(inboundProduct.getCategory())
+                    .unitVolume(0.001)
+                    .unitWeight(0.001)
+                    .createDate(LocalDate.now())
+                    .seller(inboundProduct.getSeller())
+                    .build();
+            for (int batch = 0; batch < INBOUND_BATCHES_PER_PRODUCT; batch++) {
+                BatchStockModel batchStock = newInboundBatchStock(inboundSections.get(batch % inboundSections.size()));
+                batchStock.setProduct(newProduct);
+                inboundBatchStockList.add(batchStock);
+            }
+        }
+        return iBatchStockService.saveInboundOrders(inboundBatchStockList);
+    }
+
+    @Benchmark
+    public List<BatchStockModel> getByProductOrder() {
+        return iBatchStockService.getByProductOrder(productAt(counter.getAndIncrement()), "V");
+    }
+
+    private BatchStockModel newInboundBatchStock(SectionModel section) {
+        return BatchStockModel.builder()
+                .batchNumber("IN")
+                .quantity(10)
+                .manufacturingDate(LocalDate.now())
+                .manufacturingTime(LocalDateTime.now())
+                .dueDate(LocalDate.now().plusDays(30))
+                .section(SectionModel.builder().id(section.getId()).build())
+                .build();
+    }
+
+    private PurchaseOrderModel nextPurchaseOrder() {
+        return purchaseOrders.get((int) (counter.getAndIncrement() % ORDER_COUNT));
+    }
+
+    /**
+     * Debit path used before the FEFO allocator: load the valid batches of each product, sort them and save them back
+     */
+    private void loadSortSave(PurchaseOrderModel purchaseOrder) throws NotEnoughStockException {
+        IOrderProductService iOrderProductService = context.getBean(IOrderProductService.class);
+        for (OrderProductsModel orderProducts : iOrderProductService.getByPurchaseId(purchaseOrder.getId())) {
+            int quantity = orderProducts.getQuantity();
+            List<BatchStockModel> batchStockList = new ArrayList<>(batchStockRepository.findByProductAndDueDateGreaterThanEqual(orderProducts.getProductModel(), LocalDate.now().plusWeeks(3)));
+            batchStockList.sort(Comparator.comparing(BatchStockModel::getDueDate));
+            for (BatchStockModel batchStock : batchStockList) {
+                int taken = Math.min(quantity, batchStock.getQuantity());
+                batchStock.setQuantity(batchStock.getQuantity() - taken);
+                quantity -= taken;
+                if (quantity == 0) {
+                    break;
+                }
+            }
+            if (quantity != 0) {
+                throw new NotEnoughStockException("Estoque insuficiente para atender o pedido!");
+            }
+            batchStockRepository.saveAll(batchStockList);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.meli.frescos.benchmark;
+
+import com.meli.frescos.model.CategoryEnum;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seeds the benchmark database with a given number of BatchStocks
+ * Rows are written with JDBC batches so 10^6 batches load in seconds
+ */
+public class BenchmarkDataset {
+
+    /**
+     * Number of batches of each product
+     */
+    public static final int BATCHES_PER_PRODUCT = 100;
+
+    /**
+     * Number of sections of each category
+     */
+    public static final int SECTIONS_PER_CATEGORY = 10;
+
+    /**
+     * Quantity of every batch, big enough to never run out during a benchmark
+     */
+    public static final int BATCH_QUANTITY = 1_000_000;
+
+    private static final int JDBC_BATCH_SIZE = 5_000;
+
+    private static final String INSERT_BATCH_STOCK = "INSERT INTO batch_stock (id, batch_number, quantity, manufacturing_date, manufacturing_time, due_date, product_id, section_id, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    /**
+     * Distance between the last seeded BatchStock id and the sequence restart, bigger than the id allocation size
+     */
+    private static final int SEQUENCE_GAP = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    private final List<Long> sectionIds = new ArrayList<>();
+
+    private Long buyerId;
+
+    private Long warehouseId;
+
+    private Long representativeId;
+
+    public BenchmarkDataset(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert the warehouse, representative, sections, seller, buyer, products and the given number of batches
+     *
+     * @param batchCount total number of BatchStocks
+     * @return this dataset, with the generated ids
+     */
+    public BenchmarkDataset seed(int batchCount) {
+        jdbcTemplate.update("INSERT INTO warehouse (district, state, city, street, postal_code) VALUES ('Centro', 'SP', 'Osasco', 'Rua A', '06000000')");
+        warehouseId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM warehouse", Long.class);
+
+        jdbcTemplate.update("INSERT INTO representative (name, warehouse_id) VALUES ('Representative', ?)", warehouseId);
+        representativeId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM representative", Long.class);
+
+        for (CategoryEnum category : CategoryEnum.values()) {
+            for (int i = 0; i < SECTIONS_PER_CATEGORY; i++) {
+                jdbcTemplate.update("INSERT INTO section (description, category, total_size, temperature, warehouse_id) VALUES (?, ?, ?, ?, ?)",
+                        "Section " + category + " " + i, category.name(), Double.MAX_VALUE, 0.0, warehouseId);
+            }
+        }
+        sectionIds.addAll(jdbcTemplate.queryForList("SELECT id FROM section ORDER BY id", Long.class));
+
+        jdbcTemplate.update("INSERT INTO seller (name, cpf, rating) VALUES ('Seller', '00000000000', 5.0)");
+        Long sellerId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM seller", Long.class);
+
+        jdbcTemplate.update("INSERT INTO buyer (name, cpf) VALUES ('Buyer', '00000000000')");
+        buyerId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM buyer", Long.class);
+
+        int productCount = Math.max(1, batchCount / BATCHES_PER_PRODUCT);
+        List<Object[]> products = new ArrayList<>();
+        for (int i = 0; i < productCount; i++) {
+            CategoryEnum category = categoryOf(i);
+            products.add(new Object[]{"Product " + i, "Product " + i, 10.0, category.name(), 0.001, 0.001, Date.valueOf(LocalDate.now()), sellerId});
+        }
+        batchInsert("INSERT INTO product (product_title, description, price, category, unit_volume, unit_weight, create_date, seller_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", products);
+        productIds.addAll(jdbcTemplate.queryForList("SELECT id FROM product ORDER BY id", Long.class));
+
+        Date manufacturingDate = Date.valueOf(LocalDate.now().minusDays(1));
+        Timestamp manufacturingTime = Timestamp.valueOf(LocalDateTime.now().minusDays(1));
+        List<Object[]> batches = new ArrayList<>(JDBC_BATCH_SIZE);
+        for (int i = 0; i < batchCount; i++) {
+            int productIndex = i % productCount;
+            Long sectionId = sectionIds.get(categoryOf(productIndex).ordinal() * SECTIONS_PER_CATEGORY + i % SECTIONS_PER_CATEGORY);
+            Date dueDate = Date.valueOf(LocalDate.now().plusDays(22 + i % 365));
+            batches.add(new Object[]{(long) i + 1, "B" + i, BATCH_QUANTITY, manufacturingDate, manufacturingTime, dueDate, productIds.get(productIndex), sectionId});
+            if (batches.size() == JDBC_BATCH_SIZE) {
+                batchInsert(INSERT_BATCH_STOCK, batches);
+                batches.clear();
+            }
+        }
+        batchInsert(INSERT_BATCH_STOCK, batches);
+        jdbcTemplate.execute("ALTER SEQUENCE batch_stock_seq RESTART WITH " + (batchCount + SEQUENCE_GAP));
+        return this;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public List<Long> getSectionIds() {
+        return sectionIds;
+    }
+
+    public Long getBuyerId() {
+        return buyerId;
+    }
+
+    public Long getWarehouseId() {
+        return warehouseId;
+    }
+
+    public Long getRepresentativeId() {
+        return representativeId;
+    }
+
+    private CategoryEnum categoryOf(int productIndex) {
+        return CategoryEnum.values()[productIndex % CategoryEnum.values().length];
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+}
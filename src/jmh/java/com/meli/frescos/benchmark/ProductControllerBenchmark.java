@@ -0,0 +1,70 @@
+package com.meli.frescos.benchmark;
+
+import com.meli.frescos.controller.ProductController;
+import com.meli.frescos.controller.dto.ProductDetailedResponse;
+import com.meli.frescos.controller.dto.SimplifiedBatchStockResponse;
+import com.meli.frescos.model.ProductModel;
+import com.meli.frescos.service.IBatchStockService;
+import com.meli.frescos.service.IProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the ProductController endpoints that aggregate BatchStocks
+ * The findAll variant reproduces the previous in-memory aggregation as a baseline, run with -Djmh.batches=100000 or more to compare
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductControllerBenchmark extends SpringBenchmarkState {
+
+    private ProductController productController;
+
+    private IProductService iProductService;
+
+    private IBatchStockService iBatchStockService;
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    protected void prepare() {
+        productController = context.getBean(ProductController.class);
+        iProductService = context.getBean(IProductService.class);
+        iBatchStockService = context.getBean(IBatchStockService.class);
+    }
+
+    @Benchmark
+    public ResponseEntity<ProductDetailedResponse> getById_sectionAggregation() throws Exception {
+        return productController.getById(productAt(counter.getAndIncrement()));
+    }
+
+    @Benchmark
+    public ProductDetailedResponse getById_sectionAggregation_findAll() {
+        ProductModel product = iProductService.getById(productAt(counter.getAndIncrement()));
+        Map<Long, Integer> quantityBySection = new TreeMap<>();
+        iBatchStockService.getAll().stream()
+                .filter(b -> b.getProduct().getId().equals(product.getId()))
+                .forEach(b -> quantityBySection.merge(b.getSection().getId(), b.getQuantity(), Integer::sum));
+        List<SimplifiedBatchStockResponse> stockResponseList = new ArrayList<>();
+        quantityBySection.forEach((sectionId, quantity) -> stockResponseList.add(new SimplifiedBatchStockResponse(sectionId, quantity)));
+        return ProductDetailedResponse.toResponse(product, stockResponseList);
+    }
+}
@@ -0,0 +1,54 @@
+package com.meli.frescos.benchmark;
+
+import com.meli.frescos.controller.dto.OrderProductsRequest;
+import com.meli.frescos.controller.dto.PurchaseOrderRequest;
+import com.meli.frescos.service.IPurchaseOrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks of the PurchaseOrderService hot paths
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PurchaseOrderServiceBenchmark extends SpringBenchmarkState {
+
+    private static final int ORDER_PRODUCTS = 5;
+
+    private IPurchaseOrderService iPurchaseOrderService;
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    protected void prepare() {
+        iPurchaseOrderService = context.getBean(IPurchaseOrderService.class);
+    }
+
+    @Benchmark
+    public BigDecimal savePurchaseGetPrice() {
+        long first = counter.getAndAdd(ORDER_PRODUCTS);
+        List<OrderProductsRequest> products = new ArrayList<>();
+        for (int line = 0; line < ORDER_PRODUCTS; line++) {
+            products.add(new OrderProductsRequest(productAt(first + line), 1, null));
+        }
+        return iPurchaseOrderService.savePurchaseGetPrice(new PurchaseOrderRequest(LocalDate.now(), dataset.getBuyerId(), products));
+    }
+}
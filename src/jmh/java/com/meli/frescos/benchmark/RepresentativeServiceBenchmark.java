@@ -0,0 +1,77 @@
+package com.meli.frescos.benchmark;
+
+import com.meli.frescos.exception.RepresentativeWarehouseNotAssociatedException;
+import com.meli.frescos.model.RepresentativeModel;
+import com.meli.frescos.service.IRepresentativeService;
+import com.meli.frescos.service.IWarehouseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the representative validation run by every inbound order and BatchStock change
+ * The primaryKeyLookups variants reproduce the previous validation, with one Warehouse and one Representative lookup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepresentativeServiceBenchmark extends SpringBenchmarkState {
+
+    private IRepresentativeService iRepresentativeService;
+
+    private IWarehouseService iWarehouseService;
+
+    private Long representativeId;
+
+    private Long warehouseId;
+
+    @Override
+    protected void prepare() {
+        iRepresentativeService = context.getBean(IRepresentativeService.class);
+        iWarehouseService = context.getBean(IWarehouseService.class);
+        representativeId = dataset.getRepresentativeId();
+        warehouseId = dataset.getWarehouseId();
+    }
+
+    @Benchmark
+    public void validateRepresentative() throws Exception {
+        iRepresentativeService.validateRepresentative(representativeId, warehouseId);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void validateRepresentative_contended() throws Exception {
+        iRepresentativeService.validateRepresentative(representativeId, warehouseId);
+    }
+
+    @Benchmark
+    public void validateRepresentative_primaryKeyLookups() throws Exception {
+        primaryKeyLookups();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void validateRepresentative_primaryKeyLookups_contended() throws Exception {
+        primaryKeyLookups();
+    }
+
+    private void primaryKeyLookups() throws Exception {
+        iWarehouseService.getById(warehouseId);
+        RepresentativeModel representative = iRepresentativeService.getById(representativeId);
+        if (!representative.getWarehouse().getId().equals(warehouseId)) {
+            throw new RepresentativeWarehouseNotAssociatedException("Representante não pertence a este armazém!");
+        }
+    }
+}
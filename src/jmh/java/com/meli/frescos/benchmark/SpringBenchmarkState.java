@@ -0,0 +1,91 @@
+package com.meli.frescos.benchmark;
+
+import com.meli.frescos.FreshApplication;
+import com.meli.frescos.service.BatchStockExpiryIndex;
+import com.meli.frescos.service.FefoAllocator;
+import com.meli.frescos.service.ProductStockSummaryJob;
+import com.meli.frescos.service.PurchasedProductIndex;
+import com.meli.frescos.service.RepresentativeWarehouseTable;
+import com.meli.frescos.service.SectionOccupancyLedger;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Base state of the benchmarks
+ * Starts the application once per trial against an in-memory H2 database seeded with the given number of batches
+ * The in-memory views seeded when the application is ready are loaded again after the dataset insert,
+ * so the benchmarks measure their steady state and not cold misses
+ */
+@State(Scope.Benchmark)
+public abstract class SpringBenchmarkState {
+
+    /**
+     * Total number of BatchStocks in the database, from 10^3 to 10^6
+     */
+    @Param({"1000"})
+    public int batches;
+
+    protected ConfigurableApplicationContext context;
+
+    protected BenchmarkDataset dataset;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = new SpringApplicationBuilder(FreshApplication.class)
+                .profiles("benchmark")
+                .properties(properties())
+                .web(WebApplicationType.NONE)
+                .run();
+        dataset = new BenchmarkDataset(context.getBean(JdbcTemplate.class)).seed(batches);
+        warmUp();
+        prepare();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    /**
+     * Load the dataset into the views seeded on ApplicationReadyEvent, the product stock summary and the FEFO queues
+     */
+    private void warmUp() {
+        context.getBean(SectionOccupancyLedger.class).seed();
+        context.getBean(BatchStockExpiryIndex.class).seed();
+        context.getBean(ProductStockSummaryJob.class).rebuild();
+        context.getBean(RepresentativeWarehouseTable.class).seed();
+        context.getBean(PurchasedProductIndex.class).seed();
+        context.getBeanProvider(FefoAllocator.class).ifAvailable(fefoAllocator -> dataset.getProductIds()
+                .forEach(productId -> fefoAllocator.getAvailableQuantity(productId, LocalDate.now())));
+    }
+
+    /**
+     * Return the application properties of the benchmark, on top of the benchmark profile
+     */
+    protected Map<String, Object> properties() {
+        return Map.of();
+    }
+
+    /**
+     * Look up beans and build the benchmark inputs after the dataset is seeded
+     */
+    protected abstract void prepare() throws Exception;
+
+    /**
+     * Return the product id at the given position, cycling through all products
+     */
+    protected Long productAt(long position) {
+        return dataset.getProductIds().get((int) (position % dataset.getProductIds().size()));
+    }
+}
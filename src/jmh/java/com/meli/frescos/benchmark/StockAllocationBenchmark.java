@@ -0,0 +1,97 @@
+package com.meli.frescos.benchmark;
+
+import com.meli.frescos.controller.dto.OrderProductsRequest;
+import com.meli.frescos.controller.dto.PurchaseOrderRequest;
+import com.meli.frescos.model.PurchaseOrderModel;
+import com.meli.frescos.service.IBatchStockService;
+import com.meli.frescos.service.IOrderProductService;
+import com.meli.frescos.service.IPurchaseOrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contention benchmark of the stock allocators, closing orders that all take the same few hot products
+ * The fefo allocator reserves in memory, the skip-locked allocator locks the batch rows of each order
+ * Runs on the in-memory H2 database of SpringBenchmarkState, whose H2Dialect has no SKIP LOCKED:
+ * the skip-locked allocator waits for the rows locked by other orders instead of skipping them,
+ * so its results, above all closeOrder_contended, do not apply to skip-locked mode on MySQL
+ * and must not be used to compare the two allocators under contention
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockAllocationBenchmark extends SpringBenchmarkState {
+
+    private static final int HOT_PRODUCTS = 4;
+
+    private static final int ORDER_PRODUCTS = 2;
+
+    private static final int ORDER_COUNT = 64;
+
+    /**
+     * Value of frescos.stock.allocation, skip-locked measured without SKIP LOCKED on H2
+     */
+    @Param({"fefo", "skip-locked"})
+    public String allocation;
+
+    private IBatchStockService iBatchStockService;
+
+    private final List<Long> purchaseOrderIds = new ArrayList<>();
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    protected Map<String, Object> properties() {
+        return Map.of("frescos.stock.allocation", allocation);
+    }
+
+    @Override
+    protected void prepare() throws Exception {
+        iBatchStockService = context.getBean(IBatchStockService.class);
+        IPurchaseOrderService iPurchaseOrderService = context.getBean(IPurchaseOrderService.class);
+        IOrderProductService iOrderProductService = context.getBean(IOrderProductService.class);
+
+        for (int order = 0; order < ORDER_COUNT; order++) {
+            PurchaseOrderModel purchaseOrder = iPurchaseOrderService.save(new PurchaseOrderRequest(LocalDate.now(), dataset.getBuyerId(), List.of()));
+            for (int line = 0; line < ORDER_PRODUCTS; line++) {
+                iOrderProductService.save(new OrderProductsRequest(productAt((order + line) % HOT_PRODUCTS), 1, purchaseOrder.getId()));
+            }
+            purchaseOrderIds.add(purchaseOrder.getId());
+        }
+    }
+
+    @Benchmark
+    public Map<Long, Set<Long>> closeOrder() {
+        return iBatchStockService.consumeBatchStockOnPurchases(List.of(nextPurchaseOrderId()));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Map<Long, Set<Long>> closeOrder_contended() {
+        return iBatchStockService.consumeBatchStockOnPurchases(List.of(nextPurchaseOrderId()));
+    }
+
+    private Long nextPurchaseOrderId() {
+        return purchaseOrderIds.get((int) (counter.getAndIncrement() % ORDER_COUNT));
+    }
+}
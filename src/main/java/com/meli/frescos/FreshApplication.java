@@ -2,8 +2,10 @@ package com.meli.frescos;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FreshApplication {
 
     public static void main(String[] args) {
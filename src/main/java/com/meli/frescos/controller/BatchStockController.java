@@ -1,23 +1,32 @@
 package com.meli.frescos.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.meli.frescos.controller.dto.BatchStockFiltersResponse;
 import com.meli.frescos.controller.dto.BatchStockOrderResponse;
 import com.meli.frescos.controller.dto.BatchStockRequest;
 import com.meli.frescos.controller.dto.BatchStockResponse;
+import com.meli.frescos.controller.dto.PageCursor;
+import com.meli.frescos.controller.dto.PageResponse;
 import com.meli.frescos.exception.*;
 import com.meli.frescos.model.BatchStockModel;
 import com.meli.frescos.model.CategoryEnum;
+import com.meli.frescos.model.SectionModel;
 import com.meli.frescos.service.IBatchStockService;
 import com.meli.frescos.service.IProductService;
 import com.meli.frescos.service.IRepresentativeService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -28,14 +37,18 @@ import java.util.List;
 @RequestMapping("/batch-stock")
 public class BatchStockController {
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final IBatchStockService iBatchStockService;
     private final IRepresentativeService iRepresentativeService;
     private final IProductService iProductService;
+    private final ObjectMapper objectMapper;
 
-    public BatchStockController(IBatchStockService iBatchStockService, IRepresentativeService iRepresentativeService, IProductService iProductService) {
+    public BatchStockController(IBatchStockService iBatchStockService, IRepresentativeService iRepresentativeService, IProductService iProductService, ObjectMapper objectMapper) {
         this.iBatchStockService = iBatchStockService;
         this.iRepresentativeService = iRepresentativeService;
         this.iProductService = iProductService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -53,6 +66,42 @@ public class BatchStockController {
         return new ResponseEntity<>(batchStockResponseList, HttpStatus.OK);
     }
 
+    /**
+     * Return a page of BatchStocks ordered by id
+     * Return 200 OK when operation is success
+     *
+     * @param after nextCursor of the previous page, absent for the first page
+     * @param limit max number of BatchStocks in the page, up to 500
+     * @return a PageResponse with the BatchStocks and the next page cursor
+     * @throws PageCursorInvalidException when the cursor is not a nextCursor
+     */
+    @GetMapping("/page")
+    ResponseEntity<PageResponse<BatchStockResponse>> getPage(@RequestParam(required = false) String after,
+                                                             @RequestParam(defaultValue = "50") Integer limit) {
+        return new ResponseEntity<>(PageResponse.toResponse(iBatchStockService.getPage(PageCursor.decode(after), PageCursor.limit(limit)), BatchStockResponse::toResponse, BatchStockModel::getId), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint to export all BatchStocks as newline-delimited JSON, one BatchStockResponse per line
+     * Rows are streamed from the database and written as they are read, so memory does not grow with the table size
+     * Return 200 OK when operation is success
+     *
+     * @return a StreamingResponseBody writing every BatchStockResponse
+     */
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> export() {
+        ObjectWriter writer = objectMapper.writerFor(BatchStockResponse.class);
+        StreamingResponseBody body = outputStream -> iBatchStockService.forEachBatchStock(b -> {
+            try {
+                outputStream.write(writer.writeValueAsBytes(BatchStockResponse.toResponse(b)));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE)).body(body);
+    }
+
     /**
      * Endpoint to return a backStockModel given id
      * Return 200 OK when operation is success
@@ -67,46 +116,74 @@ public class BatchStockController {
     }
 
     /**
-     * Return a list of BatchStock given section id and number of days to a BatchStock due date
+     * Return a list of BatchStock given section id and number of days to a BatchStock due date, ordered by due date
      * Return 200 OK when operation is success
      *
      * @param sectionId the section id
      * @param numberOfDays number of days to be added to the current day to arrive at the due date to be sought
+     * @param offset number of BatchStocks to skip
+     * @param limit max number of BatchStocks, all of them when not informed
      * @return a list of BatchStock
      */
     @GetMapping("/section")
     ResponseEntity<List<BatchStockFiltersResponse>> getBySectionDueDate(@RequestParam Long sectionId,
-                                                                        @RequestParam Integer numberOfDays) throws Exception {
+                                                                        @RequestParam Integer numberOfDays,
+                                                                        @RequestParam(defaultValue = "0") Integer offset,
+                                                                        @RequestParam(required = false) Integer limit) throws Exception {
         List<BatchStockFiltersResponse> batchStockResponseList = iBatchStockService
-                .getBySectionIdAndDueDate(sectionId, numberOfDays)
+                .getBySectionIdAndDueDate(sectionId, numberOfDays, Math.max(0, offset), toLimit(limit))
                 .stream()
-                .sorted(Comparator.comparing(BatchStockModel::getDueDate))
                 .map(BatchStockFiltersResponse::toResponse).toList();
         return new ResponseEntity<>(batchStockResponseList, HttpStatus.OK);
     }
 
     /**
-     * Return a list of BatchStock given category and number of days to a BatchStock due date
+     * Return a list of BatchStock given category and number of days to a BatchStock due date, ordered by due date
      * Return 200 OK when operation is success
      *
      * @param category the category
      * @param numberOfDays number of days to be added to the current day to arrive at the due date to be sought
      * @param order order due date
+     * @param offset number of BatchStocks to skip
+     * @param limit max number of BatchStocks, all of them when not informed
      * @return a list of BatchStock
      */
     @GetMapping("/category")
     ResponseEntity<List<BatchStockFiltersResponse>> getByCategoryDueDate(@RequestParam String category,
                                                                          @RequestParam Integer numberOfDays,
-                                                                         @RequestParam String order) throws Exception {
+                                                                         @RequestParam String order,
+                                                                         @RequestParam(defaultValue = "0") Integer offset,
+                                                                         @RequestParam(required = false) Integer limit) throws Exception {
 
         List<BatchStockFiltersResponse> batchStockResponseList = iBatchStockService
-                .getByCategoryAndDueDate(CategoryEnum.getEnum(category), numberOfDays)
+                .getByCategoryAndDueDate(CategoryEnum.getEnum(category), numberOfDays, order.equalsIgnoreCase("ASC"), Math.max(0, offset), toLimit(limit))
                 .stream()
-                .sorted(order.equalsIgnoreCase("ASC") ? Comparator.comparing(BatchStockModel::getDueDate) : Comparator.comparing(BatchStockModel::getDueDate).reversed())
                 .map(BatchStockFiltersResponse::toResponse).toList();
         return new ResponseEntity<>(batchStockResponseList, HttpStatus.OK);
     }
 
+    /**
+     * Stream the BatchStocks of a Warehouse or Section entering the given number of days to their due date, as Server-Sent Events
+     * Sends the BatchStocks already in the window, then the ones entering it or created and updated inside it
+     * Exactly one of warehouseId and sectionId must be informed
+     *
+     * @param warehouseId the warehouse id
+     * @param sectionId the section id
+     * @param numberOfDays number of days to be added to the current day to arrive at the due date to be sought
+     * @return the SseEmitter sending one batch-stock event per BatchStockFiltersResponse
+     * @throws BatchStockFilterScopeInvalidException when none or both of warehouseId and sectionId are informed
+     */
+    @GetMapping(value = "/expiring/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter streamExpiring(@RequestParam(required = false) Long warehouseId,
+                              @RequestParam(required = false) Long sectionId,
+                              @RequestParam Integer numberOfDays) {
+        return iBatchStockService.subscribeNearExpiry(warehouseId, sectionId, numberOfDays);
+    }
+
+    private int toLimit(Integer limit) {
+        return limit == null ? Integer.MAX_VALUE : Math.max(0, limit);
+    }
+
     /**
      * Return BatchStock given id
      * Return 200 OK when operation is success
@@ -138,6 +215,7 @@ public class BatchStockController {
         iRepresentativeService.validateRepresentative(representativeId, warehouseId);
         BatchStockModel batchStock = batchStockRequest.toModel();
         batchStock.setProduct(iProductService.getById(productId));
+        batchStock.setSection(SectionModel.builder().id(batchStockRequest.getSectionCode()).build());
         return new ResponseEntity<>(BatchStockResponse.toResponse(iBatchStockService.save(batchStock)),
                 HttpStatus.CREATED);
     }
@@ -175,14 +253,29 @@ public class BatchStockController {
         return new ResponseEntity<>(batchStock.stream().map(BatchStockOrderResponse::toResponse).toList(), HttpStatus.OK);
     }
 
+    /**
+     * PUT method to change a BatchStock
+     * Return 201 CREATED when operation is success
+     * Return 409 CONFLICT when the BatchStock was changed after the given version was read
+     *
+     * @param batchStockRequest the new values of the BatchStock
+     * @param batchStockId the BatchStock id
+     * @param version the BatchStock version read by the client
+     * @param representativeId the Representative id
+     * @param warehouseId the Warehouse id
+     * @return the updated BatchStockResponse
+     */
     @PutMapping
     ResponseEntity<BatchStockResponse> update(@RequestBody @Valid BatchStockRequest batchStockRequest,
                                             @RequestParam Long batchStockId,
+                                            @RequestParam Long version,
                                             @RequestParam Long representativeId,
                                             @RequestParam Long warehouseId) throws RepresentativeWarehouseNotAssociatedException, RepresentativeNotFoundException, WarehouseNotFoundException, ProductNotPermittedInSectionException, NotEnoughSpaceInSectionException {
         iRepresentativeService.validateRepresentative(representativeId, warehouseId);
-        BatchStockModel batchStock = iBatchStockService.updateBatchStock(batchStockRequest.toModel(), batchStockId);
-        return new ResponseEntity<>(BatchStockResponse.toResponse(iBatchStockService.save(batchStock)),
+        BatchStockModel batchStockModel = batchStockRequest.toModel();
+        batchStockModel.setVersion(version);
+        BatchStockModel batchStock = iBatchStockService.updateBatchStock(batchStockModel, batchStockId);
+        return new ResponseEntity<>(BatchStockResponse.toResponse(batchStock),
                 HttpStatus.CREATED);
     }
 }
\ No newline at end of file
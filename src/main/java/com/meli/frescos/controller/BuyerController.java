@@ -2,7 +2,10 @@ package com.meli.frescos.controller;
 
 import com.meli.frescos.controller.dto.BuyerRequest;
 import com.meli.frescos.controller.dto.BuyerResponse;
+import com.meli.frescos.controller.dto.PageCursor;
+import com.meli.frescos.controller.dto.PageResponse;
 import com.meli.frescos.exception.BuyerNotFoundException;
+import com.meli.frescos.exception.PageCursorInvalidException;
 import com.meli.frescos.model.BuyerModel;
 import com.meli.frescos.service.IBuyerService;
 import org.springframework.http.HttpStatus;
@@ -51,6 +54,21 @@ public class BuyerController {
         return new ResponseEntity<>(buyerResponseList, HttpStatus.OK);
     }
 
+    /**
+     * Return a page of Buyers ordered by id
+     * Return 200 OK when operation is success
+     *
+     * @param after nextCursor of the previous page, absent for the first page
+     * @param limit max number of Buyers in the page, up to 500
+     * @return a PageResponse with the Buyers and the next page cursor
+     * @throws PageCursorInvalidException when the cursor is not a nextCursor
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageResponse<BuyerResponse>> getPage(@RequestParam(required = false) String after,
+                                                               @RequestParam(defaultValue = "50") Integer limit) {
+        return new ResponseEntity<>(PageResponse.toResponse(service.getPage(PageCursor.decode(after), PageCursor.limit(limit)), BuyerResponse::toResponse, BuyerModel::getId), HttpStatus.OK);
+    }
+
     /**
      * Return a Buyer given id
      * Return 200 OK when operation is success
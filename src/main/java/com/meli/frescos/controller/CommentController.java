@@ -1,17 +1,21 @@
 package com.meli.frescos.controller;
 
+import com.meli.frescos.controller.dto.CommentPageResponse;
 import com.meli.frescos.controller.dto.CommentRequest;
 import com.meli.frescos.controller.dto.CommentResponse;
+import com.meli.frescos.controller.dto.PageCursor;
 import com.meli.frescos.exception.InvalidCommentException;
+import com.meli.frescos.exception.PageCursorInvalidException;
 import com.meli.frescos.model.CommentModel;
 import com.meli.frescos.service.ICommentService;
+import com.meli.frescos.service.IProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.List;
 
 /**
  * All endpoints related to Seller
@@ -24,6 +28,9 @@ public class CommentController {
     @Autowired
     ICommentService iCommentService;
 
+    @Autowired
+    IProductService iProductService;
+
     /**
      * Creates a new Comment instance.
      * Returns 201 CREATED when operation is success
@@ -38,15 +45,45 @@ public class CommentController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    /**
+     * Returns the most recent comments of a Product, newest first
+     * Only the first page of the comments is returned, up to frescos.comment-cache.page-size comments,
+     * the older ones are read from /{id}/page sending the returned nextCursor as "after"
+     * Returns 204 NO CONTENT when the Product has no comments
+     *
+     * @param productId the Product id
+     * @return a CommentPageResponse with the comments and the next page cursor
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<CommentResponse> getRecentComment(@PathVariable("id") Long productId) {
-        List<CommentModel> responseCommentModel = iCommentService.getRecentComments(productId);
-        if (responseCommentModel.isEmpty())
+    public ResponseEntity<CommentPageResponse> getRecentComment(@PathVariable("id") Long productId) {
+        Slice<CommentModel> comments = iCommentService.getRecentComments(productId);
+        if (comments.isEmpty())
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         else {
-            CommentResponse response = CommentResponse.toResponse(responseCommentModel);
+            CommentPageResponse response = CommentPageResponse.toResponse(iProductService.getById(productId).getProductTitle(), comments);
             return new ResponseEntity<>(response, HttpStatus.OK);
         }
 
     }
+
+    /**
+     * Returns a page of the comments of a Product, newest first
+     * Returns 200 OK with an empty page when the Product has no more comments
+     *
+     * @param productId the Product id
+     * @param after nextCursor of the previous page, absent for the first page
+     * @param limit max number of comments in the page, up to 500
+     * @return a CommentPageResponse with the comments and the next page cursor
+     * @throws PageCursorInvalidException when the cursor is not a nextCursor
+     */
+    @GetMapping("/{id}/page")
+    public ResponseEntity<CommentPageResponse> getPage(@PathVariable("id") Long productId,
+                                                       @RequestParam(required = false) String after,
+                                                       @RequestParam(defaultValue = "50") Integer limit) {
+        PageCursor.TimestampKey before = PageCursor.decodeTimestampKey(after);
+        Slice<CommentModel> comments = before == null
+                ? iCommentService.getPage(productId, null, null, PageCursor.limit(limit))
+                : iCommentService.getPage(productId, before.timestamp(), before.id(), PageCursor.limit(limit));
+        return new ResponseEntity<>(CommentPageResponse.toResponse(iProductService.getById(productId).getProductTitle(), comments), HttpStatus.OK);
+    }
 }
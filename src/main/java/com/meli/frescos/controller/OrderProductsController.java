@@ -2,6 +2,9 @@ package com.meli.frescos.controller;
 
 import com.meli.frescos.controller.dto.OrderProductsRequest;
 import com.meli.frescos.controller.dto.OrderProductsResponse;
+import com.meli.frescos.controller.dto.PageCursor;
+import com.meli.frescos.controller.dto.PageResponse;
+import com.meli.frescos.exception.PageCursorInvalidException;
 import com.meli.frescos.model.OrderProductsModel;
 import com.meli.frescos.service.IOrderProductService;
 import org.springframework.http.HttpStatus;
@@ -40,6 +43,21 @@ public class OrderProductsController {
         return new ResponseEntity<>(orderProductResponseList, HttpStatus.OK);
     }
 
+    /**
+     * Return a page of OrderProducts ordered by id
+     * Return 200 OK when operation is success
+     *
+     * @param after nextCursor of the previous page, absent for the first page
+     * @param limit max number of OrderProducts in the page, up to 500
+     * @return a PageResponse with the OrderProducts and the next page cursor
+     * @throws PageCursorInvalidException when the cursor is not a nextCursor
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageResponse<OrderProductsResponse>> getPage(@RequestParam(required = false) String after,
+                                                                       @RequestParam(defaultValue = "50") Integer limit) {
+        return new ResponseEntity<>(PageResponse.toResponse(iOrderProductService.getPage(PageCursor.decode(after), PageCursor.limit(limit)), OrderProductsResponse::toResponse, OrderProductsModel::getId), HttpStatus.OK);
+    }
+
     /**
      * Creates a new OrderProducts instance.
      * Returns 201 CREATED when operation is success
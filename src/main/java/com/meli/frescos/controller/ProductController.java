@@ -2,19 +2,27 @@ package com.meli.frescos.controller;
 
 import com.meli.frescos.controller.dto.*;
 import com.meli.frescos.exception.NullDueDateException;
+import com.meli.frescos.exception.PageCursorInvalidException;
 import com.meli.frescos.exception.ProductByIdNotFoundException;
 import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.model.CategoryEnum;
 import com.meli.frescos.model.ProductModel;
+import com.meli.frescos.repository.ProductStockSummary;
 import com.meli.frescos.service.IBatchStockService;
 import com.meli.frescos.service.IProductService;
 import com.meli.frescos.service.IRepresentativeService;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @RestController to Product
@@ -43,13 +51,29 @@ public class ProductController {
      */
     @GetMapping
     public ResponseEntity<List<ProductResponse>> getAll() throws NullDueDateException {
-        List<ProductResponse> productResponseList = new ArrayList<>();
-        for (ProductModel product : iProductService.getAll()) {
-            productResponseList.add(ProductResponse.toResponse(product, iBatchStockService.getTotalBatchStockQuantity(product.getId()), iBatchStockService.getClosestDueDate(product.getId())));
-        }
+        List<ProductResponse> productResponseList = toResponseList(iProductService.getAll(), iBatchStockService.getStockSummary());
         return new ResponseEntity<>(productResponseList, HttpStatus.OK);
     }
 
+    /**
+     * Return a page of Product ordered by id
+     * Return 200 OK when operation is success
+     *
+     * @param after nextCursor of the previous page, absent for the first page
+     * @param limit max number of products in the page, up to 500
+     * @return a PageResponse with the products and the next page cursor
+     * @throws PageCursorInvalidException when the cursor is not a nextCursor
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageResponse<ProductResponse>> getPage(@RequestParam(required = false) String after,
+                                                                 @RequestParam(defaultValue = "50") Integer limit) throws NullDueDateException {
+        Slice<ProductModel> products = iProductService.getPage(PageCursor.decode(after), PageCursor.limit(limit));
+        List<Long> productIds = products.getContent().stream().map(ProductModel::getId).toList();
+        List<ProductResponse> productResponseList = toResponseList(products.getContent(), iBatchStockService.getStockSummaryByProductIds(productIds));
+        Long lastId = productIds.isEmpty() ? null : productIds.get(productIds.size() - 1);
+        return new ResponseEntity<>(PageResponse.toResponse(productResponseList, lastId, products.hasNext()), HttpStatus.OK);
+    }
+
     /**
      * Endpoint to return a Product given id
      *
@@ -59,20 +83,9 @@ public class ProductController {
     @GetMapping("/{id}")
     public ResponseEntity<ProductDetailedResponse> getById(@PathVariable Long id) throws ProductByIdNotFoundException {
         ProductModel product = iProductService.getById(id);
-        List<BatchStockModel> batchStockListWithDuplicatedSections = iBatchStockService.getAll().stream().filter(x -> x.getProduct().getId() == product.getId()).toList();
-        List<SimplifiedBatchStockResponse> stockResponseList = new ArrayList<>();
-
-        batchStockListWithDuplicatedSections.forEach(x -> stockResponseList.add(new SimplifiedBatchStockResponse(x.getSection().getId(), x.getQuantity())));
-
-        for (BatchStockModel stock : batchStockListWithDuplicatedSections) {
-            List<SimplifiedBatchStockResponse> stockResponseFilteredBySectionId = stockResponseList.stream().filter(x -> x.getSectionId() == stock.getSection().getId()).toList();
-
-            if(stockResponseFilteredBySectionId.size() > 1) {
-                Integer totalStockProductQuantity = stockResponseFilteredBySectionId.stream().mapToInt(SimplifiedBatchStockResponse::getProductQuantity).sum();
-                stockResponseList.removeIf(x -> x.getSectionId() == stock.getSection().getId());
-                stockResponseList.add(new SimplifiedBatchStockResponse(stock.getSection().getId(), totalStockProductQuantity));
-            }
-        }
+        List<SimplifiedBatchStockResponse> stockResponseList = iBatchStockService.getQuantityBySection(product.getId()).stream()
+                .map(SimplifiedBatchStockResponse::toResponse)
+                .toList();
         return new ResponseEntity<>(ProductDetailedResponse.toResponse(product, stockResponseList), HttpStatus.OK);
     }
 
@@ -88,15 +101,50 @@ public class ProductController {
         iRepresentativeService.validateRepresentative(productBatchStockRequest.getInboundOrder().getRepresentativeCode(), productBatchStockRequest.getInboundOrder().getWarehouseCode());
         ProductModel requestProduct = productBatchStockRequest.toProduct();
         List<BatchStockModel> requestBatchStockList = productBatchStockRequest.toBatchStock();
-        iBatchStockService.validateBatches(requestProduct, requestBatchStockList);
-        requestProduct = iProductService.save(requestProduct);
-        for (BatchStockModel requestBatchStock : requestBatchStockList) {
-            requestBatchStock.setProduct(requestProduct);
-            requestBatchStock = iBatchStockService.save(requestBatchStock);
-        }
+        requestBatchStockList.forEach(b -> b.setProduct(requestProduct));
+        iBatchStockService.saveInboundOrders(requestBatchStockList);
         return new ResponseEntity<>(ProductBatchStockResponse.toResponse(requestProduct, requestBatchStockList), HttpStatus.CREATED);
     }
 
+    /**
+     * Creates many Product instances and their batches in a single request.
+     * Representatives are validated once per warehouse and all batches are validated and saved together.
+     * Returns 201 CREATED when operation is success
+     *
+     * @param bulkInboundOrderRequest BulkInboundOrderRequest instance
+     * @return a list of ProductBatchStockResponse, in the request order
+     */
+    @PostMapping("/inboundorder/bulk")
+    public ResponseEntity<List<ProductBatchStockResponse>> saveAll(@Valid @RequestBody BulkInboundOrderRequest bulkInboundOrderRequest) throws Exception {
+        List<ProductBatchStockRequest> productBatchStockRequests = bulkInboundOrderRequest.toProductBatchStockRequests();
+        Set<List<Long>> validatedRepresentatives = new HashSet<>();
+        for (ProductBatchStockRequest request : productBatchStockRequests) {
+            InboundOrderRequest inboundOrder = request.getInboundOrder();
+            if (validatedRepresentatives.add(Arrays.asList(inboundOrder.getRepresentativeCode(), inboundOrder.getWarehouseCode()))) {
+                iRepresentativeService.validateRepresentative(inboundOrder.getRepresentativeCode(), inboundOrder.getWarehouseCode());
+            }
+        }
+
+        List<ProductModel> requestProducts = new ArrayList<>();
+        List<List<BatchStockModel>> requestBatchStockLists = new ArrayList<>();
+        List<BatchStockModel> allBatchStocks = new ArrayList<>();
+        for (ProductBatchStockRequest request : productBatchStockRequests) {
+            ProductModel requestProduct = request.toProduct();
+            List<BatchStockModel> requestBatchStockList = request.toBatchStock();
+            requestBatchStockList.forEach(b -> b.setProduct(requestProduct));
+            requestProducts.add(requestProduct);
+            requestBatchStockLists.add(requestBatchStockList);
+            allBatchStocks.addAll(requestBatchStockList);
+        }
+        iBatchStockService.saveInboundOrders(allBatchStocks);
+
+        List<ProductBatchStockResponse> responseList = new ArrayList<>();
+        for (int i = 0; i < requestProducts.size(); i++) {
+            responseList.add(ProductBatchStockResponse.toResponse(requestProducts.get(i), requestBatchStockLists.get(i)));
+        }
+        return new ResponseEntity<>(responseList, HttpStatus.CREATED);
+    }
+
     /**
      * Returns the product filtered by category
      * Return 200 OK when operation is success
@@ -110,13 +158,29 @@ public class ProductController {
         if (products.isEmpty())
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 
-        List<ProductResponse> productResponse = new ArrayList<>();
+        List<ProductResponse> productResponse = toResponseList(products, iBatchStockService.getStockSummaryByCategory(CategoryEnum.getEnum(filter)));
+
+        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+    }
 
+    /**
+     * Maps a list of Product to ProductResponse using the BatchStock summary of each product
+     *
+     * @param products list of ProductModel
+     * @param stockSummary map of ProductStockSummary by product id
+     * @return a list of ProductResponse
+     * @throws NullDueDateException when a product has no BatchStock
+     */
+    private List<ProductResponse> toResponseList(List<ProductModel> products, Map<Long, ProductStockSummary> stockSummary) throws NullDueDateException {
+        List<ProductResponse> productResponseList = new ArrayList<>();
         for (ProductModel product : products) {
-            productResponse.add(ProductResponse.toResponse(product, iBatchStockService.getTotalBatchStockQuantity(product.getId()), iBatchStockService.getClosestDueDate(product.getId())));
+            ProductStockSummary summary = stockSummary.get(product.getId());
+            if (summary == null) {
+                throw new NullDueDateException("Null DueDate on database!");
+            }
+            productResponseList.add(ProductResponse.toResponse(product, summary.getTotalQuantity().intValue(), summary.getClosestDueDate()));
         }
-
-        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+        return productResponseList;
     }
 
 }
@@ -1,19 +1,25 @@
 package com.meli.frescos.controller;
 
+import com.meli.frescos.controller.dto.PageCursor;
+import com.meli.frescos.controller.dto.PageResponse;
 import com.meli.frescos.controller.dto.PurchaseOrderRequest;
 import com.meli.frescos.controller.dto.PurchaseOrderResponse;
-import com.meli.frescos.exception.NotEnoughStockException;
+import com.meli.frescos.controller.dto.PurchaseOrderStatusResponse;
+import com.meli.frescos.exception.PageCursorInvalidException;
 import com.meli.frescos.model.OrderStatusEnum;
 import com.meli.frescos.model.PurchaseOrderModel;
 import com.meli.frescos.service.PurchaseOrderService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import java.math.BigDecimal;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * All endpoints related an purchase order
@@ -46,15 +52,28 @@ public class PurchaseOrderController {
 
 
     /**
-     * Endpoint to update Status from purchase order
+     * Endpoint to request a purchase order to be closed
+     * The order is closed asynchronously, its progress is available at the returned Location
      * @param id
-     * @return status 200 OK
-     * @throws Exception
+     * @return PurchaseOrderStatusResponse and status 202 ACCEPTED, or 200 OK when already closed,
+     * or 503 SERVICE UNAVAILABLE with Retry-After when the close queue is full
      */
     @PatchMapping("/{id}")
-    ResponseEntity<Void> updateStatus(@PathVariable Long id) throws NotEnoughStockException {
-        purchaseOrderService.updateStatus(id);
-        return new ResponseEntity<>(HttpStatus.OK);
+    ResponseEntity<PurchaseOrderStatusResponse> updateStatus(@PathVariable Long id) {
+        PurchaseOrderModel purchaseOrder = purchaseOrderService.requestClose(id);
+        HttpStatus status = purchaseOrder.getOrderStatus() == OrderStatusEnum.CLOSED ? HttpStatus.OK : HttpStatus.ACCEPTED;
+        URI statusUri = ServletUriComponentsBuilder.fromCurrentRequest().path("/status").build().toUri();
+        return ResponseEntity.status(status).location(statusUri).body(PurchaseOrderStatusResponse.toResponse(purchaseOrder));
+    }
+
+    /**
+     * Endpoint to get the close status of a purchase order
+     * @param id
+     * @return PurchaseOrderStatusResponse and status 200 OK
+     */
+    @GetMapping("/{id}/status")
+    ResponseEntity<PurchaseOrderStatusResponse> getStatus(@PathVariable Long id) {
+        return new ResponseEntity<>(PurchaseOrderStatusResponse.toResponse(purchaseOrderService.getById(id)), HttpStatus.OK);
     }
 
     /**
@@ -66,4 +85,19 @@ public class PurchaseOrderController {
         List<PurchaseOrderModel> purchaseOrderModels = purchaseOrderService.getAll();
         return new ResponseEntity<>(purchaseOrderModels, HttpStatus.OK);
     }
+
+    /**
+     * Return a page of PurchaseOrders ordered by id
+     * Return 200 OK when operation is success
+     *
+     * @param after nextCursor of the previous page, absent for the first page
+     * @param limit max number of PurchaseOrders in the page, up to 500
+     * @return a PageResponse with the PurchaseOrders and the next page cursor
+     * @throws PageCursorInvalidException when the cursor is not a nextCursor
+     */
+    @GetMapping("/page")
+    ResponseEntity<PageResponse<PurchaseOrderModel>> getPage(@RequestParam(required = false) String after,
+                                                             @RequestParam(defaultValue = "50") Integer limit) {
+        return new ResponseEntity<>(PageResponse.toResponse(purchaseOrderService.getPage(PageCursor.decode(after), PageCursor.limit(limit)), Function.identity(), PurchaseOrderModel::getId), HttpStatus.OK);
+    }
 }
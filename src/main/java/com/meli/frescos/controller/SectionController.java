@@ -1,7 +1,10 @@
 package com.meli.frescos.controller;
 
+import com.meli.frescos.controller.dto.PageCursor;
+import com.meli.frescos.controller.dto.PageResponse;
 import com.meli.frescos.controller.dto.SectionRequest;
 import com.meli.frescos.controller.dto.SectionResponse;
+import com.meli.frescos.exception.PageCursorInvalidException;
 import com.meli.frescos.exception.SectionByIdNotFoundException;
 import com.meli.frescos.exception.WarehouseNotFoundException;
 import com.meli.frescos.model.SectionModel;
@@ -38,6 +41,21 @@ public class SectionController {
         return new ResponseEntity<>(findAllSections, HttpStatus.OK);
     }
 
+    /**
+     * Return a page of Sections ordered by id
+     * Return 200 OK when operation is success
+     *
+     * @param after nextCursor of the previous page, absent for the first page
+     * @param limit max number of Sections in the page, up to 500
+     * @return a PageResponse with the Sections and the next page cursor
+     * @throws PageCursorInvalidException when the cursor is not a nextCursor
+     */
+    @GetMapping("/page")
+    ResponseEntity<PageResponse<SectionResponse>> getPage(@RequestParam(required = false) String after,
+                                                          @RequestParam(defaultValue = "50") Integer limit) {
+        return new ResponseEntity<>(PageResponse.toResponse(service.getPage(PageCursor.decode(after), PageCursor.limit(limit)), SectionResponse::toResponse, SectionModel::getId), HttpStatus.OK);
+    }
+
     /**
      * POST endpoint to store a {@link SectionModel}.
      * @param sectionRequest
@@ -1,7 +1,11 @@
 package com.meli.frescos.controller;
 
+import com.meli.frescos.controller.dto.PageCursor;
+import com.meli.frescos.controller.dto.PageResponse;
 import com.meli.frescos.controller.dto.SellerRequest;
 import com.meli.frescos.controller.dto.SellerResponse;
+import com.meli.frescos.exception.PageCursorInvalidException;
+import com.meli.frescos.model.SellerModel;
 import com.meli.frescos.service.ISellerService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -46,6 +50,21 @@ public class SellerController {
         return new ResponseEntity<>(sellerResponseList, HttpStatus.OK);
     }
 
+    /**
+     * Return a page of Sellers ordered by id
+     * Return 200 OK when operation is success
+     *
+     * @param after nextCursor of the previous page, absent for the first page
+     * @param limit max number of Sellers in the page, up to 500
+     * @return a PageResponse with the Sellers and the next page cursor
+     * @throws PageCursorInvalidException when the cursor is not a nextCursor
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageResponse<SellerResponse>> getPage(@RequestParam(required = false) String after,
+                                                                @RequestParam(defaultValue = "50") Integer limit) {
+        return new ResponseEntity<>(PageResponse.toResponse(service.getPage(PageCursor.decode(after), PageCursor.limit(limit)), SellerResponse::toResponse, SellerModel::getId), HttpStatus.OK);
+    }
+
     /**
      * Return a Seller given id
      * Return 200 OK when operation is success
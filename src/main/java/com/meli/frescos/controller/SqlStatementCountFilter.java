@@ -0,0 +1,106 @@
+package com.meli.frescos.controller;
+
+import com.meli.frescos.repository.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Counts the SQL statements executed by each request
+ * Published as the frescos.http.sql.statements summary tagged by uri pattern, and as the X-SQL-Statements response header
+ * when frescos.metrics.sql-statement-header is enabled, so N+1 queries show up while developing and testing
+ * Only the request thread is counted, statements of streamed and async responses are not
+ */
+@Component
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String HEADER_NAME = "X-SQL-Statements";
+
+    static final String METRIC_NAME = "frescos.http.sql.statements";
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean header;
+
+    public SqlStatementCountFilter(MeterRegistry meterRegistry,
+                                   @Value("${frescos.metrics.sql-statement-header:false}") boolean header) {
+        this.meterRegistry = meterRegistry;
+        this.header = header;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementCounter.start();
+        HttpServletResponse countedResponse = header ? new HeaderOnCommitResponse(response) : response;
+        try {
+            filterChain.doFilter(request, countedResponse);
+        } finally {
+            if (header && !response.isCommitted()) {
+                response.setIntHeader(HEADER_NAME, SqlStatementCounter.current());
+            }
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC_NAME)
+                    .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                    .register(meterRegistry)
+                    .record(SqlStatementCounter.stop());
+        }
+    }
+
+    /**
+     * Sets the statement count header right before the body starts, while headers can still be written
+     */
+    private static final class HeaderOnCommitResponse extends HttpServletResponseWrapper {
+
+        private HeaderOnCommitResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        private void setCountHeader() {
+            if (!isCommitted()) {
+                setIntHeader(HEADER_NAME, SqlStatementCounter.current());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            setCountHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            setCountHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            setCountHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            setCountHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            setCountHeader();
+            super.sendError(sc);
+        }
+    }
+}
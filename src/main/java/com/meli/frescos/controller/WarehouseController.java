@@ -1,7 +1,10 @@
 package com.meli.frescos.controller;
 
+import com.meli.frescos.controller.dto.PageCursor;
+import com.meli.frescos.controller.dto.PageResponse;
 import com.meli.frescos.controller.dto.WarehouseRequest;
 import com.meli.frescos.controller.dto.WarehouseResponse;
+import com.meli.frescos.exception.PageCursorInvalidException;
 import com.meli.frescos.exception.UsedPrimaryKeyConstraintException;
 import com.meli.frescos.exception.WarehouseNotFoundException;
 import com.meli.frescos.model.WarehouseModel;
@@ -61,6 +64,21 @@ public class WarehouseController {
         return new ResponseEntity<>(warehouseResponseList, HttpStatus.OK);
     }
 
+    /**
+     * Return a page of Warehouses ordered by id
+     * Return 200 OK when operation is success
+     *
+     * @param after nextCursor of the previous page, absent for the first page
+     * @param limit max number of Warehouses in the page, up to 500
+     * @return a PageResponse with the Warehouses and the next page cursor
+     * @throws PageCursorInvalidException when the cursor is not a nextCursor
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PageResponse<WarehouseResponse>> getPage(@RequestParam(required = false) String after,
+                                                                   @RequestParam(defaultValue = "50") Integer limit) {
+        return new ResponseEntity<>(PageResponse.toResponse(this.warehouseService.getPage(PageCursor.decode(after), PageCursor.limit(limit)), WarehouseResponse::toResponse, WarehouseModel::getId), HttpStatus.OK);
+    }
+
     /**
      * DELETE endpoint to store a {@link WarehouseModel}.
      * @param id the Warehouse id
@@ -51,6 +51,11 @@ public class BatchStockResponse {
      */
     private LocalDate dueDate;
 
+    /**
+     * BatchStockModel version, informed to change it
+     */
+    private Long version;
+
     /**
      * Maps BatchStockModel to BatchStockResponse
      * @param batchStockModel BatchStockModel
@@ -66,6 +71,7 @@ public class BatchStockResponse {
                 .manufacturingDate(batchStockModel.getManufacturingDate())
                 .manufacturingTime(batchStockModel.getManufacturingTime())
                 .dueDate(batchStockModel.getDueDate())
+                .version(batchStockModel.getVersion())
                 .build();
     }
 }
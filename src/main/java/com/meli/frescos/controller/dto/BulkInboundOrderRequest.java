@@ -0,0 +1,32 @@
+package com.meli.frescos.controller.dto;
+
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * Request DTO for bulk ProductBatchStock POST
+ */
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInboundOrderRequest {
+
+    /**
+     * InboundOrders data, one per product
+     */
+    @NotEmpty
+    private List<@Valid InboundOrderRequest> inboundOrders;
+
+    /**
+     * Maps each InboundOrderRequest to ProductBatchStockRequest
+     * @return List of ProductBatchStockRequest
+     */
+    public List<ProductBatchStockRequest> toProductBatchStockRequests() {
+        return inboundOrders.stream().map(i -> ProductBatchStockRequest.builder().inboundOrder(i).build()).toList();
+    }
+}
@@ -0,0 +1,50 @@
+package com.meli.frescos.controller.dto;
+
+import com.meli.frescos.model.CommentModel;
+import lombok.*;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * DTO response to the paged comment feed of a Product
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CommentPageResponse {
+
+    /**
+     * Product name
+     */
+    private String productName;
+
+    /**
+     * Comments of the current page, newest first
+     */
+    private List<CommentResponse.CommentSimplified> comments;
+
+    /**
+     * Opaque cursor to be sent as "after" to fetch the next page, null when there is no next page
+     */
+    private String nextCursor;
+
+    /**
+     * Maps a page of the comments of a Product to CommentPageResponse
+     *
+     * @param productName the product title
+     * @param slice the page of comments, newest first
+     * @return CommentPageResponse
+     */
+    public static CommentPageResponse toResponse(String productName, Slice<CommentModel> slice) {
+        List<CommentModel> content = slice.getContent();
+        CommentModel last = content.isEmpty() ? null : content.get(content.size() - 1);
+        return CommentPageResponse.builder()
+                .productName(productName)
+                .comments(content.stream().map(CommentResponse.CommentSimplified::toResponse).toList())
+                .nextCursor(slice.hasNext() && last != null ? PageCursor.encode(last.getCreatedAt(), last.getId()) : null)
+                .build();
+    }
+}
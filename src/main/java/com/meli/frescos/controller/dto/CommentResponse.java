@@ -28,24 +28,6 @@ public class CommentResponse {
      */
     private List<CommentSimplified> comments;
 
-    /**
-     * Maps SellerModel to SellerResponse
-     *
-     * @param commentModelList
-     * @return CommentResponse
-     */
-    public static CommentResponse toResponse(List<CommentModel> commentModelList) {
-        List<CommentSimplified> comments = new ArrayList<>();
-
-        for (CommentModel commentModel : commentModelList)
-            comments.add(CommentSimplified.toResponse(commentModel));
-
-        return CommentResponse.builder()
-                .comments(comments)
-                .productName(commentModelList.get(0).getProduct().getProductTitle())
-                .build();
-    }
-
     /**
      * Maps SellerModel to SellerResponse
      *
@@ -67,7 +49,7 @@ public class CommentResponse {
     @NoArgsConstructor
     @AllArgsConstructor
     @Builder
-    private static class CommentSimplified {
+    static class CommentSimplified {
 
         String comment;
         LocalDateTime createdAt;
@@ -0,0 +1,121 @@
+package com.meli.frescos.controller.dto;
+
+import com.meli.frescos.exception.PageCursorInvalidException;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Opaque cursor of the keyset paged GET endpoints
+ * Encodes the id of the last item of a page, or its timestamp and id for feeds ordered by date, so clients cannot build or depend on cursors
+ */
+public final class PageCursor {
+
+    /**
+     * Max number of items of a page, whatever the requested limit
+     */
+    public static final int MAX_LIMIT = 500;
+
+    private static final int TIMESTAMP_KEY_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    private PageCursor() {
+    }
+
+    /**
+     * Return the cursor of the page after the given id
+     *
+     * @param lastId id of the last item of the page
+     * @return the cursor
+     */
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(lastId).array());
+    }
+
+    /**
+     * Return the id after which the page starts given a cursor
+     *
+     * @param cursor the cursor, null or blank for the first page
+     * @return the last id of the previous page, 0 for the first page
+     * @throws PageCursorInvalidException when the cursor was not created by encode
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new PageCursorInvalidException(cursor);
+            }
+            long lastId = ByteBuffer.wrap(bytes).getLong();
+            if (lastId <= 0) {
+                throw new PageCursorInvalidException(cursor);
+            }
+            return lastId;
+        } catch (IllegalArgumentException e) {
+            throw new PageCursorInvalidException(cursor);
+        }
+    }
+
+    /**
+     * Return the cursor of the page after the given timestamp and id
+     *
+     * @param lastTimestamp timestamp of the last item of the page
+     * @param lastId id of the last item of the page
+     * @return the cursor
+     */
+    public static String encode(LocalDateTime lastTimestamp, long lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(TIMESTAMP_KEY_BYTES)
+                .putLong(lastTimestamp.toEpochSecond(ZoneOffset.UTC))
+                .putInt(lastTimestamp.getNano())
+                .putLong(lastId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Return the timestamp and id after which the page starts given a cursor
+     *
+     * @param cursor the cursor, null or blank for the first page
+     * @return the key of the last item of the previous page, null for the first page
+     * @throws PageCursorInvalidException when the cursor was not created by encode
+     */
+    public static TimestampKey decodeTimestampKey(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != TIMESTAMP_KEY_BYTES) {
+                throw new PageCursorInvalidException(cursor);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            LocalDateTime lastTimestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            long lastId = buffer.getLong();
+            if (lastId <= 0) {
+                throw new PageCursorInvalidException(cursor);
+            }
+            return new TimestampKey(lastTimestamp, lastId);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new PageCursorInvalidException(cursor);
+        }
+    }
+
+    /**
+     * Return the page size given the requested limit, between 1 and MAX_LIMIT
+     *
+     * @param limit the requested limit
+     * @return the page size
+     */
+    public static int limit(Integer limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Timestamp and id of the last item of a page ordered by date
+     */
+    public record TimestampKey(LocalDateTime timestamp, long id) {
+    }
+}
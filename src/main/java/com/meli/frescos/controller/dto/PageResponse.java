@@ -0,0 +1,54 @@
+package com.meli.frescos.controller.dto;
+
+import lombok.*;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Response DTO for keyset paged GET endpoints
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PageResponse<T> {
+
+    /**
+     * Items of the current page, ordered by id
+     */
+    private List<T> items;
+
+    /**
+     * Opaque cursor to be sent as "after" to fetch the next page, null when there is no next page
+     */
+    private String nextCursor;
+
+    /**
+     * Maps a page of items to PageResponse
+     * @param items items of the page
+     * @param lastId id of the last item of the page
+     * @param hasNext true when there are more items after this page
+     * @return PageResponse
+     */
+    public static <T> PageResponse<T> toResponse(List<T> items, Long lastId, boolean hasNext) {
+        return PageResponse.<T>builder()
+                .items(items)
+                .nextCursor(hasNext && lastId != null ? PageCursor.encode(lastId) : null)
+                .build();
+    }
+
+    /**
+     * Maps a slice of models to PageResponse
+     * @param slice the slice of models, ordered by id
+     * @param mapper maps a model to its response
+     * @param idOf returns the id of a model
+     * @return PageResponse
+     */
+    public static <M, T> PageResponse<T> toResponse(Slice<M> slice, Function<M, T> mapper, Function<M, Long> idOf) {
+        List<M> content = slice.getContent();
+        return toResponse(content.stream().map(mapper).toList(), content.isEmpty() ? null : idOf.apply(content.get(content.size() - 1)), slice.hasNext());
+    }
+}
@@ -0,0 +1,42 @@
+package com.meli.frescos.controller.dto;
+
+import com.meli.frescos.model.OrderStatusEnum;
+import com.meli.frescos.model.PurchaseOrderModel;
+import lombok.*;
+
+/**
+ * Response DTO for PurchaseOrder close status
+ */
+@Getter
+@Setter
+@Builder
+public class PurchaseOrderStatusResponse {
+
+    /**
+     * PurchaseOrder id
+     */
+    private Long id;
+
+    /**
+     * PurchaseOrder orderStatus
+     */
+    private OrderStatusEnum orderStatus;
+
+    /**
+     * Reason why the last close request failed
+     */
+    private String closeFailure;
+
+    /**
+     * Maps PurchaseOrderModel to PurchaseOrderStatusResponse
+     * @param purchaseOrder PurchaseOrderModel
+     * @return PurchaseOrderStatusResponse
+     */
+    public static PurchaseOrderStatusResponse toResponse(PurchaseOrderModel purchaseOrder) {
+        return PurchaseOrderStatusResponse.builder()
+                .id(purchaseOrder.getId())
+                .orderStatus(purchaseOrder.getOrderStatus())
+                .closeFailure(purchaseOrder.getCloseFailure())
+                .build();
+    }
+}
@@ -1,6 +1,7 @@
 package com.meli.frescos.controller.dto;
 
 import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.repository.SectionQuantity;
 import lombok.*;
 
 /**
@@ -34,4 +35,16 @@ public class SimplifiedBatchStockResponse {
                 .productQuantity(batchStockModel.getQuantity())
                 .build();
     }
+
+    /**
+     * Maps SectionQuantity to SimplifiedBatchStockResponse
+     * @param sectionQuantity SectionQuantity
+     * @return SimplifiedBatchStockResponse
+     */
+    public static SimplifiedBatchStockResponse toResponse(SectionQuantity sectionQuantity) {
+        return SimplifiedBatchStockResponse.builder()
+                .sectionId(sectionQuantity.getSectionId())
+                .productQuantity(sectionQuantity.getQuantity().intValue())
+                .build();
+    }
 }
@@ -0,0 +1,11 @@
+package com.meli.frescos.exception;
+
+/**
+ * This exception is used when a filter is not scoped to exactly one warehouse or section
+ */
+public class BatchStockFilterScopeInvalidException extends RuntimeException {
+
+    public BatchStockFilterScopeInvalidException() {
+        super("Informe exatamente um entre warehouseId e sectionId");
+    }
+}
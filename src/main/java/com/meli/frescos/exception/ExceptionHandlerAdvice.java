@@ -1,6 +1,7 @@
 package com.meli.frescos.exception;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -221,6 +222,40 @@ public class ExceptionHandlerAdvice extends ResponseEntityExceptionHandler {
                 HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * This method handles the PageCursorInvalidException
+     *
+     * @param ex The original exception
+     * @return A ResponseEntity to represent the HTTP error
+     */
+    @ExceptionHandler(PageCursorInvalidException.class)
+    public ResponseEntity<ExceptionDetails> handlerPageCursorInvalidException(PageCursorInvalidException ex) {
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .title("Cursor inválido")
+                        .message(ex.getMessage())
+                        .timestamp(LocalDateTime.now())
+                        .build(),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * This method handles the BatchStockFilterScopeInvalidException
+     *
+     * @param ex The original exception
+     * @return A ResponseEntity to represent the HTTP error
+     */
+    @ExceptionHandler(BatchStockFilterScopeInvalidException.class)
+    public ResponseEntity<ExceptionDetails> handlerBatchStockFilterScopeInvalidException(BatchStockFilterScopeInvalidException ex) {
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .title("Filtro inválido")
+                        .message(ex.getMessage())
+                        .timestamp(LocalDateTime.now())
+                        .build(),
+                HttpStatus.BAD_REQUEST);
+    }
+
     /**
      * This method handles the SectionByIdNotFoundException
      *
@@ -391,4 +426,38 @@ public class ExceptionHandlerAdvice extends ResponseEntityExceptionHandler {
                         .build(),
                 HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+
+    /**
+     * This method handles the OptimisticLockingFailureException
+     *
+     * @param ex The original exception
+     * @return A ResponseEntity to represent the HTTP error
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ExceptionDetails> handlerOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .title("Alteração concorrente")
+                        .message("O registro foi alterado por outra operação, tente novamente")
+                        .timestamp(LocalDateTime.now())
+                        .build(),
+                HttpStatus.CONFLICT);
+    }
+
+    /**
+     * This method handles the PurchaseOrderCloseQueueFullException
+     *
+     * @param ex The original exception
+     * @return A ResponseEntity to represent the HTTP error, asking the client to retry after a second
+     */
+    @ExceptionHandler(PurchaseOrderCloseQueueFullException.class)
+    public ResponseEntity<ExceptionDetails> handlerPurchaseOrderCloseQueueFullException(PurchaseOrderCloseQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ExceptionDetails.builder()
+                        .title("Fechamento indisponível")
+                        .message(ex.getMessage())
+                        .timestamp(LocalDateTime.now())
+                        .build());
+    }
+}
@@ -1,10 +1,28 @@
 package com.meli.frescos.exception;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * This exception is used when not enough stock
  */
 public class NotEnoughStockException extends Exception {
+
+    private final Set<Long> productIds;
+
     public NotEnoughStockException(String message) {
+        this(message, new HashSet<>());
+    }
+
+    public NotEnoughStockException(String message, Set<Long> productIds) {
         super(message);
+        this.productIds = productIds;
+    }
+
+    /**
+     * @return ids of the products without enough stock, when known
+     */
+    public Set<Long> getProductIds() {
+        return productIds;
     }
 }
@@ -0,0 +1,11 @@
+package com.meli.frescos.exception;
+
+/**
+ * This exception is used when a page cursor was not returned by a paged endpoint
+ */
+public class PageCursorInvalidException extends RuntimeException {
+
+    public PageCursorInvalidException(String cursor) {
+        super("Cursor de página inválido: " + cursor);
+    }
+}
@@ -0,0 +1,12 @@
+package com.meli.frescos.exception;
+
+/**
+ * This Exception is used when a PurchaseOrder can not be queued to be closed because the close queue is full
+ * The PurchaseOrder stays CLOSING and is queued again later
+ */
+public class PurchaseOrderCloseQueueFullException extends RuntimeException {
+
+    public PurchaseOrderCloseQueueFullException(Long id) {
+        super("Fila de fechamento cheia, o pedido de compra " + id + " será fechado mais tarde");
+    }
+}
@@ -0,0 +1,55 @@
+package com.meli.frescos.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Change of a BatchStock published through the outbox
+ */
+@Getter
+@AllArgsConstructor
+public class BatchStockChange {
+
+    /**
+     * BatchStock id
+     */
+    private Long batchStockId;
+
+    /**
+     * Product id of the BatchStock
+     */
+    private Long productId;
+
+    /**
+     * Section id of the BatchStock
+     */
+    private Long sectionId;
+
+    /**
+     * Quantity after the change, null for debits
+     */
+    private Integer quantity;
+
+    /**
+     * Quantity added, negative when removed
+     */
+    private int quantityDelta;
+
+    /**
+     * Due date after the change, null for debits
+     */
+    private LocalDate dueDate;
+
+    /**
+     * Maps a created or updated BatchStockModel to BatchStockChange
+     * @param batchStock the BatchStock after the change
+     * @param quantityDelta quantity added
+     * @return BatchStockChange
+     */
+    public static BatchStockChange of(BatchStockModel batchStock, int quantityDelta) {
+        return new BatchStockChange(batchStock.getId(), batchStock.getProduct().getId(), batchStock.getSection().getId(),
+                batchStock.getQuantity(), quantityDelta, batchStock.getDueDate());
+    }
+}
@@ -15,15 +15,22 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "batch_stock")
+@Table(
+        name = "batch_stock",
+        indexes = {
+        @Index(name = "idx_batch_stock_section_due_date", columnList = "section_id, due_date"),
+        @Index(name = "idx_batch_stock_product_due_date", columnList = "product_id, due_date")
+})
 public class BatchStockModel {
 
     /**
      * BatchStockModel ID
-     * Auto-generated
+     * Generated from a pooled sequence, so inserts can be sent in JDBC batches
+     * The sequence is moved above the existing ids at startup, see BatchStockIdSequence
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "batch_stock_seq")
+    @SequenceGenerator(name = "batch_stock_seq", sequenceName = "batch_stock_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -56,9 +63,9 @@ public class BatchStockModel {
 
     /**
      * BatchStockModel due date
-     * Not Nullable
+     * Not Nullable, indexed together with section and product for the near-expiry queries
      */
-    @Column(nullable = false)
+    @Column(name = "due_date", nullable = false)
     private LocalDate dueDate;
 
     /**
@@ -76,4 +83,12 @@ public class BatchStockModel {
     @JoinColumn(nullable = false)
     @ManyToOne
     private SectionModel section;
+
+    /**
+     * BatchStockModel version
+     * Incremented on every change, including the SQL debits, so concurrent updates are detected instead of overwritten
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
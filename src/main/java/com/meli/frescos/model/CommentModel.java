@@ -16,7 +16,9 @@ import java.time.LocalDateTime;
         name = "comment",
         uniqueConstraints = {
         @UniqueConstraint(columnNames = {"product_id", "buyer_id"})
-})
+},
+        // backs the product comment feed, ordered by creation date
+        indexes = @Index(name = "idx_comment_product_created_at", columnList = "product_id, created_at"))
 public class CommentModel {
 
     /**
@@ -31,14 +33,14 @@ public class CommentModel {
     @Column(nullable = false)
     private String comment;
 
-    @Column(nullable = false)
+    @Column(name = "created_at", nullable = false)
     LocalDateTime createdAt = LocalDateTime.now();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     ProductModel product;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "buyer_id")
     BuyerModel buyer;
 }
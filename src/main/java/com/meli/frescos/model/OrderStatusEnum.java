@@ -2,5 +2,6 @@ package com.meli.frescos.model;
 
 public enum OrderStatusEnum {
     OPEN,
+    CLOSING,
     CLOSED
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package com.meli.frescos.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Main OutboxEvent Entity
+ * Written in the same transaction as the change it describes and removed once published
+ * Delivered at least once and without a global order, consumers drop the events whose id they have already seen
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEventModel {
+
+    /**
+     * OutboxEvent ID.
+     * Auto-generated, identifies the event for deduplication
+     * Ids are taken at insert and may commit out of order, so they are not a publishing order
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * OutboxEvent type
+     * Not nullable.
+     */
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OutboxEventTypeEnum eventType;
+
+    /**
+     * Id of the changed BatchStock or PurchaseOrder
+     * Not nullable.
+     */
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    /**
+     * Change as JSON
+     * Not nullable.
+     */
+    @Lob
+    @JsonRawValue
+    @Column(nullable = false)
+    private String payload;
+
+    /**
+     * OutboxEvent creation date and time
+     * Not nullable.
+     */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
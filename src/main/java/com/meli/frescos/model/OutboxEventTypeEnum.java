@@ -0,0 +1,9 @@
+package com.meli.frescos.model;
+
+public enum OutboxEventTypeEnum {
+    BATCH_STOCK_CREATED,
+    BATCH_STOCK_UPDATED,
+    BATCH_STOCK_DEBITED,
+    PURCHASE_ORDER_CLOSED,
+    PURCHASE_ORDER_CLOSE_FAILED
+}
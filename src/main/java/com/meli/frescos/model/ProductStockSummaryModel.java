@@ -0,0 +1,55 @@
+package com.meli.frescos.model;
+
+import com.meli.frescos.repository.ProductStockSummary;
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Materialized BatchStock totals of a single Product
+ * Changed in the same transaction as the BatchStocks of the Product and rebuilt from them every day
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "product_stock_summary")
+public class ProductStockSummaryModel implements ProductStockSummary {
+
+    /**
+     * Product ID.
+     * One summary per Product
+     */
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    /**
+     * Sum of the quantity of all Product batches
+     * Not nullable.
+     */
+    @Column(nullable = false)
+    private Long totalQuantity;
+
+    /**
+     * Sum of the quantity of the Product batches that can still be sold, due in 3 weeks or more from sellableAsOf
+     * Not nullable.
+     */
+    @Column(nullable = false)
+    private Long sellableQuantity;
+
+    /**
+     * Day sellableQuantity was computed for
+     * Not nullable.
+     */
+    @Column(nullable = false)
+    private LocalDate sellableAsOf;
+
+    /**
+     * Closest due date between all Product batches, null when the Product has no batch
+     */
+    private LocalDate closestDueDate;
+}
@@ -49,4 +49,11 @@ public class PurchaseOrderModel {
     @ManyToOne
     private BuyerModel buyer;
 
+    /**
+     * Reason why the last close request failed
+     * Nullable, cleared when the PurchaseOrder is requested to close again
+     */
+    @Column(name = "close_failure")
+    private String closeFailure;
+
 }
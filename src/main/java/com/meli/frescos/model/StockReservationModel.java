@@ -0,0 +1,57 @@
+package com.meli.frescos.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Time-bounded hold of a BatchStock quantity for an open PurchaseOrder
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "stock_reservation")
+public class StockReservationModel {
+
+    /**
+     * StockReservationModel ID
+     * Auto-generated
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * BatchStock holding the quantity(Foreign key)
+     * Not Nullable
+     */
+    @JoinColumn(nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    private BatchStockModel batchStock;
+
+    /**
+     * PurchaseOrder owning the hold(Foreign key)
+     * Not Nullable
+     */
+    @JoinColumn(nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    private PurchaseOrderModel purchaseOrder;
+
+    /**
+     * Quantity held
+     * Not Nullable
+     */
+    @Column(nullable = false)
+    private Integer quantity;
+
+    /**
+     * Moment the hold stops being valid
+     * Not Nullable
+     */
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
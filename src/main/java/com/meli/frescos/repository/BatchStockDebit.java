@@ -0,0 +1,32 @@
+package com.meli.frescos.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Quantity to be debited from a single BatchStock
+ */
+@Getter
+@AllArgsConstructor
+public class BatchStockDebit {
+
+    /**
+     * BatchStock id
+     */
+    private Long batchStockId;
+
+    /**
+     * Section id of the BatchStock
+     */
+    private Long sectionId;
+
+    /**
+     * Product id of the BatchStock
+     */
+    private Long productId;
+
+    /**
+     * Quantity to debit
+     */
+    private int quantity;
+}
@@ -0,0 +1,32 @@
+package com.meli.frescos.repository;
+
+import com.meli.frescos.model.CategoryEnum;
+
+import java.time.LocalDate;
+
+/**
+ * Projection with the due date and location of a single BatchStock
+ * Used to seed the in-memory expiry index without loading the entities
+ */
+public interface BatchStockDueDate {
+
+    /**
+     * BatchStock id
+     */
+    Long getBatchStockId();
+
+    /**
+     * Section id of the BatchStock
+     */
+    Long getSectionId();
+
+    /**
+     * Category of the BatchStock Section
+     */
+    CategoryEnum getCategory();
+
+    /**
+     * BatchStock due date
+     */
+    LocalDate getDueDate();
+}
@@ -4,29 +4,97 @@ import com.meli.frescos.model.BatchStockModel;
 import com.meli.frescos.model.BuyerModel;
 import com.meli.frescos.model.ProductModel;
 import com.meli.frescos.model.SectionModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigInteger;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.cfg.AvailableSettings.JPA_LOCK_TIMEOUT;
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface BatchStockRepository extends JpaRepository<BatchStockModel, Long> {
+public interface BatchStockRepository extends JpaRepository<BatchStockModel, Long>, BatchStockRepositoryCustom {
+
+    @Override
+    @EntityGraph(attributePaths = "section")
+    List<BatchStockModel> findAll();
+
+    @EntityGraph(attributePaths = "section")
+    Slice<BatchStockModel> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     List<BatchStockModel> findByProduct(ProductModel product);
 
     List<BatchStockModel> findByProductAndDueDateGreaterThanEqual(ProductModel product, LocalDate dueDate);
 
     List<BatchStockModel> findBySection(SectionModel section);
 
+    List<BatchStockModel> findByProductIdOrderByDueDateAsc(Long productId);
+
     List<BatchStockModel> findBySectionAndDueDateBetween(SectionModel section, LocalDate dueDate, LocalDate dueDate2);
 
-    @Query("FROM BatchStockModel bsm where bsm.product.id = :productId and bsm.dueDate >= :dateToCompare")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT bsm FROM BatchStockModel bsm JOIN FETCH bsm.section s JOIN FETCH s.warehouse JOIN FETCH bsm.product p JOIN FETCH p.seller")
+    Stream<BatchStockModel> streamAll();
+
+    @Query("SELECT bsm FROM BatchStockModel bsm JOIN FETCH bsm.section s JOIN FETCH s.warehouse JOIN FETCH bsm.product p JOIN FETCH p.seller WHERE bsm.id IN :ids")
+    List<BatchStockModel> findAllFetchedById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lock the sellable BatchStocks of a Product, in FEFO order, returning their whole quantity as debits, until the surrounding transaction ends
+     * Rows locked by other transactions are skipped (SKIP LOCKED), dialects without it wait for them instead
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = JPA_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT new com.meli.frescos.repository.BatchStockDebit(bsm.id, bsm.section.id, bsm.product.id, bsm.quantity) FROM BatchStockModel bsm WHERE bsm.product.id = :productId AND bsm.dueDate >= :minDueDate AND bsm.quantity > 0 ORDER BY bsm.dueDate, bsm.id")
+    List<BatchStockDebit> findUnlockedDebitsForUpdate(@Param("productId") Long productId, @Param("minDueDate") LocalDate minDueDate);
+
+    /**
+     * Lock the sellable BatchStocks of a Product, in FEFO order, waiting for the rows locked by other transactions
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.meli.frescos.repository.BatchStockDebit(bsm.id, bsm.section.id, bsm.product.id, bsm.quantity) FROM BatchStockModel bsm WHERE bsm.product.id = :productId AND bsm.dueDate >= :minDueDate AND bsm.quantity > 0 ORDER BY bsm.dueDate, bsm.id")
+    List<BatchStockDebit> findDebitsForUpdate(@Param("productId") Long productId, @Param("minDueDate") LocalDate minDueDate);
+
+    @Query("SELECT bsm.id AS batchStockId, bsm.section.id AS sectionId, bsm.section.category AS category, bsm.dueDate AS dueDate FROM BatchStockModel bsm WHERE bsm.dueDate >= :minDueDate")
+    List<BatchStockDueDate> findDueDates(@Param("minDueDate") LocalDate minDueDate);
+
+    @Query("FROM BatchStockModel bsm JOIN FETCH bsm.section s JOIN FETCH s.warehouse where bsm.product.id = :productId and bsm.dueDate >= :dateToCompare")
     List<BatchStockModel> findProducts(@Param("productId") Long productModel, @Param("dateToCompare") LocalDate dateToCompare);
 
-    @Query(value = "SELECT count(*) FROM Purchase_order po INNER JOIN Order_Products op on po.id = op.purchase_order_id WHERE po.order_Status = 'CLOSED' AND po.buyer_id = :buyerId AND op.product_id = :productId", nativeQuery = true)
-    BigInteger findByBuyerAndProduct(Long buyerId, Long productId);
+    @Query("SELECT bsm.product.id AS productId, SUM(bsm.quantity) AS totalQuantity, SUM(CASE WHEN bsm.dueDate >= :minDueDate THEN bsm.quantity ELSE 0 END) AS sellableQuantity, " +
+            "MIN(bsm.dueDate) AS closestDueDate FROM BatchStockModel bsm WHERE bsm.product.id IN :productIds GROUP BY bsm.product.id")
+    List<ProductStockTotals> findStockTotalsByProductIds(@Param("productIds") Collection<Long> productIds, @Param("minDueDate") LocalDate minDueDate);
+
+    @Query("SELECT bsm.product.id AS productId, SUM(bsm.quantity) - COALESCE((SELECT SUM(r.quantity) FROM StockReservationModel r WHERE r.batchStock.product.id = bsm.product.id AND r.batchStock.dueDate >= :minDueDate), 0) AS availableQuantity " +
+            "FROM BatchStockModel bsm WHERE bsm.product.id IN :productIds AND bsm.dueDate >= :minDueDate GROUP BY bsm.product.id")
+    List<ProductAvailability> findAvailabilityByProductIds(@Param("productIds") Collection<Long> productIds, @Param("minDueDate") LocalDate minDueDate);
+
+    @Query("SELECT bsm.section.id AS sectionId, SUM(bsm.quantity) AS quantity FROM BatchStockModel bsm WHERE bsm.product.id = :productId GROUP BY bsm.section.id ORDER BY bsm.section.id")
+    List<SectionQuantity> findQuantityBySectionByProductId(@Param("productId") Long productId);
+
+    @Query("SELECT bsm.section.id AS sectionId, SUM(bsm.quantity * bsm.product.unitVolume) AS usedVolume FROM BatchStockModel bsm GROUP BY bsm.section.id")
+    List<SectionOccupancy> findSectionOccupancy();
+
+    @Query("SELECT COALESCE(SUM(bsm.quantity * bsm.product.unitVolume), 0) FROM BatchStockModel bsm WHERE bsm.section.id = :sectionId")
+    Double findUsedVolumeBySectionId(@Param("sectionId") Long sectionId);
 
 }
@@ -0,0 +1,11 @@
+package com.meli.frescos.repository;
+
+import java.util.List;
+
+/**
+ * BatchStock operations implemented with plain JDBC
+ */
+public interface BatchStockRepositoryCustom {
+
+    void debitQuantities(List<BatchStockDebit> debits);
+}
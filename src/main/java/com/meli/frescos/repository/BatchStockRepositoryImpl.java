@@ -0,0 +1,52 @@
+package com.meli.frescos.repository;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC implementation of BatchStockRepositoryCustom
+ */
+public class BatchStockRepositoryImpl implements BatchStockRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BatchStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Debit the quantities of many BatchStocks in a single JDBC batch, in the given order
+     * Only the quantity and version columns are written, the version bump makes concurrent entity updates of the BatchStock fail
+     * Each update only applies while the BatchStock still has the quantity, a debit that changed no row means another
+     * transaction took the stock first; the caller must roll back, as the other debits of the batch were applied
+     * Relies on the driver reporting the count of each statement, so MySQL rewriteBatchedStatements must stay off
+     *
+     * @param debits the list of debits
+     * @throws OptimisticLockingFailureException when any BatchStock has less than its debit
+     */
+    @Override
+    public void debitQuantities(List<BatchStockDebit> debits) {
+        int[][] updateCounts = jdbcTemplate.batchUpdate("UPDATE batch_stock SET quantity = quantity - ?, version = version + 1 WHERE id = ? AND quantity >= ?", debits, debits.size(),
+                (ps, debit) -> {
+                    ps.setInt(1, debit.getQuantity());
+                    ps.setLong(2, debit.getBatchStockId());
+                    ps.setInt(3, debit.getQuantity());
+                });
+        List<Long> shortBatchStockIds = new ArrayList<>();
+        int index = 0;
+        for (int[] batchCounts : updateCounts) {
+            for (int updateCount : batchCounts) {
+                if (updateCount == 0) {
+                    shortBatchStockIds.add(debits.get(index).getBatchStockId());
+                }
+                index++;
+            }
+        }
+        if (!shortBatchStockIds.isEmpty()) {
+            throw new OptimisticLockingFailureException("BatchStocks sem quantidade para o débito: " + shortBatchStockIds);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.meli.frescos.repository;
+
+/**
+ * Projection with a Product bought by a Buyer
+ */
+public interface BuyerPurchasedProduct {
+
+    /**
+     * Buyer id
+     */
+    Long getBuyerId();
+
+    /**
+     * Product id
+     */
+    Long getProductId();
+}
@@ -2,11 +2,15 @@ package com.meli.frescos.repository;
 
 import com.meli.frescos.model.BuyerModel;
 import com.meli.frescos.model.SellerModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
 public interface BuyerRepository extends JpaRepository<BuyerModel, Long> {
 
+    Slice<BuyerModel> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     Optional<BuyerModel> findByCpf(String cpf);
 }
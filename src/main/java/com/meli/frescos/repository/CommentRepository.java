@@ -1,15 +1,20 @@
 package com.meli.frescos.repository;
 
 import com.meli.frescos.model.CommentModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.util.List;
+import java.time.LocalDateTime;
 
 public interface CommentRepository extends JpaRepository<CommentModel, Long> {
 
-    public List<CommentModel> findByProductIdOrderByCreatedAtDesc(Long productId);
-
-    public CommentModel findByBuyerIdAndProductId(Long buyerId, long productId);
-
+    @Query("SELECT c FROM CommentModel c WHERE c.product.id = :productId ORDER BY c.createdAt DESC, c.id DESC")
+    Slice<CommentModel> findFirstPageByProductId(@Param("productId") Long productId, Pageable pageable);
 
+    @Query("SELECT c FROM CommentModel c WHERE c.product.id = :productId AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    Slice<CommentModel> findPageByProductIdBefore(@Param("productId") Long productId, @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
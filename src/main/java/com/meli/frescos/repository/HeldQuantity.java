@@ -0,0 +1,17 @@
+package com.meli.frescos.repository;
+
+/**
+ * Projection with the quantity held by active reservations of a single BatchStock
+ */
+public interface HeldQuantity {
+
+    /**
+     * BatchStock id
+     */
+    Long getBatchStockId();
+
+    /**
+     * Sum of the quantity of all holds of the BatchStock
+     */
+    Long getQuantity();
+}
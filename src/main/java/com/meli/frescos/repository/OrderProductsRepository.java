@@ -1,12 +1,40 @@
 package com.meli.frescos.repository;
 
 import com.meli.frescos.model.OrderProductsModel;
+import com.meli.frescos.model.OrderStatusEnum;
 import com.meli.frescos.model.PurchaseOrderModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface OrderProductsRepository extends JpaRepository<OrderProductsModel, Long> {
+public interface OrderProductsRepository extends JpaRepository<OrderProductsModel, Long>, OrderProductsRepositoryCustom {
+
+    @EntityGraph(attributePaths = {"productModel.seller", "purchaseOrderModel.buyer"})
+    Slice<OrderProductsModel> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"productModel.seller", "purchaseOrderModel.buyer"})
+    List<OrderProductsModel> findAll();
+
+    @EntityGraph(attributePaths = {"productModel.seller"})
     public List<OrderProductsModel> findByPurchaseOrderModel(PurchaseOrderModel purchaseOrderModel);
+
+    @Query("SELECT o FROM OrderProductsModel o JOIN FETCH o.productModel JOIN FETCH o.purchaseOrderModel p JOIN FETCH p.buyer WHERE p.id IN :purchaseOrderIds")
+    List<OrderProductsModel> findAllByPurchaseOrderIds(@Param("purchaseOrderIds") Collection<Long> purchaseOrderIds);
+
+    @Query("SELECT DISTINCT p.buyer.id AS buyerId, o.productModel.id AS productId FROM OrderProductsModel o JOIN o.purchaseOrderModel p WHERE p.orderStatus = :orderStatus")
+    List<BuyerPurchasedProduct> findPurchasedProducts(@Param("orderStatus") OrderStatusEnum orderStatus);
+
+    @Query("SELECT DISTINCT p.buyer.id AS buyerId, o.productModel.id AS productId FROM OrderProductsModel o JOIN o.purchaseOrderModel p WHERE p.id IN :purchaseOrderIds")
+    List<BuyerPurchasedProduct> findPurchasedProductsByPurchaseOrderIds(@Param("purchaseOrderIds") Collection<Long> purchaseOrderIds);
+
+    @Query("SELECT count(o) > 0 FROM OrderProductsModel o JOIN o.purchaseOrderModel p WHERE p.buyer.id = :buyerId AND o.productModel.id = :productId AND p.orderStatus = :orderStatus")
+    boolean existsPurchasedProduct(@Param("buyerId") Long buyerId, @Param("productId") Long productId, @Param("orderStatus") OrderStatusEnum orderStatus);
 }
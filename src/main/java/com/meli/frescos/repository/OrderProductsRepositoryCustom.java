@@ -0,0 +1,13 @@
+package com.meli.frescos.repository;
+
+import com.meli.frescos.model.OrderProductsModel;
+
+import java.util.List;
+
+/**
+ * OrderProducts operations implemented with plain JDBC
+ */
+public interface OrderProductsRepositoryCustom {
+
+    void insertAll(List<OrderProductsModel> orderProducts);
+}
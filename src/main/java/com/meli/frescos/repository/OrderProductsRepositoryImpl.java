@@ -0,0 +1,34 @@
+package com.meli.frescos.repository;
+
+import com.meli.frescos.model.OrderProductsModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * JDBC implementation of OrderProductsRepositoryCustom
+ */
+public class OrderProductsRepositoryImpl implements OrderProductsRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderProductsRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert many OrderProducts in a single JDBC batch
+     * Runs on the connection of the surrounding transaction, the generated ids are not read back
+     *
+     * @param orderProducts the order lines to insert, with their Product and PurchaseOrder already saved
+     */
+    @Override
+    public void insertAll(List<OrderProductsModel> orderProducts) {
+        jdbcTemplate.batchUpdate("INSERT INTO order_products (product_id, quantity, purchase_order_id) VALUES (?, ?, ?)", orderProducts, orderProducts.size(),
+                (ps, orderProduct) -> {
+                    ps.setLong(1, orderProduct.getProductModel().getId());
+                    ps.setInt(2, orderProduct.getQuantity());
+                    ps.setLong(3, orderProduct.getPurchaseOrderModel().getId());
+                });
+    }
+}
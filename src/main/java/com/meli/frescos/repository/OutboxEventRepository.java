@@ -0,0 +1,24 @@
+package com.meli.frescos.repository;
+
+import com.meli.frescos.model.OutboxEventModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.cfg.AvailableSettings.JPA_LOCK_TIMEOUT;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEventModel, Long>, OutboxEventRepositoryCustom {
+
+    /**
+     * Claim the oldest OutboxEvents not claimed by another transaction, until the transaction ends
+     * Rows locked by other relays are skipped (FOR UPDATE SKIP LOCKED), so concurrent relays publish different events
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = JPA_LOCK_TIMEOUT, value = "-2"))
+    List<OutboxEventModel> findAllByOrderByIdAsc(Pageable pageable);
+}
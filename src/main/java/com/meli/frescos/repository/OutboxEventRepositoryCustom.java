@@ -0,0 +1,13 @@
+package com.meli.frescos.repository;
+
+import com.meli.frescos.model.OutboxEventModel;
+
+import java.util.List;
+
+/**
+ * OutboxEvent operations implemented with plain JDBC
+ */
+public interface OutboxEventRepositoryCustom {
+
+    void insertAll(List<OutboxEventModel> events);
+}
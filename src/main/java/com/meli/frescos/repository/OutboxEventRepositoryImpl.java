@@ -0,0 +1,36 @@
+package com.meli.frescos.repository;
+
+import com.meli.frescos.model.OutboxEventModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC implementation of OutboxEventRepositoryCustom
+ */
+public class OutboxEventRepositoryImpl implements OutboxEventRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxEventRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert many OutboxEvents in a single JDBC batch
+     * Runs on the connection of the surrounding transaction
+     *
+     * @param events the events to insert
+     */
+    @Override
+    public void insertAll(List<OutboxEventModel> events) {
+        jdbcTemplate.batchUpdate("INSERT INTO outbox_event (event_type, aggregate_id, payload, created_at) VALUES (?, ?, ?, ?)", events, events.size(),
+                (ps, event) -> {
+                    ps.setString(1, event.getEventType().name());
+                    ps.setLong(2, event.getAggregateId());
+                    ps.setString(3, event.getPayload());
+                    ps.setTimestamp(4, Timestamp.valueOf(event.getCreatedAt()));
+                });
+    }
+}
@@ -0,0 +1,18 @@
+package com.meli.frescos.repository;
+
+/**
+ * Projection with the quantity of a single Product that can still be sold
+ * Filled by the grouped availability query of BatchStockRepository
+ */
+public interface ProductAvailability {
+
+    /**
+     * Product id
+     */
+    Long getProductId();
+
+    /**
+     * Sum of the valid batches quantity, minus the quantity held by StockReservations
+     */
+    Long getAvailableQuantity();
+}
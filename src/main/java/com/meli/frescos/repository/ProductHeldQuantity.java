@@ -0,0 +1,17 @@
+package com.meli.frescos.repository;
+
+/**
+ * Projection with the quantity held by active reservations of a single Product
+ */
+public interface ProductHeldQuantity {
+
+    /**
+     * Product id
+     */
+    Long getProductId();
+
+    /**
+     * Sum of the quantity of all holds of the Product
+     */
+    Long getQuantity();
+}
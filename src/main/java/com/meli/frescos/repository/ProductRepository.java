@@ -2,6 +2,9 @@ package com.meli.frescos.repository;
 
 import com.meli.frescos.model.CategoryEnum;
 import com.meli.frescos.model.ProductModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,6 +14,12 @@ import java.util.List;
 public interface ProductRepository extends JpaRepository<ProductModel, Long> {
     List<ProductModel> findByCategory(CategoryEnum filter);
 
+    @EntityGraph(attributePaths = "seller")
+    Slice<ProductModel> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT pm.id FROM ProductModel pm WHERE pm.id > :id ORDER BY pm.id")
+    List<Long> findIdsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
     @Query("SELECT DISTINCT(pm.id) FROM ProductModel pm INNER JOIN BatchStockModel bsm ON bsm.product.id = pm.id WHERE pm.id = :productId")
     ProductModel findProductByBatchstock(@Param("productId") Long productId);
 }
@@ -0,0 +1,25 @@
+package com.meli.frescos.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection with the BatchStock totals of a single Product
+ * Implemented by the materialized ProductStockSummaryModel
+ */
+public interface ProductStockSummary {
+
+    /**
+     * Product id
+     */
+    Long getProductId();
+
+    /**
+     * Sum of the quantity of all Product batches
+     */
+    Long getTotalQuantity();
+
+    /**
+     * Closest due date between all Product batches
+     */
+    LocalDate getClosestDueDate();
+}
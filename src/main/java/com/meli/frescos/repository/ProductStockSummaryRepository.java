@@ -0,0 +1,45 @@
+package com.meli.frescos.repository;
+
+import com.meli.frescos.model.CategoryEnum;
+import com.meli.frescos.model.ProductStockSummaryModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductStockSummaryRepository extends JpaRepository<ProductStockSummaryModel, Long>, ProductStockSummaryRepositoryCustom {
+
+    @Query("SELECT s FROM ProductStockSummaryModel s WHERE s.closestDueDate IS NOT NULL")
+    List<ProductStockSummaryModel> findAllStocked();
+
+    @Query("SELECT s FROM ProductStockSummaryModel s, ProductModel p WHERE p.id = s.productId AND p.category = :category AND s.closestDueDate IS NOT NULL")
+    List<ProductStockSummaryModel> findAllStockedByCategory(@Param("category") CategoryEnum category);
+
+    @Query("SELECT s FROM ProductStockSummaryModel s WHERE s.productId IN :productIds AND s.closestDueDate IS NOT NULL")
+    List<ProductStockSummaryModel> findAllStockedByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Lock the summaries of many Products until the surrounding transaction ends
+     * Rows are locked in product id order, so concurrent callers do not deadlock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockSummaryModel s WHERE s.productId IN :productIds ORDER BY s.productId")
+    List<ProductStockSummaryModel> findAllForUpdate(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Add new BatchStock quantity to the summary of a Product
+     * The row stays locked until the surrounding transaction ends, so concurrent changes of the same Product are serialized
+     *
+     * @return 1 when the summary changed, 0 when the Product has no summary yet
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ProductStockSummaryModel s SET s.totalQuantity = s.totalQuantity + :quantity, s.sellableQuantity = s.sellableQuantity + :sellableQuantity, " +
+            "s.closestDueDate = CASE WHEN s.closestDueDate IS NULL OR s.closestDueDate > :dueDate THEN :dueDate ELSE s.closestDueDate END WHERE s.productId = :productId")
+    int add(@Param("productId") Long productId, @Param("quantity") Long quantity, @Param("sellableQuantity") Long sellableQuantity, @Param("dueDate") LocalDate dueDate);
+}
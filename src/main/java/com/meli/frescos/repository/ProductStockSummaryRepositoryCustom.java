@@ -0,0 +1,12 @@
+package com.meli.frescos.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * ProductStockSummary operations implemented with plain JDBC
+ */
+public interface ProductStockSummaryRepositoryCustom {
+
+    void insertEmpty(Collection<Long> productIds, LocalDate sellableAsOf);
+}
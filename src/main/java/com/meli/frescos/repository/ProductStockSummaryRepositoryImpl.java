@@ -0,0 +1,35 @@
+package com.meli.frescos.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * JDBC implementation of ProductStockSummaryRepositoryCustom
+ */
+public class ProductStockSummaryRepositoryImpl implements ProductStockSummaryRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductStockSummaryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert the summary of many Products without BatchStock in a single JDBC batch
+     * Runs on the connection of the surrounding transaction
+     *
+     * @param productIds the product ids
+     * @param sellableAsOf the current day
+     */
+    @Override
+    public void insertEmpty(Collection<Long> productIds, LocalDate sellableAsOf) {
+        jdbcTemplate.batchUpdate("INSERT INTO product_stock_summary (product_id, total_quantity, sellable_quantity, sellable_as_of) VALUES (?, 0, 0, ?)", productIds, productIds.size(),
+                (ps, productId) -> {
+                    ps.setLong(1, productId);
+                    ps.setDate(2, Date.valueOf(sellableAsOf));
+                });
+    }
+}
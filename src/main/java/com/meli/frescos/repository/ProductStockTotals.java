@@ -0,0 +1,30 @@
+package com.meli.frescos.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection with the BatchStock totals of a single Product, including the quantity that can still be sold
+ * Filled by the grouped totals query of BatchStockRepository
+ */
+public interface ProductStockTotals {
+
+    /**
+     * Product id
+     */
+    Long getProductId();
+
+    /**
+     * Sum of the quantity of all Product batches
+     */
+    Long getTotalQuantity();
+
+    /**
+     * Sum of the quantity of the Product batches due on or after the minimum due date
+     */
+    Long getSellableQuantity();
+
+    /**
+     * Closest due date between all Product batches
+     */
+    LocalDate getClosestDueDate();
+}
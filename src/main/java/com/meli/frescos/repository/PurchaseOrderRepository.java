@@ -1,7 +1,38 @@
 package com.meli.frescos.repository;
 
+import com.meli.frescos.model.OrderStatusEnum;
 import com.meli.frescos.model.PurchaseOrderModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrderModel, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = "buyer")
+    List<PurchaseOrderModel> findAll();
+
+    @EntityGraph(attributePaths = "buyer")
+    Slice<PurchaseOrderModel> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT p.id FROM PurchaseOrderModel p WHERE p.orderStatus = :orderStatus")
+    List<Long> findIdsByOrderStatus(@Param("orderStatus") OrderStatusEnum orderStatus);
+
+    /**
+     * Move a PurchaseOrder to a new status only when it is in the expected one
+     * The row stays locked until the surrounding transaction ends, so concurrent transitions are serialized
+     *
+     * @return 1 when the status changed, 0 when the PurchaseOrder was not in the expected status
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PurchaseOrderModel p SET p.orderStatus = :to, p.closeFailure = :closeFailure WHERE p.id = :id AND p.orderStatus = :from")
+    int transition(@Param("id") Long id, @Param("from") OrderStatusEnum from, @Param("to") OrderStatusEnum to, @Param("closeFailure") String closeFailure);
 }
@@ -12,4 +12,7 @@ public interface RepresentativeRepository extends JpaRepository<RepresentativeMo
 
     @Query("SELECT representative FROM RepresentativeModel representative WHERE representative.warehouse.id = :warehouseId")
     RepresentativeModel findRepresentativeModelByWarehouseId(@Param("warehouseId") Long warehouseId);
+
+    @Query("SELECT representative.id AS representativeId, representative.warehouse.id AS warehouseId FROM RepresentativeModel representative")
+    List<RepresentativeWarehouse> findAllWarehouseIds();
 }
@@ -0,0 +1,17 @@
+package com.meli.frescos.repository;
+
+/**
+ * Projection with the Warehouse of a single Representative
+ */
+public interface RepresentativeWarehouse {
+
+    /**
+     * Representative id
+     */
+    Long getRepresentativeId();
+
+    /**
+     * Warehouse id of the Representative
+     */
+    Long getWarehouseId();
+}
@@ -0,0 +1,18 @@
+package com.meli.frescos.repository;
+
+/**
+ * Projection with the volume used by the BatchStocks of a single Section
+ * Filled by the grouped queries of BatchStockRepository
+ */
+public interface SectionOccupancy {
+
+    /**
+     * Section id
+     */
+    Long getSectionId();
+
+    /**
+     * Sum of quantity * product unit volume of all Section batches
+     */
+    Double getUsedVolume();
+}
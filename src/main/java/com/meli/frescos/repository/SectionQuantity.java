@@ -0,0 +1,18 @@
+package com.meli.frescos.repository;
+
+/**
+ * Projection with the quantity of a single product stored in a Section
+ * Filled by the grouped queries of BatchStockRepository
+ */
+public interface SectionQuantity {
+
+    /**
+     * Section id
+     */
+    Long getSectionId();
+
+    /**
+     * Sum of the quantity of the product batches in the Section
+     */
+    Long getQuantity();
+}
@@ -2,7 +2,12 @@ package com.meli.frescos.repository;
 
 import com.meli.frescos.model.CategoryEnum;
 import com.meli.frescos.model.SectionModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,6 +15,12 @@ import java.util.List;
 @Repository
 public interface SectionRepository extends JpaRepository<SectionModel, Long> {
 
+    @EntityGraph(attributePaths = "warehouse")
+    Slice<SectionModel> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     List<SectionModel> findByCategory(CategoryEnum category);
 
+    @Query("SELECT s.id FROM SectionModel s WHERE s.warehouse.id = :warehouseId")
+    List<Long> findIdsByWarehouseId(@Param("warehouseId") Long warehouseId);
+
 }
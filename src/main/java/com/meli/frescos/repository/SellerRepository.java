@@ -1,11 +1,15 @@
 package com.meli.frescos.repository;
 
 import com.meli.frescos.model.SellerModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
 public interface SellerRepository extends JpaRepository<SellerModel, Long> {
 
+    Slice<SellerModel> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     Optional<SellerModel> findByCpf(String cpf);
 }
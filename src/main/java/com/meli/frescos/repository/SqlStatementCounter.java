@@ -0,0 +1,47 @@
+package com.meli.frescos.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares in the current thread between start and stop
+ * Registered as the Hibernate statement inspector, statements run through JdbcTemplate are not counted
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    /**
+     * Start counting the statements of the current thread from zero
+     */
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * @return number of statements since start, 0 when not counting
+     */
+    public static int current() {
+        int[] count = COUNT.get();
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * Stop counting the statements of the current thread
+     *
+     * @return number of statements since start, 0 when not counting
+     */
+    public static int stop() {
+        int count = current();
+        COUNT.remove();
+        return count;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,47 @@
+package com.meli.frescos.repository;
+
+import com.meli.frescos.model.StockReservationModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservationModel, Long> {
+
+    @Query("SELECT new com.meli.frescos.repository.BatchStockDebit(r.batchStock.id, r.batchStock.section.id, r.batchStock.product.id, r.quantity) FROM StockReservationModel r WHERE r.purchaseOrder.id = :purchaseOrderId")
+    List<BatchStockDebit> findDebitsByPurchaseOrderId(@Param("purchaseOrderId") Long purchaseOrderId);
+
+    @Query("SELECT new com.meli.frescos.repository.BatchStockDebit(r.batchStock.id, r.batchStock.section.id, r.batchStock.product.id, r.quantity) FROM StockReservationModel r WHERE r.expiresAt < :now")
+    List<BatchStockDebit> findDebitsByExpiresAtBefore(@Param("now") LocalDateTime now);
+
+    @Query("SELECT r.batchStock.product.id AS productId, SUM(r.quantity) AS quantity FROM StockReservationModel r WHERE r.batchStock.product.id IN :productIds AND r.batchStock.dueDate >= :minDueDate GROUP BY r.batchStock.product.id")
+    List<ProductHeldQuantity> findHeldQuantityByProductIds(@Param("productIds") Collection<Long> productIds, @Param("minDueDate") LocalDate minDueDate);
+
+    @Query("SELECT r.batchStock.id AS batchStockId, SUM(r.quantity) AS quantity FROM StockReservationModel r WHERE r.batchStock.product.id = :productId GROUP BY r.batchStock.id")
+    List<HeldQuantity> findHeldQuantityByProductId(@Param("productId") Long productId);
+
+    /**
+     * Read the holds of the given BatchStocks with a locking read, so the latest committed holds are seen
+     * under REPEATABLE READ and no hold can be added to them until the transaction ends
+     * Returns one row per hold, the holds are not grouped so the read can be locked
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT r.batchStock.id AS batchStockId, r.quantity AS quantity FROM StockReservationModel r WHERE r.batchStock.id IN :batchStockIds")
+    List<HeldQuantity> findHeldQuantityByBatchStockIdsForShare(@Param("batchStockIds") Collection<Long> batchStockIds);
+
+    @Modifying
+    @Query("DELETE FROM StockReservationModel r WHERE r.purchaseOrder.id = :purchaseOrderId")
+    int deleteByPurchaseOrderId(@Param("purchaseOrderId") Long purchaseOrderId);
+
+    @Modifying
+    @Query("DELETE FROM StockReservationModel r WHERE r.expiresAt < :now")
+    int deleteByExpiresAtBefore(@Param("now") LocalDateTime now);
+}
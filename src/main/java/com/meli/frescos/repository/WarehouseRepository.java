@@ -2,6 +2,8 @@ package com.meli.frescos.repository;
 
 import com.meli.frescos.model.SectionModel;
 import com.meli.frescos.model.WarehouseModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,6 +11,9 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface WarehouseRepository extends JpaRepository<WarehouseModel, Long> {
+
+    Slice<WarehouseModel> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     @Query("SELECT section FROM SectionModel section join section.warehouse wh WHERE section.warehouse.id = :warehouseId")
     List<SectionModel> findSectionByWarehouseModelId(@Param("warehouseId") Long warehouseId);
 
@@ -0,0 +1,188 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.model.CategoryEnum;
+import com.meli.frescos.repository.BatchStockDueDate;
+import com.meli.frescos.repository.BatchStockRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of BatchStock ids bucketed by due date day, partitioned by Section and by Category
+ * Answers near-expiry queries already sorted and paged, without scanning the Sections
+ * Seeded at startup, updated on every BatchStock mutation and periodically rebuilt from the database
+ * Puts made while a rebuild reads the database are recorded and replayed onto the rebuilt index before it is published,
+ * so callers must put committed BatchStocks only
+ */
+@Component
+public class BatchStockExpiryIndex {
+
+    private final BatchStockRepository batchStockRepository;
+
+    private volatile Buckets buckets = new Buckets();
+
+    private final Object putLock = new Object();
+
+    private Map<Long, Entry> putsDuringSeed;
+
+    public BatchStockExpiryIndex(BatchStockRepository batchStockRepository) {
+        this.batchStockRepository = batchStockRepository;
+    }
+
+    /**
+     * Rebuild the index from the database, leaving out the already expired BatchStocks
+     * Runs when the application is ready and then periodically
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${frescos.expiry-index.rebuild-interval-ms:3600000}", initialDelayString = "${frescos.expiry-index.rebuild-interval-ms:3600000}")
+    public synchronized void seed() {
+        synchronized (putLock) {
+            putsDuringSeed = new LinkedHashMap<>();
+        }
+        try {
+            Buckets seeded = new Buckets();
+            for (BatchStockDueDate dueDate : batchStockRepository.findDueDates(LocalDate.now())) {
+                seeded.put(dueDate.getBatchStockId(), new Entry(dueDate.getSectionId(), dueDate.getCategory(), dueDate.getDueDate()));
+            }
+            synchronized (putLock) {
+                putsDuringSeed.forEach(seeded::put);
+                buckets = seeded;
+            }
+        } finally {
+            synchronized (putLock) {
+                putsDuringSeed = null;
+            }
+        }
+    }
+
+    /**
+     * Add a BatchStock to the index, moving it when its due date or Section changed
+     *
+     * @param batchStock the created or updated BatchStock
+     */
+    public void put(BatchStockModel batchStock) {
+        Entry entry = new Entry(batchStock.getSection().getId(), batchStock.getSection().getCategory(), batchStock.getDueDate());
+        synchronized (putLock) {
+            buckets.put(batchStock.getId(), entry);
+            if (putsDuringSeed != null) {
+                putsDuringSeed.put(batchStock.getId(), entry);
+            }
+        }
+    }
+
+    /**
+     * Return the ids of the BatchStocks of a Section with due date in the given range, ordered by due date
+     *
+     * @param sectionId the section id
+     * @param from first due date, inclusive
+     * @param to last due date, inclusive
+     * @param offset number of ids to skip
+     * @param limit max number of ids
+     * @return list of BatchStock id
+     */
+    public List<Long> getBySection(Long sectionId, LocalDate from, LocalDate to, int offset, int limit) {
+        return page(buckets.bySection.get(sectionId), from, to, true, offset, limit);
+    }
+
+    /**
+     * Return the ids of the BatchStocks of a Category with due date in the given range, ordered by due date
+     *
+     * @param category the category
+     * @param from first due date, inclusive
+     * @param to last due date, inclusive
+     * @param ascending true to return the closest due dates first
+     * @param offset number of ids to skip
+     * @param limit max number of ids
+     * @return list of BatchStock id
+     */
+    public List<Long> getByCategory(CategoryEnum category, LocalDate from, LocalDate to, boolean ascending, int offset, int limit) {
+        return page(buckets.byCategory.get(category), from, to, ascending, offset, limit);
+    }
+
+    /**
+     * Return the ids of every BatchStock with due date in the given range, walking the day buckets once
+     *
+     * @param from first due date, inclusive
+     * @param to last due date, inclusive
+     * @return list of BatchStock id
+     */
+    public List<Long> getBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return List.of();
+        }
+        return buckets.byCategory.values().stream()
+                .flatMap(dayBuckets -> dayBuckets.subMap(from, true, to, true).values().stream())
+                .flatMap(NavigableSet::stream)
+                .toList();
+    }
+
+    private List<Long> page(NavigableMap<LocalDate, NavigableSet<Long>> dayBuckets, LocalDate from, LocalDate to, boolean ascending, int offset, int limit) {
+        if (dayBuckets == null || from.isAfter(to)) {
+            return List.of();
+        }
+        NavigableMap<LocalDate, NavigableSet<Long>> range = dayBuckets.subMap(from, true, to, true);
+        return (ascending ? range : range.descendingMap()).values().stream()
+                .flatMap(ids -> (ascending ? ids : ids.descendingSet()).stream())
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Location of a BatchStock in the index
+     */
+    private record Entry(Long sectionId, CategoryEnum category, LocalDate dueDate) {
+    }
+
+    /**
+     * Day buckets of BatchStock ids, swapped as a whole when the index is rebuilt
+     * Writes are serialized, reads iterate the concurrent collections without locking
+     */
+    private static class Buckets {
+
+        private final Map<Long, NavigableMap<LocalDate, NavigableSet<Long>>> bySection = new ConcurrentHashMap<>();
+
+        private final Map<CategoryEnum, NavigableMap<LocalDate, NavigableSet<Long>>> byCategory = new ConcurrentHashMap<>();
+
+        private final Map<Long, Entry> entryByBatchStock = new ConcurrentHashMap<>();
+
+        synchronized void put(Long batchStockId, Entry entry) {
+            Entry previous = entryByBatchStock.put(batchStockId, entry);
+            if (entry.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                remove(bySection.get(previous.sectionId()), previous.dueDate(), batchStockId);
+                remove(byCategory.get(previous.category()), previous.dueDate(), batchStockId);
+            }
+            add(bySection.computeIfAbsent(entry.sectionId(), id -> new ConcurrentSkipListMap<>()), entry.dueDate(), batchStockId);
+            add(byCategory.computeIfAbsent(entry.category(), c -> new ConcurrentSkipListMap<>()), entry.dueDate(), batchStockId);
+        }
+
+        private static void add(NavigableMap<LocalDate, NavigableSet<Long>> dayBuckets, LocalDate dueDate, Long batchStockId) {
+            dayBuckets.computeIfAbsent(dueDate, d -> new ConcurrentSkipListSet<>()).add(batchStockId);
+        }
+
+        private static void remove(NavigableMap<LocalDate, NavigableSet<Long>> dayBuckets, LocalDate dueDate, Long batchStockId) {
+            if (dayBuckets == null) {
+                return;
+            }
+            dayBuckets.computeIfPresent(dueDate, (d, ids) -> {
+                ids.remove(batchStockId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.meli.frescos.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Moves batch_stock_seq above the ids already in batch_stock before the application takes requests
+ * ddl-auto creates the sequence starting at 1 on databases whose BatchStocks were inserted with IDENTITY ids,
+ * so the first pooled ids would collide with existing rows
+ * On MySQL the sequence is the batch_stock_seq table emulated by Hibernate, on other databases a real sequence
+ * The sequence is only ever moved forward, ids pooled by running instances stay unused
+ */
+@Slf4j
+@Component
+public class BatchStockIdSequence {
+
+    static final String SEQUENCE_NAME = "batch_stock_seq";
+
+    /**
+     * Allocation size of the batch_stock_seq generator of BatchStockModel
+     */
+    static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Dialect dialect;
+
+    public BatchStockIdSequence(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    /**
+     * Seed the sequence to MAX(id) + allocation size when it is behind the ids of batch_stock
+     * Runs after the schema update, as the EntityManagerFactory is built first
+     */
+    @PostConstruct
+    public void seed() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM batch_stock", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        long nextValue = maxId + ALLOCATION_SIZE;
+        if (dialect.supportsSequences()) {
+            Long currentValue = jdbcTemplate.queryForObject(dialect.getSequenceNextValString(SEQUENCE_NAME), Long.class);
+            if (currentValue != null && currentValue - ALLOCATION_SIZE < maxId) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + SEQUENCE_NAME + " RESTART WITH " + nextValue);
+                log.info("Sequência {} reiniciada em {}", SEQUENCE_NAME, nextValue);
+            }
+        } else if (jdbcTemplate.update("UPDATE " + SEQUENCE_NAME + " SET next_val = ? WHERE next_val < ?", nextValue, nextValue) > 0) {
+            log.info("Sequência {} avançada para {}", SEQUENCE_NAME, nextValue);
+        }
+    }
+}
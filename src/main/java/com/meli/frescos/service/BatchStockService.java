@@ -1,15 +1,37 @@
 package com.meli.frescos.service;
 
+import com.meli.frescos.controller.dto.OrderProductsRequest;
 import com.meli.frescos.exception.*;
 import com.meli.frescos.model.*;
+import com.meli.frescos.repository.BatchStockDebit;
 import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.ProductStockSummary;
+import com.meli.frescos.repository.SectionQuantity;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This class contains all BatchStock related functions
@@ -18,6 +40,8 @@ import java.util.stream.Collectors;
 @Service
 public class BatchStockService implements IBatchStockService {
 
+    private static final int EXPORT_CLEAR_INTERVAL = 1000;
+
     private final BatchStockRepository batchStockRepository;
 
     private final IProductService iProductService;
@@ -26,11 +50,38 @@ public class BatchStockService implements IBatchStockService {
 
     private final IOrderProductService iOrderProductService;
 
-    public BatchStockService(BatchStockRepository batchStockRepository, IProductService iProductService, ISectionService iSectionService, IOrderProductService iOrderProductService) {
+    private final SectionOccupancyLedger sectionOccupancyLedger;
+
+    private final StockAllocator stockAllocator;
+
+    private final IStockReservationService iStockReservationService;
+
+    private final EntityManager entityManager;
+
+    private final BatchStockExpiryIndex batchStockExpiryIndex;
+
+    private final IOutboxService iOutboxService;
+
+    private final NearExpiryFeed nearExpiryFeed;
+
+    private final IProductStockSummaryService iProductStockSummaryService;
+
+    private final InventoryLockManager inventoryLockManager;
+
+    public BatchStockService(BatchStockRepository batchStockRepository, IProductService iProductService, ISectionService iSectionService, IOrderProductService iOrderProductService, SectionOccupancyLedger sectionOccupancyLedger, StockAllocator stockAllocator, IStockReservationService iStockReservationService, EntityManager entityManager, BatchStockExpiryIndex batchStockExpiryIndex, IOutboxService iOutboxService, NearExpiryFeed nearExpiryFeed, IProductStockSummaryService iProductStockSummaryService, InventoryLockManager inventoryLockManager) {
         this.batchStockRepository = batchStockRepository;
         this.iProductService = iProductService;
         this.iSectionService = iSectionService;
         this.iOrderProductService = iOrderProductService;
+        this.sectionOccupancyLedger = sectionOccupancyLedger;
+        this.stockAllocator = stockAllocator;
+        this.iStockReservationService = iStockReservationService;
+        this.entityManager = entityManager;
+        this.batchStockExpiryIndex = batchStockExpiryIndex;
+        this.iOutboxService = iOutboxService;
+        this.nearExpiryFeed = nearExpiryFeed;
+        this.iProductStockSummaryService = iProductStockSummaryService;
+        this.inventoryLockManager = inventoryLockManager;
     }
 
     /**
@@ -43,6 +94,38 @@ public class BatchStockService implements IBatchStockService {
         return batchStockRepository.findAll();
     }
 
+    /**
+     * Returns a page of BatchStockModel ordered by id, starting after the given id
+     *
+     * @param after last batch stock id of the previous page
+     * @param limit max number of batch stocks in the page
+     * @return slice of BatchStockModel
+     */
+    @Override
+    public Slice<BatchStockModel> getPage(Long after, int limit) {
+        return batchStockRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(limit));
+    }
+
+    /**
+     * Pass every BatchStock to the given action, reading them as a database stream
+     * The persistence context is cleared every EXPORT_CLEAR_INTERVAL rows, so memory does not grow with the table size
+     *
+     * @param action the action to apply to each BatchStock
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachBatchStock(Consumer<BatchStockModel> action) {
+        try (Stream<BatchStockModel> batchStocks = batchStockRepository.streamAll()) {
+            Iterator<BatchStockModel> iterator = batchStocks.iterator();
+            for (int count = 1; iterator.hasNext(); count++) {
+                action.accept(iterator.next());
+                if (count % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
     /**
      * Return BatchStock given id
      *
@@ -57,23 +140,24 @@ public class BatchStockService implements IBatchStockService {
 
     /**
      * Create a new BatchStock given model
+     * Existing BatchStocks must be changed through updateBatchStock to keep the section ledger in sync
+     * The product and section stay locked until the transaction completes
      * @param batchStock new BatchStock to create
      * @return the BatchStock created
      */
     @Override
+    @Transactional
     public BatchStockModel save(BatchStockModel batchStock) {
+        boolean isNew = batchStock.getId() == null;
+        inventoryLockManager.lockUntilCompletion("save", List.of(batchStock.getProduct().getId()), List.of(batchStock.getSection().getId()));
         batchStock.setSection(iSectionService.getById(batchStock.getSection().getId()));
-        return batchStockRepository.save(batchStock);
-    }
-
-    /**
-     * Creates new BatchStock given a list of BatchStock
-     * @param batchStockList list of BatchStock to create
-     * @return the list BatchStock created
-     * @throws Exception when invalid BatchStock
-     */
-    private List<BatchStockModel> save(List<BatchStockModel> batchStockList) {
-        return batchStockRepository.saveAll(batchStockList);
+        BatchStockModel savedBatchStock = batchStockRepository.save(batchStock);
+        if (isNew) {
+            iOutboxService.record(List.of(createdEvent(savedBatchStock)));
+            iProductStockSummaryService.add(List.of(savedBatchStock));
+            onBatchStockCreated(savedBatchStock);
+        }
+        return savedBatchStock;
     }
 
     /**
@@ -102,68 +186,157 @@ public class BatchStockService implements IBatchStockService {
     }
 
     /**
-     * Return a list of BatchStock given section id and number of days to a BatchStock due date
+     * Return a page of BatchStock given section id and number of days to a BatchStock due date, ordered by due date
+     * The ids are read from the expiry index, so only the BatchStocks of the page are loaded
      *
      * @param sectionId the section id
      * @param numberOfDays number of days to be added to the current day to arrive at the due date to be sought
+     * @param offset number of BatchStocks to skip
+     * @param limit max number of BatchStocks
      * @return a list of BatchStock
      */
     @Override
-    public List<BatchStockModel> getBySectionIdAndDueDate(Long sectionId, Integer numberOfDays) {
-        SectionModel section = iSectionService.getById(sectionId);
-        return batchStockRepository.findBySectionAndDueDateBetween(section, LocalDate.now(), LocalDate.now().plusDays(numberOfDays));
+    public List<BatchStockModel> getBySectionIdAndDueDate(Long sectionId, Integer numberOfDays, int offset, int limit) {
+        iSectionService.getById(sectionId);
+        return getAllByIdInOrder(batchStockExpiryIndex.getBySection(sectionId, LocalDate.now(), LocalDate.now().plusDays(numberOfDays), offset, limit));
     }
 
     /**
-     * Return a list of BatchStock given category and number of days to a BatchStock due date
+     * Open a feed of the BatchStocks of a Warehouse or Section due in the given number of days
+     * Sends the BatchStocks already in the window, then the ones entering it or created and updated inside it
+     *
+     * @param warehouseId the warehouse id, null when scoped to a section
+     * @param sectionId the section id, null when scoped to a warehouse
+     * @param numberOfDays number of days to be added to the current day to arrive at the due date to be sought
+     * @return the SseEmitter of the feed
+     */
+    @Override
+    public SseEmitter subscribeNearExpiry(Long warehouseId, Long sectionId, Integer numberOfDays) {
+        if ((warehouseId == null) == (sectionId == null)) {
+            throw new BatchStockFilterScopeInvalidException();
+        }
+        if (sectionId != null) {
+            iSectionService.getById(sectionId);
+        }
+        return nearExpiryFeed.subscribe(warehouseId, sectionId, numberOfDays);
+    }
+
+    /**
+     * Return a page of BatchStock given category and number of days to a BatchStock due date, ordered by due date
+     * The ids are read from the expiry index, so only the BatchStocks of the page are loaded
      *
      * @param category the category
      * @param numberOfDays number of days to be added to the current day to arrive at the due date to be sought
+     * @param ascending true to return the closest due dates first
+     * @param offset number of BatchStocks to skip
+     * @param limit max number of BatchStocks
      * @return a list of BatchStock
      */
     @Override
-    public List<BatchStockModel> getByCategoryAndDueDate(CategoryEnum category, Integer numberOfDays) {
-        List<SectionModel> sectionList = iSectionService.getByCategory(category);
-        List<BatchStockModel> batchStockList = new ArrayList<>();
-        for (SectionModel section : sectionList) {
-            batchStockList.addAll(batchStockRepository.findBySectionAndDueDateBetween(section, LocalDate.now(), LocalDate.now().plusDays(numberOfDays)));
+    public List<BatchStockModel> getByCategoryAndDueDate(CategoryEnum category, Integer numberOfDays, boolean ascending, int offset, int limit) {
+        return getAllByIdInOrder(batchStockExpiryIndex.getByCategory(category, LocalDate.now(), LocalDate.now().plusDays(numberOfDays), ascending, offset, limit));
+    }
+
+    /**
+     * Load the BatchStocks of the given ids with a single query, keeping the order of the ids
+     * Ids no longer in the database are skipped
+     *
+     * @param ids the BatchStock ids
+     * @return a list of BatchStock
+     */
+    private List<BatchStockModel> getAllByIdInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
-        return batchStockList;
+        Map<Long, BatchStockModel> batchStockById = batchStockRepository.findAllFetchedById(ids).stream()
+                .collect(Collectors.toMap(BatchStockModel::getId, Function.identity()));
+        return ids.stream().map(batchStockById::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     /**
      * Return quantity of product in the BatchStock given product id
+     * Read from the product stock summary
      *
      * @param productId the product id
-     * @return a list of BatchStock
+     * @return the total quantity
      */
     @Override
     public Integer getTotalBatchStockQuantity(Long productId) {
-        return getByProductId(productId).stream().mapToInt(BatchStockModel::getQuantity).sum();
+        iProductService.getById(productId);
+        return iProductStockSummaryService.getByProductId(productId).map(s -> s.getTotalQuantity().intValue()).orElse(0);
     }
 
     /**
      * Return closest due date given product id
+     * Read from the product stock summary
      *
      * @param productId the product id
      * @return a due date
+     * @throws NullDueDateException when the product has no BatchStock
      */
     @Override
     public LocalDate getClosestDueDate(Long productId) throws NullDueDateException {
-        return getByProductId(productId).stream().min(Comparator.comparing(BatchStockModel::getDueDate)).orElseThrow(() -> new NullDueDateException("Null DueDate on database!")).getDueDate();
+        iProductService.getById(productId);
+        return iProductStockSummaryService.getByProductId(productId).map(ProductStockSummary::getClosestDueDate)
+                .orElseThrow(() -> new NullDueDateException("Null DueDate on database!"));
+    }
+
+    /**
+     * Return total quantity and closest due date of every product with BatchStock
+     * Read from the product stock summary instead of grouping the BatchStocks
+     *
+     * @return map of ProductStockSummary by product id
+     */
+    @Override
+    public Map<Long, ProductStockSummary> getStockSummary() {
+        return iProductStockSummaryService.getAll();
+    }
+
+    /**
+     * Return total quantity and closest due date of every product with BatchStock given a category
+     *
+     * @param category the product category
+     * @return map of ProductStockSummary by product id
+     */
+    @Override
+    public Map<Long, ProductStockSummary> getStockSummaryByCategory(CategoryEnum category) {
+        return iProductStockSummaryService.getByCategory(category);
+    }
+
+    /**
+     * Return total quantity and closest due date given a list of product id
+     *
+     * @param productIds the product id list
+     * @return map of ProductStockSummary by product id
+     */
+    @Override
+    public Map<Long, ProductStockSummary> getStockSummaryByProductIds(List<Long> productIds) {
+        return iProductStockSummaryService.getByProductIds(productIds);
+    }
+
+    /**
+     * Return the quantity of a product stored in each Section, ordered by section id
+     * Summed by the database in a single grouped query over the product batches
+     *
+     * @param productId the product id
+     * @return list of SectionQuantity
+     */
+    @Override
+    public List<SectionQuantity> getQuantityBySection(Long productId) {
+        return batchStockRepository.findQuantityBySectionByProductId(productId);
     }
 
     /**
      * Checks if the BatchStock list category is valid for the section
      *
-     * @param category the category
+     * @param productOf the product of each BatchStock
      * @param batchStockList the list of BatchStock
      * @throws Exception when the product not allowed in the section
      */
-    private void isCategoryPermittedInSections(CategoryEnum category, List<BatchStockModel> batchStockList) throws ProductNotPermittedInSectionException {
+    private void isCategoryPermittedInSections(Function<BatchStockModel, ProductModel> productOf, List<BatchStockModel> batchStockList) throws ProductNotPermittedInSectionException {
         List<Long> notPermitedSections = new ArrayList<>();
         batchStockList.forEach(b -> {
-            if(!b.getSection().getCategory().equals(category)) {
+            if(!b.getSection().getCategory().equals(productOf.apply(b).getCategory())) {
                 notPermitedSections.add(b.getSection().getId());
             }
         });
@@ -174,13 +347,14 @@ public class BatchStockService implements IBatchStockService {
     }
 
     /**
-     * Checks if product fits in section
+     * Checks if products fit in section
+     * The inbound volume is summed by section, so each section is checked once
      *
-     * @param product the product
+     * @param productOf the product of each BatchStock
      * @param inboundBatchStockList the list of BatchStock
      * @throws Exception when section have not enough space
      */
-    private void productFitsInSection(ProductModel product, List<BatchStockModel> inboundBatchStockList) throws NotEnoughSpaceInSectionException {
+    private void productFitsInSection(Function<BatchStockModel, ProductModel> productOf, List<BatchStockModel> inboundBatchStockList) throws NotEnoughSpaceInSectionException {
         HashMap<Long, Double> sectionFreeRoomMap = new HashMap<>();
         HashMap<Long, Double> inboundTotalVolumeMap = new HashMap<>();
         List<SectionModel> sections = inboundBatchStockList.stream().map(b -> b.getSection()).distinct().toList();
@@ -189,7 +363,7 @@ public class BatchStockService implements IBatchStockService {
             inboundTotalVolumeMap.put(section.getId(), 0D);
         }
         for (BatchStockModel batchStock : inboundBatchStockList) {
-            inboundTotalVolumeMap.put(batchStock.getSection().getId(), inboundTotalVolumeMap.get(batchStock.getSection().getId()) + product.getUnitVolume() * batchStock.getQuantity());
+            inboundTotalVolumeMap.put(batchStock.getSection().getId(), inboundTotalVolumeMap.get(batchStock.getSection().getId()) + productOf.apply(batchStock).getUnitVolume() * batchStock.getQuantity());
         }
         List<Long> notFittingSections = new ArrayList<>();
         sections.forEach(s -> {
@@ -204,18 +378,13 @@ public class BatchStockService implements IBatchStockService {
 
     /**
      * Return total free space of section
+     * Reads the used volume from the section ledger instead of loading the section batches
      *
      * @param section the section
      * @return total free room
-     * @throws Exception
      */
     private Double getTotalFreeRoom(SectionModel section) {
-        List<BatchStockModel> batchStockList = getBySectionId(section.getId());
-        double freeRoom = section.getTotalSize();
-        for (BatchStockModel batchStock : batchStockList) {
-            freeRoom -= batchStock.getQuantity() * batchStock.getProduct().getUnitVolume();
-        }
-        return freeRoom;
+        return section.getTotalSize() - sectionOccupancyLedger.getUsedVolume(section.getId());
     }
 
     /**
@@ -230,8 +399,69 @@ public class BatchStockService implements IBatchStockService {
         for (BatchStockModel batchStock : batchStockList) {
             batchStock.setSection(iSectionService.getById(batchStock.getSection().getId()));
         }
-        isCategoryPermittedInSections(product.getCategory(), batchStockList);
-        productFitsInSection(product, batchStockList);
+        isCategoryPermittedInSections(b -> product, batchStockList);
+        productFitsInSection(b -> product, batchStockList);
+    }
+
+    /**
+     * Create the products and BatchStocks of many inbound orders at once
+     * Sections are loaded with one query and each one is validated once for all batches,
+     * then the BatchStocks are written with JDBC batch inserts
+     * The sections stay locked until the transaction completes, so concurrent inbound orders can not overfill them
+     *
+     * @param batchStockList the new BatchStocks, each one referencing its new product
+     * @return the BatchStocks created
+     * @throws ProductNotPermittedInSectionException when a product category is not allowed in the section
+     * @throws NotEnoughSpaceInSectionException when a section have not enough space
+     */
+    @Override
+    @Transactional
+    public List<BatchStockModel> saveInboundOrders(List<BatchStockModel> batchStockList) throws ProductNotPermittedInSectionException, NotEnoughSpaceInSectionException {
+        Set<Long> sectionIds = batchStockList.stream().map(b -> b.getSection().getId()).collect(Collectors.toSet());
+        inventoryLockManager.lockUntilCompletion("inbound", List.of(), sectionIds);
+        Map<Long, SectionModel> sectionById = iSectionService.getAllById(sectionIds).stream()
+                .collect(Collectors.toMap(SectionModel::getId, Function.identity()));
+        batchStockList.forEach(b -> b.setSection(sectionById.get(b.getSection().getId())));
+
+        isCategoryPermittedInSections(BatchStockModel::getProduct, batchStockList);
+        productFitsInSection(BatchStockModel::getProduct, batchStockList);
+
+        List<ProductModel> products = batchStockList.stream().map(BatchStockModel::getProduct)
+                .collect(Collectors.toCollection(() -> Collections.newSetFromMap(new IdentityHashMap<>())))
+                .stream().toList();
+        iProductService.saveAll(products);
+
+        List<BatchStockModel> savedBatchStockList = batchStockRepository.saveAllAndFlush(batchStockList);
+        iOutboxService.record(savedBatchStockList.stream().map(this::createdEvent).toList());
+        iProductStockSummaryService.add(savedBatchStockList);
+        savedBatchStockList.forEach(this::onBatchStockCreated);
+        return savedBatchStockList;
+    }
+
+    /**
+     * Return the OutboxEvent of a new BatchStock
+     *
+     * @param batchStock the created BatchStock
+     * @return OutboxEventModel
+     */
+    private OutboxEventModel createdEvent(BatchStockModel batchStock) {
+        return iOutboxService.newEvent(OutboxEventTypeEnum.BATCH_STOCK_CREATED, batchStock.getId(), BatchStockChange.of(batchStock, batchStock.getQuantity()));
+    }
+
+    /**
+     * Keep the section ledger, the stock allocator, the expiry index and the near-expiry feed in sync with a new BatchStock
+     * The section ledger, the stock allocator and the expiry index are only changed after commit, so a rolled back BatchStock
+     * takes no volume and is given to no order, and a concurrent rebuild of the index either reads the BatchStock or replays the put
+     *
+     * @param batchStock the created BatchStock
+     */
+    private void onBatchStockCreated(BatchStockModel batchStock) {
+        TransactionCallbacks.afterCommit(() -> {
+            sectionOccupancyLedger.add(batchStock.getSection().getId(), batchStock.getQuantity() * batchStock.getProduct().getUnitVolume());
+            stockAllocator.onBatchStockCreated(batchStock);
+            batchStockExpiryIndex.put(batchStock);
+        });
+        nearExpiryFeed.onBatchStockChanged(batchStock);
     }
 
     /**
@@ -243,76 +473,230 @@ public class BatchStockService implements IBatchStockService {
      */
     @Override
     public List<BatchStockModel> findValidProductsByDueDate(Long productModel, LocalDate dateToCompare) {
-        getByProductId(productModel);
+        iProductService.getById(productModel);
         return this.batchStockRepository.findProducts(productModel, dateToCompare);
     }
 
     /**
-     * Returns a Batch Stock list with due date between the current day and three weeks ahead given a product
+     * Return the missing quantity of each product of an order, given the order products
+     * Availability is the sellable quantity of the product stock summary, not counting batches expiring in less than 3 weeks,
+     * minus the quantities held by StockReservations
+     * Products whose summary was not computed today fall back to a grouped query over their BatchStocks
      *
-     * @param productModel the product
-     * @return list of BatchStock
-     * @throws Exception
+     * @param orderProducts the order products, a product may appear in more than one line
+     * @return the missing quantity by product id, empty when every product is available
      */
-    private List<BatchStockModel> findValidProductsByDueDate(ProductModel productModel) {
-        return batchStockRepository.findByProductAndDueDateGreaterThanEqual(productModel, LocalDate.now().plusWeeks(3));
+    @Override
+    public Map<Long, Integer> getStockShortfall(List<OrderProductsRequest> orderProducts) {
+        Map<Long, Integer> quantityByProduct = new LinkedHashMap<>();
+        orderProducts.forEach(o -> quantityByProduct.merge(o.getProductModel(), o.getQuantity(), Integer::sum));
+        if (quantityByProduct.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        LocalDate minDueDate = LocalDate.now().plusWeeks(3);
+        Map<Long, Long> availableByProduct = new HashMap<>();
+        Map<Long, Long> sellableByProduct = iProductStockSummaryService.getSellableQuantity(quantityByProduct.keySet());
+        if (!sellableByProduct.isEmpty()) {
+            Map<Long, Long> heldByProduct = iStockReservationService.getHeldQuantity(sellableByProduct.keySet(), minDueDate);
+            sellableByProduct.forEach((productId, sellable) -> availableByProduct.put(productId, sellable - heldByProduct.getOrDefault(productId, 0L)));
+        }
+        List<Long> staleProductIds = quantityByProduct.keySet().stream().filter(id -> !sellableByProduct.containsKey(id)).toList();
+        if (!staleProductIds.isEmpty()) {
+            batchStockRepository.findAvailabilityByProductIds(staleProductIds, minDueDate)
+                    .forEach(a -> availableByProduct.put(a.getProductId(), a.getAvailableQuantity()));
+        }
+
+        Map<Long, Integer> shortfallByProduct = new LinkedHashMap<>();
+        quantityByProduct.forEach((productId, quantity) -> {
+            long missing = quantity - availableByProduct.getOrDefault(productId, 0L);
+            if (missing > 0) {
+                shortfallByProduct.put(productId, (int) missing);
+            }
+        });
+        return shortfallByProduct;
     }
 
     /**
      * Consume BatchStock on PurchaseOrder
+     * Converts the PurchaseOrder reservations into debits, or allocates the stock again when they expired
      *
      * @param purchaseOrderModel the PurchaseOrder
-     * @throws Exception
+     * @throws NotEnoughStockException when insufficient stock
      */
     @Override
     public void consumeBatchStockOnPurchase(PurchaseOrderModel purchaseOrderModel) throws NotEnoughStockException {
-        List<OrderProductsModel> orderProductsList = iOrderProductService.getByPurchaseId(purchaseOrderModel.getId());
+        Set<Long> shortProductIds = consumeBatchStockOnPurchases(List.of(purchaseOrderModel.getId())).get(purchaseOrderModel.getId());
+        if (shortProductIds != null) {
+            throw new NotEnoughStockException("Estoque insuficiente para atender o pedido!", shortProductIds);
+        }
+    }
+
+    /**
+     * Consume BatchStock on many PurchaseOrders at once
+     * Reservations covering the whole PurchaseOrder are converted into debits and removed,
+     * the other PurchaseOrders are allocated together grouped by product, then all debits are written in a single batch
+     * A PurchaseOrder without enough stock is left out, debits nothing and keeps its holds until they expire
+     * The ordered products stay locked until the transaction completes when the StockAllocator requires product locks,
+     * otherwise the debited BatchStock rows are locked only in the database
+     *
+     * @param purchaseOrderIds the PurchaseOrder ids
+     * @return the ids of the products without enough stock by the id of the PurchaseOrder left out
+     */
+    @Override
+    @Transactional
+    public Map<Long, Set<Long>> consumeBatchStockOnPurchases(List<Long> purchaseOrderIds) {
+        Map<Long, Map<Long, Integer>> quantityByProductByPurchase = new LinkedHashMap<>();
+        Map<Long, Double> unitVolumeByProduct = new HashMap<>();
+        for (OrderProductsModel orderProducts : iOrderProductService.getByPurchaseIds(purchaseOrderIds)) {
+            quantityByProductByPurchase.computeIfAbsent(orderProducts.getPurchaseOrderModel().getId(), id -> new HashMap<>())
+                    .merge(orderProducts.getProductModel().getId(), orderProducts.getQuantity(), Integer::sum);
+            unitVolumeByProduct.put(orderProducts.getProductModel().getId(), orderProducts.getProductModel().getUnitVolume());
+        }
+        if (stockAllocator.requiresProductLocks()) {
+            inventoryLockManager.lockUntilCompletion("debit", unitVolumeByProduct.keySet(), List.of());
+        }
 
-        for (OrderProductsModel orderProducts : orderProductsList) {
-            debitBatchStock(orderProducts.getProductModel(), orderProducts.getQuantity());
+        Map<Long, List<BatchStockDebit>> heldDebitsByPurchase = new LinkedHashMap<>();
+        Map<Long, Map<Long, Integer>> unheldQuantityByProductByPurchase = new LinkedHashMap<>();
+        for (Long purchaseOrderId : purchaseOrderIds) {
+            List<BatchStockDebit> held = iStockReservationService.getHeldDebits(purchaseOrderId);
+            Map<Long, Integer> quantityByProduct = quantityByProductByPurchase.get(purchaseOrderId);
+            if (quantityByProduct == null) {
+                continue;
+            }
+            if (!held.isEmpty() && quantityByProduct.equals(sumByProduct(held))) {
+                heldDebitsByPurchase.put(purchaseOrderId, held);
+            } else {
+                unheldQuantityByProductByPurchase.put(purchaseOrderId, quantityByProduct);
+            }
         }
+
+        Map<Long, Set<Long>> shortProductIdsByPurchase = new HashMap<>();
+        List<BatchStockDebit> allocatedDebits = allocateGroupedByProduct(unheldQuantityByProductByPurchase, shortProductIdsByPurchase);
+        heldDebitsByPurchase.forEach(iStockReservationService::consume);
+        debitBatchStock(heldDebitsByPurchase.values().stream().flatMap(List::stream).toList(), allocatedDebits, unitVolumeByProduct);
+        return shortProductIdsByPurchase;
     }
 
+    /**
+     * Change a BatchStock, keeping its product and section
+     * The BatchStock must still have the version the client read, a BatchStock changed since then is not overwritten
+     * The product and section stay locked until the transaction completes, the in-memory views are updated after commit
+     *
+     * @param batchStock the new values of the BatchStock, with the version read by the client
+     * @param batchStockId the BatchStock id
+     * @return the updated BatchStock
+     * @throws ProductNotPermittedInSectionException when the product is not allowed in the section
+     * @throws NotEnoughSpaceInSectionException when the section have not enough space
+     * @throws ObjectOptimisticLockingFailureException when the BatchStock was changed after the client read it
+     */
     @Override
+    @Transactional
     public BatchStockModel updateBatchStock(BatchStockModel batchStock, Long batchStockId) throws ProductNotPermittedInSectionException, NotEnoughSpaceInSectionException {
         BatchStockModel savedBatchStock = getById(batchStockId);
+        inventoryLockManager.lockUntilCompletion("update", List.of(savedBatchStock.getProduct().getId()), List.of(savedBatchStock.getSection().getId()));
+        if (savedBatchStock.getVersion() != batchStock.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(BatchStockModel.class, batchStockId);
+        }
+        int previousQuantity = savedBatchStock.getQuantity();
         List<BatchStockModel> batchStockList = new ArrayList<>();
-        batchStock.setId(savedBatchStock.getId());
         batchStock.setProduct(savedBatchStock.getProduct());
         batchStock.setSection(savedBatchStock.getSection());
         batchStockList.add(batchStock);
         validateBatches(savedBatchStock.getProduct(), batchStockList);
-        return batchStockRepository.save(batchStock);
+
+        batchStock.setId(batchStockId);
+        BatchStockModel updatedBatchStock = batchStockRepository.saveAndFlush(batchStock);
+        iOutboxService.record(List.of(iOutboxService.newEvent(OutboxEventTypeEnum.BATCH_STOCK_UPDATED, updatedBatchStock.getId(),
+                BatchStockChange.of(updatedBatchStock, updatedBatchStock.getQuantity() - previousQuantity))));
+        iProductStockSummaryService.recompute(List.of(updatedBatchStock.getProduct().getId()));
+        nearExpiryFeed.onBatchStockChanged(updatedBatchStock);
+        TransactionCallbacks.afterCommit(() -> {
+            sectionOccupancyLedger.add(updatedBatchStock.getSection().getId(), (updatedBatchStock.getQuantity() - previousQuantity) * updatedBatchStock.getProduct().getUnitVolume());
+            stockAllocator.onBatchStockUpdated(updatedBatchStock, previousQuantity);
+            batchStockExpiryIndex.put(updatedBatchStock);
+        });
+        return updatedBatchStock;
     }
 
     /**
-     * Debit the quantity of the PurchaseOrder product from BatchStock
+     * Sum the quantity of the debits by product id
+     */
+    private static Map<Long, Integer> sumByProduct(List<BatchStockDebit> debits) {
+        return debits.stream().collect(Collectors.toMap(BatchStockDebit::getProductId, BatchStockDebit::getQuantity, Integer::sum));
+    }
+
+    /**
+     * Reserve the stock of many PurchaseOrders with a single FEFO allocation of the quantity summed by product
+     * When the sum does not fit, each PurchaseOrder is allocated on its own so only the short ones are left out
      *
-     * @param productModel the BatchStock
-     * @param quantity the quantity of product
-     * @throws Exception when insufficient stock
+     * @param quantityByProductByPurchase quantity by product id, by PurchaseOrder id
+     * @param shortProductIdsByPurchase receives the products without enough stock of each PurchaseOrder left out
+     * @return the reserved debits
      */
-    private void debitBatchStock(ProductModel productModel, Integer quantity) throws NotEnoughStockException {
-        List<BatchStockModel> batchStockList = findValidProductsByDueDate(productModel);
-        batchStockList.sort(Comparator.comparing(BatchStockModel::getDueDate));
+    private List<BatchStockDebit> allocateGroupedByProduct(Map<Long, Map<Long, Integer>> quantityByProductByPurchase, Map<Long, Set<Long>> shortProductIdsByPurchase) {
+        if (quantityByProductByPurchase.isEmpty()) {
+            return List.of();
+        }
+        LocalDate minDueDate = LocalDate.now().plusWeeks(3);
+        Map<Long, Integer> totalQuantityByProduct = new HashMap<>();
+        quantityByProductByPurchase.values().forEach(q -> q.forEach((productId, quantity) -> totalQuantityByProduct.merge(productId, quantity, Integer::sum)));
+        try {
+            return stockAllocator.allocate(totalQuantityByProduct, minDueDate);
+        } catch (NotEnoughStockException e) {
+            if (quantityByProductByPurchase.size() == 1) {
+                shortProductIdsByPurchase.put(quantityByProductByPurchase.keySet().iterator().next(), e.getProductIds());
+                return List.of();
+            }
+        }
 
-        for (BatchStockModel batchStock : batchStockList) {
-            Integer batchStockQuantity = batchStock.getQuantity();
-            if (quantity <= batchStockQuantity) {
-                batchStock.setQuantity(batchStock.getQuantity() - quantity);
-                quantity = 0;
-                break;
-            } else {
-                batchStock.setQuantity(0);
-                quantity -= batchStockQuantity;
+        List<BatchStockDebit> debits = new ArrayList<>();
+        for (Map.Entry<Long, Map<Long, Integer>> entry : quantityByProductByPurchase.entrySet()) {
+            try {
+                debits.addAll(stockAllocator.allocate(entry.getValue(), minDueDate));
+            } catch (NotEnoughStockException e) {
+                shortProductIdsByPurchase.put(entry.getKey(), e.getProductIds());
             }
         }
+        return debits;
+    }
 
-        if (quantity != 0) {
-            throw new NotEnoughStockException("Estoque insuficiente para atender o pedido!");
+    /**
+     * Debit the held and allocated quantities from BatchStock
+     * Debits of the same BatchStock are merged, then all of them are written in a single batch of conditional updates along with their OutboxEvents
+     * The batch runs in product id and BatchStock id order, so concurrent closes lock the rows in the same order and do not deadlock
+     * The allocated quantities are given back to the allocator when the transaction rolls back for any reason,
+     * and the products are evicted from it when a BatchStock had less stock than it allocated
+     * The section ledger is only changed once the transaction commits
+     *
+     * @param heldDebits debits claimed from reservations
+     * @param allocatedDebits debits reserved by the stock allocator
+     * @param unitVolumeByProduct unit volume of the debited products
+     */
+    private void debitBatchStock(List<BatchStockDebit> heldDebits, List<BatchStockDebit> allocatedDebits, Map<Long, Double> unitVolumeByProduct) {
+        Map<Long, BatchStockDebit> debitByBatchStock = new LinkedHashMap<>();
+        Stream.concat(heldDebits.stream(), allocatedDebits.stream())
+                .forEach(d -> debitByBatchStock.merge(d.getBatchStockId(), d, (a, b) -> new BatchStockDebit(a.getBatchStockId(), a.getSectionId(), a.getProductId(), a.getQuantity() + b.getQuantity())));
+        if (debitByBatchStock.isEmpty()) {
+            return;
         }
 
-        save(batchStockList);
+        List<BatchStockDebit> debits = new ArrayList<>(debitByBatchStock.values());
+        debits.sort(Comparator.comparing(BatchStockDebit::getProductId).thenComparing(BatchStockDebit::getBatchStockId));
+        TransactionCallbacks.onCompletion(() -> debits.forEach(d -> sectionOccupancyLedger.add(d.getSectionId(), -d.getQuantity() * unitVolumeByProduct.get(d.getProductId()))),
+                () -> stockAllocator.release(allocatedDebits));
+        try {
+            batchStockRepository.debitQuantities(debits);
+        } catch (OptimisticLockingFailureException e) {
+            debits.stream().map(BatchStockDebit::getProductId).distinct().forEach(stockAllocator::evict);
+            throw e;
+        }
+        iOutboxService.record(debits.stream()
+                .map(d -> iOutboxService.newEvent(OutboxEventTypeEnum.BATCH_STOCK_DEBITED, d.getBatchStockId(),
+                        new BatchStockChange(d.getBatchStockId(), d.getProductId(), d.getSectionId(), null, -d.getQuantity(), null)))
+                .toList());
+        iProductStockSummaryService.recompute(debits.stream().map(BatchStockDebit::getProductId).distinct().toList());
     }
 
     /**
@@ -347,4 +731,4 @@ public class BatchStockService implements IBatchStockService {
         }
         return batchStockList;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.OutboxEventModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * OutboxEventSink standing in for a message broker
+ * Keeps the latest events in memory as a log that consumers read from the last offset they have seen
+ * Offsets are given in publishing order, so an event committed after a newer one is still read by consumers past the newer one
+ */
+@Component
+@ConditionalOnProperty(name = "frescos.outbox.sink", havingValue = "broker")
+public class BrokerOutboxEventSink implements OutboxEventSink {
+
+    private final ConcurrentSkipListMap<Long, OutboxEventModel> log = new ConcurrentSkipListMap<>();
+
+    private final int capacity;
+
+    private long nextOffset = 1;
+
+    public BrokerOutboxEventSink(@Value("${frescos.outbox.broker.capacity:10000}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Append the events to the log, dropping the oldest ones beyond the capacity
+     * An event published again is appended again, consumers drop it by id
+     *
+     * @param events the events
+     */
+    @Override
+    public synchronized void publish(List<OutboxEventModel> events) {
+        events.forEach(e -> log.put(nextOffset++, e));
+        while (log.size() > capacity) {
+            log.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Return the events appended after the given offset, in offset order
+     *
+     * @param afterOffset last offset seen by the consumer, 0 to read from the oldest kept
+     * @param limit max number of events
+     * @return List of BrokerRecord
+     */
+    public List<BrokerRecord> poll(long afterOffset, int limit) {
+        return log.tailMap(afterOffset, false).entrySet().stream()
+                .limit(limit)
+                .map(e -> new BrokerRecord(e.getKey(), e.getValue()))
+                .toList();
+    }
+
+    /**
+     * An event of the log and its offset
+     *
+     * @param offset position in the log, the consumer polls after the last one it has seen
+     * @param event the event
+     */
+    public record BrokerRecord(long offset, OutboxEventModel event) {
+    }
+}
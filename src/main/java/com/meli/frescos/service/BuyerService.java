@@ -3,6 +3,8 @@ package com.meli.frescos.service;
 import com.meli.frescos.exception.BuyerNotFoundException;
 import com.meli.frescos.model.BuyerModel;
 import com.meli.frescos.repository.BuyerRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
@@ -41,6 +43,18 @@ public class BuyerService implements IBuyerService {
         return buyerRepository.findAll();
     }
 
+    /**
+     * Returns a page of BuyerModel ordered by id, starting after the given id
+     *
+     * @param after last buyer id of the previous page
+     * @param limit max number of buyers in the page
+     * @return slice of BuyerModel
+     */
+    @Override
+    public Slice<BuyerModel> getPage(Long after, int limit) {
+        return buyerRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(limit));
+    }
+
     /**
      * Queries and return a BuyerModel based in its ID
      *
@@ -0,0 +1,63 @@
+package com.meli.frescos.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.meli.frescos.model.CommentModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * In-memory cache of the first page of the comment feed of the most read Products
+ * Bounded by number of Products, the least read ones are evicted first
+ * Entries are invalidated when a Product receives a comment and expire after a while, so comments written elsewhere are picked up
+ */
+@Component
+public class CommentFeedCache {
+
+    private final Cache<Long, Slice<CommentModel>> firstPageByProduct;
+
+    private final int pageSize;
+
+    public CommentFeedCache(@Value("${frescos.comment-cache.max-products:1000}") long maxProducts,
+                            @Value("${frescos.comment-cache.page-size:50}") int pageSize,
+                            @Value("${frescos.comment-cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        this.firstPageByProduct = Caffeine.newBuilder()
+                .maximumSize(maxProducts)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .build();
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Number of comments kept in the first page of each Product
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Return the first page of comments of a Product, loading it on miss
+     * Concurrent misses of the same Product load the page once
+     *
+     * @param productId the product id
+     * @param loader loads the first page, with up to getPageSize comments
+     * @return the first page, newest comments first
+     */
+    public Slice<CommentModel> get(Long productId, Function<Long, Slice<CommentModel>> loader) {
+        return firstPageByProduct.get(productId, loader);
+    }
+
+    /**
+     * Drop the first page of a Product
+     * Waits for a load of the same Product in progress, so a page read before the change is not kept
+     *
+     * @param productId the product id
+     */
+    public void invalidate(Long productId) {
+        firstPageByProduct.invalidate(productId);
+    }
+}
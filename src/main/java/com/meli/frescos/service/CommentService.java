@@ -1,14 +1,16 @@
 package com.meli.frescos.service;
 
 import com.meli.frescos.exception.InvalidCommentException;
-import com.meli.frescos.model.BuyerModel;
 import com.meli.frescos.model.CommentModel;
-import com.meli.frescos.model.ProductModel;
-import com.meli.frescos.repository.BatchStockRepository;
 import com.meli.frescos.repository.CommentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -18,7 +20,7 @@ public class CommentService implements ICommentService {
     CommentRepository commentRepository;
 
     @Autowired
-    BatchStockRepository batchStockRepository;
+    PurchasedProductIndex purchasedProductIndex;
 
     @Autowired
     IProductService iProductService;
@@ -26,29 +28,78 @@ public class CommentService implements ICommentService {
     @Autowired
     IBuyerService iBuyerService;
 
+    @Autowired
+    CommentFeedCache commentFeedCache;
+
+    /**
+     * Save a Comment of a Buyer on a Product it bought
+     * Eligibility is checked against PurchasedProductIndex and a second Comment of the same Buyer is rejected by the unique constraint
+     *
+     * @param commentModel the Comment, with the Product and Buyer ids
+     * @return the saved CommentModel
+     * @throws InvalidCommentException when the Buyer did not buy the Product or already commented on it
+     */
     public CommentModel save(CommentModel commentModel) throws InvalidCommentException {
-        ProductModel productModel = iProductService.getById(commentModel.getProduct().getId());
-        BuyerModel buyerModel = iBuyerService.getById(commentModel.getBuyer().getId());
-        Long buyerId = buyerModel.getId();
-        Long productId = productModel.getId();
-        boolean productBoughtByUser = batchStockRepository.findByBuyerAndProduct(buyerModel.getId(), productModel.getId()).intValue() > 0;
-        if (!productBoughtByUser) {
+        Long productId = commentModel.getProduct().getId();
+        Long buyerId = commentModel.getBuyer().getId();
+        if (!purchasedProductIndex.hasPurchased(buyerId, productId)) {
+            iProductService.getById(productId);
+            iBuyerService.getById(buyerId);
             throw new InvalidCommentException(String.format("Comprador de ID %d não possui compra fechada do produto de ID %d", buyerId, productId));
         }
 
-        CommentModel commentExists = commentRepository.findByBuyerIdAndProductId(buyerId, productId);
-
-        if (commentExists != null) {
+        commentModel.setProduct(iProductService.getById(productId));
+        CommentModel savedComment;
+        try {
+            savedComment = commentRepository.saveAndFlush(commentModel);
+        } catch (DataIntegrityViolationException e) {
             throw new InvalidCommentException(String.format("Comprador de ID %d já comentou no produto de ID %d", buyerId, productId));
         }
+        commentFeedCache.invalidate(productId);
+        return savedComment;
+    }
 
-        commentModel.setProduct(productModel);
-        return commentRepository.save(commentModel);
+    /**
+     * Return the most recent comments of a Product, the first page of its feed
+     * Older comments are read with getPage, starting after the last comment of this page
+     *
+     * @param productId the product id
+     * @return slice of CommentModel, newest first
+     */
+    @Override
+    public Slice<CommentModel> getRecentComments(Long productId) {
+        return getPage(productId, null, null, commentFeedCache.getPageSize());
     }
 
+    /**
+     * Return a page of the comments of a Product ordered by creation date, newest first, starting before the given comment
+     * The first page of each Product is served from CommentFeedCache
+     *
+     * @param productId the product id
+     * @param beforeCreatedAt creation date of the last comment of the previous page, null for the first page
+     * @param beforeId id of the last comment of the previous page, null for the first page
+     * @param limit max number of comments in the page
+     * @return slice of CommentModel
+     */
     @Override
-    public List<CommentModel> getRecentComments(Long productId) {
+    public Slice<CommentModel> getPage(Long productId, LocalDateTime beforeCreatedAt, Long beforeId, int limit) {
+        int pageSize = commentFeedCache.getPageSize();
+        if (beforeCreatedAt == null && limit <= pageSize) {
+            Slice<CommentModel> firstPage = commentFeedCache.get(productId, id -> {
+                iProductService.getById(id);
+                return commentRepository.findFirstPageByProductId(id, PageRequest.ofSize(pageSize));
+            });
+            List<CommentModel> comments = firstPage.getContent();
+            if (comments.size() <= limit) {
+                return firstPage;
+            }
+            return new SliceImpl<>(comments.subList(0, limit), PageRequest.ofSize(limit), true);
+        }
+
         iProductService.getById(productId);
-        return commentRepository.findByProductIdOrderByCreatedAtDesc(productId);
+        if (beforeCreatedAt == null) {
+            return commentRepository.findFirstPageByProductId(productId, PageRequest.ofSize(limit));
+        }
+        return commentRepository.findPageByProductIdBefore(productId, beforeCreatedAt, beforeId, PageRequest.ofSize(limit));
     }
 }
@@ -0,0 +1,239 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.exception.NotEnoughStockException;
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.repository.BatchStockDebit;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.HeldQuantity;
+import com.meli.frescos.repository.StockReservationRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * First-expired-first-out allocator of BatchStock quantities
+ * Keeps, per product, the batches ordered by due date and reserves quantities with CAS operations,
+ * so concurrent orders of the same product can never debit more than the available stock
+ * Quantities held by active StockReservations are not available
+ * The queues are local to each instance, see SkipLockedStockAllocator for deployments with many instances
+ */
+@Component
+@ConditionalOnProperty(name = "frescos.stock.allocation", havingValue = "fefo", matchIfMissing = true)
+public class FefoAllocator implements StockAllocator {
+
+    private final BatchStockRepository batchStockRepository;
+
+    private final StockReservationRepository stockReservationRepository;
+
+    private final Map<Long, BatchSlot[]> queueByProduct = new ConcurrentHashMap<>();
+
+    private final Map<Long, BatchSlot> slotByBatchStock = new ConcurrentHashMap<>();
+
+    public FefoAllocator(BatchStockRepository batchStockRepository, StockReservationRepository stockReservationRepository) {
+        this.batchStockRepository = batchStockRepository;
+        this.stockReservationRepository = stockReservationRepository;
+    }
+
+    /**
+     * Reserve the quantity of every product from the batches with the closest due date
+     * Either all products are reserved or nothing is
+     *
+     * @param quantityByProduct quantity to reserve by product id
+     * @param minDueDate batches expiring before this date are not used
+     * @return the debits to be applied to each BatchStock
+     * @throws NotEnoughStockException when any product has not enough stock
+     */
+    @Override
+    public List<BatchStockDebit> allocate(Map<Long, Integer> quantityByProduct, LocalDate minDueDate) throws NotEnoughStockException {
+        List<BatchStockDebit> debits = new ArrayList<>();
+        Set<Long> shortProductIds = new HashSet<>();
+        for (Map.Entry<Long, Integer> entry : quantityByProduct.entrySet()) {
+            int missingQuantity = reserve(entry.getKey(), entry.getValue(), minDueDate, debits);
+            if (missingQuantity > 0) {
+                shortProductIds.add(entry.getKey());
+            }
+        }
+        if (!shortProductIds.isEmpty()) {
+            release(debits);
+            throw new NotEnoughStockException("Estoque insuficiente para atender o pedido!", shortProductIds);
+        }
+        return debits;
+    }
+
+    /**
+     * Give back reserved quantities, used when the debits could not be persisted
+     *
+     * @param debits the debits returned by allocate
+     */
+    @Override
+    public void release(List<BatchStockDebit> debits) {
+        for (BatchStockDebit debit : debits) {
+            BatchSlot slot = slotByBatchStock.get(debit.getBatchStockId());
+            if (slot != null) {
+                slot.available.addAndGet(debit.getQuantity());
+            }
+        }
+    }
+
+    /**
+     * Add a new BatchStock to the queue of its product
+     *
+     * @param batchStock the created BatchStock
+     */
+    @Override
+    public void onBatchStockCreated(BatchStockModel batchStock) {
+        queueByProduct.computeIfPresent(batchStock.getProduct().getId(), (productId, queue) -> {
+            if (Arrays.stream(queue).anyMatch(s -> s.batchStockId.equals(batchStock.getId()))) {
+                return queue;
+            }
+            BatchSlot[] newQueue = Arrays.copyOf(queue, queue.length + 1);
+            newQueue[queue.length] = slotOf(batchStock);
+            Arrays.sort(newQueue, Comparator.comparing(s -> s.dueDate));
+            return newQueue;
+        });
+    }
+
+    /**
+     * Apply the changes of an updated BatchStock
+     * A due date change reorders the product queue, so it is reloaded on next allocation
+     *
+     * @param batchStock the updated BatchStock
+     * @param previousQuantity quantity before the update
+     */
+    @Override
+    public void onBatchStockUpdated(BatchStockModel batchStock, int previousQuantity) {
+        BatchSlot slot = slotByBatchStock.get(batchStock.getId());
+        if (slot == null) {
+            return;
+        }
+        if (slot.dueDate.equals(batchStock.getDueDate())) {
+            slot.available.addAndGet(batchStock.getQuantity() - previousQuantity);
+        } else {
+            evict(batchStock.getProduct().getId());
+        }
+    }
+
+    /**
+     * Drop the queue of a product, it is reloaded from database on next allocation
+     *
+     * @param productId the product id
+     */
+    @Override
+    public void evict(Long productId) {
+        BatchSlot[] queue = queueByProduct.remove(productId);
+        if (queue != null) {
+            Arrays.stream(queue).forEach(s -> slotByBatchStock.remove(s.batchStockId));
+        }
+    }
+
+    /**
+     * Return the quantity not yet reserved of a product with due date after the given date
+     *
+     * @param productId the product id
+     * @param minDueDate batches expiring before this date are not counted
+     * @return the available quantity
+     */
+    public int getAvailableQuantity(Long productId, LocalDate minDueDate) {
+        return Arrays.stream(getQueue(productId))
+                .filter(s -> !s.dueDate.isBefore(minDueDate))
+                .mapToInt(s -> s.available.get())
+                .sum();
+    }
+
+    /**
+     * Reserve the quantity of a single product, adding the debits to the list
+     *
+     * @return the quantity that could not be reserved
+     */
+    private int reserve(Long productId, int quantity, LocalDate minDueDate, List<BatchStockDebit> debits) {
+        for (BatchSlot slot : getQueue(productId)) {
+            if (quantity == 0) {
+                break;
+            }
+            if (slot.dueDate.isBefore(minDueDate)) {
+                continue;
+            }
+            int taken = slot.take(quantity);
+            if (taken > 0) {
+                debits.add(new BatchStockDebit(slot.batchStockId, slot.sectionId, productId, taken));
+                quantity -= taken;
+            }
+        }
+        return quantity;
+    }
+
+    private BatchSlot[] getQueue(Long productId) {
+        return queueByProduct.computeIfAbsent(productId, this::load);
+    }
+
+    /**
+     * Load the batches of a product from database, discounting the quantities held by reservations
+     */
+    private BatchSlot[] load(Long productId) {
+        Map<Long, Long> heldByBatchStock = new HashMap<>();
+        for (HeldQuantity held : stockReservationRepository.findHeldQuantityByProductId(productId)) {
+            heldByBatchStock.put(held.getBatchStockId(), held.getQuantity());
+        }
+        return batchStockRepository.findByProductIdOrderByDueDateAsc(productId).stream()
+                .map(b -> slotOf(b, heldByBatchStock.getOrDefault(b.getId(), 0L).intValue()))
+                .toArray(BatchSlot[]::new);
+    }
+
+    private BatchSlot slotOf(BatchStockModel batchStock) {
+        return slotOf(batchStock, 0);
+    }
+
+    private BatchSlot slotOf(BatchStockModel batchStock, int heldQuantity) {
+        return slotByBatchStock.computeIfAbsent(batchStock.getId(), id -> new BatchSlot(id, batchStock.getSection().getId(), batchStock.getDueDate(), batchStock.getQuantity() - heldQuantity));
+    }
+
+    /**
+     * In-memory view of a single BatchStock
+     */
+    private static class BatchSlot {
+
+        private final Long batchStockId;
+
+        private final Long sectionId;
+
+        private final LocalDate dueDate;
+
+        private final AtomicInteger available;
+
+        BatchSlot(Long batchStockId, Long sectionId, LocalDate dueDate, int available) {
+            this.batchStockId = batchStockId;
+            this.sectionId = sectionId;
+            this.dueDate = dueDate;
+            this.available = new AtomicInteger(available);
+        }
+
+        /**
+         * Take up to the wanted quantity from the slot
+         *
+         * @return the quantity taken
+         */
+        int take(int wanted) {
+            while (true) {
+                int current = available.get();
+                if (current <= 0) {
+                    return 0;
+                }
+                int taken = Math.min(current, wanted);
+                if (available.compareAndSet(current, current - taken)) {
+                    return taken;
+                }
+            }
+        }
+    }
+}
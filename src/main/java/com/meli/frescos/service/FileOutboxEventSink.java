@@ -0,0 +1,45 @@
+package com.meli.frescos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meli.frescos.model.OutboxEventModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * OutboxEventSink appending each event as a JSON line to a file, for consumers tailing it
+ */
+@Component
+@ConditionalOnProperty(name = "frescos.outbox.sink", havingValue = "file")
+public class FileOutboxEventSink implements OutboxEventSink {
+
+    private final Path path;
+
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxEventSink(@Value("${frescos.outbox.file:outbox-events.ndjson}") Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEventModel> events) {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxEventModel event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
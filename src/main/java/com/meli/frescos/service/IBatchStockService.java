@@ -1,18 +1,30 @@
 package com.meli.frescos.service;
 
+import com.meli.frescos.controller.dto.OrderProductsRequest;
 import com.meli.frescos.exception.*;
 import com.meli.frescos.model.BatchStockModel;
 import com.meli.frescos.model.CategoryEnum;
 import com.meli.frescos.model.ProductModel;
 import com.meli.frescos.model.PurchaseOrderModel;
+import com.meli.frescos.repository.ProductStockSummary;
+import com.meli.frescos.repository.SectionQuantity;
+import org.springframework.data.domain.Slice;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface IBatchStockService {
 
     List<BatchStockModel> getAll();
 
+    Slice<BatchStockModel> getPage(Long after, int limit);
+
+    void forEachBatchStock(Consumer<BatchStockModel> action);
+
     BatchStockModel getById(Long id) throws BatchStockByIdNotFoundException;
 
     BatchStockModel save(BatchStockModel batchStock) ;
@@ -21,21 +33,37 @@ public interface IBatchStockService {
 
     List<BatchStockModel> getBySectionId(Long sectionId) ;
 
-    List<BatchStockModel> getBySectionIdAndDueDate(Long sectionId, Integer numberOfDays) ;
+    List<BatchStockModel> getBySectionIdAndDueDate(Long sectionId, Integer numberOfDays, int offset, int limit);
+
+    List<BatchStockModel> getByCategoryAndDueDate(CategoryEnum category, Integer numberOfDays, boolean ascending, int offset, int limit);
 
-    List<BatchStockModel> getByCategoryAndDueDate(CategoryEnum category, Integer numberOfDays) ;
+    SseEmitter subscribeNearExpiry(Long warehouseId, Long sectionId, Integer numberOfDays);
 
     Integer getTotalBatchStockQuantity(Long productId) ;
 
     LocalDate getClosestDueDate(Long productId) throws NullDueDateException;
 
+    Map<Long, ProductStockSummary> getStockSummary();
+
+    Map<Long, ProductStockSummary> getStockSummaryByCategory(CategoryEnum category);
+
+    Map<Long, ProductStockSummary> getStockSummaryByProductIds(List<Long> productIds);
+
+    List<SectionQuantity> getQuantityBySection(Long productId);
+
     void validateBatches(ProductModel product, List<BatchStockModel> batchStockList) throws ProductNotPermittedInSectionException, NotEnoughSpaceInSectionException;
 
+    List<BatchStockModel> saveInboundOrders(List<BatchStockModel> batchStockList) throws ProductNotPermittedInSectionException, NotEnoughSpaceInSectionException;
+
     List<BatchStockModel> findValidProductsByDueDate(Long productModel, LocalDate minDueDate);
 
     List<BatchStockModel> getByProductOrder(Long id, String order);
 
+    Map<Long, Integer> getStockShortfall(List<OrderProductsRequest> orderProducts);
+
     void consumeBatchStockOnPurchase(PurchaseOrderModel purchaseOrderModel) throws NotEnoughStockException;
 
+    Map<Long, Set<Long>> consumeBatchStockOnPurchases(List<Long> purchaseOrderIds);
+
     BatchStockModel updateBatchStock(BatchStockModel batchStock, Long batchStockId) throws ProductNotPermittedInSectionException, NotEnoughSpaceInSectionException;
 }
\ No newline at end of file
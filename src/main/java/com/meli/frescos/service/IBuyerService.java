@@ -2,6 +2,7 @@ package com.meli.frescos.service;
 
 import com.meli.frescos.exception.BuyerNotFoundException;
 import com.meli.frescos.model.BuyerModel;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,6 +13,8 @@ public interface IBuyerService {
 
     List<BuyerModel> getAll();
 
+    Slice<BuyerModel> getPage(Long after, int limit);
+
     BuyerModel getById(Long id) throws BuyerNotFoundException;
 
     BuyerModel update(BuyerModel buyerModel, Long id) throws BuyerNotFoundException;
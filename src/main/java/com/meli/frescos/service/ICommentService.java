@@ -2,12 +2,15 @@ package com.meli.frescos.service;
 
 import com.meli.frescos.exception.InvalidCommentException;
 import com.meli.frescos.model.CommentModel;
+import org.springframework.data.domain.Slice;
 
-import java.util.List;
+import java.time.LocalDateTime;
 
 public interface ICommentService {
 
     CommentModel save(CommentModel commentModel) throws InvalidCommentException;
 
-    List<CommentModel> getRecentComments(Long productId);
+    Slice<CommentModel> getRecentComments(Long productId);
+
+    Slice<CommentModel> getPage(Long productId, LocalDateTime beforeCreatedAt, Long beforeId, int limit);
 }
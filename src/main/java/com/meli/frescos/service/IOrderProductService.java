@@ -5,15 +5,24 @@ import com.meli.frescos.exception.OrderProductIsInvalidException;
 import com.meli.frescos.exception.ProductByIdNotFoundException;
 import com.meli.frescos.exception.PurchaseOrderByIdNotFoundException;
 import com.meli.frescos.model.OrderProductsModel;
+import com.meli.frescos.model.PurchaseOrderModel;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface IOrderProductService {
     List<OrderProductsModel> getAll();
 
+    Slice<OrderProductsModel> getPage(Long after, int limit);
+
     OrderProductsModel save(OrderProductsRequest orderProductsRequest) throws ProductByIdNotFoundException, PurchaseOrderByIdNotFoundException;
 
+    List<OrderProductsModel> saveAll(PurchaseOrderModel purchaseOrder, List<OrderProductsRequest> orderProductsRequests) throws ProductByIdNotFoundException;
+
     OrderProductsModel getById(Long id) throws OrderProductIsInvalidException;
 
     List<OrderProductsModel> getByPurchaseId(Long id) throws PurchaseOrderByIdNotFoundException;
+
+    List<OrderProductsModel> getByPurchaseIds(Collection<Long> purchaseIds);
 }
@@ -0,0 +1,14 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.OutboxEventModel;
+import com.meli.frescos.model.OutboxEventTypeEnum;
+
+import java.util.List;
+
+public interface IOutboxService {
+    OutboxEventModel newEvent(OutboxEventTypeEnum eventType, Long aggregateId, Object payload);
+
+    void record(List<OutboxEventModel> events);
+
+    int publishNext(int limit);
+}
@@ -1,6 +1,8 @@
 package com.meli.frescos.service;
 
 import com.meli.frescos.model.ProductModel;
+import org.springframework.data.domain.Slice;
+
 import java.util.List;
 
 public interface IProductService {
@@ -11,5 +13,9 @@ public interface IProductService {
 
     ProductModel save(ProductModel product);
 
+    List<ProductModel> saveAll(List<ProductModel> products);
+
     List<ProductModel> getByCategory(String filter);
+
+    Slice<ProductModel> getPage(Long after, int limit);
 }
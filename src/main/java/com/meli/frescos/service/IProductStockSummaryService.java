@@ -0,0 +1,31 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.model.CategoryEnum;
+import com.meli.frescos.repository.ProductStockSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface IProductStockSummaryService {
+
+    void create(Collection<Long> productIds);
+
+    void add(List<BatchStockModel> batchStockList);
+
+    void recompute(Collection<Long> productIds);
+
+    List<Long> getInconsistent(Collection<Long> productIds);
+
+    Map<Long, ProductStockSummary> getAll();
+
+    Map<Long, ProductStockSummary> getByCategory(CategoryEnum category);
+
+    Map<Long, ProductStockSummary> getByProductIds(Collection<Long> productIds);
+
+    Optional<ProductStockSummary> getByProductId(Long productId);
+
+    Map<Long, Long> getSellableQuantity(Collection<Long> productIds);
+}
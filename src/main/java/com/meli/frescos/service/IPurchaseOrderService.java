@@ -1,9 +1,10 @@
 package com.meli.frescos.service;
 
 import com.meli.frescos.controller.dto.PurchaseOrderRequest;
-import com.meli.frescos.exception.NotEnoughStockException;
 import com.meli.frescos.exception.PurchaseOrderByIdNotFoundException;
+import com.meli.frescos.model.OrderStatusEnum;
 import com.meli.frescos.model.PurchaseOrderModel;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -17,5 +18,13 @@ public interface IPurchaseOrderService {
 
     List<PurchaseOrderModel> getAll();
 
-   void updateStatus(Long id) throws NotEnoughStockException;
+    Slice<PurchaseOrderModel> getPage(Long after, int limit);
+
+    List<Long> getIdsByStatus(OrderStatusEnum orderStatus);
+
+    PurchaseOrderModel requestClose(Long id) throws PurchaseOrderByIdNotFoundException;
+
+    void closeOrders(List<Long> ids);
+
+    void failClose(Long id, String closeFailure);
 }
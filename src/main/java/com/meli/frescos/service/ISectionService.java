@@ -5,16 +5,22 @@ import com.meli.frescos.exception.SectionByIdNotFoundException;
 import com.meli.frescos.exception.WarehouseNotFoundException;
 import com.meli.frescos.model.CategoryEnum;
 import com.meli.frescos.model.SectionModel;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ISectionService {
 
     List<SectionModel> getAll();
 
+    Slice<SectionModel> getPage(Long after, int limit);
+
     SectionModel save(SectionRequest sectionRequest) throws WarehouseNotFoundException;
 
     SectionModel getById(Long id) throws SectionByIdNotFoundException;
 
+    List<SectionModel> getAllById(Collection<Long> ids) throws SectionByIdNotFoundException;
+
     List<SectionModel> getByCategory(CategoryEnum category);
 }
@@ -1,6 +1,7 @@
 package com.meli.frescos.service;
 
 import com.meli.frescos.model.SellerModel;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,6 +12,8 @@ public interface ISellerService {
 
     List<SellerModel> getAll();
 
+    Slice<SellerModel> getPage(Long after, int limit);
+
     SellerModel getById(Long id);
 
     SellerModel update(SellerModel sellerModel, Long id);
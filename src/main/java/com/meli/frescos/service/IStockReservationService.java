@@ -0,0 +1,23 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.exception.NotEnoughStockException;
+import com.meli.frescos.model.PurchaseOrderModel;
+import com.meli.frescos.repository.BatchStockDebit;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface IStockReservationService {
+
+    void reserve(PurchaseOrderModel purchaseOrder, Map<Long, Integer> quantityByProduct) throws NotEnoughStockException;
+
+    List<BatchStockDebit> getHeldDebits(Long purchaseOrderId);
+
+    void consume(Long purchaseOrderId, List<BatchStockDebit> heldDebits);
+
+    int releaseExpired();
+
+    Map<Long, Long> getHeldQuantity(Collection<Long> productIds, LocalDate minDueDate);
+}
@@ -3,6 +3,7 @@ package com.meli.frescos.service;
 import com.meli.frescos.exception.UsedPrimaryKeyConstraintException;
 import com.meli.frescos.exception.WarehouseNotFoundException;
 import com.meli.frescos.model.WarehouseModel;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -14,5 +15,7 @@ public interface IWarehouseService {
 
     List<WarehouseModel> getAll();
 
+    Slice<WarehouseModel> getPage(Long after, int limit);
+
     void delete(Long id) throws UsedPrimaryKeyConstraintException;
 }
@@ -0,0 +1,130 @@
+package com.meli.frescos.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+
+/**
+ * Striped write locks over the Products and Sections of the inventory write path
+ * Each id maps to one of a fixed array of StampedLocks, so unrelated Products and Sections rarely share a lock
+ * All the stripes of an operation are taken at once in index order, so operations over many Products do not deadlock
+ * Stripes already held by the calling thread are not taken again, the wait for the others is recorded in frescos.inventory.lock.wait
+ * A nested call may only take new stripes above the ones the thread holds, so the global order is kept across calls
+ */
+@Component
+public class InventoryLockManager {
+
+    static final String METRIC_NAME = "frescos.inventory.lock.wait";
+
+    static final long PRODUCT_SALT = 0x5DEECE66DL;
+
+    static final long SECTION_SALT = 0xB5297A4DL;
+
+    private final StampedLock[] stripes;
+
+    private final int shift;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadLocal<Map<Integer, Long>> heldStamps = ThreadLocal.withInitial(HashMap::new);
+
+    public InventoryLockManager(MeterRegistry meterRegistry, @Value("${frescos.inventory-lock.stripes:256}") int stripeCount) {
+        if (stripeCount < 2 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("frescos.inventory-lock.stripes must be a power of two: " + stripeCount);
+        }
+        this.stripes = IntStream.range(0, stripeCount).mapToObj(i -> new StampedLock()).toArray(StampedLock[]::new);
+        this.shift = Long.SIZE - Integer.numberOfTrailingZeros(stripeCount);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Lock the stripes of the given Products and Sections until the returned Locks is closed
+     *
+     * @param operation name of the operation, tag of the wait metric
+     * @param productIds the product ids
+     * @param sectionIds the section ids
+     * @return the Locks taken by this call
+     * @throws IllegalStateException when the thread already holds a stripe above one of the new stripes
+     */
+    public Locks lock(String operation, Collection<Long> productIds, Collection<Long> sectionIds) {
+        Map<Integer, Long> held = heldStamps.get();
+        int[] indexes = IntStream.concat(productIds.stream().mapToInt(id -> stripeOf(id, PRODUCT_SALT)), sectionIds.stream().mapToInt(id -> stripeOf(id, SECTION_SALT)))
+                .filter(i -> !held.containsKey(i))
+                .distinct()
+                .sorted()
+                .toArray();
+        if (indexes.length > 0 && !held.isEmpty()) {
+            int highestHeld = held.keySet().stream().mapToInt(Integer::intValue).max().getAsInt();
+            if (indexes[0] < highestHeld) {
+                throw new IllegalStateException("Inventory lock stripe " + indexes[0] + " requested while holding stripe " + highestHeld + ", take all the stripes of the operation in a single call");
+            }
+        }
+        long start = System.nanoTime();
+        for (int index : indexes) {
+            held.put(index, stripes[index].writeLock());
+        }
+        Timer.builder(METRIC_NAME)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Locks(indexes);
+    }
+
+    /**
+     * Lock the stripes of the given Products and Sections until the current transaction completes,
+     * so other operations only see the inventory after the changes are committed
+     *
+     * @param operation name of the operation, tag of the wait metric
+     * @param productIds the product ids
+     * @param sectionIds the section ids
+     * @throws IllegalStateException when called outside a transaction
+     */
+    public void lockUntilCompletion(String operation, Collection<Long> productIds, Collection<Long> sectionIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Inventory locks held until completion require an active transaction");
+        }
+        Locks locks = lock(operation, productIds, sectionIds);
+        TransactionCallbacks.afterCompletion(locks::close);
+    }
+
+    int stripeOf(Long id, long salt) {
+        return (int) (((id ^ salt) * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * Stripes taken by a single call, released together by the thread that took them
+     */
+    public final class Locks implements AutoCloseable {
+
+        private int[] indexes;
+
+        private Locks(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        @Override
+        public void close() {
+            if (indexes == null) {
+                return;
+            }
+            Map<Integer, Long> held = heldStamps.get();
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlockWrite(held.remove(indexes[i]));
+            }
+            if (held.isEmpty()) {
+                heldStamps.remove();
+            }
+            indexes = null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.OutboxEventModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * OutboxEventSink delivering each event to the in-process @EventListener methods accepting OutboxEventModel
+ */
+@Component
+@ConditionalOnProperty(name = "frescos.outbox.sink", havingValue = "listener", matchIfMissing = true)
+public class ListenerOutboxEventSink implements OutboxEventSink {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public ListenerOutboxEventSink(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @Override
+    public void publish(List<OutboxEventModel> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,213 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.controller.dto.BatchStockFiltersResponse;
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.SectionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-Sent Events feed of the BatchStocks entering the expiry window of a Warehouse or Section
+ * Subscribers get the BatchStocks already in the window, then the ones entering it as days pass,
+ * found by walking the expiry index once per tick for all subscribers, and the ones created or updated inside it
+ */
+@Slf4j
+@Component
+public class NearExpiryFeed {
+
+    private static final String EVENT_NAME = "batch-stock";
+
+    private final BatchStockExpiryIndex batchStockExpiryIndex;
+
+    private final BatchStockRepository batchStockRepository;
+
+    private final SectionRepository sectionRepository;
+
+    private final long timeoutMs;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    public NearExpiryFeed(BatchStockExpiryIndex batchStockExpiryIndex, BatchStockRepository batchStockRepository, SectionRepository sectionRepository,
+                          @Value("${frescos.expiry-feed.timeout-ms:1800000}") long timeoutMs) {
+        this.batchStockExpiryIndex = batchStockExpiryIndex;
+        this.batchStockRepository = batchStockRepository;
+        this.sectionRepository = sectionRepository;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Open a feed of the BatchStocks of a Warehouse or Section due in the given number of days
+     *
+     * @param warehouseId the warehouse id, null when scoped to a section
+     * @param sectionId the section id, null when scoped to a warehouse
+     * @param numberOfDays size of the expiry window in days
+     * @return the SseEmitter, already holding the BatchStocks in the window
+     */
+    public SseEmitter subscribe(Long warehouseId, Long sectionId, int numberOfDays) {
+        LocalDate today = LocalDate.now();
+        Subscription subscription = new Subscription(new SseEmitter(timeoutMs), warehouseId, sectionId, numberOfDays, today.plusDays(numberOfDays));
+        subscription.emitter.onCompletion(() -> subscriptions.remove(subscription));
+        subscription.emitter.onTimeout(() -> subscriptions.remove(subscription));
+        subscription.emitter.onError(e -> subscriptions.remove(subscription));
+
+        List<Long> sectionIds = sectionId != null ? List.of(sectionId) : sectionRepository.findIdsByWarehouseId(warehouseId);
+        List<Long> batchStockIds = sectionIds.stream()
+                .flatMap(id -> batchStockExpiryIndex.getBySection(id, today, subscription.windowEnd, 0, Integer.MAX_VALUE).stream())
+                .toList();
+        subscriptions.add(subscription);
+        send(subscription, load(batchStockIds));
+        return subscription.emitter;
+    }
+
+    /**
+     * Send the BatchStocks entering each subscriber window since the last tick
+     * The expiry index is walked once for the union of the new window days, and the BatchStocks loaded with a single query
+     * Subscribers without new BatchStocks get a heartbeat, so closed connections are detected
+     */
+    @Scheduled(fixedDelayString = "${frescos.expiry-feed.tick-interval-ms:60000}")
+    public void tick() {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate from = null;
+        LocalDate to = null;
+        for (Subscription subscription : subscriptions) {
+            LocalDate windowEnd = today.plusDays(subscription.numberOfDays);
+            if (windowEnd.isAfter(subscription.windowEnd)) {
+                from = from == null || subscription.windowEnd.isBefore(from) ? subscription.windowEnd.plusDays(1) : from;
+                to = to == null || windowEnd.isAfter(to) ? windowEnd : to;
+            }
+        }
+        List<BatchStockModel> entering = from == null ? List.of() : load(batchStockExpiryIndex.getBetween(from, to));
+
+        for (Subscription subscription : subscriptions) {
+            LocalDate previousWindowEnd = subscription.windowEnd;
+            LocalDate windowEnd = today.plusDays(subscription.numberOfDays);
+            List<BatchStockModel> batchStockList = entering.stream()
+                    .filter(b -> subscription.matches(b) && b.getDueDate().isAfter(previousWindowEnd) && !b.getDueDate().isAfter(windowEnd))
+                    .toList();
+            subscription.windowEnd = windowEnd;
+            if (batchStockList.isEmpty()) {
+                heartbeat(subscription);
+            } else {
+                send(subscription, batchStockList);
+            }
+        }
+    }
+
+    /**
+     * Send a created or updated BatchStock to the subscribers whose window contains it
+     * When called inside a transaction it is sent only after commit
+     *
+     * @param batchStock the BatchStock, with its Section and Warehouse loaded
+     */
+    public void onBatchStockChanged(BatchStockModel batchStock) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        Long sectionId = batchStock.getSection().getId();
+        Long warehouseId = batchStock.getSection().getWarehouse().getId();
+        LocalDate dueDate = batchStock.getDueDate();
+        BatchStockFiltersResponse response = BatchStockFiltersResponse.toResponse(batchStock);
+        TransactionCallbacks.afterCommit(() -> publish(batchStock.getId(), sectionId, warehouseId, dueDate, response));
+    }
+
+    private void publish(Long batchStockId, Long sectionId, Long warehouseId, LocalDate dueDate, BatchStockFiltersResponse response) {
+        if (dueDate.isBefore(LocalDate.now())) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            if (subscription.matches(sectionId, warehouseId) && !dueDate.isAfter(subscription.windowEnd)) {
+                send(subscription, batchStockId, response);
+            }
+        }
+    }
+
+    private List<BatchStockModel> load(List<Long> batchStockIds) {
+        if (batchStockIds.isEmpty()) {
+            return List.of();
+        }
+        return batchStockRepository.findAllFetchedById(batchStockIds).stream()
+                .sorted(Comparator.comparing(BatchStockModel::getDueDate))
+                .toList();
+    }
+
+    private void send(Subscription subscription, List<BatchStockModel> batchStockList) {
+        for (BatchStockModel batchStock : batchStockList) {
+            send(subscription, batchStock.getId(), BatchStockFiltersResponse.toResponse(batchStock));
+        }
+    }
+
+    private void send(Subscription subscription, Long batchStockId, BatchStockFiltersResponse response) {
+        try {
+            synchronized (subscription) {
+                subscription.emitter.send(SseEmitter.event()
+                        .id(batchStockId.toString())
+                        .name(EVENT_NAME)
+                        .data(response));
+            }
+        } catch (IOException | IllegalStateException e) {
+            drop(subscription, e);
+        }
+    }
+
+    private void heartbeat(Subscription subscription) {
+        try {
+            synchronized (subscription) {
+                subscription.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            drop(subscription, e);
+        }
+    }
+
+    private void drop(Subscription subscription, Exception e) {
+        log.debug("Assinante do feed de vencimento desconectado", e);
+        subscriptions.remove(subscription);
+        subscription.emitter.completeWithError(e);
+    }
+
+    /**
+     * Open feed of a Warehouse or Section, with the last due date already sent
+     */
+    private static final class Subscription {
+
+        private final SseEmitter emitter;
+
+        private final Long warehouseId;
+
+        private final Long sectionId;
+
+        private final int numberOfDays;
+
+        private volatile LocalDate windowEnd;
+
+        private Subscription(SseEmitter emitter, Long warehouseId, Long sectionId, int numberOfDays, LocalDate windowEnd) {
+            this.emitter = emitter;
+            this.warehouseId = warehouseId;
+            this.sectionId = sectionId;
+            this.numberOfDays = numberOfDays;
+            this.windowEnd = windowEnd;
+        }
+
+        boolean matches(BatchStockModel batchStock) {
+            return matches(batchStock.getSection().getId(), batchStock.getSection().getWarehouse().getId());
+        }
+
+        boolean matches(Long batchStockSectionId, Long batchStockWarehouseId) {
+            return sectionId != null ? sectionId.equals(batchStockSectionId) : warehouseId.equals(batchStockWarehouseId);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.meli.frescos.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs read-modify-write operations on versioned entities in their own transaction, retrying them when a concurrent change wins
+ * Each attempt must read the entities again, the last failure is rethrown after frescos.optimistic-lock.max-attempts
+ * Retries are counted in frescos.optimistic.lock.retries
+ */
+@Component
+public class OptimisticLockRetry {
+
+    static final String METRIC_NAME = "frescos.optimistic.lock.retries";
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxAttempts;
+
+    private final Counter retries;
+
+    public OptimisticLockRetry(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                               @Value("${frescos.optimistic-lock.max-attempts:3}") int maxAttempts) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.retries = meterRegistry.counter(METRIC_NAME);
+    }
+
+    /**
+     * Run the action in a new transaction until it commits without an optimistic lock failure
+     *
+     * @param action the action, reading and writing the entities
+     * @return the result of the action
+     * @throws OptimisticLockingFailureException when every attempt failed
+     */
+    public <T> T execute(TransactionCallback<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(action);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                retries.increment();
+            }
+        }
+    }
+}
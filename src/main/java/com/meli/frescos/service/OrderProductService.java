@@ -10,9 +10,17 @@ import com.meli.frescos.model.PurchaseOrderModel;
 import com.meli.frescos.repository.OrderProductsRepository;
 import com.meli.frescos.repository.ProductRepository;
 import com.meli.frescos.repository.PurchaseOrderRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * This class contains all OrderProducts related functions
@@ -43,6 +51,18 @@ public class OrderProductService implements IOrderProductService {
         return orderProductsRepository.findAll();
     }
 
+    /**
+     * Returns a page of OrderProductsModel ordered by id, starting after the given id
+     *
+     * @param after last order product id of the previous page
+     * @param limit max number of order products in the page
+     * @return slice of OrderProductsModel
+     */
+    @Override
+    public Slice<OrderProductsModel> getPage(Long after, int limit) {
+        return orderProductsRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(limit));
+    }
+
     /**
      * Save a new OrderProducts at storage
      * @param orderProductsRequest the new OrderProducts to store
@@ -65,6 +85,32 @@ public class OrderProductService implements IOrderProductService {
         return orderProductsRepository.save(model);
     }
 
+    /**
+     * Save the OrderProducts of a PurchaseOrder at storage
+     * The Products are loaded with a single query and the order lines inserted in a single JDBC batch
+     * @param purchaseOrder the already saved PurchaseOrder
+     * @param orderProductsRequests the order lines
+     * @return the saved OrderProducts, with their Product loaded and without id
+     * @throws ProductByIdNotFoundException Throws in case a Product does not exists
+     */
+    @Override
+    public List<OrderProductsModel> saveAll(PurchaseOrderModel purchaseOrder, List<OrderProductsRequest> orderProductsRequests) throws ProductByIdNotFoundException {
+        Set<Long> productIds = orderProductsRequests.stream().map(OrderProductsRequest::getProductModel).collect(Collectors.toSet());
+        Map<Long, ProductModel> productById = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductModel::getId, Function.identity()));
+
+        List<OrderProductsModel> orderProducts = new ArrayList<>();
+        for (OrderProductsRequest orderProductsRequest : orderProductsRequests) {
+            ProductModel product = productById.get(orderProductsRequest.getProductModel());
+            if (product == null) {
+                throw new ProductByIdNotFoundException(orderProductsRequest.getProductModel());
+            }
+            orderProducts.add(new OrderProductsModel(product, orderProductsRequest.getQuantity(), purchaseOrder));
+        }
+        orderProductsRepository.insertAll(orderProducts);
+        return orderProducts;
+    }
+
     /**
      * Return PurchaseOrderModel given id
      * @param purchaseId the PurchaseOrderModel id
@@ -80,6 +126,17 @@ public class OrderProductService implements IOrderProductService {
         return orderProductsModels;
     }
 
+    /**
+     * Return the OrderProductsModel of many PurchaseOrders given their ids
+     * Products and PurchaseOrders are fetched in the same query
+     * @param purchaseIds the PurchaseOrderModel ids
+     * @return List of OrderProductsModel
+     */
+    @Override
+    public List<OrderProductsModel> getByPurchaseIds(Collection<Long> purchaseIds) {
+        return orderProductsRepository.findAllByPurchaseOrderIds(purchaseIds);
+    }
+
     /**
      * Return OrderProductsModel given id
      * @param id the OrderProductsModel id
@@ -0,0 +1,21 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.OutboxEventModel;
+
+import java.util.List;
+
+/**
+ * Destination of the OutboxEvents drained by the OutboxRelay
+ * Selected with frescos.outbox.sink: listener (default), file or broker
+ */
+public interface OutboxEventSink {
+
+    /**
+     * Publish a batch of events
+     * Events may arrive again or after newer ones, their id identifies duplicates
+     * Throwing keeps the events in the outbox to be published again
+     *
+     * @param events the events
+     */
+    void publish(List<OutboxEventModel> events);
+}
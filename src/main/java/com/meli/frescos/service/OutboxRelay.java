@@ -0,0 +1,44 @@
+package com.meli.frescos.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically drains the outbox to the configured OutboxEventSink, in batches
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final IOutboxService iOutboxService;
+
+    private final int batchSize;
+
+    public OutboxRelay(IOutboxService iOutboxService, @Value("${frescos.outbox.relay-batch-size:500}") int batchSize) {
+        this.iOutboxService = iOutboxService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Publish batches until the outbox is empty
+     * A failed batch stays in the outbox and is retried on the next run
+     *
+     * @return number of events published
+     */
+    @Scheduled(fixedDelayString = "${frescos.outbox.relay-interval-ms:1000}")
+    public synchronized int relay() {
+        int published = 0;
+        try {
+            int batch;
+            do {
+                batch = iOutboxService.publishNext(batchSize);
+                published += batch;
+            } while (batch == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Falha ao publicar eventos do outbox", e);
+        }
+        return published;
+    }
+}
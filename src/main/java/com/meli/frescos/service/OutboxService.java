@@ -0,0 +1,92 @@
+package com.meli.frescos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meli.frescos.model.OutboxEventModel;
+import com.meli.frescos.model.OutboxEventTypeEnum;
+import com.meli.frescos.repository.OutboxEventRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * This class contains all OutboxEvent related functions
+ * Events are written in the transaction of the change they describe, so they exist if and only if the change was committed
+ * Using @Service from spring
+ */
+@Service
+public class OutboxService implements IOutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final OutboxEventSink outboxEventSink;
+
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, OutboxEventSink outboxEventSink, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventSink = outboxEventSink;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Return a new OutboxEventModel given the change
+     *
+     * @param eventType the event type
+     * @param aggregateId id of the changed BatchStock or PurchaseOrder
+     * @param payload the change, serialized as JSON
+     * @return OutboxEventModel not saved yet
+     */
+    @Override
+    public OutboxEventModel newEvent(OutboxEventTypeEnum eventType, Long aggregateId, Object payload) {
+        try {
+            return OutboxEventModel.builder()
+                    .eventType(eventType)
+                    .aggregateId(aggregateId)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Evento inválido: " + eventType, e);
+        }
+    }
+
+    /**
+     * Save OutboxEvents with a single JDBC batch
+     * Must be called inside the transaction of the change
+     *
+     * @param events the events
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<OutboxEventModel> events) {
+        if (!events.isEmpty()) {
+            outboxEventRepository.insertAll(events);
+        }
+    }
+
+    /**
+     * Claim the oldest unclaimed OutboxEvents, publish them to the sink and remove them
+     * Events claimed by a concurrent relay are skipped, so many instances can relay the same outbox
+     * A sink failure rolls back the removal, so events are delivered at least once
+     * Ids commit out of order, an event may be published after a newer one, consumers deduplicate by id
+     *
+     * @param limit max number of events
+     * @return number of events published
+     */
+    @Override
+    @Transactional
+    public int publishNext(int limit) {
+        List<OutboxEventModel> events = outboxEventRepository.findAllByOrderByIdAsc(PageRequest.of(0, limit));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        outboxEventSink.publish(events);
+        outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEventModel::getId).toList());
+        return events.size();
+    }
+}
@@ -3,10 +3,17 @@ package com.meli.frescos.service;
 import com.meli.frescos.exception.ProductByIdNotFoundException;
 import com.meli.frescos.model.CategoryEnum;
 import com.meli.frescos.model.ProductModel;
+import com.meli.frescos.model.SellerModel;
 import com.meli.frescos.repository.ProductRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  *  This class contains all Product related functions
@@ -19,9 +26,12 @@ public class ProductService implements IProductService {
 
     private final ISellerService iSellerService;
 
-    public ProductService(ProductRepository productRepository, ISellerService iSellerService) {
+    private final IProductStockSummaryService iProductStockSummaryService;
+
+    public ProductService(ProductRepository productRepository, ISellerService iSellerService, IProductStockSummaryService iProductStockSummaryService) {
         this.productRepository = productRepository;
         this.iSellerService = iSellerService;
+        this.iProductStockSummaryService = iProductStockSummaryService;
     }
 
     /**
@@ -47,15 +57,37 @@ public class ProductService implements IProductService {
     }
 
     /**
-     * Save a new Product at storage
+     * Save a new Product at storage, along with its empty stock summary
      *
      * @param product the new Product to store
      * @return the new created Product
      */
     @Override
+    @Transactional
     public ProductModel save(ProductModel product) {
+        boolean isNew = product.getId() == null;
         product.setSeller(iSellerService.getById(product.getSeller().getId()));
-        return productRepository.save(product);
+        ProductModel savedProduct = productRepository.save(product);
+        if (isNew) {
+            iProductStockSummaryService.create(List.of(savedProduct.getId()));
+        }
+        return savedProduct;
+    }
+
+    /**
+     * Save new Products at storage, loading each distinct seller once, along with their empty stock summaries
+     *
+     * @param products the new Products to store
+     * @return the new created Products
+     */
+    @Override
+    @Transactional
+    public List<ProductModel> saveAll(List<ProductModel> products) {
+        Map<Long, SellerModel> sellerById = new HashMap<>();
+        products.forEach(p -> p.setSeller(sellerById.computeIfAbsent(p.getSeller().getId(), iSellerService::getById)));
+        List<ProductModel> savedProducts = productRepository.saveAll(products);
+        iProductStockSummaryService.create(savedProducts.stream().map(ProductModel::getId).toList());
+        return savedProducts;
     }
 
     /**
@@ -69,4 +101,16 @@ public class ProductService implements IProductService {
         return productRepository.findByCategory(CategoryEnum.getEnum(filter));
     }
 
+    /**
+     * Returns a page of ProductModel ordered by id, starting after the given id
+     *
+     * @param after last product id of the previous page
+     * @param limit max number of products in the page
+     * @return slice of ProductModel
+     */
+    @Override
+    public Slice<ProductModel> getPage(Long after, int limit) {
+        return productRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(limit));
+    }
+
 }
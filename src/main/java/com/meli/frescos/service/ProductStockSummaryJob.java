@@ -0,0 +1,74 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rebuilds and checks the materialized ProductStockSummary, in chunks of Products
+ * The rebuild also moves the batches entering the last 3 weeks before expiry out of the sellable quantity
+ */
+@Slf4j
+@Component
+public class ProductStockSummaryJob {
+
+    private final IProductStockSummaryService iProductStockSummaryService;
+
+    private final ProductRepository productRepository;
+
+    private final int chunkSize;
+
+    public ProductStockSummaryJob(IProductStockSummaryService iProductStockSummaryService, ProductRepository productRepository,
+                                  @Value("${frescos.stock-summary.chunk-size:500}") int chunkSize) {
+        this.iProductStockSummaryService = iProductStockSummaryService;
+        this.productRepository = productRepository;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Recompute the summary of every Product, one transaction by chunk
+     * Runs when the application is ready and then every day at midnight
+     *
+     * @return number of Products recomputed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${frescos.stock-summary.rebuild-cron:0 0 0 * * *}")
+    public synchronized int rebuild() {
+        int recomputed = 0;
+        for (List<Long> productIds = nextChunk(0L); !productIds.isEmpty(); productIds = nextChunk(productIds.get(productIds.size() - 1))) {
+            iProductStockSummaryService.recompute(productIds);
+            recomputed += productIds.size();
+        }
+        return recomputed;
+    }
+
+    /**
+     * Compare the summary of every Product with its BatchStocks and recompute the inconsistent ones
+     *
+     * @return number of inconsistent Products found
+     */
+    @Scheduled(fixedDelayString = "${frescos.stock-summary.check-interval-ms:3600000}", initialDelayString = "${frescos.stock-summary.check-interval-ms:3600000}")
+    public synchronized int check() {
+        int inconsistent = 0;
+        for (List<Long> productIds = nextChunk(0L); !productIds.isEmpty(); productIds = nextChunk(productIds.get(productIds.size() - 1))) {
+            List<Long> inconsistentProductIds = iProductStockSummaryService.getInconsistent(productIds);
+            if (!inconsistentProductIds.isEmpty()) {
+                log.warn("Resumo de estoque inconsistente para os produtos {}", inconsistentProductIds);
+                iProductStockSummaryService.recompute(inconsistentProductIds);
+                inconsistent += inconsistentProductIds.size();
+            }
+        }
+        return inconsistent;
+    }
+
+    private List<Long> nextChunk(Long afterProductId) {
+        return productRepository.findIdsByIdGreaterThan(afterProductId, PageRequest.ofSize(chunkSize));
+    }
+}
@@ -0,0 +1,221 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.model.CategoryEnum;
+import com.meli.frescos.model.ProductStockSummaryModel;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.ProductStockSummary;
+import com.meli.frescos.repository.ProductStockSummaryRepository;
+import com.meli.frescos.repository.ProductStockTotals;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This class contains all ProductStockSummary related functions
+ * Keeps a materialized summary of the BatchStocks of each Product, so listings and availability checks do not aggregate batch_stock
+ * Using @Service from spring
+ */
+@Service
+public class ProductStockSummaryService implements IProductStockSummaryService {
+
+    private static final int SELLABLE_WEEKS = 3;
+
+    private final ProductStockSummaryRepository productStockSummaryRepository;
+
+    private final BatchStockRepository batchStockRepository;
+
+    public ProductStockSummaryService(ProductStockSummaryRepository productStockSummaryRepository, BatchStockRepository batchStockRepository) {
+        this.productStockSummaryRepository = productStockSummaryRepository;
+        this.batchStockRepository = batchStockRepository;
+    }
+
+    /**
+     * Create the empty summary of new Products
+     *
+     * @param productIds the new product ids
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void create(Collection<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            productStockSummaryRepository.insertEmpty(productIds, LocalDate.now());
+        }
+    }
+
+    /**
+     * Add new BatchStocks to the summary of their Products, with one update by Product
+     * Products without summary yet are recomputed from their BatchStocks
+     *
+     * @param batchStockList the created BatchStocks
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(List<BatchStockModel> batchStockList) {
+        LocalDate minSellableDueDate = LocalDate.now().plusWeeks(SELLABLE_WEEKS);
+        Map<Long, List<BatchStockModel>> batchStocksByProduct = batchStockList.stream()
+                .collect(Collectors.groupingBy(b -> b.getProduct().getId(), TreeMap::new, Collectors.toList()));
+
+        List<Long> missingProductIds = new ArrayList<>();
+        batchStocksByProduct.forEach((productId, batchStocks) -> {
+            long quantity = batchStocks.stream().mapToLong(BatchStockModel::getQuantity).sum();
+            long sellableQuantity = batchStocks.stream().filter(b -> !b.getDueDate().isBefore(minSellableDueDate)).mapToLong(BatchStockModel::getQuantity).sum();
+            LocalDate closestDueDate = batchStocks.stream().map(BatchStockModel::getDueDate).min(LocalDate::compareTo).orElseThrow();
+            if (productStockSummaryRepository.add(productId, quantity, sellableQuantity, closestDueDate) == 0) {
+                missingProductIds.add(productId);
+            }
+        });
+        recompute(missingProductIds);
+    }
+
+    /**
+     * Recompute the summary of Products from their BatchStocks
+     * The summaries are locked before the BatchStocks are read, so changes of the same Products wait for the new totals
+     *
+     * @param productIds the product ids
+     */
+    @Override
+    @Transactional
+    public void recompute(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> distinctProductIds = new HashSet<>(productIds);
+        List<ProductStockSummaryModel> summaries = productStockSummaryRepository.findAllForUpdate(distinctProductIds);
+        if (summaries.size() < distinctProductIds.size()) {
+            Set<Long> existingProductIds = summaries.stream().map(ProductStockSummaryModel::getProductId).collect(Collectors.toSet());
+            productStockSummaryRepository.insertEmpty(distinctProductIds.stream().filter(id -> !existingProductIds.contains(id)).sorted().toList(), LocalDate.now());
+            summaries = productStockSummaryRepository.findAllForUpdate(distinctProductIds);
+        }
+
+        LocalDate today = LocalDate.now();
+        Map<Long, ProductStockTotals> totalsByProduct = getTotals(distinctProductIds, today);
+        for (ProductStockSummaryModel summary : summaries) {
+            ProductStockTotals totals = totalsByProduct.get(summary.getProductId());
+            summary.setTotalQuantity(totals == null ? 0L : totals.getTotalQuantity());
+            summary.setSellableQuantity(totals == null ? 0L : totals.getSellableQuantity());
+            summary.setSellableAsOf(today);
+            summary.setClosestDueDate(totals == null ? null : totals.getClosestDueDate());
+        }
+    }
+
+    /**
+     * Return the Products whose summary differs from their BatchStocks
+     * The sellable quantity is only compared for summaries computed today
+     *
+     * @param productIds the product ids to check
+     * @return the ids of the inconsistent Products
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> getInconsistent(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        LocalDate today = LocalDate.now();
+        Map<Long, ProductStockSummaryModel> summaryByProduct = productStockSummaryRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductStockSummaryModel::getProductId, Function.identity()));
+        Map<Long, ProductStockTotals> totalsByProduct = getTotals(productIds, today);
+
+        return productIds.stream().filter(productId -> {
+            ProductStockSummaryModel summary = summaryByProduct.get(productId);
+            ProductStockTotals totals = totalsByProduct.get(productId);
+            if (summary == null) {
+                return true;
+            }
+            long totalQuantity = totals == null ? 0L : totals.getTotalQuantity();
+            long sellableQuantity = totals == null ? 0L : totals.getSellableQuantity();
+            LocalDate closestDueDate = totals == null ? null : totals.getClosestDueDate();
+            return summary.getTotalQuantity() != totalQuantity
+                    || !Objects.equals(summary.getClosestDueDate(), closestDueDate)
+                    || (summary.getSellableAsOf().equals(today) && summary.getSellableQuantity() != sellableQuantity);
+        }).toList();
+    }
+
+    /**
+     * Return the summary of every Product with BatchStock
+     *
+     * @return map of ProductStockSummary by product id
+     */
+    @Override
+    public Map<Long, ProductStockSummary> getAll() {
+        return toSummaryMap(productStockSummaryRepository.findAllStocked());
+    }
+
+    /**
+     * Return the summary of every Product with BatchStock given a category
+     *
+     * @param category the product category
+     * @return map of ProductStockSummary by product id
+     */
+    @Override
+    public Map<Long, ProductStockSummary> getByCategory(CategoryEnum category) {
+        return toSummaryMap(productStockSummaryRepository.findAllStockedByCategory(category));
+    }
+
+    /**
+     * Return the summary of the Products with BatchStock given a list of product id
+     *
+     * @param productIds the product id list
+     * @return map of ProductStockSummary by product id
+     */
+    @Override
+    public Map<Long, ProductStockSummary> getByProductIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return toSummaryMap(productStockSummaryRepository.findAllStockedByProductIds(productIds));
+    }
+
+    /**
+     * Return the summary of a Product given id
+     *
+     * @param productId the product id
+     * @return the ProductStockSummary, empty when the Product has no summary yet
+     */
+    @Override
+    public Optional<ProductStockSummary> getByProductId(Long productId) {
+        return productStockSummaryRepository.findById(productId).map(Function.identity());
+    }
+
+    /**
+     * Return the quantity of each Product due in 3 weeks or more, not counting reservations
+     * Summaries not computed today are left out, since batches may have expired into the last 3 weeks since then
+     *
+     * @param productIds the product ids
+     * @return the sellable quantity by product id
+     */
+    @Override
+    public Map<Long, Long> getSellableQuantity(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        LocalDate today = LocalDate.now();
+        return productStockSummaryRepository.findAllById(productIds).stream()
+                .filter(s -> s.getSellableAsOf().equals(today))
+                .collect(Collectors.toMap(ProductStockSummaryModel::getProductId, ProductStockSummaryModel::getSellableQuantity));
+    }
+
+    private Map<Long, ProductStockTotals> getTotals(Collection<Long> productIds, LocalDate today) {
+        return batchStockRepository.findStockTotalsByProductIds(productIds, today.plusWeeks(SELLABLE_WEEKS)).stream()
+                .collect(Collectors.toMap(ProductStockTotals::getProductId, Function.identity()));
+    }
+
+    private Map<Long, ProductStockSummary> toSummaryMap(List<ProductStockSummaryModel> summaryList) {
+        return summaryList.stream().collect(Collectors.toMap(ProductStockSummaryModel::getProductId, s -> s));
+    }
+}
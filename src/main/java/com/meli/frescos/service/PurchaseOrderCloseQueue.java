@@ -0,0 +1,72 @@
+package com.meli.frescos.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of the ids of the PurchaseOrders waiting to be closed
+ * An id already waiting is not queued twice, so repeated close requests do not pile up
+ */
+@Component
+public class PurchaseOrderCloseQueue {
+
+    private final BlockingQueue<Long> queue;
+
+    private final Set<Long> queuedIds = ConcurrentHashMap.newKeySet();
+
+    public PurchaseOrderCloseQueue(@Value("${frescos.purchase-order-close.queue-capacity:10000}") int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Queue a PurchaseOrder to be closed
+     *
+     * @param purchaseOrderId the PurchaseOrder id
+     * @return false when the queue is full
+     */
+    public boolean offer(Long purchaseOrderId) {
+        if (!queuedIds.add(purchaseOrderId)) {
+            return true;
+        }
+        if (!queue.offer(purchaseOrderId)) {
+            queuedIds.remove(purchaseOrderId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Take the next micro-batch of PurchaseOrder ids, waiting for the first one
+     *
+     * @param maxSize max number of ids
+     * @param timeoutMs max time to wait for the first id
+     * @return the ids in arrival order, empty when none arrived in time
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public List<Long> poll(int maxSize, long timeoutMs) throws InterruptedException {
+        Long first = queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return List.of();
+        }
+        List<Long> batch = new ArrayList<>(maxSize);
+        batch.add(first);
+        queue.drainTo(batch, maxSize - 1);
+        batch.forEach(queuedIds::remove);
+        return batch;
+    }
+
+    /**
+     * @return number of PurchaseOrders waiting
+     */
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,182 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.OrderStatusEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed pool of workers closing the queued PurchaseOrders in micro-batches
+ * Workers run on virtual threads when built with the java21 profile
+ * PurchaseOrders left CLOSING by a full queue or a restart are queued again periodically
+ * A PurchaseOrder failing to close max-attempts times in a row goes back to OPEN, failed attempts are counted in memory
+ */
+@Slf4j
+@Component
+public class PurchaseOrderCloseWorkers {
+
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private static final String THREAD_NAME_PREFIX = "purchase-order-close-";
+
+    private final PurchaseOrderCloseQueue purchaseOrderCloseQueue;
+
+    private final IPurchaseOrderService iPurchaseOrderService;
+
+    private final OptimisticLockRetry optimisticLockRetry;
+
+    private final int workers;
+
+    private final int batchSize;
+
+    private final boolean virtualThreads;
+
+    private final int maxAttempts;
+
+    private final Map<Long, Integer> failedAttemptsById = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    private ExecutorService executor;
+
+    public PurchaseOrderCloseWorkers(PurchaseOrderCloseQueue purchaseOrderCloseQueue, IPurchaseOrderService iPurchaseOrderService, OptimisticLockRetry optimisticLockRetry,
+                                     @Value("${frescos.purchase-order-close.workers:4}") int workers,
+                                     @Value("${frescos.purchase-order-close.batch-size:32}") int batchSize,
+                                     @Value("${frescos.purchase-order-close.virtual-threads:false}") boolean virtualThreads,
+                                     @Value("${frescos.purchase-order-close.max-attempts:5}") int maxAttempts) {
+        this.purchaseOrderCloseQueue = purchaseOrderCloseQueue;
+        this.iPurchaseOrderService = iPurchaseOrderService;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.virtualThreads = virtualThreads;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Start the workers when the application is ready and queue the PurchaseOrders left CLOSING
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        executor = Executors.newFixedThreadPool(workers, threadFactory());
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::run);
+        }
+        requeueClosing();
+    }
+
+    /**
+     * Stop the workers, a micro-batch being closed is rolled back and queued again on next start
+     */
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Queue every PurchaseOrder waiting in CLOSING status
+     */
+    @Scheduled(fixedDelayString = "${frescos.purchase-order-close.requeue-interval-ms:60000}", initialDelayString = "${frescos.purchase-order-close.requeue-interval-ms:60000}")
+    public void requeueClosing() {
+        for (Long purchaseOrderId : iPurchaseOrderService.getIdsByStatus(OrderStatusEnum.CLOSING)) {
+            if (!purchaseOrderCloseQueue.offer(purchaseOrderId)) {
+                return;
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                List<Long> purchaseOrderIds = purchaseOrderCloseQueue.poll(batchSize, POLL_TIMEOUT_MS);
+                if (!purchaseOrderIds.isEmpty()) {
+                    close(purchaseOrderIds);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Close a micro-batch, closing its PurchaseOrders one by one when the batch fails
+     * A batch whose debits lost a race with a concurrent change of the stock is closed again from scratch first
+     * so a single failing PurchaseOrder does not hold the others
+     * A PurchaseOrder that still fails stays CLOSING and is retried by requeueClosing, up to max-attempts times
+     *
+     * @param purchaseOrderIds the PurchaseOrder ids
+     */
+    void close(List<Long> purchaseOrderIds) {
+        try {
+            optimisticLockRetry.execute(status -> {
+                iPurchaseOrderService.closeOrders(purchaseOrderIds);
+                return null;
+            });
+            purchaseOrderIds.forEach(failedAttemptsById::remove);
+        } catch (RuntimeException e) {
+            if (purchaseOrderIds.size() == 1) {
+                onCloseFailed(purchaseOrderIds.get(0), e);
+                return;
+            }
+            purchaseOrderIds.forEach(id -> close(List.of(id)));
+        }
+    }
+
+    /**
+     * Count a failed close of a PurchaseOrder, moving it back to OPEN when it has no attempts left
+     *
+     * @param purchaseOrderId the PurchaseOrder id
+     * @param e the failure
+     */
+    private void onCloseFailed(Long purchaseOrderId, RuntimeException e) {
+        int attempts = failedAttemptsById.merge(purchaseOrderId, 1, Integer::sum);
+        if (attempts < maxAttempts) {
+            log.error("Falha ao fechar o pedido de compra {}, tentativa {} de {}", purchaseOrderId, attempts, maxAttempts, e);
+            return;
+        }
+        log.error("Falha ao fechar o pedido de compra {}, reaberto após {} tentativas", purchaseOrderId, attempts, e);
+        try {
+            iPurchaseOrderService.failClose(purchaseOrderId, "Falha ao fechar o pedido de compra após " + attempts + " tentativas");
+            failedAttemptsById.remove(purchaseOrderId);
+        } catch (RuntimeException reopenFailure) {
+            log.error("Falha ao reabrir o pedido de compra {}", purchaseOrderId, reopenFailure);
+        }
+    }
+
+    private ThreadFactory threadFactory() {
+        if (!virtualThreads) {
+            return new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+        }
+        // Thread.ofVirtual() is looked up at runtime so the same sources also build on Java 17
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21", e);
+        }
+    }
+}
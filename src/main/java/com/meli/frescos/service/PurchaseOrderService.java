@@ -2,17 +2,23 @@ package com.meli.frescos.service;
 
 import com.meli.frescos.controller.dto.OrderProductsRequest;
 import com.meli.frescos.controller.dto.PurchaseOrderRequest;
+import com.meli.frescos.controller.dto.PurchaseOrderStatusResponse;
 import com.meli.frescos.exception.NotEnoughStockException;
 import com.meli.frescos.exception.OrderProductIsInvalidException;
 import com.meli.frescos.exception.PurchaseOrderByIdNotFoundException;
+import com.meli.frescos.exception.PurchaseOrderCloseQueueFullException;
 import com.meli.frescos.model.*;
 import com.meli.frescos.repository.PurchaseOrderRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -31,12 +37,26 @@ public class PurchaseOrderService implements IPurchaseOrderService {
 
     private final IBatchStockService iBatchStockService;
 
+    private final IStockReservationService iStockReservationService;
+
+    private final PurchaseOrderCloseQueue purchaseOrderCloseQueue;
+
+    private final IOutboxService iOutboxService;
+
+    private final PurchasedProductIndex purchasedProductIndex;
+
     public PurchaseOrderService(PurchaseOrderRepository purchaseOrderRepository, IBuyerService iBuyerService, IOrderProductService iOrderProductService,
-                                IBatchStockService iBatchStockService) {
+                                IBatchStockService iBatchStockService, IStockReservationService iStockReservationService,
+                                PurchaseOrderCloseQueue purchaseOrderCloseQueue, IOutboxService iOutboxService,
+                                PurchasedProductIndex purchasedProductIndex) {
         this.purchaseOrderRepository = purchaseOrderRepository;
         this.iBuyerService = iBuyerService;
         this.iOrderProductService = iOrderProductService;
         this.iBatchStockService = iBatchStockService;
+        this.iStockReservationService = iStockReservationService;
+        this.purchaseOrderCloseQueue = purchaseOrderCloseQueue;
+        this.iOutboxService = iOutboxService;
+        this.purchasedProductIndex = purchasedProductIndex;
     }
 
     /**
@@ -57,78 +77,65 @@ public class PurchaseOrderService implements IPurchaseOrderService {
     }
 
     /**
-     * This method check if the product is expired
-     *
-     * @param productId from product Entity
-     * @param desiredQuantity int required due date
-     * @return Boolean checking due date
-     */
-    private boolean stockAvailable(Long productId, int desiredQuantity) {
-
-        LocalDate dateRequirement = LocalDate.now().plusWeeks(3);
-
-        List<BatchStockModel> batchStockList = this.iBatchStockService.findValidProductsByDueDate(productId, dateRequirement);
-
-        int availableQuantity = batchStockList.stream().mapToInt(BatchStockModel::getQuantity).sum();
-
-        return desiredQuantity <= availableQuantity;
-    }
-
-    /**
-     * This method check if the quantity of  products is available
+     * This method check if the quantity of products is available
      *
      * @param orderProductsList List of OrderProduct Entity
      * @return boolean checking availability
      * @throws OrderProductIsInvalidException when order product is invalid
      */
     private boolean verifyOrderIsValid(List<OrderProductsRequest> orderProductsList) throws OrderProductIsInvalidException {
-        Set<Long> productIdListException = new HashSet<>();
-        boolean isFailure = false;
-        for (OrderProductsRequest orderProduct : orderProductsList) {
-            boolean response = stockAvailable(orderProduct.getProductModel(), orderProduct.getQuantity());
-            if (!response) {
-                isFailure = true;
-                productIdListException.add(orderProduct.getProductModel());
-            }
+        Map<Long, Integer> shortfallByProduct = iBatchStockService.getStockShortfall(orderProductsList);
+        if (!shortfallByProduct.isEmpty()) {
+            throw invalidOrderException(shortfallByProduct.keySet());
         }
-        if (isFailure) {
-            String auxMessage = productIdListException.stream().map(String::valueOf).collect(Collectors.joining(","));
 
-            String exceptionMessage = String.format("Pedido de compra inválido. Produtos com ID %s em quantidades insuficiente", auxMessage);
+        return true;
+    }
 
-            throw new OrderProductIsInvalidException(exceptionMessage);
-        }
+    /**
+     * Build the exception of an order with products in insufficient quantity
+     *
+     * @param productIds the ids of the products without stock
+     * @return OrderProductIsInvalidException listing the products
+     */
+    private OrderProductIsInvalidException invalidOrderException(Set<Long> productIds) {
+        String auxMessage = productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
 
-        return true;
+        String exceptionMessage = String.format("Pedido de compra inválido. Produtos com ID %s em quantidades insuficiente", auxMessage);
+
+        return new OrderProductIsInvalidException(exceptionMessage);
     }
 
     /**
-     * This method save the products in orderProducts Entity
+     * This method save the products in orderProducts Entity and holds their stock until the order is closed
+     * The order lines are written in a single batch and the price computed from the Products they loaded
      *
      * @param purchaseOrderRequest from purchaseOrder instance
      * @return BigDecimal with sum of price the all products listed
      * @throws OrderProductIsInvalidException when order product is invalid
      */
     @Override
+    @Transactional
     public BigDecimal savePurchaseGetPrice(PurchaseOrderRequest purchaseOrderRequest) {
         boolean isOrderValid = (verifyOrderIsValid(purchaseOrderRequest.getProducts()));
         if (isOrderValid) {
 
             PurchaseOrderModel purchaseOrderModel = save(purchaseOrderRequest);
 
-            List<OrderProductsModel> orderProductsModels = new ArrayList<>();
+            List<OrderProductsModel> orderProductsModels = iOrderProductService.saveAll(purchaseOrderModel, purchaseOrderRequest.getProducts());
 
             BigDecimal totalPrice = new BigDecimal(0);
 
-            purchaseOrderRequest.getProducts().forEach(p -> orderProductsModels.add(iOrderProductService.save(
-                    new OrderProductsRequest(
-                            p.getProductModel(),
-                            p.getQuantity(),
-                            purchaseOrderModel.getId()
-                    ))));
-
+            Map<Long, Integer> quantityByProduct = new HashMap<>();
             for (OrderProductsModel orderProductsModel : orderProductsModels) {
                 totalPrice = totalPrice.add(orderProductsModel.getProductModel().getPrice().multiply(BigDecimal.valueOf(orderProductsModel.getQuantity())));
+                quantityByProduct.merge(orderProductsModel.getProductModel().getId(), orderProductsModel.getQuantity(), Integer::sum);
+            }
+
+            try {
+                iStockReservationService.reserve(purchaseOrderModel, quantityByProduct);
+            } catch (NotEnoughStockException e) {
+                throw invalidOrderException(e.getProductIds());
             }
             return totalPrice;
 
@@ -160,27 +167,106 @@ public class PurchaseOrderService implements IPurchaseOrderService {
     }
 
     /**
-     * This method update status from PurchaseOrder related
+     * Returns a page of PurchaseOrderModel ordered by id, starting after the given id
+     *
+     * @param after last purchase order id of the previous page
+     * @param limit max number of purchase orders in the page
+     * @return slice of PurchaseOrderModel
+     */
+    @Override
+    public Slice<PurchaseOrderModel> getPage(Long after, int limit) {
+        return purchaseOrderRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(limit));
+    }
+
+    /**
+     * Return the ids of the PurchaseOrders in a status
+     *
+     * @param orderStatus the status
+     * @return List of PurchaseOrder id
+     */
+    @Override
+    public List<Long> getIdsByStatus(OrderStatusEnum orderStatus) {
+        return purchaseOrderRepository.findIdsByOrderStatus(orderStatus);
+    }
+
+    /**
+     * Request a PurchaseOrder to be closed asynchronously
+     * An OPEN PurchaseOrder moves to CLOSING and is queued, a CLOSING one is queued again and a CLOSED one is left as is,
+     * so the request can be safely retried
      *
      * @param id Long related an purchaseOrder
-     * @throws Exception when insufficient stock or product has expired due date
+     * @return the PurchaseOrder with its current status
+     * @throws PurchaseOrderByIdNotFoundException when purchase order not found
+     * @throws PurchaseOrderCloseQueueFullException when the close queue is full, the PurchaseOrder stays CLOSING and is queued again later
      */
     @Override
-    public void updateStatus(Long id) throws NotEnoughStockException {
-        List<OrderProductsModel> orderProductsList = iOrderProductService.getByPurchaseId(id);
-        List<OrderProductsRequest> orderProductsRequestList = new ArrayList<>();
-        orderProductsList.forEach(item -> orderProductsRequestList.add(OrderProductsRequest.builder()
-                .productModel(item.getProductModel().getId())
-                .quantity(item.getQuantity())
-                .purchaseOrderModel(item.getPurchaseOrderModel().getId())
-                .build()));
-
-        verifyOrderIsValid(orderProductsRequestList);
-
-        PurchaseOrderModel findbyIdPurchaseOrder = getById(id);
-        findbyIdPurchaseOrder.setOrderStatus(OrderStatusEnum.CLOSED);
-        findbyIdPurchaseOrder = purchaseOrderRepository.save(findbyIdPurchaseOrder);
-
-        iBatchStockService.consumeBatchStockOnPurchase(findbyIdPurchaseOrder);
+    public PurchaseOrderModel requestClose(Long id) throws PurchaseOrderByIdNotFoundException {
+        PurchaseOrderModel purchaseOrder = getById(id);
+        if (purchaseOrder.getOrderStatus() == OrderStatusEnum.OPEN) {
+            purchaseOrderRepository.transition(id, OrderStatusEnum.OPEN, OrderStatusEnum.CLOSING, null);
+            purchaseOrder = getById(id);
+        }
+
+        if (purchaseOrder.getOrderStatus() == OrderStatusEnum.CLOSING && !purchaseOrderCloseQueue.offer(id)) {
+            throw new PurchaseOrderCloseQueueFullException(id);
+        }
+        return purchaseOrder;
+    }
+
+    /**
+     * Close a micro-batch of CLOSING PurchaseOrders
+     * Each PurchaseOrder moves to CLOSED only if it is still CLOSING, so a PurchaseOrder closed by another worker is skipped,
+     * then the holds are converted into debits and the stock of the others is allocated grouped by product
+     * A PurchaseOrder without enough stock goes back to OPEN with the reason
+     * An OutboxEvent is recorded for every PurchaseOrder processed and the Products of the closed ones are added to PurchasedProductIndex
+     * The ordered Products stay locked in InventoryLockManager from the debit until the transaction completes
+     *
+     * @param ids the PurchaseOrder ids
+     */
+    @Override
+    @Transactional
+    public void closeOrders(List<Long> ids) {
+        List<Long> closedIds = ids.stream()
+                .filter(id -> purchaseOrderRepository.transition(id, OrderStatusEnum.CLOSING, OrderStatusEnum.CLOSED, null) == 1)
+                .toList();
+        if (closedIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Set<Long>> shortProductIdsByPurchase = iBatchStockService.consumeBatchStockOnPurchases(closedIds);
+        List<OutboxEventModel> events = new ArrayList<>();
+        List<Long> purchasedIds = new ArrayList<>();
+        for (Long id : closedIds) {
+            Set<Long> shortProductIds = shortProductIdsByPurchase.get(id);
+            if (shortProductIds == null) {
+                purchasedIds.add(id);
+                events.add(iOutboxService.newEvent(OutboxEventTypeEnum.PURCHASE_ORDER_CLOSED, id,
+                        PurchaseOrderStatusResponse.builder().id(id).orderStatus(OrderStatusEnum.CLOSED).build()));
+            } else {
+                String closeFailure = invalidOrderException(shortProductIds).getMessage();
+                purchaseOrderRepository.transition(id, OrderStatusEnum.CLOSED, OrderStatusEnum.OPEN, closeFailure);
+                events.add(iOutboxService.newEvent(OutboxEventTypeEnum.PURCHASE_ORDER_CLOSE_FAILED, id,
+                        PurchaseOrderStatusResponse.builder().id(id).orderStatus(OrderStatusEnum.OPEN).closeFailure(closeFailure).build()));
+            }
+        }
+        iOutboxService.record(events);
+        purchasedProductIndex.onPurchaseOrdersClosed(purchasedIds);
+    }
+
+    /**
+     * Move a PurchaseOrder that could not be closed back to OPEN with the reason
+     * Nothing is done when the PurchaseOrder is no longer CLOSING, otherwise a PURCHASE_ORDER_CLOSE_FAILED OutboxEvent is recorded
+     *
+     * @param id the PurchaseOrder id
+     * @param closeFailure the reason
+     */
+    @Override
+    @Transactional
+    public void failClose(Long id, String closeFailure) {
+        if (purchaseOrderRepository.transition(id, OrderStatusEnum.CLOSING, OrderStatusEnum.OPEN, closeFailure) == 0) {
+            return;
+        }
+        iOutboxService.record(List.of(iOutboxService.newEvent(OutboxEventTypeEnum.PURCHASE_ORDER_CLOSE_FAILED, id,
+                PurchaseOrderStatusResponse.builder().id(id).orderStatus(OrderStatusEnum.OPEN).closeFailure(closeFailure).build())));
     }
 }
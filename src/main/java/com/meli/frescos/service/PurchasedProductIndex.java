@@ -0,0 +1,109 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.OrderStatusEnum;
+import com.meli.frescos.repository.BuyerPurchasedProduct;
+import com.meli.frescos.repository.OrderProductsRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the Products each Buyer bought in a CLOSED PurchaseOrder
+ * Seeded at startup and updated when PurchaseOrders are closed, each Buyer keeps a sorted array of Product ids
+ * A miss is checked against the database, so PurchaseOrders closed by another instance are picked up
+ */
+@Component
+public class PurchasedProductIndex {
+
+    private static final long[] NONE = new long[0];
+
+    private final OrderProductsRepository orderProductsRepository;
+
+    private final Map<Long, long[]> productIdsByBuyer = new ConcurrentHashMap<>();
+
+    public PurchasedProductIndex(OrderProductsRepository orderProductsRepository) {
+        this.orderProductsRepository = orderProductsRepository;
+    }
+
+    /**
+     * Load the Products bought in every CLOSED PurchaseOrder when the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        addAll(orderProductsRepository.findPurchasedProducts(OrderStatusEnum.CLOSED));
+    }
+
+    /**
+     * Return whether a Buyer bought a Product in a CLOSED PurchaseOrder
+     *
+     * @param buyerId the buyer id
+     * @param productId the product id
+     * @return true when the Buyer bought the Product
+     */
+    public boolean hasPurchased(long buyerId, long productId) {
+        if (Arrays.binarySearch(productIdsByBuyer.getOrDefault(buyerId, NONE), productId) >= 0) {
+            return true;
+        }
+        if (!orderProductsRepository.existsPurchasedProduct(buyerId, productId, OrderStatusEnum.CLOSED)) {
+            return false;
+        }
+        add(buyerId, productId);
+        return true;
+    }
+
+    /**
+     * Add the Products of PurchaseOrders that moved to CLOSED
+     * When called inside a transaction they are added only after commit
+     *
+     * @param purchaseOrderIds the PurchaseOrder ids
+     */
+    public void onPurchaseOrdersClosed(List<Long> purchaseOrderIds) {
+        if (purchaseOrderIds.isEmpty()) {
+            return;
+        }
+        List<BuyerPurchasedProduct> purchasedProducts = orderProductsRepository.findPurchasedProductsByPurchaseOrderIds(purchaseOrderIds);
+        TransactionCallbacks.afterCommit(() -> addAll(purchasedProducts));
+    }
+
+    private void addAll(List<BuyerPurchasedProduct> purchasedProducts) {
+        Map<Long, long[]> productIdsByNewBuyer = new HashMap<>();
+        for (BuyerPurchasedProduct purchasedProduct : purchasedProducts) {
+            productIdsByNewBuyer.merge(purchasedProduct.getBuyerId(), new long[]{purchasedProduct.getProductId()}, PurchasedProductIndex::union);
+        }
+        productIdsByNewBuyer.forEach((buyerId, productIds) -> productIdsByBuyer.merge(buyerId, productIds, PurchasedProductIndex::union));
+    }
+
+    private void add(long buyerId, long productId) {
+        productIdsByBuyer.merge(buyerId, new long[]{productId}, PurchasedProductIndex::union);
+    }
+
+    /**
+     * Return the sorted union of two arrays of distinct ids, sorting the second one in place
+     * The first one is never changed, so readers can keep searching it
+     */
+    private static long[] union(long[] sorted, long[] added) {
+        Arrays.sort(added);
+        long[] merged = new long[sorted.length + added.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < sorted.length || j < added.length) {
+            long next;
+            if (j == added.length || (i < sorted.length && sorted[i] <= added[j])) {
+                next = sorted[i++];
+            } else {
+                next = added[j++];
+            }
+            if (size == 0 || merged[size - 1] != next) {
+                merged[size++] = next;
+            }
+        }
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+}
@@ -21,9 +21,12 @@ public class RepresentativeService implements IRepresentativeService {
 
     private final IWarehouseService iWarehouseService;
 
-    public RepresentativeService(RepresentativeRepository representativeRepository, IWarehouseService iWarehouseService) {
+    private final RepresentativeWarehouseTable representativeWarehouseTable;
+
+    public RepresentativeService(RepresentativeRepository representativeRepository, IWarehouseService iWarehouseService, RepresentativeWarehouseTable representativeWarehouseTable) {
         this.representativeRepository = representativeRepository;
         this.iWarehouseService = iWarehouseService;
+        this.representativeWarehouseTable = representativeWarehouseTable;
     }
 
     /**
@@ -64,11 +67,14 @@ public class RepresentativeService implements IRepresentativeService {
         boolean alreadyDefined = verifyWarehouseAlreadyDefined(warehouseCode);
         if(alreadyDefined)
             throw new OneToOneMappingAlreadyDefinedException(String.format("Warehouse de ID %d já está relacionado com um Representative na base de dados.", warehouseCode));
-        return representativeRepository.save(representativeModel);
+        RepresentativeModel savedRepresentative = representativeRepository.save(representativeModel);
+        representativeWarehouseTable.put(savedRepresentative.getId(), warehouseCode);
+        return savedRepresentative;
     }
 
     /**
      * Checks if the representative belongs to the warehouse
+     * Answered by the in-memory authorization table, the database is only read on a table miss or to report an invalid warehouse
      *
      * @param representativeId representative id
      * @param warehouseId warehouse id
@@ -76,11 +82,15 @@ public class RepresentativeService implements IRepresentativeService {
      */
     @Override
     public void validateRepresentative(Long representativeId, Long warehouseId) throws RepresentativeWarehouseNotAssociatedException, RepresentativeNotFoundException, WarehouseNotFoundException {
+        Long representativeWarehouseId = representativeWarehouseTable.getWarehouseId(representativeId);
+        if (representativeWarehouseId != null && representativeWarehouseId.equals(warehouseId)) {
+            return;
+        }
         iWarehouseService.getById(warehouseId);
-        RepresentativeModel representative = getById(representativeId);
-        if(!representative.getWarehouse().getId().equals(warehouseId)) {
-            throw new RepresentativeWarehouseNotAssociatedException("Representante não pertence a este armazém!");
-        };
+        if (representativeWarehouseId == null) {
+            throw new RepresentativeNotFoundException("Representative not found.");
+        }
+        throw new RepresentativeWarehouseNotAssociatedException("Representante não pertence a este armazém!");
     }
 
     /**
@@ -0,0 +1,144 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.RepresentativeModel;
+import com.meli.frescos.repository.RepresentativeRepository;
+import com.meli.frescos.repository.RepresentativeWarehouse;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-memory authorization table from Representative id to its Warehouse id
+ * Seeded at startup, updated when a Representative is created and loaded from the database on miss
+ * Readers never lock: writes build a new table and publish it, which is cheap since the mapping almost never changes
+ */
+@Component
+public class RepresentativeWarehouseTable {
+
+    private static final long NO_WAREHOUSE = 0L;
+
+    private final RepresentativeRepository representativeRepository;
+
+    private volatile LongLongTable table = LongLongTable.withCapacity(0);
+
+    public RepresentativeWarehouseTable(RepresentativeRepository representativeRepository) {
+        this.representativeRepository = representativeRepository;
+    }
+
+    /**
+     * Load the Warehouse of every Representative when the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void seed() {
+        List<RepresentativeWarehouse> representatives = representativeRepository.findAllWarehouseIds();
+        LongLongTable seeded = LongLongTable.withCapacity(representatives.size());
+        for (RepresentativeWarehouse representative : representatives) {
+            seeded = seeded.insert(representative.getRepresentativeId(), representative.getWarehouseId());
+        }
+        table = seeded;
+    }
+
+    /**
+     * Return the Warehouse id of a Representative
+     * Loads the Representative from database when it is not in the table yet
+     *
+     * @param representativeId the representative id
+     * @return the warehouse id, null when the Representative does not exist
+     */
+    public Long getWarehouseId(long representativeId) {
+        long warehouseId = table.get(representativeId);
+        if (warehouseId != NO_WAREHOUSE) {
+            return warehouseId;
+        }
+        Optional<RepresentativeModel> representative = representativeRepository.findById(representativeId);
+        if (representative.isEmpty()) {
+            return null;
+        }
+        Long loadedWarehouseId = representative.get().getWarehouse().getId();
+        put(representativeId, loadedWarehouseId);
+        return loadedWarehouseId;
+    }
+
+    /**
+     * Add or replace the Warehouse of a Representative
+     *
+     * @param representativeId the representative id
+     * @param warehouseId the warehouse id
+     */
+    public synchronized void put(long representativeId, long warehouseId) {
+        table = table.with(representativeId, warehouseId);
+    }
+
+    /**
+     * Immutable open addressing map of positive long keys to long values, with linear probing
+     * Empty slots have key 0, generated ids start at 1
+     */
+    private static final class LongLongTable {
+
+        private final long[] keys;
+
+        private final long[] values;
+
+        private final int size;
+
+        private LongLongTable(long[] keys, long[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+
+        static LongLongTable withCapacity(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+            return new LongLongTable(new long[capacity], new long[capacity], 0);
+        }
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return NO_WAREHOUSE;
+        }
+
+        LongLongTable with(long key, long value) {
+            LongLongTable copy = (size + 1) * 2 > keys.length ? rehash(size + 1) : new LongLongTable(Arrays.copyOf(keys, keys.length), Arrays.copyOf(values, values.length), size);
+            return copy.insert(key, value);
+        }
+
+        private LongLongTable rehash(int expectedSize) {
+            LongLongTable rehashed = withCapacity(expectedSize);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != 0) {
+                    rehashed = rehashed.insert(keys[slot], values[slot]);
+                }
+            }
+            return rehashed;
+        }
+
+        /**
+         * Insert in place, only called on a table that is not published yet and has room for the key
+         */
+        private LongLongTable insert(long key, long value) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            boolean isNew = keys[slot] == 0;
+            keys[slot] = key;
+            values[slot] = value;
+            return isNew ? new LongLongTable(keys, values, size + 1) : this;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.SectionOccupancy;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory ledger of the volume used in each Section
+ * Seeded at startup, updated incrementally on every BatchStock mutation
+ * and periodically reconciled against the database
+ * The drift found by the reconciliation is published in frescos.section.occupancy.drift.*
+ */
+@Slf4j
+@Component
+public class SectionOccupancyLedger {
+
+    static final String METRIC_PREFIX = "frescos.section.occupancy.";
+
+    private static final double DRIFT_TOLERANCE = 0.000001;
+
+    private final BatchStockRepository batchStockRepository;
+
+    private final Map<Long, Double> usedVolumeBySection = new ConcurrentHashMap<>();
+
+    /**
+     * Drift found in the last reconciliation and not corrected yet, by section id
+     */
+    private final Map<Long, Double> suspectedDriftBySection = new HashMap<>();
+
+    private final AtomicLong reconciliationCount = new AtomicLong();
+
+    private final AtomicLong driftedSectionCount = new AtomicLong();
+
+    private volatile double lastTotalDrift;
+
+    private volatile double maxDrift;
+
+    public SectionOccupancyLedger(BatchStockRepository batchStockRepository, MeterRegistry meterRegistry) {
+        this.batchStockRepository = batchStockRepository;
+        Gauge.builder(METRIC_PREFIX + "drift.last.total", this, SectionOccupancyLedger::getLastTotalDrift)
+                .description("Total absolute drift found in the last reconciliation")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "drift.max", this, SectionOccupancyLedger::getMaxDrift)
+                .description("Biggest absolute drift found in a single Section since startup")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "drift.sections", this, SectionOccupancyLedger::getDriftedSectionCount)
+                .description("Section corrections made since startup")
+                .register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + "reconciliations", this, SectionOccupancyLedger::getReconciliationCount)
+                .description("Reconciliations run since startup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load the used volume of every Section when the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void seed() {
+        usedVolumeBySection.clear();
+        suspectedDriftBySection.clear();
+        batchStockRepository.findSectionOccupancy().forEach(o -> usedVolumeBySection.put(o.getSectionId(), o.getUsedVolume()));
+    }
+
+    /**
+     * Return the volume used in a Section
+     * Loads the Section from database when it is not in the ledger yet
+     *
+     * @param sectionId the section id
+     * @return the used volume
+     */
+    public double getUsedVolume(Long sectionId) {
+        return usedVolumeBySection.computeIfAbsent(sectionId, batchStockRepository::findUsedVolumeBySectionId);
+    }
+
+    /**
+     * Add volume to a Section, negative values release volume
+     * Sections not loaded yet are ignored, they will be read from database on first access
+     *
+     * @param sectionId the section id
+     * @param volume the volume to add
+     */
+    public void add(Long sectionId, double volume) {
+        usedVolumeBySection.computeIfPresent(sectionId, (id, used) -> used + volume);
+    }
+
+    /**
+     * Compare the ledger with the database, record the drift and correct each drifted Section
+     * The database is read without locks, so a change committed while it is read shows up as a drift once;
+     * a Section is only corrected when the same drift is found in two reconciliations in a row
+     */
+    @Scheduled(fixedDelayString = "${frescos.section-ledger.reconcile-interval-ms:60000}", initialDelayString = "${frescos.section-ledger.reconcile-interval-ms:60000}")
+    public synchronized void reconcile() {
+        Map<Long, Double> databaseVolume = new HashMap<>();
+        batchStockRepository.findSectionOccupancy().forEach(o -> databaseVolume.put(o.getSectionId(), o.getUsedVolume()));
+
+        Map<Long, Double> previousDrift = new HashMap<>(suspectedDriftBySection);
+        suspectedDriftBySection.clear();
+        double totalDrift = 0;
+        long driftedSections = 0;
+        for (Long sectionId : usedVolumeBySection.keySet()) {
+            double expected = databaseVolume.getOrDefault(sectionId, 0D);
+            double drift = usedVolumeBySection.getOrDefault(sectionId, expected) - expected;
+            if (Math.abs(drift) <= DRIFT_TOLERANCE) {
+                continue;
+            }
+            Double suspectedDrift = previousDrift.get(sectionId);
+            if (suspectedDrift == null || Math.abs(suspectedDrift - drift) > DRIFT_TOLERANCE) {
+                suspectedDriftBySection.put(sectionId, drift);
+                continue;
+            }
+            usedVolumeBySection.computeIfPresent(sectionId, (id, used) -> used - drift);
+            totalDrift += Math.abs(drift);
+            maxDrift = Math.max(maxDrift, Math.abs(drift));
+            driftedSections++;
+        }
+
+        lastTotalDrift = totalDrift;
+        driftedSectionCount.addAndGet(driftedSections);
+        reconciliationCount.incrementAndGet();
+        if (driftedSections > 0) {
+            log.warn("Section ledger drifted in {} section(s), total drift of {}", driftedSections, totalDrift);
+        }
+    }
+
+    /**
+     * @return total absolute drift found in the last reconciliation
+     */
+    public double getLastTotalDrift() {
+        return lastTotalDrift;
+    }
+
+    /**
+     * @return biggest absolute drift found in a single Section since startup
+     */
+    public double getMaxDrift() {
+        return maxDrift;
+    }
+
+    /**
+     * @return number of Section corrections made since startup
+     */
+    public long getDriftedSectionCount() {
+        return driftedSectionCount.get();
+    }
+
+    /**
+     * @return number of reconciliations run since startup
+     */
+    public long getReconciliationCount() {
+        return reconciliationCount.get();
+    }
+}
@@ -8,9 +8,14 @@ import com.meli.frescos.model.SectionModel;
 import com.meli.frescos.model.WarehouseModel;
 import com.meli.frescos.repository.WarehouseRepository;
 import com.meli.frescos.repository.SectionRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  *  This class contains all Section related functions
@@ -38,6 +43,18 @@ public class SectionService implements ISectionService {
         return sectionRepository.findAll();
     }
 
+    /**
+     * Returns a page of SectionModel ordered by id, starting after the given id
+     *
+     * @param after last section id of the previous page
+     * @param limit max number of sections in the page
+     * @return slice of SectionModel
+     */
+    @Override
+    public Slice<SectionModel> getPage(Long after, int limit) {
+        return sectionRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(limit));
+    }
+
     /**
      * Save a new Section at storage
      *
@@ -80,6 +97,23 @@ public class SectionService implements ISectionService {
         return sectionModel.get();
     }
 
+    /**
+     * Return all SectionModel given ids, loaded with a single query
+     *
+     * @param ids the SectionModel ids
+     * @return List of SectionModel
+     * @throws SectionByIdNotFoundException Throws in case any Section does not exist
+     */
+    @Override
+    public List<SectionModel> getAllById(Collection<Long> ids) throws SectionByIdNotFoundException {
+        List<SectionModel> sections = sectionRepository.findAllById(ids);
+        if (sections.size() < ids.stream().distinct().count()) {
+            Set<Long> foundIds = sections.stream().map(SectionModel::getId).collect(Collectors.toSet());
+            throw new SectionByIdNotFoundException(ids.stream().filter(id -> !foundIds.contains(id)).findFirst().orElseThrow());
+        }
+        return sections;
+    }
+
     /**
      * Return SectionModel given Category
      *
@@ -4,6 +4,8 @@ import com.meli.frescos.exception.CpfDuplicateException;
 import com.meli.frescos.exception.SellerByIdNotFoundException;
 import com.meli.frescos.model.SellerModel;
 import com.meli.frescos.repository.SellerRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -43,6 +45,18 @@ public class SellerService implements ISellerService {
         return sellerRepository.findAll();
     }
 
+    /**
+     * Returns a page of SellerModel ordered by id, starting after the given id
+     *
+     * @param after last seller id of the previous page
+     * @param limit max number of sellers in the page
+     * @return slice of SellerModel
+     */
+    @Override
+    public Slice<SellerModel> getPage(Long after, int limit) {
+        return sellerRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(limit));
+    }
+
     /**
      * Returns a stored Seller given ID
      *
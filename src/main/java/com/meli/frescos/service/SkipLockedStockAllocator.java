@@ -0,0 +1,126 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.exception.NotEnoughStockException;
+import com.meli.frescos.repository.BatchStockDebit;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.HeldQuantity;
+import com.meli.frescos.repository.StockReservationRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * First-expired-first-out allocator that locks the chosen BatchStock rows until the surrounding transaction ends
+ * Rows locked by concurrent orders are skipped, so orders of the same product take different batches instead of queueing,
+ * and the product is only read again waiting for the locks when the unlocked batches are not enough
+ * Keeps no state, so it stays correct with many instances writing the same database
+ * Quantities held by active StockReservations are not available, they are read with a locking read
+ * so holds committed after the transaction started are seen under REPEATABLE READ
+ */
+@Component
+@ConditionalOnProperty(name = "frescos.stock.allocation", havingValue = "skip-locked")
+public class SkipLockedStockAllocator implements StockAllocator {
+
+    private final BatchStockRepository batchStockRepository;
+
+    private final StockReservationRepository stockReservationRepository;
+
+    public SkipLockedStockAllocator(BatchStockRepository batchStockRepository, StockReservationRepository stockReservationRepository) {
+        this.batchStockRepository = batchStockRepository;
+        this.stockReservationRepository = stockReservationRepository;
+    }
+
+    /**
+     * Reserve the quantity of every product from the batches with the closest due date
+     * Products are locked in id order, so concurrent multi-product orders do not deadlock
+     *
+     * @param quantityByProduct quantity to reserve by product id
+     * @param minDueDate batches expiring before this date are not used
+     * @return the debits to be applied to each BatchStock
+     * @throws NotEnoughStockException when any product has not enough stock
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<BatchStockDebit> allocate(Map<Long, Integer> quantityByProduct, LocalDate minDueDate) throws NotEnoughStockException {
+        List<BatchStockDebit> debits = new ArrayList<>();
+        Set<Long> shortProductIds = new HashSet<>();
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantityByProduct).entrySet()) {
+            List<BatchStockDebit> productDebits = new ArrayList<>();
+            int missingQuantity = reserve(batchStockRepository.findUnlockedDebitsForUpdate(entry.getKey(), minDueDate), entry.getKey(), entry.getValue(), productDebits);
+            if (missingQuantity > 0) {
+                productDebits.clear();
+                missingQuantity = reserve(batchStockRepository.findDebitsForUpdate(entry.getKey(), minDueDate), entry.getKey(), entry.getValue(), productDebits);
+            }
+            if (missingQuantity > 0) {
+                shortProductIds.add(entry.getKey());
+            }
+            debits.addAll(productDebits);
+        }
+        if (!shortProductIds.isEmpty()) {
+            throw new NotEnoughStockException("Estoque insuficiente para atender o pedido!", shortProductIds);
+        }
+        return debits;
+    }
+
+    /**
+     * Nothing to give back, the row locks are released when the transaction rolls back
+     */
+    @Override
+    public void release(List<BatchStockDebit> debits) {
+    }
+
+    /**
+     * Nothing to forget, every allocation reads the stock from database
+     */
+    @Override
+    public void evict(Long productId) {
+    }
+
+    /**
+     * The chosen rows are locked in the database, the product stripes would queue the orders of a product
+     * behind each other in the JVM and they would never reach SKIP LOCKED
+     */
+    @Override
+    public boolean requiresProductLocks() {
+        return false;
+    }
+
+    /**
+     * Reserve the quantity of a single product from its locked batches, adding the debits to the list
+     *
+     * @param lockedBatches the locked batches, in FEFO order, with their whole quantity
+     * @return the quantity that could not be reserved
+     */
+    private int reserve(List<BatchStockDebit> lockedBatches, Long productId, int quantity, List<BatchStockDebit> debits) {
+        if (lockedBatches.isEmpty()) {
+            return quantity;
+        }
+        Map<Long, Long> heldByBatchStock = new HashMap<>();
+        List<Long> batchStockIds = lockedBatches.stream().map(BatchStockDebit::getBatchStockId).toList();
+        for (HeldQuantity held : stockReservationRepository.findHeldQuantityByBatchStockIdsForShare(batchStockIds)) {
+            heldByBatchStock.merge(held.getBatchStockId(), held.getQuantity(), Long::sum);
+        }
+        for (BatchStockDebit batch : lockedBatches) {
+            if (quantity == 0) {
+                break;
+            }
+            int available = batch.getQuantity() - heldByBatchStock.getOrDefault(batch.getBatchStockId(), 0L).intValue();
+            int taken = Math.min(available, quantity);
+            if (taken > 0) {
+                debits.add(new BatchStockDebit(batch.getBatchStockId(), batch.getSectionId(), productId, taken));
+                quantity -= taken;
+            }
+        }
+        return quantity;
+    }
+}
@@ -0,0 +1,68 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.exception.NotEnoughStockException;
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.repository.BatchStockDebit;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses the BatchStocks that serve the quantities of an order, first expired first out
+ * Selected with frescos.stock.allocation: fefo (default) or skip-locked
+ */
+public interface StockAllocator {
+
+    /**
+     * Reserve the quantity of every product from the batches with the closest due date
+     * Either all products are reserved or nothing is
+     *
+     * @param quantityByProduct quantity to reserve by product id
+     * @param minDueDate batches expiring before this date are not used
+     * @return the debits to be applied to each BatchStock
+     * @throws NotEnoughStockException when any product has not enough stock
+     */
+    List<BatchStockDebit> allocate(Map<Long, Integer> quantityByProduct, LocalDate minDueDate) throws NotEnoughStockException;
+
+    /**
+     * Give back reserved quantities, used when the debits could not be persisted
+     *
+     * @param debits the debits returned by allocate
+     */
+    void release(List<BatchStockDebit> debits);
+
+    /**
+     * Forget what is known about the stock of a product, it is read again from database on next allocation
+     *
+     * @param productId the product id
+     */
+    void evict(Long productId);
+
+    /**
+     * Whether the debits of a product must wait for each other in InventoryLockManager
+     * Needed by allocators keeping the stock in memory, whose view must change in the order the debits commit
+     *
+     * @return true when the product stripes are taken around the debit
+     */
+    default boolean requiresProductLocks() {
+        return true;
+    }
+
+    /**
+     * Called after a new BatchStock is saved
+     *
+     * @param batchStock the created BatchStock
+     */
+    default void onBatchStockCreated(BatchStockModel batchStock) {
+    }
+
+    /**
+     * Called after a BatchStock is changed through updateBatchStock
+     *
+     * @param batchStock the updated BatchStock
+     * @param previousQuantity quantity before the update
+     */
+    default void onBatchStockUpdated(BatchStockModel batchStock, int previousQuantity) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.exception.NotEnoughStockException;
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.model.PurchaseOrderModel;
+import com.meli.frescos.model.StockReservationModel;
+import com.meli.frescos.repository.BatchStockDebit;
+import com.meli.frescos.repository.ProductHeldQuantity;
+import com.meli.frescos.repository.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * This class contains all StockReservation related functions
+ * Holds BatchStock quantities between PurchaseOrder creation and close
+ * Using @Service from spring
+ */
+@Service
+public class StockReservationService implements IStockReservationService {
+
+    private final StockReservationRepository stockReservationRepository;
+
+    private final StockAllocator stockAllocator;
+
+    private final long ttlMinutes;
+
+    public StockReservationService(StockReservationRepository stockReservationRepository, StockAllocator stockAllocator,
+                                   @Value("${frescos.reservation.ttl-minutes:30}") long ttlMinutes) {
+        this.stockReservationRepository = stockReservationRepository;
+        this.stockAllocator = stockAllocator;
+        this.ttlMinutes = ttlMinutes;
+    }
+
+    /**
+     * Hold the quantity of every product of a PurchaseOrder on specific BatchStocks
+     * The held quantity is released when the surrounding transaction rolls back
+     *
+     * @param purchaseOrder the PurchaseOrder owning the holds
+     * @param quantityByProduct quantity to hold by product id
+     * @throws NotEnoughStockException when any product has not enough stock
+     */
+    @Override
+    @Transactional
+    public void reserve(PurchaseOrderModel purchaseOrder, Map<Long, Integer> quantityByProduct) throws NotEnoughStockException {
+        List<BatchStockDebit> debits = stockAllocator.allocate(quantityByProduct, LocalDate.now().plusWeeks(3));
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        List<StockReservationModel> reservations = debits.stream()
+                .map(d -> StockReservationModel.builder()
+                        .batchStock(BatchStockModel.builder().id(d.getBatchStockId()).build())
+                        .purchaseOrder(purchaseOrder)
+                        .quantity(d.getQuantity())
+                        .expiresAt(expiresAt)
+                        .build())
+                .toList();
+        try {
+            stockReservationRepository.saveAll(reservations);
+        } catch (RuntimeException e) {
+            stockAllocator.release(debits);
+            throw e;
+        }
+        TransactionCallbacks.onCompletion(() -> { }, () -> stockAllocator.release(debits));
+    }
+
+    /**
+     * Return the holds of a PurchaseOrder, to be converted into debits
+     * The holds are kept until consume is called for a PurchaseOrder that closed,
+     * so a PurchaseOrder that goes back to OPEN keeps its reservation
+     *
+     * @param purchaseOrderId the PurchaseOrder id
+     * @return the debits held by the PurchaseOrder, empty when the holds already expired
+     */
+    @Override
+    public List<BatchStockDebit> getHeldDebits(Long purchaseOrderId) {
+        return stockReservationRepository.findDebitsByPurchaseOrderId(purchaseOrderId);
+    }
+
+    /**
+     * Remove the holds of a closed PurchaseOrder, converted into the given debits
+     * Must be called inside the transaction of the debits
+     *
+     * @param purchaseOrderId the PurchaseOrder id
+     * @param heldDebits the holds returned by getHeldDebits
+     * @throws OptimisticLockingFailureException when the sweeper released some of the holds in between,
+     * the close must be rolled back and done again without them
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void consume(Long purchaseOrderId, List<BatchStockDebit> heldDebits) {
+        if (stockReservationRepository.deleteByPurchaseOrderId(purchaseOrderId) != heldDebits.size()) {
+            throw new OptimisticLockingFailureException("Reservas do pedido de compra liberadas durante o fechamento: " + purchaseOrderId);
+        }
+    }
+
+    /**
+     * Release every expired hold in bulk
+     * When a PurchaseOrder close consumes holds in between, the affected products are reloaded from database
+     *
+     * @return number of holds released
+     */
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${frescos.reservation.sweep-interval-ms:60000}")
+    public int releaseExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        List<BatchStockDebit> expiredDebits = stockReservationRepository.findDebitsByExpiresAtBefore(now);
+        if (expiredDebits.isEmpty()) {
+            return 0;
+        }
+        int released = stockReservationRepository.deleteByExpiresAtBefore(now);
+        if (released == expiredDebits.size()) {
+            TransactionCallbacks.afterCommit(() -> stockAllocator.release(expiredDebits));
+        } else {
+            TransactionCallbacks.afterCommit(() -> expiredDebits.stream().map(BatchStockDebit::getProductId).distinct().forEach(stockAllocator::evict));
+        }
+        return released;
+    }
+
+    /**
+     * Return the quantity held by active reservations of each product, on batches due on or after the given date
+     *
+     * @param productIds the product ids
+     * @param minDueDate holds of batches expiring before this date are not counted
+     * @return the held quantity by product id, products without holds are left out
+     */
+    @Override
+    public Map<Long, Long> getHeldQuantity(Collection<Long> productIds, LocalDate minDueDate) {
+        if (productIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return stockReservationRepository.findHeldQuantityByProductIds(productIds, minDueDate).stream()
+                .collect(Collectors.toMap(ProductHeldQuantity::getProductId, ProductHeldQuantity::getQuantity));
+    }
+}
@@ -0,0 +1,70 @@
+package com.meli.frescos.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Actions run when the current transaction ends, shared by the in-memory views kept in sync with the database
+ * Commit actions run in afterCommit, so they run before the InventoryLockManager locks of the transaction are released
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Run the action after the current transaction commits
+     * Without an active transaction the action runs immediately
+     *
+     * @param onCommit the action
+     */
+    public static void afterCommit(Runnable onCommit) {
+        onCompletion(onCommit, () -> { });
+    }
+
+    /**
+     * Run the given actions after the current transaction commits or does not commit
+     * A transaction whose outcome is unknown is handled as rolled back
+     * Without an active transaction the commit action runs immediately
+     *
+     * @param onCommit the action run on commit
+     * @param onRollback the action run on rollback
+     */
+    public static void onCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                onCommit.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Run the action after the current transaction ends, whatever its outcome
+     *
+     * @param action the action
+     * @throws IllegalStateException when called outside a transaction
+     */
+    public static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Actions run after completion require an active transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
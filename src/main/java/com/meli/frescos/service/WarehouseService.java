@@ -5,6 +5,8 @@ import com.meli.frescos.exception.WarehouseNotFoundException;
 import com.meli.frescos.model.SectionModel;
 import com.meli.frescos.model.WarehouseModel;
 import com.meli.frescos.repository.WarehouseRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
@@ -59,6 +61,17 @@ public class WarehouseService implements IWarehouseService {
         return this.warehouseRepository.findAll();
     }
 
+    /**
+     * Returns a page of WarehouseModel ordered by id, starting after the given id
+     *
+     * @param after last warehouse id of the previous page
+     * @param limit max number of warehouses in the page
+     * @return slice of WarehouseModel
+     */
+    public Slice<WarehouseModel> getPage(Long after, int limit) {
+        return this.warehouseRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(limit));
+    }
+
     /**
      * Deletes a Warehouse given ID
      *
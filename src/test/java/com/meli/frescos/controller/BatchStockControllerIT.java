@@ -0,0 +1,372 @@
+package com.meli.frescos.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meli.frescos.controller.dto.BatchStockRequest;
+import com.meli.frescos.controller.dto.BatchStockResponse;
+import com.meli.frescos.model.*;
+import com.meli.frescos.repository.BatchStockDebit;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.ProductRepository;
+import com.meli.frescos.repository.RepresentativeRepository;
+import com.meli.frescos.repository.SectionRepository;
+import com.meli.frescos.repository.SellerRepository;
+import com.meli.frescos.repository.WarehouseRepository;
+import com.meli.frescos.service.BatchStockExpiryIndex;
+import com.meli.frescos.service.NearExpiryFeed;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Import(QueryCountingConfiguration.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BatchStockControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BatchStockRepository batchStockRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private SectionRepository sectionRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private RepresentativeRepository representativeRepository;
+
+    @Autowired
+    private BatchStockExpiryIndex batchStockExpiryIndex;
+
+    @Autowired
+    private NearExpiryFeed nearExpiryFeed;
+
+    @AfterEach
+    void setup() {
+        this.batchStockRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.sellerRepository.deleteAllInBatch();
+        this.sectionRepository.deleteAllInBatch();
+        this.representativeRepository.deleteAllInBatch();
+        this.warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test BatchStock Export streams one JSON line per batch - GET Endpoint")
+    void export_returnsOneJsonLinePerBatchStock_whenSuccess() throws Exception {
+        List<BatchStockModel> batchStockList = createBatchStocks(LocalDate.now().plusWeeks(10), LocalDate.now().plusWeeks(10), LocalDate.now().plusWeeks(10));
+        SectionModel section = batchStockList.get(0).getSection();
+
+        MvcResult asyncResult = mockMvc.perform(get("/batch-stock/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        BatchStockResponse firstResponse = objectMapper.readValue(lines[0], BatchStockResponse.class);
+        assertEquals(section.getTemperature(), firstResponse.getCurrentTemperature());
+        assertEquals(batchStockList.get(0).getBatchNumber(), firstResponse.getBatchNumber());
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test BatchStock by Category returns a page ordered by due date - GET Endpoint")
+    void getByCategoryDueDate_returnsPageOrderedByDueDate_whenOffsetAndLimit() throws Exception {
+        List<BatchStockModel> batchStockList = createBatchStocks(LocalDate.now().plusDays(3), LocalDate.now().plusDays(1), LocalDate.now().plusDays(2), LocalDate.now().plusDays(40));
+        batchStockExpiryIndex.seed();
+
+        mockMvc.perform(get("/batch-stock/category")
+                        .param("category", "FS")
+                        .param("numberOfDays", "10")
+                        .param("order", "desc")
+                        .param("offset", "1")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(2)))
+                .andExpect(jsonPath("$[0].batchNumber", CoreMatchers.is(batchStockList.get(2).getBatchNumber())))
+                .andExpect(jsonPath("$[1].batchNumber", CoreMatchers.is(batchStockList.get(1).getBatchNumber())));
+    }
+
+    @Test
+    @MaxQueries(2)
+    @DisplayName("Test BatchStock by Section returns every batch ordered by due date - GET Endpoint")
+    void getBySectionDueDate_returnsBatchStocksOrderedByDueDate_whenSuccess() throws Exception {
+        List<BatchStockModel> batchStockList = createBatchStocks(LocalDate.now().plusDays(3), LocalDate.now().plusDays(1), LocalDate.now().plusDays(40));
+        batchStockExpiryIndex.seed();
+
+        mockMvc.perform(get("/batch-stock/section")
+                        .param("sectionId", batchStockList.get(0).getSection().getId().toString())
+                        .param("numberOfDays", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(2)))
+                .andExpect(jsonPath("$[0].batchNumber", CoreMatchers.is(batchStockList.get(1).getBatchNumber())))
+                .andExpect(jsonPath("$[1].batchNumber", CoreMatchers.is(batchStockList.get(0).getBatchNumber())));
+    }
+
+    @Test
+    @MaxQueries(2)
+    @DisplayName("Test BatchStock near-expiry stream sends the batches in the window and then the changed ones - GET Endpoint")
+    void streamExpiring_sendsBatchStocksInWindowAndChanges_whenSectionInformed() throws Exception {
+        List<BatchStockModel> batchStockList = createBatchStocks(LocalDate.now().plusDays(3), LocalDate.now().plusDays(40));
+        SectionModel section = batchStockList.get(0).getSection();
+        batchStockExpiryIndex.seed();
+
+        MvcResult asyncResult = mockMvc.perform(get("/batch-stock/expiring/stream")
+                        .param("sectionId", section.getId().toString())
+                        .param("numberOfDays", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        BatchStockModel changed = batchStockRepository.save(new BatchStockModel(null, "TST-NEW", 1, LocalDate.now(), LocalDateTime.now(), LocalDate.now().plusDays(2), batchStockList.get(0).getProduct(), section, 0L));
+        nearExpiryFeed.onBatchStockChanged(batchStockRepository.findAllFetchedById(List.of(changed.getId())).get(0));
+        asyncResult.getRequest().getAsyncContext().complete();
+
+        String body = asyncResult.getResponse().getContentAsString();
+        assertEquals("text/event-stream", asyncResult.getResponse().getContentType());
+        assertTrue(body.contains("event:batch-stock"));
+        assertTrue(body.indexOf("TST-0") < body.indexOf("TST-NEW"));
+        assertFalse(body.contains("TST-1"));
+    }
+
+    @Test
+    @MaxQueries(0)
+    @DisplayName("Test BatchStock near-expiry stream returns bad request when warehouse and section are informed - GET Endpoint")
+    void streamExpiring_returnsBadRequest_whenWarehouseAndSectionInformed() throws Exception {
+        mockMvc.perform(get("/batch-stock/expiring/stream")
+                        .param("warehouseId", "1")
+                        .param("sectionId", "1")
+                        .param("numberOfDays", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title", CoreMatchers.is("Filtro inválido")));
+    }
+
+    @Test
+    @MaxQueries(10)
+    @DisplayName("Test BatchStock Update changes the batch when the version is the one read - PUT Endpoint")
+    void update_returnsUpdatedBatchStock_whenVersionMatches() throws Exception {
+        BatchStockModel batchStock = createBatchStocks(LocalDate.now().plusWeeks(10)).get(0);
+        RepresentativeModel representative = createRepresentative(batchStock.getSection().getWarehouse());
+
+        mockMvc.perform(put("/batch-stock")
+                        .param("batchStockId", batchStock.getId().toString())
+                        .param("version", "0")
+                        .param("representativeId", representative.getId().toString())
+                        .param("warehouseId", batchStock.getSection().getWarehouse().getId().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateRequest(batchStock, 7))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.productQuantity", CoreMatchers.is(7)))
+                .andExpect(jsonPath("$.version", CoreMatchers.is(1)));
+
+        assertEquals(7, batchStockRepository.findById(batchStock.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @MaxQueries(3)
+    @DisplayName("Test BatchStock Update returns conflict without overwriting a batch changed after it was read - PUT Endpoint")
+    void update_returnsConflict_whenVersionIsStale() throws Exception {
+        BatchStockModel batchStock = createBatchStocks(LocalDate.now().plusWeeks(10)).get(0);
+        RepresentativeModel representative = createRepresentative(batchStock.getSection().getWarehouse());
+        batchStockRepository.debitQuantities(List.of(new BatchStockDebit(batchStock.getId(), batchStock.getSection().getId(), batchStock.getProduct().getId(), 1)));
+
+        mockMvc.perform(put("/batch-stock")
+                        .param("batchStockId", batchStock.getId().toString())
+                        .param("version", "0")
+                        .param("representativeId", representative.getId().toString())
+                        .param("warehouseId", batchStock.getSection().getWarehouse().getId().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateRequest(batchStock, 7))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title", CoreMatchers.is("Alteração concorrente")));
+
+        BatchStockModel savedBatchStock = batchStockRepository.findById(batchStock.getId()).orElseThrow();
+        assertEquals(batchStock.getQuantity() - 1, savedBatchStock.getQuantity());
+        assertEquals(1L, savedBatchStock.getVersion());
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test BatchStock getAll returns every batch - GET Endpoint")
+    void getAll_returnsEveryBatchStock_whenSuccess() throws Exception {
+        createBatchStocksOfProducts(3);
+
+        mockMvc.perform(get("/batch-stock"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(3)));
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test BatchStock getPage returns a page of batches - GET Endpoint")
+    void getPage_returnsPageOfBatchStocks_whenSuccess() throws Exception {
+        createBatchStocksOfProducts(3);
+
+        mockMvc.perform(get("/batch-stock/page")
+                        .param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", CoreMatchers.is(3)));
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test BatchStock getById returns the batch - GET Endpoint")
+    void getById_returnsBatchStock_whenSuccess() throws Exception {
+        BatchStockModel batchStock = createBatchStocks(LocalDate.now().plusWeeks(10)).get(0);
+
+        mockMvc.perform(get("/batch-stock/{id}", batchStock.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.batchNumber", CoreMatchers.is(batchStock.getBatchNumber())));
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test BatchStock getByProductId returns the batch of the informed id - GET Endpoint")
+    void getByProductId_returnsBatchStock_whenSuccess() throws Exception {
+        BatchStockModel batchStock = createBatchStocks(LocalDate.now().plusWeeks(10)).get(0);
+
+        mockMvc.perform(get("/batch-stock/product-id/{productId}", batchStock.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.batchNumber", CoreMatchers.is(batchStock.getBatchNumber())));
+    }
+
+    @Test
+    @MaxQueries(12)
+    @DisplayName("Test BatchStock save creates the batch of the product - POST Endpoint")
+    void save_returnsCreatedBatchStock_whenSuccess() throws Exception {
+        BatchStockModel batchStock = createBatchStocks(LocalDate.now().plusWeeks(10)).get(0);
+        RepresentativeModel representative = createRepresentative(batchStock.getSection().getWarehouse());
+        BatchStockRequest batchStockRequest = BatchStockRequest.builder()
+                .sectionCode(batchStock.getSection().getId())
+                .batchNumber("TST-NEW")
+                .productQuantity(4)
+                .manufacturingDate(LocalDate.now())
+                .manufacturingDatetime(LocalDateTime.now())
+                .dueDate(LocalDate.now().plusWeeks(10))
+                .build();
+
+        mockMvc.perform(post("/batch-stock/product-id")
+                        .param("productId", batchStock.getProduct().getId().toString())
+                        .param("representativeId", representative.getId().toString())
+                        .param("warehouseId", batchStock.getSection().getWarehouse().getId().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchStockRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.productQuantity", CoreMatchers.is(4)));
+    }
+
+    @Test
+    @MaxQueries(2)
+    @DisplayName("Test BatchStock list returns the batches of the product due in the next three weeks - GET Endpoint")
+    void getBatchStockByProduct_returnsBatchStocksDueInThreeWeeks_whenSuccess() throws Exception {
+        List<BatchStockModel> batchStockList = createBatchStocks(LocalDate.now().plusWeeks(4), LocalDate.now().plusWeeks(5), LocalDate.now().plusWeeks(6));
+
+        mockMvc.perform(get("/batch-stock/list")
+                        .param("idProduct", batchStockList.get(0).getProduct().getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(3)));
+    }
+
+    @Test
+    @MaxQueries(2)
+    @DisplayName("Test BatchStock list order returns the batches of the product sorted by due date - GET Endpoint")
+    void getBatchStockByProductOrder_returnsBatchStocksSortedByDueDate_whenSuccess() throws Exception {
+        List<BatchStockModel> batchStockList = createBatchStocks(LocalDate.now().plusWeeks(6), LocalDate.now().plusWeeks(4), LocalDate.now().plusWeeks(5));
+
+        mockMvc.perform(get("/batch-stock/list/order")
+                        .param("idProduct", batchStockList.get(0).getProduct().getId().toString())
+                        .param("order", "V"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(3)))
+                .andExpect(jsonPath("$[0].batchStock.batchNumber", CoreMatchers.is(batchStockList.get(1).getBatchNumber())));
+    }
+
+    private List<BatchStockModel> createBatchStocksOfProducts(int count) {
+        WarehouseModel warehouse = warehouseRepository.save(WarehouseModel.builder()
+                .city("Tramandaí").district("Zona Nova").state("Rio Grande do Sul").postalCode("99999999").street("Avenida Emancipacao").build());
+        SellerModel seller = sellerRepository.save(new SellerModel(null, "Vendedor 1", "12345678900", 4.2));
+
+        List<BatchStockModel> batchStockList = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SectionModel section = sectionRepository.save(new SectionModel(null, "Frutas " + i, CategoryEnum.FRESH, 100.0, 2.0, warehouse));
+            ProductModel product = productRepository.save(new ProductModel(null, "Melão " + i, "Melão", BigDecimal.TEN, CategoryEnum.FRESH, 1.0, 1.0, LocalDate.now(), seller));
+            batchStockList.add(new BatchStockModel(null, "TST-" + i, i + 1, LocalDate.now(), LocalDateTime.now(), LocalDate.now().plusWeeks(10), product, section, 0L));
+        }
+        return batchStockRepository.saveAll(batchStockList);
+    }
+
+    private List<BatchStockModel> createBatchStocks(LocalDate... dueDates) {
+        WarehouseModel warehouse = warehouseRepository.save(WarehouseModel.builder()
+                .city("Tramandaí").district("Zona Nova").state("Rio Grande do Sul").postalCode("99999999").street("Avenida Emancipacao").build());
+        SectionModel section = sectionRepository.save(new SectionModel(null, "Frutas", CategoryEnum.FRESH, 100.0, 2.0, warehouse));
+        SellerModel seller = sellerRepository.save(new SellerModel(null, "Vendedor 1", "12345678900", 4.2));
+        ProductModel product = productRepository.save(new ProductModel(null, "Melão", "Melão", BigDecimal.TEN, CategoryEnum.FRESH, 1.0, 1.0, LocalDate.now(), seller));
+
+        List<BatchStockModel> batchStockList = new ArrayList<>();
+        for (int i = 0; i < dueDates.length; i++) {
+            batchStockList.add(new BatchStockModel(null, "TST-" + i, i + 1, LocalDate.now(), LocalDateTime.now(), dueDates[i], product, section, 0L));
+        }
+        return batchStockRepository.saveAll(batchStockList);
+    }
+
+    private RepresentativeModel createRepresentative(WarehouseModel warehouse) {
+        RepresentativeModel representative = new RepresentativeModel();
+        representative.setName("Representante");
+        representative.setWarehouse(warehouse);
+        return representativeRepository.save(representative);
+    }
+
+    private BatchStockRequest updateRequest(BatchStockModel batchStock, int quantity) {
+        return BatchStockRequest.builder()
+                .batchNumber(batchStock.getBatchNumber())
+                .productQuantity(quantity)
+                .manufacturingDate(batchStock.getManufacturingDate())
+                .manufacturingDatetime(batchStock.getManufacturingTime())
+                .dueDate(batchStock.getDueDate())
+                .build();
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -21,6 +22,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@Import(QueryCountingConfiguration.class)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 class BuyerControllerIT {
@@ -43,6 +45,7 @@ class BuyerControllerIT {
 
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Buyer Successfull Creation - POST Endpoint")
     void create_returnsCreatedStatus_whenSuccess() throws Exception {
         String name = "Buyer";
@@ -63,6 +66,7 @@ class BuyerControllerIT {
     }
 
     @Test
+    @MaxQueries(0)
     @DisplayName("Test invalid Buyer creation - POST Endpoint")
     void create_throwException_whenWrongParameters() throws Exception {
         String name = "";
@@ -83,6 +87,7 @@ class BuyerControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Get Warehouse by ID - GET Endpoint")
     void getById_returnsWarehouse_whenIdIsAvailable() throws Exception {
         String cpf = "12345678900";
@@ -103,6 +108,7 @@ class BuyerControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Warehouse ID not found - GET Endpoint")
     void getById_throwsWarehouseNotFound_whenIdDoesNotExists() throws Exception {
         ResultActions response = mockMvc.perform(
@@ -114,6 +120,7 @@ class BuyerControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Get all Warehouse - GET Endpoint")
     void getAll_returnListOfWarehouse_whenSuccess() throws Exception {
         String name = "Buyer";
@@ -135,6 +142,7 @@ class BuyerControllerIT {
     }
 
     @Test
+    @MaxQueries(2)
     @DisplayName("Test Update Buyer info - PUT Endpoint")
     void update_returnsUpdatedBuyer_whenSuccess() throws Exception {
         String cpf = "12345678900";
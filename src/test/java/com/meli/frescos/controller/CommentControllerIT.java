@@ -1,6 +1,7 @@
 package com.meli.frescos.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import com.meli.frescos.controller.dto.CommentRequest;
 import com.meli.frescos.controller.dto.WarehouseRequest;
 import com.meli.frescos.exception.InvalidCommentException;
@@ -14,9 +15,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.math.BigDecimal;
@@ -30,6 +33,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@Import(QueryCountingConfiguration.class)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 class CommentControllerIT {
@@ -83,6 +87,7 @@ class CommentControllerIT {
     }
 
     @Test
+    @MaxQueries(3)
     @DisplayName("Test Comment Successfull Creation - POST Endpoint")
     void create_returnsCreatedStatus_whenSuccess() throws Exception {
         WarehouseModel warehouse = createWarehouse();
@@ -114,6 +119,7 @@ class CommentControllerIT {
     }
 
     @Test
+    @MaxQueries(3)
     @DisplayName("Test Comment Creation with Open PurchaseOrder  - POST Endpoint")
     void create_throwsInvalidCommentException_whenPurchaseOrderIsOpen() throws Exception {
         WarehouseModel warehouse = createWarehouse();
@@ -150,6 +156,7 @@ class CommentControllerIT {
     }
 
     @Test
+    @MaxQueries(3)
     @DisplayName("Test Comment Creation with Open PurchaseOrder  - POST Endpoint")
     void create_throwsInvalidCommentException_whenBuyerAlreadyPurchased() throws Exception {
         WarehouseModel warehouse = createWarehouse();
@@ -188,6 +195,7 @@ class CommentControllerIT {
     }
 
     @Test
+    @MaxQueries(2)
     @DisplayName("Test Comment Successfull return list of Commentary Ordered by Create Date - GET Endpoint")
     void getRecentComment_returnsListOfCommentary_whenSuccess() throws Exception {
         WarehouseModel warehouse = createWarehouse();
@@ -244,9 +252,87 @@ class CommentControllerIT {
                 .andExpect(jsonPath("$.comments[0].comment", CoreMatchers.is("Earliest comment")))
                 .andExpect(jsonPath("$.comments[1].comment", CoreMatchers.is("Mid comment")))
                 .andExpect(jsonPath("$.comments[2].comment", CoreMatchers.is("Latest coment")))
+                .andExpect(jsonPath("$.nextCursor", CoreMatchers.nullValue()))
         ;
     }
 
+    @Test
+    @MaxQueries(2)
+    @DisplayName("Test Comment Page Success with next cursor - GET Endpoint")
+    void getPage_returnsCommentPages_whenSuccess() throws Exception {
+        SellerModel seller = createSeller();
+        ProductModel product = createProduct(seller);
+        LocalDateTime now = LocalDateTime.now();
+        String[] cpfs = {"08392648609", "27430121020", "58967427034"};
+        for (int i = 0; i < cpfs.length; i++) {
+            BuyerModel buyer = createBuyer(cpfs[i], "Test Buyer");
+            commentRepository.save(CommentRequest.builder()
+                    .comment("Comment " + i)
+                    .createdAt(now.plusMinutes(i))
+                    .buyerId(buyer.getId())
+                    .productId(product.getId())
+                    .build()
+                    .toModel()
+            );
+        }
+
+        MvcResult firstPage = mockMvc.perform(
+                get("/comment/{productId}/page?limit=2", product.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productName", CoreMatchers.is(product.getProductTitle())))
+                .andExpect(jsonPath("$.comments.length()", CoreMatchers.is(2)))
+                .andExpect(jsonPath("$.comments[0].comment", CoreMatchers.is("Comment 2")))
+                .andExpect(jsonPath("$.comments[1].comment", CoreMatchers.is("Comment 1")))
+                .andExpect(jsonPath("$.nextCursor", CoreMatchers.notNullValue()))
+                .andReturn();
+        String nextCursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(
+                get("/comment/{productId}/page?limit=2&after={after}", product.getId(), nextCursor)
+                        .contentType(MediaType.APPLICATION_JSON)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments.length()", CoreMatchers.is(1)))
+                .andExpect(jsonPath("$.comments[0].comment", CoreMatchers.is("Comment 0")))
+                .andExpect(jsonPath("$.nextCursor", CoreMatchers.nullValue()));
+    }
+
+    @Test
+    @MaxQueries(2)
+    @DisplayName("Test Recent Comments Refreshed after Comment Creation - GET Endpoint")
+    void getRecentComment_returnsNewComment_whenCreatedAfterCached() throws Exception {
+        WarehouseModel warehouse = createWarehouse();
+        SectionModel section = createSection(warehouse.getId());
+        SellerModel seller = createSeller();
+        BuyerModel buyer = createBuyer("08392648609", "Test Buyer");
+        createRepresentative(warehouse.getId());
+        ProductModel product = createProduct(seller);
+        createBatchStockRequest(section, product);
+        PurchaseOrderModel purchaseOrder = createPurchaseOrder(OrderStatusEnum.CLOSED, buyer);
+        createOrderProduct(product, purchaseOrder, 10);
+
+        mockMvc.perform(get("/comment/{productId}", product.getId()))
+                .andExpect(status().isNoContent());
+
+        CommentRequest commentRequest = CommentRequest.builder()
+                .comment("New comment")
+                .createdAt(LocalDateTime.now())
+                .buyerId(buyer.getId())
+                .productId(product.getId())
+                .build();
+        mockMvc.perform(
+                post("/comment")
+                        .content(objectMapper.writeValueAsString(commentRequest))
+                        .contentType(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isCreated());
+
+        mockMvc.perform(get("/comment/{productId}", product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments[0].comment", CoreMatchers.is("New comment")));
+    }
+
 //
 //    @Test
 //    @DisplayName("Test Seller Creation with wrong rating - POST Endpoint")
@@ -0,0 +1,24 @@
+package com.meli.frescos.controller;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Query budget of an integration test
+ * Fails the test when any request it performs executes more SQL statements than the budget
+ * The test class must import QueryCountingConfiguration
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(MaxQueriesExtension.class)
+public @interface MaxQueries {
+
+    /**
+     * Max number of SQL statements of each request
+     */
+    int value();
+}
@@ -0,0 +1,39 @@
+package com.meli.frescos.controller;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the requests of a test annotated with MaxQueries against its budget
+ */
+class MaxQueriesExtension implements BeforeEachCallback, AfterEachCallback {
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        QueryCounter.reset();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        MaxQueries maxQueries = context.getRequiredTestMethod().getAnnotation(MaxQueries.class);
+        List<QueryCounter.RequestCount> requests = QueryCounter.completed();
+        if (maxQueries == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+        if (requests.isEmpty()) {
+            throw new AssertionError("No request was counted, import QueryCountingConfiguration in " + context.getRequiredTestClass().getSimpleName());
+        }
+        List<QueryCounter.RequestCount> overBudget = requests.stream()
+                .filter(request -> request.statements() > maxQueries.value())
+                .toList();
+        if (!overBudget.isEmpty()) {
+            throw new AssertionError(overBudget.stream()
+                    .map(request -> String.format("%s executed %d SQL statements", request.request(), request.statements()))
+                    .collect(Collectors.joining(", ", "", String.format(", budget is %d", maxQueries.value()))));
+        }
+    }
+}
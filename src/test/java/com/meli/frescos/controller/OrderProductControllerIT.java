@@ -4,29 +4,33 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.meli.frescos.controller.dto.OrderProductsRequest;
 import com.meli.frescos.model.*;
 import com.meli.frescos.service.IOrderProductService;
-import org.junit.jupiter.api.BeforeEach;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
-import javax.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@Import(QueryCountingConfiguration.class)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
-@Transactional
 class OrderProductControllerIT {
 
     @Autowired
@@ -52,18 +56,18 @@ class OrderProductControllerIT {
     @Autowired
     com.meli.frescos.repository.BuyerRepository buyerRepository;
 
-    @BeforeEach
+    @AfterEach
     void setup() {
-
+        orderProductsRepository.deleteAllInBatch();
         purchaseOrderRepository.deleteAllInBatch();
         productRepository.deleteAllInBatch();
-        orderProductsRepository.deleteAllInBatch();
         sellerRepository.deleteAllInBatch();
         buyerRepository.deleteAllInBatch();
     }
 
 
     @Test
+    @MaxQueries(3)
     @DisplayName("Test OrderProduct Successfull Creation - POST Endpoint")
     void create_returnsCreatedStatus_whenSuccess() throws Exception {
         BuyerModel buyerModel = insertBuyer();
@@ -88,6 +92,7 @@ class OrderProductControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test OrderProduct Successfull GetById - GET Endpoint")
     void getById_returnsOKStatus_whenSuccess() throws Exception {
         BuyerModel buyerModel = insertBuyer();
@@ -105,68 +110,94 @@ class OrderProductControllerIT {
     }
 
     @Test
+    @MaxQueries(2)
     @DisplayName("Test OrderProduct Successfull GetByPurchaseId - GET Endpoint")
     void getByOrderId_returnsOKStatus_whenSuccess() throws Exception {
         BuyerModel buyerModel = insertBuyer();
-        SellerModel sellerModel = insertSeller();
-        ProductModel productModel = insertProduct(sellerModel);
         PurchaseOrderModel purchaseOrderModel = insertPurchaseOrder(buyerModel);
-        insertOrderProduct(productModel, purchaseOrderModel);
+        for (int i = 0; i < 3; i++) {
+            insertOrderProduct(insertProduct(insertSeller()), purchaseOrderModel);
+        }
 
         ResultActions response = mockMvc.perform(
                 get("/orderProducts/idOrder/{idOrder}", purchaseOrderModel.getId())
                         .contentType(MediaType.APPLICATION_JSON)
         );
 
-        response.andExpect(status().isOk());
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(3)));
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test OrderProduct Successfull getAll - GET Endpoint")
     void getAll_returnsOKStatus_whenSuccess() throws Exception {
-        BuyerModel buyerModel = insertBuyer();
-        SellerModel sellerModel = insertSeller();
-        ProductModel productModel = insertProduct(sellerModel);
-        PurchaseOrderModel purchaseOrderModel = insertPurchaseOrder(buyerModel);
-        insertOrderProduct(productModel, purchaseOrderModel);
+        insertOrderProducts(3);
 
         ResultActions response = mockMvc.perform(
                 get("/orderProducts/")
                         .contentType(MediaType.APPLICATION_JSON)
         );
 
-        response.andExpect(status().isOk());
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(3)));
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test OrderProduct Successfull getPage - GET Endpoint")
+    void getPage_returnsOrderProductsWithProductAndPurchaseOrder_whenSuccess() throws Exception {
+        List<OrderProductsModel> orderProductsList = insertOrderProducts(3);
+
+        ResultActions response = mockMvc.perform(
+                get("/orderProducts/page")
+                        .param("limit", "3")
+                        .contentType(MediaType.APPLICATION_JSON)
+        );
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", CoreMatchers.is(3)))
+                .andExpect(jsonPath("$.items[0].id", CoreMatchers.is(orderProductsList.get(0).getId().intValue())))
+                .andExpect(jsonPath("$.items[2].productModel.seller.id", CoreMatchers.is(orderProductsList.get(2).getProductModel().getSeller().getId().intValue())))
+                .andExpect(jsonPath("$.items[2].purchaseOrderModel.buyer.id", CoreMatchers.is(orderProductsList.get(2).getPurchaseOrderModel().getBuyer().getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    List<OrderProductsModel> insertOrderProducts(int count) {
+        List<OrderProductsModel> orderProductsList = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            orderProductsList.add(insertOrderProduct(insertProduct(insertSeller()), insertPurchaseOrder(insertBuyer())));
+        }
+        return orderProductsList;
     }
 
     BuyerModel insertBuyer() {
-        Long id = 1L;
         String name = "Buyer";
-        String cpf = "12345678900";
-        BuyerModel buyer = new BuyerModel(id, name, cpf);
+        String cpf = String.format("%011d", buyerRepository.count());
+        BuyerModel buyer = new BuyerModel(name, cpf);
 
         return buyerRepository.save(buyer);
     }
 
     SellerModel insertSeller() {
-        Long id = 1L;
         String name = "Vendedor 1";
-        String cpf = "12345678900";
+        String cpf = String.format("%011d", sellerRepository.count());
         double rating = 4.2;
-        SellerModel sellerModel = new SellerModel(id, name, cpf, rating);
+        SellerModel sellerModel = new SellerModel(name, cpf, rating);
 
         return sellerRepository.save(sellerModel);
     }
 
     ProductModel insertProduct(SellerModel sellerModel) {
         ProductModel productModel =
-                new ProductModel(1L, "Test", "Test", new BigDecimal(1), CategoryEnum.FROZEN, Double.valueOf(1.0), Double.valueOf(1.0), LocalDate.now(), sellerModel);
+                new ProductModel(null, "Test", "Test", new BigDecimal(1), CategoryEnum.FROZEN, Double.valueOf(1.0), Double.valueOf(1.0), LocalDate.now(), sellerModel);
 
         return productRepository.save(productModel);
     }
 
     PurchaseOrderModel insertPurchaseOrder(BuyerModel buyer) {
         PurchaseOrderModel purchaseOrderModel =
-                new PurchaseOrderModel(1L, LocalDate.now(), OrderStatusEnum.OPEN, buyer);
+                new PurchaseOrderModel(null, LocalDate.now(), OrderStatusEnum.OPEN, buyer, null);
 
         return purchaseOrderRepository.save(purchaseOrderModel);
     }
@@ -2,10 +2,13 @@ package com.meli.frescos.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.meli.frescos.controller.dto.BatchStockRequest;
+import com.meli.frescos.controller.dto.BulkInboundOrderRequest;
 import com.meli.frescos.controller.dto.InboundOrderRequest;
+import com.meli.frescos.controller.dto.PageCursor;
 import com.meli.frescos.controller.dto.ProductBatchStockRequest;
 import com.meli.frescos.controller.dto.WarehouseRequest;
 import com.meli.frescos.exception.RepresentativeNotFoundException;
+import com.meli.frescos.exception.SectionByIdNotFoundException;
 import com.meli.frescos.exception.SellerByIdNotFoundException;
 import com.meli.frescos.exception.WarehouseNotFoundException;
 import com.meli.frescos.model.*;
@@ -16,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -28,6 +32,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -35,6 +40,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@Import(QueryCountingConfiguration.class)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 class ProductControllerIT {
@@ -62,6 +68,9 @@ class ProductControllerIT {
     @Autowired
     private com.meli.frescos.repository.BatchStockRepository batchStockRepository;
 
+    @Autowired
+    private com.meli.frescos.service.ProductStockSummaryJob productStockSummaryJob;
+
     @AfterEach
     void setup() {
         this.batchStockRepository.deleteAllInBatch();
@@ -74,6 +83,7 @@ class ProductControllerIT {
 
 
     @Test
+    @MaxQueries(9)
     @DisplayName("Test Product Successfull Creation - POST Endpoint")
     void create_returnsCreatedStatus_whenSuccess() throws Exception {
         WarehouseModel warehouseModel = createWarehouse();
@@ -109,6 +119,102 @@ class ProductControllerIT {
     }
 
     @Test
+    @MaxQueries(9)
+    @DisplayName("Test Product Stock Summary Updated On Inbound Order - GET Endpoint")
+    void getAll_returnsInboundQuantity_whenCreatedByInboundOrder() throws Exception {
+        WarehouseModel warehouseModel = createWarehouse();
+        SellerModel sellerModel = createSeller();
+        SectionModel sectionModel = createSection(warehouseModel.getId());
+        RepresentativeModel representativeModel = createRepresentative(warehouseModel.getId());
+
+        List<BatchStockRequest> batchStockRequestList = new ArrayList<>();
+        batchStockRequestList.add(createBatchStockRequest(sectionModel.getId()));
+        batchStockRequestList.add(createBatchStockRequest(sectionModel.getId()));
+        InboundOrderRequest inboundOrderRequest = createInboundOrderRequest(warehouseModel.getId(), sellerModel.getId(), representativeModel.getId(), batchStockRequestList);
+
+        ProductBatchStockRequest productBatchStockRequest = new ProductBatchStockRequest();
+        productBatchStockRequest.setInboundOrder(inboundOrderRequest);
+
+        mockMvc.perform(
+                post("/product/inboundorder")
+                        .content(objectMapper.writeValueAsString(productBatchStockRequest))
+                        .contentType(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isCreated());
+
+        ResultActions response = mockMvc.perform(
+                get("/product")
+                        .contentType(MediaType.APPLICATION_JSON)
+        );
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(1)))
+                .andExpect(jsonPath("$[0].totalQuantity", CoreMatchers.is(2)))
+                .andExpect(jsonPath("$[0].closestDueDate", CoreMatchers.is(batchStockRequestList.get(0).getDueDate().toString())));
+    }
+
+    @Test
+    @MaxQueries(11)
+    @DisplayName("Test Product Bulk Successfull Creation - POST Endpoint")
+    void createBulk_returnsCreatedStatus_whenSuccess() throws Exception {
+        WarehouseModel warehouseModel = createWarehouse();
+        SellerModel sellerModel = createSeller();
+        SectionModel sectionModel = createSection(warehouseModel.getId());
+        RepresentativeModel representativeModel = createRepresentative(warehouseModel.getId());
+
+        List<InboundOrderRequest> inboundOrderRequestList = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            List<BatchStockRequest> batchStockRequestList = new ArrayList<>();
+            batchStockRequestList.add(createBatchStockRequest(sectionModel.getId()));
+            batchStockRequestList.add(createBatchStockRequest(sectionModel.getId()));
+            inboundOrderRequestList.add(createInboundOrderRequest(warehouseModel.getId(), sellerModel.getId(), representativeModel.getId(), batchStockRequestList));
+        }
+
+        BulkInboundOrderRequest bulkInboundOrderRequest = new BulkInboundOrderRequest(inboundOrderRequestList);
+
+        ResultActions response = mockMvc.perform(
+                post("/product/inboundorder/bulk")
+                        .content(objectMapper.writeValueAsString(bulkInboundOrderRequest))
+                        .contentType(MediaType.APPLICATION_JSON)
+        );
+
+        response.andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(2)))
+                .andExpect(jsonPath("$[0].productId", CoreMatchers.notNullValue()))
+                .andExpect(jsonPath("$[1].batchStock.length()", CoreMatchers.is(2)))
+                .andExpect(jsonPath("$[1].batchStock[1].id", CoreMatchers.notNullValue()));
+        assertEquals(4, batchStockRepository.count());
+    }
+
+    @Test
+    @MaxQueries(2)
+    @DisplayName("Test Product Bulk Create Throws SectionByIdNotFoundException without saving - POST Endpoint")
+    void createBulk_throwsSectionByIdNotFoundException_whenSectionCodeInvalid() throws Exception {
+        WarehouseModel warehouseModel = createWarehouse();
+        SellerModel sellerModel = createSeller();
+        SectionModel sectionModel = createSection(warehouseModel.getId());
+        RepresentativeModel representativeModel = createRepresentative(warehouseModel.getId());
+
+        List<BatchStockRequest> batchStockRequestList = new ArrayList<>();
+        batchStockRequestList.add(createBatchStockRequest(sectionModel.getId()));
+        batchStockRequestList.add(createBatchStockRequest(-1L));
+        BulkInboundOrderRequest bulkInboundOrderRequest = new BulkInboundOrderRequest(List.of(
+                createInboundOrderRequest(warehouseModel.getId(), sellerModel.getId(), representativeModel.getId(), batchStockRequestList)));
+
+        ResultActions response = mockMvc.perform(
+                post("/product/inboundorder/bulk")
+                        .content(objectMapper.writeValueAsString(bulkInboundOrderRequest))
+                        .contentType(MediaType.APPLICATION_JSON)
+        );
+
+        response.andExpect(status().isNotFound())
+                .andExpect(result -> assertTrue(
+                        result.getResolvedException() instanceof SectionByIdNotFoundException));
+        assertEquals(0, batchStockRepository.count());
+        assertEquals(0, productRepository.count());
+    }
+
+    @Test
+    @MaxQueries(2)
     @DisplayName("Test Product Create Throws WarehouseNotFoundException  - POST Endpoint")
     void create_throwsWarehouseNotFoundException_whenWarehouseCodeNull() throws Exception {
         WarehouseModel warehouseModel = createWarehouse();
@@ -140,6 +246,7 @@ class ProductControllerIT {
     }
 
     @Test
+    @MaxQueries(4)
     @DisplayName("Test Product Create Throws SellerByIdNotFoundException  - POST Endpoint")
     void create_throwsSellerByIdNotFoundException_whenSellerCodeInvalid() throws Exception {
         WarehouseModel warehouseModel = createWarehouse();
@@ -171,6 +278,7 @@ class ProductControllerIT {
     }
 
     @Test
+    @MaxQueries(2)
     @DisplayName("Test Product Create Throws RepresentativeNotFoundException  - POST Endpoint")
     void create_throwsRepresentativeNotFoundException_whenRepresentativeCodeInvalid() throws Exception {
         WarehouseModel warehouseModel = createWarehouse();
@@ -204,6 +312,7 @@ class ProductControllerIT {
     }
 
     @Test
+    @MaxQueries(0)
     @DisplayName("Test Product Create Throws RepresentativeNotFoundException  - POST Endpoint")
     void create_throwsRepresentativeNotFoundException_whenWarehouseCodeNulsl() throws Exception {
         WarehouseModel warehouseModel = createWarehouse();
@@ -234,6 +343,7 @@ class ProductControllerIT {
                         result.getResolvedException() instanceof MethodArgumentNotValidException));
     }
     @Test
+    @MaxQueries(2)
     @DisplayName("Test Product GetAll Success - GET Endpoint")
     void getAll_returnsListOfProductDetailedResponse_whenSuccess() throws Exception {
         WarehouseModel warehouseModel = createWarehouse();
@@ -257,6 +367,8 @@ class ProductControllerIT {
 
         batchStockRepository.save(productBatchStockList.get(0));
 
+        productStockSummaryJob.rebuild();
+
         ResultActions response = mockMvc.perform(
                 get("/product/{id}", newProduct.getId())
                         .content(objectMapper.writeValueAsString(productBatchStockRequest))
@@ -269,6 +381,79 @@ class ProductControllerIT {
     }
 
     @Test
+    @MaxQueries(3)
+    @DisplayName("Test Product List All Success - GET Endpoint")
+    void getAll_returnsListOfProductResponse_whenSuccess() throws Exception {
+        WarehouseModel warehouseModel = createWarehouse();
+        SellerModel sellerModel = createSeller();
+        SectionModel sectionModel = createSection(warehouseModel.getId());
+        RepresentativeModel representativeModel = createRepresentative(warehouseModel.getId());
+
+        List<BatchStockRequest> batchStockRequestList = new ArrayList<>();
+        batchStockRequestList.add(createBatchStockRequest(sectionModel.getId()));
+        batchStockRequestList.add(createBatchStockRequest(sectionModel.getId()));
+        InboundOrderRequest inboundOrderRequest = createInboundOrderRequest(warehouseModel.getId(), sellerModel.getId(), representativeModel.getId(), batchStockRequestList);
+
+        ProductBatchStockRequest productBatchStockRequest = new ProductBatchStockRequest();
+        productBatchStockRequest.setInboundOrder(inboundOrderRequest);
+
+        ProductModel newProduct = productRepository.save(productBatchStockRequest.toProduct());
+        List<BatchStockModel> productBatchStockList = productBatchStockRequest.toBatchStock();
+        productBatchStockList.forEach(b -> b.setProduct(newProduct));
+        batchStockRepository.saveAll(productBatchStockList);
+
+        productStockSummaryJob.rebuild();
+
+        ResultActions response = mockMvc.perform(
+                get("/product")
+                        .contentType(MediaType.APPLICATION_JSON)
+        );
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(1)))
+                .andExpect(jsonPath("$[0].totalQuantity", CoreMatchers.is(2)))
+                .andExpect(jsonPath("$[0].closestDueDate", CoreMatchers.is(batchStockRequestList.get(0).getDueDate().toString())));
+    }
+
+    @Test
+    @MaxQueries(2)
+    @DisplayName("Test Product Page Success - GET Endpoint")
+    void getPage_returnsPageResponse_whenSuccess() throws Exception {
+        WarehouseModel warehouseModel = createWarehouse();
+        SellerModel sellerModel = createSeller();
+        SectionModel sectionModel = createSection(warehouseModel.getId());
+        RepresentativeModel representativeModel = createRepresentative(warehouseModel.getId());
+
+        List<BatchStockRequest> batchStockRequestList = new ArrayList<>();
+        batchStockRequestList.add(createBatchStockRequest(sectionModel.getId()));
+        InboundOrderRequest inboundOrderRequest = createInboundOrderRequest(warehouseModel.getId(), sellerModel.getId(), representativeModel.getId(), batchStockRequestList);
+
+        ProductBatchStockRequest productBatchStockRequest = new ProductBatchStockRequest();
+        productBatchStockRequest.setInboundOrder(inboundOrderRequest);
+
+        ProductModel firstProduct = productRepository.save(productBatchStockRequest.toProduct());
+        ProductModel secondProduct = productRepository.save(productBatchStockRequest.toProduct());
+        for (ProductModel product : List.of(firstProduct, secondProduct)) {
+            BatchStockModel batchStock = productBatchStockRequest.toBatchStock().get(0);
+            batchStock.setProduct(product);
+            batchStockRepository.save(batchStock);
+        }
+
+        productStockSummaryJob.rebuild();
+
+        ResultActions response = mockMvc.perform(
+                get("/product/page?limit=1")
+                        .contentType(MediaType.APPLICATION_JSON)
+        );
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", CoreMatchers.is(1)))
+                .andExpect(jsonPath("$.items[0].id", CoreMatchers.is(firstProduct.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor", CoreMatchers.is(PageCursor.encode(firstProduct.getId()))));
+    }
+
+    @Test
+    @MaxQueries(2)
     @DisplayName("Test Product GetById Success - GET Endpoint")
     void getById_returnsProductDetailedResponse_whenSuccess() throws Exception {
         WarehouseModel warehouseModel = createWarehouse();
@@ -292,6 +477,8 @@ class ProductControllerIT {
 
         batchStockRepository.save(productBatchsStockList.get(0));
 
+        productStockSummaryJob.rebuild();
+
         ResultActions response = mockMvc.perform(
                 get("/product/{id}", newProduct.getId())
                         .content(objectMapper.writeValueAsString(productBatchStockRequest))
@@ -305,6 +492,40 @@ class ProductControllerIT {
     }
 
     @Test
+    @MaxQueries(2)
+    @DisplayName("Test Product GetById sums the batches of the same section - GET Endpoint")
+    void getById_returnsQuantitySummedBySection_whenManyBatchesInSection() throws Exception {
+        WarehouseModel warehouseModel = createWarehouse();
+        SellerModel sellerModel = createSeller();
+        SectionModel sectionModel = createSection(warehouseModel.getId());
+        RepresentativeModel representativeModel = createRepresentative(warehouseModel.getId());
+
+        List<BatchStockRequest> batchStockRequestList = new ArrayList<>();
+        batchStockRequestList.add(createBatchStockRequest(sectionModel.getId()));
+        batchStockRequestList.add(createBatchStockRequest(sectionModel.getId()));
+        InboundOrderRequest inboundOrderRequest = createInboundOrderRequest(warehouseModel.getId(), sellerModel.getId(), representativeModel.getId(), batchStockRequestList);
+
+        ProductBatchStockRequest productBatchStockRequest = new ProductBatchStockRequest();
+        productBatchStockRequest.setInboundOrder(inboundOrderRequest);
+
+        ProductModel newProduct = productRepository.save(productBatchStockRequest.toProduct());
+        List<BatchStockModel> productBatchsStockList = productBatchStockRequest.toBatchStock();
+        productBatchsStockList.forEach(b -> b.setProduct(newProduct));
+        productBatchsStockList.get(1).setQuantity(4);
+        batchStockRepository.saveAll(productBatchsStockList);
+
+        productStockSummaryJob.rebuild();
+
+        ResultActions response = mockMvc.perform(get("/product/{id}", newProduct.getId()));
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.batchStock.length()", CoreMatchers.is(1)))
+                .andExpect(jsonPath("$.batchStock[0].sectionId", CoreMatchers.is(sectionModel.getId().intValue())))
+                .andExpect(jsonPath("$.batchStock[0].productQuantity", CoreMatchers.is(5)));
+    }
+
+    @Test
+    @MaxQueries(3)
     @DisplayName("Test Product GetByCategory Success - GET Endpoint")
     void getByCategory_returnsListOfProductDetailedResponse_whenSuccess() throws Exception {
         WarehouseModel warehouseModel = createWarehouse();
@@ -328,6 +549,8 @@ class ProductControllerIT {
 
         batchStockRepository.save(productBatchsStockList.get(0));
 
+        productStockSummaryJob.rebuild();
+
         ResultActions response = mockMvc.perform(
                 get("/product/list?querytype=FS")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -339,6 +562,7 @@ class ProductControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Product GetByCategory with Empty value - GET Endpoint")
     void getByCategory_returnsNotFound_whenCategoryIsEmpty() throws Exception {
 
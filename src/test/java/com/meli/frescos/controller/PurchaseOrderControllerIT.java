@@ -0,0 +1,272 @@
+package com.meli.frescos.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meli.frescos.controller.dto.OrderProductsRequest;
+import com.meli.frescos.controller.dto.PurchaseOrderRequest;
+import com.meli.frescos.model.*;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.BuyerRepository;
+import com.meli.frescos.repository.OrderProductsRepository;
+import com.meli.frescos.repository.ProductRepository;
+import com.meli.frescos.repository.PurchaseOrderRepository;
+import com.meli.frescos.repository.SectionRepository;
+import com.meli.frescos.repository.SellerRepository;
+import com.meli.frescos.repository.StockReservationRepository;
+import com.meli.frescos.repository.WarehouseRepository;
+import com.meli.frescos.service.OutboxRelay;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Import(QueryCountingConfiguration.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PurchaseOrderControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PurchaseOrderRepository purchaseOrderRepository;
+
+    @Autowired
+    private OrderProductsRepository orderProductsRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private BatchStockRepository batchStockRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private SectionRepository sectionRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxEventListener outboxEventListener;
+
+    private final List<SectionModel> sections = new ArrayList<>();
+
+    private final List<WarehouseModel> warehouses = new ArrayList<>();
+
+    @AfterEach
+    void setup() {
+        this.stockReservationRepository.deleteAllInBatch();
+        this.orderProductsRepository.deleteAllInBatch();
+        this.purchaseOrderRepository.deleteAllInBatch();
+        this.batchStockRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.sellerRepository.deleteAllInBatch();
+        this.buyerRepository.deleteAllInBatch();
+        this.sectionRepository.deleteAll(sections);
+        this.warehouseRepository.deleteAll(warehouses);
+    }
+
+    @Test
+    @MaxQueries(3)
+    @DisplayName("Test PurchaseOrder close is accepted and debits the stock asynchronously - PATCH Endpoint")
+    void updateStatus_returnsAcceptedAndClosesOrder_whenStockAvailable() throws Exception {
+        BatchStockModel batchStock = createBatchStock(10);
+        PurchaseOrderModel purchaseOrder = createPurchaseOrder(batchStock.getProduct(), 4);
+
+        mockMvc.perform(patch("/purchase-order/{id}", purchaseOrder.getId()))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", CoreMatchers.endsWith("/purchase-order/" + purchaseOrder.getId() + "/status")))
+                .andExpect(jsonPath("$.orderStatus", CoreMatchers.is("CLOSING")));
+
+        awaitClose(purchaseOrder.getId());
+
+        mockMvc.perform(get("/purchase-order/{id}/status", purchaseOrder.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderStatus", CoreMatchers.is("CLOSED")));
+        assertEquals(6, batchStockRepository.findById(batchStock.getId()).orElseThrow().getQuantity());
+        outboxRelay.relay();
+        assertTrue(isPublished(OutboxEventTypeEnum.PURCHASE_ORDER_CLOSED, purchaseOrder.getId()));
+        assertTrue(isPublished(OutboxEventTypeEnum.BATCH_STOCK_DEBITED, batchStock.getId()));
+    }
+
+    @Test
+    @MaxQueries(3)
+    @DisplayName("Test PurchaseOrder close retried after closing does not debit the stock again - PATCH Endpoint")
+    void updateStatus_returnsOkWithoutDebit_whenAlreadyClosed() throws Exception {
+        BatchStockModel batchStock = createBatchStock(10);
+        PurchaseOrderModel purchaseOrder = createPurchaseOrder(batchStock.getProduct(), 4);
+
+        mockMvc.perform(patch("/purchase-order/{id}", purchaseOrder.getId()))
+                .andExpect(status().isAccepted());
+        awaitClose(purchaseOrder.getId());
+
+        mockMvc.perform(patch("/purchase-order/{id}", purchaseOrder.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderStatus", CoreMatchers.is("CLOSED")));
+        assertEquals(6, batchStockRepository.findById(batchStock.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @MaxQueries(3)
+    @DisplayName("Test PurchaseOrder close without enough stock reopens the order with the reason - PATCH Endpoint")
+    void updateStatus_reopensOrder_whenStockNotAvailable() throws Exception {
+        BatchStockModel batchStock = createBatchStock(10);
+        PurchaseOrderModel purchaseOrder = createPurchaseOrder(batchStock.getProduct(), 40);
+
+        mockMvc.perform(patch("/purchase-order/{id}", purchaseOrder.getId()))
+                .andExpect(status().isAccepted());
+        awaitClose(purchaseOrder.getId());
+
+        mockMvc.perform(get("/purchase-order/{id}/status", purchaseOrder.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderStatus", CoreMatchers.is("OPEN")))
+                .andExpect(jsonPath("$.closeFailure", CoreMatchers.containsString(batchStock.getProduct().getId().toString())));
+        assertEquals(10, batchStockRepository.findById(batchStock.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @MaxQueries(11)
+    @DisplayName("Test PurchaseOrder creation returns the total price and reserves the stock - POST Endpoint")
+    void save_returnsCreatedWithTotalPrice_whenStockAvailable() throws Exception {
+        BatchStockModel batchStock = createBatchStock(10);
+        BuyerModel buyer = buyerRepository.save(new BuyerModel("Comprador", "12345678900"));
+        PurchaseOrderRequest purchaseOrderRequest = PurchaseOrderRequest.builder()
+                .date(LocalDate.now())
+                .buyer(buyer.getId())
+                .products(List.of(OrderProductsRequest.builder().productModel(batchStock.getProduct().getId()).quantity(4).build()))
+                .build();
+
+        mockMvc.perform(post("/purchase-order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseOrderRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.totalprice", CoreMatchers.is(40.0)));
+        assertEquals(1, purchaseOrderRepository.count());
+        assertEquals(1, stockReservationRepository.count());
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test PurchaseOrder getAll returns every order - GET Endpoint")
+    void getAll_returnsEveryPurchaseOrder_whenSuccess() throws Exception {
+        createPurchaseOrders(createBatchStock(10).getProduct(), 3);
+
+        mockMvc.perform(get("/purchase-order"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", CoreMatchers.is(3)));
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test PurchaseOrder getPage returns a page of orders - GET Endpoint")
+    void getPage_returnsPageOfPurchaseOrders_whenSuccess() throws Exception {
+        createPurchaseOrders(createBatchStock(10).getProduct(), 3);
+
+        mockMvc.perform(get("/purchase-order/page")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", CoreMatchers.is(2)))
+                .andExpect(jsonPath("$.nextCursor", CoreMatchers.notNullValue()));
+    }
+
+    private void awaitClose(Long purchaseOrderId) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (purchaseOrderRepository.findById(purchaseOrderId).orElseThrow().getOrderStatus() != OrderStatusEnum.CLOSING) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private boolean isPublished(OutboxEventTypeEnum eventType, Long aggregateId) {
+        return outboxEventListener.events.stream().anyMatch(e -> e.getEventType() == eventType && e.getAggregateId().equals(aggregateId));
+    }
+
+    private BatchStockModel createBatchStock(int quantity) {
+        WarehouseModel warehouse = warehouseRepository.save(WarehouseModel.builder()
+                .city("Tramandaí").district("Zona Nova").state("Rio Grande do Sul").postalCode("99999999").street("Avenida Emancipacao").build());
+        SectionModel section = sectionRepository.save(new SectionModel(null, "Frutas", CategoryEnum.FRESH, 100.0, 2.0, warehouse));
+        warehouses.add(warehouse);
+        sections.add(section);
+        SellerModel seller = sellerRepository.save(new SellerModel(null, "Vendedor 1", "12345678900", 4.2));
+        ProductModel product = productRepository.save(new ProductModel(null, "Melão", "Melão", BigDecimal.TEN, CategoryEnum.FRESH, 1.0, 1.0, LocalDate.now(), seller));
+        return batchStockRepository.save(new BatchStockModel(null, "TST-1", quantity, LocalDate.now(), LocalDateTime.now(), LocalDate.now().plusWeeks(10), product, section, 0L));
+    }
+
+    private PurchaseOrderModel createPurchaseOrder(ProductModel product, int quantity) {
+        BuyerModel buyer = buyerRepository.save(new BuyerModel("Comprador", "12345678900"));
+        PurchaseOrderModel purchaseOrder = purchaseOrderRepository.save(PurchaseOrderModel.builder()
+                .date(LocalDate.now()).orderStatus(OrderStatusEnum.OPEN).buyer(buyer).build());
+        orderProductsRepository.save(new OrderProductsModel(product, quantity, purchaseOrder));
+        return purchaseOrder;
+    }
+
+    private void createPurchaseOrders(ProductModel product, int count) {
+        for (int i = 0; i < count; i++) {
+            BuyerModel buyer = buyerRepository.save(new BuyerModel("Comprador " + i, String.format("%011d", i)));
+            PurchaseOrderModel purchaseOrder = purchaseOrderRepository.save(PurchaseOrderModel.builder()
+                    .date(LocalDate.now()).orderStatus(OrderStatusEnum.OPEN).buyer(buyer).build());
+            orderProductsRepository.save(new OrderProductsModel(product, 1, purchaseOrder));
+        }
+    }
+
+    @TestConfiguration
+    static class OutboxEventListenerConfiguration {
+
+        @Bean
+        OutboxEventListener outboxEventListener() {
+            return new OutboxEventListener();
+        }
+    }
+
+    static class OutboxEventListener {
+
+        private final List<OutboxEventModel> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void onOutboxEvent(OutboxEventModel event) {
+            events.add(event);
+        }
+    }
+}
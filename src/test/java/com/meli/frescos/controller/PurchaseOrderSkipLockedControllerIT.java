@@ -0,0 +1,173 @@
+package com.meli.frescos.controller;
+
+import com.meli.frescos.model.*;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.BuyerRepository;
+import com.meli.frescos.repository.OrderProductsRepository;
+import com.meli.frescos.repository.ProductRepository;
+import com.meli.frescos.repository.PurchaseOrderRepository;
+import com.meli.frescos.repository.SectionRepository;
+import com.meli.frescos.repository.SellerRepository;
+import com.meli.frescos.repository.StockReservationRepository;
+import com.meli.frescos.repository.WarehouseRepository;
+import com.meli.frescos.service.SkipLockedStockAllocator;
+import com.meli.frescos.service.StockAllocator;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "frescos.stock.allocation=skip-locked")
+@Import(QueryCountingConfiguration.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PurchaseOrderSkipLockedControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StockAllocator stockAllocator;
+
+    @Autowired
+    private PurchaseOrderRepository purchaseOrderRepository;
+
+    @Autowired
+    private OrderProductsRepository orderProductsRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private BatchStockRepository batchStockRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private BuyerRepository buyerRepository;
+
+    @Autowired
+    private SectionRepository sectionRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    private final List<SectionModel> sections = new ArrayList<>();
+
+    private final List<WarehouseModel> warehouses = new ArrayList<>();
+
+    @AfterEach
+    void setup() {
+        this.stockReservationRepository.deleteAllInBatch();
+        this.orderProductsRepository.deleteAllInBatch();
+        this.purchaseOrderRepository.deleteAllInBatch();
+        this.batchStockRepository.deleteAllInBatch();
+        this.productRepository.deleteAllInBatch();
+        this.sellerRepository.deleteAllInBatch();
+        this.buyerRepository.deleteAllInBatch();
+        this.sectionRepository.deleteAll(sections);
+        this.warehouseRepository.deleteAll(warehouses);
+    }
+
+    @Test
+    @MaxQueries(3)
+    @DisplayName("Test PurchaseOrder close with skip-locked allocation debits the batches in FEFO order, discounting holds - PATCH Endpoint")
+    void updateStatus_debitsBatchesDiscountingHolds_whenStockAvailable() throws Exception {
+        assertInstanceOf(SkipLockedStockAllocator.class, stockAllocator);
+        List<BatchStockModel> batchStockList = createBatchStocks(LocalDate.now().plusWeeks(4), LocalDate.now().plusWeeks(8));
+        ProductModel product = batchStockList.get(0).getProduct();
+        createHold(batchStockList.get(0), createPurchaseOrder(product, 6), 6);
+        PurchaseOrderModel purchaseOrder = createPurchaseOrder(product, 7);
+
+        mockMvc.perform(patch("/purchase-order/{id}", purchaseOrder.getId()))
+                .andExpect(status().isAccepted());
+        awaitClose(purchaseOrder.getId());
+
+        mockMvc.perform(get("/purchase-order/{id}/status", purchaseOrder.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderStatus", CoreMatchers.is("CLOSED")));
+        assertEquals(6, batchStockRepository.findById(batchStockList.get(0).getId()).orElseThrow().getQuantity());
+        assertEquals(7, batchStockRepository.findById(batchStockList.get(1).getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @MaxQueries(3)
+    @DisplayName("Test PurchaseOrder close with skip-locked allocation reopens the order when the stock is held by others - PATCH Endpoint")
+    void updateStatus_reopensOrder_whenStockHeldByOthers() throws Exception {
+        List<BatchStockModel> batchStockList = createBatchStocks(LocalDate.now().plusWeeks(4));
+        ProductModel product = batchStockList.get(0).getProduct();
+        createHold(batchStockList.get(0), createPurchaseOrder(product, 8), 8);
+        PurchaseOrderModel purchaseOrder = createPurchaseOrder(product, 4);
+
+        mockMvc.perform(patch("/purchase-order/{id}", purchaseOrder.getId()))
+                .andExpect(status().isAccepted());
+        awaitClose(purchaseOrder.getId());
+
+        mockMvc.perform(get("/purchase-order/{id}/status", purchaseOrder.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderStatus", CoreMatchers.is("OPEN")))
+                .andExpect(jsonPath("$.closeFailure", CoreMatchers.containsString(product.getId().toString())));
+        assertEquals(10, batchStockRepository.findById(batchStockList.get(0).getId()).orElseThrow().getQuantity());
+    }
+
+    private void awaitClose(Long purchaseOrderId) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (purchaseOrderRepository.findById(purchaseOrderId).orElseThrow().getOrderStatus() != OrderStatusEnum.CLOSING) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private List<BatchStockModel> createBatchStocks(LocalDate... dueDates) {
+        WarehouseModel warehouse = warehouseRepository.save(WarehouseModel.builder()
+                .city("Tramandaí").district("Zona Nova").state("Rio Grande do Sul").postalCode("99999999").street("Avenida Emancipacao").build());
+        SectionModel section = sectionRepository.save(new SectionModel(null, "Frutas", CategoryEnum.FRESH, 100.0, 2.0, warehouse));
+        warehouses.add(warehouse);
+        sections.add(section);
+        SellerModel seller = sellerRepository.save(new SellerModel(null, "Vendedor 1", "12345678900", 4.2));
+        ProductModel product = productRepository.save(new ProductModel(null, "Melão", "Melão", BigDecimal.TEN, CategoryEnum.FRESH, 1.0, 1.0, LocalDate.now(), seller));
+
+        List<BatchStockModel> batchStockList = new ArrayList<>();
+        for (int i = 0; i < dueDates.length; i++) {
+            batchStockList.add(new BatchStockModel(null, "TST-" + i, 10, LocalDate.now(), LocalDateTime.now(), dueDates[i], product, section, 0L));
+        }
+        return batchStockRepository.saveAll(batchStockList);
+    }
+
+    private PurchaseOrderModel createPurchaseOrder(ProductModel product, int quantity) {
+        BuyerModel buyer = buyerRepository.save(new BuyerModel("Comprador", "1234567890" + buyerRepository.count()));
+        PurchaseOrderModel purchaseOrder = purchaseOrderRepository.save(PurchaseOrderModel.builder()
+                .date(LocalDate.now()).orderStatus(OrderStatusEnum.OPEN).buyer(buyer).build());
+        orderProductsRepository.save(new OrderProductsModel(product, quantity, purchaseOrder));
+        return purchaseOrder;
+    }
+
+    private void createHold(BatchStockModel batchStock, PurchaseOrderModel purchaseOrder, int quantity) {
+        stockReservationRepository.save(StockReservationModel.builder()
+                .batchStock(batchStock).purchaseOrder(purchaseOrder).quantity(quantity).expiresAt(LocalDateTime.now().plusMinutes(10)).build());
+    }
+}
@@ -0,0 +1,82 @@
+package com.meli.frescos.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts the SQL statements executed by each request in the request thread and in the async tasks it starts
+ * Statements executed outside a request, such as the test setup, are not counted
+ */
+final class QueryCounter {
+
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+
+    private static final List<RequestCount> COMPLETED = Collections.synchronizedList(new ArrayList<>());
+
+    private QueryCounter() {
+    }
+
+    static void startRequest() {
+        CURRENT.set(new int[1]);
+    }
+
+    static void endRequest(String request) {
+        int[] count = CURRENT.get();
+        CURRENT.remove();
+        if (count != null) {
+            COMPLETED.add(new RequestCount(request, count));
+        }
+    }
+
+    static void increment() {
+        int[] count = CURRENT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    /**
+     * Return the task counting its statements in the request that submits it, such as a streamed response body
+     *
+     * @param task the task
+     * @return the counting task
+     */
+    static Runnable propagate(Runnable task) {
+        int[] count = CURRENT.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            CURRENT.set(count);
+            try {
+                task.run();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    static void reset() {
+        COMPLETED.clear();
+    }
+
+    /**
+     * @return the requests completed since the last reset, in completion order
+     */
+    static List<RequestCount> completed() {
+        synchronized (COMPLETED) {
+            return List.copyOf(COMPLETED);
+        }
+    }
+
+    /**
+     * Statements of a request, still growing while its async tasks run
+     */
+    record RequestCount(String request, int[] count) {
+
+        int statements() {
+            return count[0];
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.meli.frescos.controller;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Wraps the DataSource to count the statements of each request, checked by MaxQueries
+ * Every prepared, callable or plain statement created is counted, whether issued by Hibernate or JdbcTemplate
+ * Statements of async MVC tasks count in the request that started them, SSE events sent from other threads are not counted
+ */
+@TestConfiguration
+public class QueryCountingConfiguration {
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall", "createStatement");
+
+    @Bean
+    static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? new QueryCountingDataSource(dataSource) : bean;
+            }
+        };
+    }
+
+    /**
+     * Applied by Spring Boot to the task executor of async MVC requests, so streamed response bodies count in their request
+     */
+    @Bean
+    TaskDecorator queryCountingTaskDecorator() {
+        return QueryCounter::propagate;
+    }
+
+    @Bean
+    OncePerRequestFilter queryCountingFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+                QueryCounter.startRequest();
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    QueryCounter.endRequest(request.getMethod() + " " + request.getRequestURI());
+                }
+            }
+        };
+    }
+
+    private static final class QueryCountingDataSource extends DelegatingDataSource {
+
+        private QueryCountingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private static Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                if (STATEMENT_METHODS.contains(method.getName())) {
+                    QueryCounter.increment();
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            });
+        }
+    }
+}
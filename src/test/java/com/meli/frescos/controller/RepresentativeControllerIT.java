@@ -8,12 +8,13 @@ import com.meli.frescos.model.WarehouseModel;
 import com.meli.frescos.repository.RepresentativeRepository;
 import com.meli.frescos.service.IRepresentativeService;
 import com.meli.frescos.service.IWarehouseService;
-import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -24,6 +25,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@Import(QueryCountingConfiguration.class)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 public class RepresentativeControllerIT {
@@ -47,12 +49,13 @@ public class RepresentativeControllerIT {
         return warehouseService.save(newWarehouse);
     }
 
-    @BeforeEach
+    @AfterEach
     void setup() {
         this.representativeRepository.deleteAll();
     }
 
     @Test
+    @MaxQueries(3)
     @DisplayName("Test Representative Successfull Creation - POST Endpoint")
     void create_returnsCreatedStatus_whenSuccess() throws Exception {
         WarehouseModel warehouse = newWarehouseRecord();
@@ -72,6 +75,7 @@ public class RepresentativeControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test invalid Representative creation - POST Endpoint")
     void create_returnsThrowWarehouseNotFoundException_whenInexistenceWareehouse() throws Exception {
         String name = "Representante 1";
@@ -94,6 +98,7 @@ public class RepresentativeControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Get Representative by ID - GET Endpoint")
     void getById_returnsRepresentative_whenIdIsAvailable() throws Exception {
         WarehouseModel warehouse = newWarehouseRecord();
@@ -114,6 +119,7 @@ public class RepresentativeControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Get all Representative - GET Endpoint")
     void getAll_returnListOfRepresentative_whenSuccess() throws Exception {
         WarehouseModel warehouseUm = newWarehouseRecord();
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -26,6 +27,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@Import(QueryCountingConfiguration.class)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 public class SectionControllerIT {
@@ -59,6 +61,7 @@ public class SectionControllerIT {
     }
 
     @Test
+    @MaxQueries(2)
     @DisplayName("Test Section Successfull Creation - POST Endpoint")
     void create_returnsCreatedStatus_whenSuccess() throws Exception {
         WarehouseModel warehouse = newWarehouseRecord();
@@ -84,6 +87,7 @@ public class SectionControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Get Section by ID - GET Endpoint")
     void getById_returnsSection_whenIdIsAvailable() throws Exception {
         WarehouseModel warehouse = newWarehouseRecord();
@@ -110,6 +114,7 @@ public class SectionControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Get all Section - GET Endpoint")
     void getAll_returnListOfSection_whenSuccess() throws Exception {
         WarehouseModel warehouse = newWarehouseRecord();
@@ -141,6 +146,7 @@ public class SectionControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test invalid Section by ID - GET Endpoint")
     void getById_throwSectionByIdNotFoundException_whenInexistentSection() throws Exception {
         ResultActions response = mockMvc.perform(
@@ -8,24 +8,30 @@ import com.meli.frescos.model.SellerModel;
 import com.meli.frescos.repository.SellerRepository;
 import com.meli.frescos.service.ISellerService;
 import org.hamcrest.CoreMatchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import javax.persistence.EntityManagerFactory;
+
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
+@Import(QueryCountingConfiguration.class)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 class SellerControllerIT {
@@ -41,12 +47,16 @@ class SellerControllerIT {
     @Autowired
     private ISellerService sellerService;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     void setup() {
         this.sellerRepository.deleteAllInBatch();
     }
 
     @Test
+    @MaxQueries(2)
     @DisplayName("Test Seller Successfull Creation - POST Endpoint")
     void create_returnsCreatedStatus_whenSuccess() throws Exception {
         String name = "Seller";
@@ -70,6 +80,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Seller Creation with CPF Duplicate  - POST Endpoint")
     void create_throws_whenCPFIsDuplicated() throws Exception {
         String name = "Seller";
@@ -97,6 +108,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(0)
     @DisplayName("Test Seller Creation with Empty CPF - POST Endpoint")
     void create_throwsMethodArgumentNotValidException_whenCPFIsEmpty() throws Exception {
         String name = "Seller";
@@ -123,6 +135,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(0)
     @DisplayName("Test Seller Creation with Invalid CPF - POST Endpoint")
     void create_throwsMethodArgumentNotValidException_whenCPFIsInvalid() throws Exception {
         String name = "Seller";
@@ -148,6 +161,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(0)
     @DisplayName("Test Seller Creation with Empty Name - POST Endpoint")
     void create_throws_whenNameIsEmpty() throws Exception {
         String name = "";
@@ -173,6 +187,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(0)
     @DisplayName("Test Seller Creation with wrong rating - POST Endpoint")
     void create_throwsMethodArgumentNotValidException_whenRatingIsAboveMax() throws Exception {
         String name = "Seller";
@@ -199,6 +214,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(0)
     @DisplayName("Test Seller Creation with wrong rating  - POST Endpoint")
     void create_throwsMethodArgumentNotValidException_whenRatingIsBelowMin() throws Exception {
         String name = "Seller";
@@ -225,6 +241,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Get all Seller - GET Endpoint")
     void getAll_returnListOfSeller_whenSuccess() throws Exception {
         String name = "Seller";
@@ -250,6 +267,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Get Seller by ID - GET Endpoint")
     void getByID_returnSeller_whenSuccess() throws Exception {
         String name = "Seller";
@@ -279,6 +297,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Get Seller by ID throws Exception - GET Endpoint")
     void getById_throwsSellerByIdNotFoundException_whenSuccess() throws SellerByIdNotFoundException, Exception {
         ResultActions response = mockMvc.perform(
@@ -293,6 +312,57 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
+    @DisplayName("Test Get Seller by ID is served from the second-level cache - GET Endpoint")
+    void getByID_hitSecondLevelCache_whenReadTwice() throws Exception {
+        SellerModel newSeller = sellerService.save(SellerRequest.builder()
+                .cpf("41937616576")
+                .name("Seller")
+                .rating(5.0)
+                .build().toModel());
+        CacheRegionStatistics regionStatistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getDomainDataRegionStatistics("seller");
+        long hitCount = regionStatistics.getHitCount();
+
+        mockMvc.perform(get("/seller/{id}", newSeller.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/seller/{id}", newSeller.getId())).andExpect(status().isOk());
+
+        assertTrue(regionStatistics.getHitCount() > hitCount);
+    }
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test Get Seller by ID returns the updated Seller after a cached read - GET Endpoint")
+    void getByID_returnUpdatedSeller_whenUpdatedAfterCachedRead() throws Exception {
+        SellerModel newSeller = sellerService.save(SellerRequest.builder()
+                .cpf("41937616576")
+                .name("Seller")
+                .rating(5.0)
+                .build().toModel());
+        mockMvc.perform(get("/seller/{id}", newSeller.getId())).andExpect(status().isOk());
+
+        SellerModel newSellerRequest = SellerRequest.builder()
+                .cpf("95925955005")
+                .name("NewSeller")
+                .rating(4.0)
+                .build().toModel();
+        mockMvc.perform(put("/seller/{id}", newSeller.getId())
+                        .content(objectMapper.writeValueAsString(newSellerRequest))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/seller/{id}", newSeller.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", CoreMatchers.is("NewSeller")));
+
+        mockMvc.perform(delete("/seller/{id}", newSeller.getId())).andExpect(status().isOk());
+
+        mockMvc.perform(get("/seller/{id}", newSeller.getId()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @MaxQueries(2)
     @DisplayName("Test Update Seller info - PUT Endpoint")
     void update_returnsUpdatedSeller_whenSuccess() throws Exception {
         String name = "Seller";
@@ -333,6 +403,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(0)
     @DisplayName("Test Update Seller Exception - PUT Endpoint")
     void update_throws_whenNoData() throws Exception {
         String name = "Seller";
@@ -368,6 +439,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(2)
     @DisplayName("Test Delete Seller by ID - GET Endpoint")
     void deleteByIdetByID_returnNoContent_whenSuccess() throws Exception {
         String name = "Seller";
@@ -394,6 +466,7 @@ class SellerControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Delete Seller by ID with No Seller- GET Endpoint")
     void deleteByIdetByID_returnNoContent_whenNoSellerExists() throws Exception {
 
@@ -409,4 +482,37 @@ class SellerControllerIT {
                         result.getResolvedException() instanceof SellerByIdNotFoundException))
                 .andExpect(jsonPath("$.message", CoreMatchers.containsString("Vendedor com id 1 não encontrado")));
     }
-}
\ No newline at end of file
+
+    @Test
+    @MaxQueries(1)
+    @DisplayName("Test Seller Page follows the cursor until the last page - GET Endpoint")
+    void getPage_returnsPagesOrderedById_whenFollowingNextCursor() throws Exception {
+        SellerModel first = sellerRepository.save(new SellerModel("Vendedor 1", "41937616576", 4.0));
+        SellerModel second = sellerRepository.save(new SellerModel("Vendedor 2", "41937616577", 4.5));
+        SellerModel third = sellerRepository.save(new SellerModel("Vendedor 3", "41937616578", 5.0));
+
+        String body = mockMvc.perform(get("/seller/page").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", CoreMatchers.is(first.getId().intValue())))
+                .andExpect(jsonPath("$.items[1].id", CoreMatchers.is(second.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor").isString())
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(body).get("nextCursor").asText();
+
+        mockMvc.perform(get("/seller/page").param("after", nextCursor).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", CoreMatchers.is(third.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @MaxQueries(0)
+    @DisplayName("Test Seller Page with a cursor not returned by the API - GET Endpoint")
+    void getPage_returnsBadRequest_whenCursorInvalid() throws Exception {
+        mockMvc.perform(get("/seller/page").param("after", "12"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title", CoreMatchers.is("Cursor inválido")));
+    }
+}
@@ -9,20 +9,26 @@ import com.meli.frescos.model.CategoryEnum;
 import com.meli.frescos.model.WarehouseModel;
 import com.meli.frescos.service.ISectionService;
 import com.meli.frescos.service.IWarehouseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@Import(QueryCountingConfiguration.class)
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 class WarehouseControllerIT {
@@ -37,8 +43,12 @@ class WarehouseControllerIT {
     @Autowired
     private ISectionService sectionService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Warehouse Successfull Creation - POST Endpoint")
     void create_returnsCreatedStatus_whenSuccess() throws Exception {
         String city = "Tramandaí";
@@ -65,6 +75,7 @@ class WarehouseControllerIT {
     }
 
     @Test
+    @MaxQueries(0)
     @DisplayName("Test Warehouse creation with wrong parameters - POST Endpoint")
     void create_throwException_whenPassWrongParameters() throws Exception {
         String city = "";
@@ -90,6 +101,7 @@ class WarehouseControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Get Warehouse by ID successfully - GET Endpoint")
     void getById_returnsWarehouse_whenIdIsAvailable() throws Exception {
         String city = "Tramandaí";
@@ -116,6 +128,7 @@ class WarehouseControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Warehouse ID not found - GET Endpoint")
     void getById_throwsWarehouseNotFound_whenIdDoesNotExists() throws Exception {
         ResultActions response = mockMvc.perform(
@@ -127,6 +140,7 @@ class WarehouseControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test return list of Warehouse successfully - GET Endpoint")
     void getAll_returnListOfWarehouse_whenSuccess() throws Exception {
         String city = "Tramandaí";
@@ -154,6 +168,28 @@ class WarehouseControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
+    @DisplayName("Test return statement count and service metrics of Warehouse list - GET Endpoint")
+    void getAll_returnSqlStatementHeader_whenSuccess() throws Exception {
+        double calls = serviceCalls("getAll");
+
+        ResultActions response = mockMvc.perform(
+                get("/warehouse")
+                        .contentType(MediaType.APPLICATION_JSON)
+        );
+
+        response.andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementCountFilter.HEADER_NAME, "1"));
+        assertThat(serviceCalls("getAll")).isEqualTo(calls + 1);
+    }
+
+    double serviceCalls(String method) {
+        Timer timer = meterRegistry.find("frescos.service").tag("class", "WarehouseService").tag("method", method).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    @MaxQueries(3)
     @DisplayName("Test Delete Warehouse successfully - DELETE Endpoint")
     void delete_returnOkStatus_whenSuccess() throws Exception {
         String city = "Tramandaí";
@@ -181,6 +217,7 @@ class WarehouseControllerIT {
     }
 
     @Test
+    @MaxQueries(1)
     @DisplayName("Test Delete Warehouse associated with Section - DELETE Endpoint")
     void delete_throwUsedPrimaryKeyConstraintException_whenWarehouseIdIsUsedBySection() throws Exception {
         CategoryEnum sectionCategory = CategoryEnum.FRESH;
@@ -0,0 +1,109 @@
+package com.meli.frescos.repository;
+
+import com.meli.frescos.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BatchStockRepositoryIT {
+
+    @Autowired
+    private BatchStockRepository batchStockRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private SectionRepository sectionRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setup() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void cleanup() {
+        batchStockRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        sellerRepository.deleteAllInBatch();
+        sectionRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Debit every BatchStock and bump its version when all have the quantity")
+    void debitQuantities_debitEveryBatchStock_whenAllHaveTheQuantity() {
+        List<BatchStockModel> batchStockList = createBatchStocks(5, 3);
+
+        transactionTemplate.executeWithoutResult(status -> batchStockRepository.debitQuantities(List.of(
+                debit(batchStockList.get(0), 2),
+                debit(batchStockList.get(1), 3))));
+
+        assertQuantityAndVersion(batchStockList.get(0), 3, 1L);
+        assertQuantityAndVersion(batchStockList.get(1), 0, 1L);
+    }
+
+    @Test
+    @DisplayName("Throw OptimisticLockingFailureException and change no quantity when a BatchStock has less than its debit")
+    void debitQuantities_throwOptimisticLockingFailureException_whenBatchStockHasLessThanDebit() {
+        List<BatchStockModel> batchStockList = createBatchStocks(5, 3);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> transactionTemplate.executeWithoutResult(status -> batchStockRepository.debitQuantities(List.of(
+                        debit(batchStockList.get(0), 2),
+                        debit(batchStockList.get(1), 4)))));
+
+        assertQuantityAndVersion(batchStockList.get(0), 5, 0L);
+        assertQuantityAndVersion(batchStockList.get(1), 3, 0L);
+    }
+
+    private void assertQuantityAndVersion(BatchStockModel batchStock, int quantity, Long version) {
+        BatchStockModel savedBatchStock = batchStockRepository.findById(batchStock.getId()).orElseThrow();
+        assertEquals(quantity, savedBatchStock.getQuantity());
+        assertEquals(version, savedBatchStock.getVersion());
+    }
+
+    private BatchStockDebit debit(BatchStockModel batchStock, int quantity) {
+        return new BatchStockDebit(batchStock.getId(), batchStock.getSection().getId(), batchStock.getProduct().getId(), quantity);
+    }
+
+    private List<BatchStockModel> createBatchStocks(Integer... quantities) {
+        WarehouseModel warehouse = warehouseRepository.save(WarehouseModel.builder()
+                .city("Tramandaí").district("Zona Nova").state("Rio Grande do Sul").postalCode("99999999").street("Avenida Emancipacao").build());
+        SectionModel section = sectionRepository.save(new SectionModel(null, "Frutas", CategoryEnum.FRESH, 100.0, 2.0, warehouse));
+        SellerModel seller = sellerRepository.save(new SellerModel(null, "Vendedor 1", "12345678900", 4.2));
+        ProductModel product = productRepository.save(new ProductModel(null, "Melão", "Melão", BigDecimal.TEN, CategoryEnum.FRESH, 1.0, 1.0, LocalDate.now(), seller));
+
+        return batchStockRepository.saveAll(List.of(quantities).stream()
+                .map(quantity -> new BatchStockModel(null, "TST-" + quantity, quantity, LocalDate.now(), LocalDateTime.now(), LocalDate.now().plusWeeks(10), product, section, 0L))
+                .toList());
+    }
+}
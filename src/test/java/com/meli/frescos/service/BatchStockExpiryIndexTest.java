@@ -0,0 +1,132 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.model.CategoryEnum;
+import com.meli.frescos.model.SectionModel;
+import com.meli.frescos.repository.BatchStockDueDate;
+import com.meli.frescos.repository.BatchStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class BatchStockExpiryIndexTest {
+
+    @InjectMocks
+    BatchStockExpiryIndex batchStockExpiryIndex;
+
+    @Mock
+    BatchStockRepository batchStockRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    private final SectionModel freshSection = SectionModel.builder().id(1L).category(CategoryEnum.FRESH).build();
+
+    private final SectionModel otherFreshSection = SectionModel.builder().id(2L).category(CategoryEnum.FRESH).build();
+
+    private final SectionModel frozenSection = SectionModel.builder().id(3L).category(CategoryEnum.FROZEN).build();
+
+    @BeforeEach
+    void setup() {
+        batchStockExpiryIndex.put(createBatchStock(1L, freshSection, today.plusDays(5)));
+        batchStockExpiryIndex.put(createBatchStock(2L, otherFreshSection, today.plusDays(1)));
+        batchStockExpiryIndex.put(createBatchStock(3L, freshSection, today.plusDays(1)));
+        batchStockExpiryIndex.put(createBatchStock(4L, frozenSection, today.plusDays(2)));
+        batchStockExpiryIndex.put(createBatchStock(5L, freshSection, today.plusDays(30)));
+    }
+
+    @Test
+    @DisplayName("Return the section ids ordered by due date within the range")
+    void getBySection_returnIdsOrderedByDueDate_whenInRange() {
+        assertThat(batchStockExpiryIndex.getBySection(1L, today, today.plusDays(10), 0, 10)).containsExactly(3L, 1L);
+        assertThat(batchStockExpiryIndex.getBySection(9L, today, today.plusDays(10), 0, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Return a page of the category ids in both orders")
+    void getByCategory_returnPage_whenOffsetAndLimit() {
+        assertThat(batchStockExpiryIndex.getByCategory(CategoryEnum.FRESH, today, today.plusDays(10), true, 0, 10)).containsExactly(2L, 3L, 1L);
+        assertThat(batchStockExpiryIndex.getByCategory(CategoryEnum.FRESH, today, today.plusDays(10), true, 1, 1)).containsExactly(3L);
+        assertThat(batchStockExpiryIndex.getByCategory(CategoryEnum.FRESH, today, today.plusDays(10), false, 0, 2)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Return the ids of every category within the range")
+    void getBetween_returnIdsOfEveryCategory_whenInRange() {
+        assertThat(batchStockExpiryIndex.getBetween(today.plusDays(2), today.plusDays(5))).containsExactlyInAnyOrder(1L, 4L);
+        assertThat(batchStockExpiryIndex.getBetween(today.plusDays(5), today.plusDays(2))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Move the batch stock to the new bucket when its due date changes")
+    void put_moveBatchStock_whenDueDateChanged() {
+        batchStockExpiryIndex.put(createBatchStock(1L, freshSection, today.plusDays(20)));
+
+        assertThat(batchStockExpiryIndex.getBySection(1L, today, today.plusDays(10), 0, 10)).containsExactly(3L);
+        assertThat(batchStockExpiryIndex.getByCategory(CategoryEnum.FRESH, today, today.plusDays(25), true, 0, 10)).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    @DisplayName("Replace the index content with the database content when seeded")
+    void seed_replaceIndex_whenSuccess() {
+        BDDMockito.when(batchStockRepository.findDueDates(today))
+                .thenReturn(List.of(createDueDate(7L, frozenSection, today.plusDays(3))));
+
+        batchStockExpiryIndex.seed();
+
+        assertThat(batchStockExpiryIndex.getByCategory(CategoryEnum.FRESH, today, today.plusDays(30), true, 0, 10)).isEmpty();
+        assertThat(batchStockExpiryIndex.getBySection(3L, today, today.plusDays(30), 0, 10)).containsExactly(7L);
+    }
+
+    @Test
+    @DisplayName("Keep the batch stocks put while the database is read when seeded")
+    void seed_replayPuts_whenPutDuringRebuild() {
+        BDDMockito.when(batchStockRepository.findDueDates(today))
+                .thenAnswer(invocation -> {
+                    batchStockExpiryIndex.put(createBatchStock(8L, frozenSection, today.plusDays(4)));
+                    return List.of(createDueDate(7L, frozenSection, today.plusDays(3)));
+                });
+
+        batchStockExpiryIndex.seed();
+
+        assertThat(batchStockExpiryIndex.getBySection(3L, today, today.plusDays(30), 0, 10)).containsExactly(7L, 8L);
+    }
+
+    BatchStockModel createBatchStock(Long id, SectionModel section, LocalDate dueDate) {
+        return BatchStockModel.builder().id(id).section(section).dueDate(dueDate).build();
+    }
+
+    BatchStockDueDate createDueDate(Long batchStockId, SectionModel section, LocalDate dueDate) {
+        return new BatchStockDueDate() {
+            @Override
+            public Long getBatchStockId() {
+                return batchStockId;
+            }
+
+            @Override
+            public Long getSectionId() {
+                return section.getId();
+            }
+
+            @Override
+            public CategoryEnum getCategory() {
+                return section.getCategory();
+            }
+
+            @Override
+            public LocalDate getDueDate() {
+                return dueDate;
+            }
+        };
+    }
+}
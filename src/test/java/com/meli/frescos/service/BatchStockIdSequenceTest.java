@@ -0,0 +1,101 @@
+package com.meli.frescos.service;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+@ExtendWith(MockitoExtension.class)
+class BatchStockIdSequenceTest {
+
+    BatchStockIdSequence batchStockIdSequence;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    EntityManagerFactory entityManagerFactory;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    SessionFactoryImplementor sessionFactory;
+
+    @Mock
+    Dialect dialect;
+
+    @BeforeEach
+    void setUp() {
+        BDDMockito.when(entityManagerFactory.unwrap(SessionFactoryImplementor.class))
+                .thenReturn(sessionFactory);
+        BDDMockito.when(sessionFactory.getJdbcServices().getDialect())
+                .thenReturn(dialect);
+        batchStockIdSequence = new BatchStockIdSequence(jdbcTemplate, entityManagerFactory);
+    }
+
+    @Test
+    @DisplayName("Leave the sequence alone when batch_stock is empty")
+    void seed_doNothing_whenNoBatchStock() {
+        BDDMockito.when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM batch_stock", Long.class))
+                .thenReturn(null);
+
+        batchStockIdSequence.seed();
+
+        BDDMockito.verifyNoInteractions(dialect);
+        BDDMockito.verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Restart the sequence above the existing ids when its next pool overlaps them")
+    void seed_restartSequence_whenBehindExistingIds() {
+        BDDMockito.when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM batch_stock", Long.class))
+                .thenReturn(120L);
+        BDDMockito.when(dialect.supportsSequences())
+                .thenReturn(true);
+        BDDMockito.when(dialect.getSequenceNextValString("batch_stock_seq"))
+                .thenReturn("call next value for batch_stock_seq");
+        BDDMockito.when(jdbcTemplate.queryForObject("call next value for batch_stock_seq", Long.class))
+                .thenReturn(51L);
+
+        batchStockIdSequence.seed();
+
+        BDDMockito.verify(jdbcTemplate).execute("ALTER SEQUENCE batch_stock_seq RESTART WITH 170");
+    }
+
+    @Test
+    @DisplayName("Keep the sequence when its next pool is above the existing ids")
+    void seed_keepSequence_whenAheadOfExistingIds() {
+        BDDMockito.when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM batch_stock", Long.class))
+                .thenReturn(120L);
+        BDDMockito.when(dialect.supportsSequences())
+                .thenReturn(true);
+        BDDMockito.when(dialect.getSequenceNextValString("batch_stock_seq"))
+                .thenReturn("call next value for batch_stock_seq");
+        BDDMockito.when(jdbcTemplate.queryForObject("call next value for batch_stock_seq", Long.class))
+                .thenReturn(200L);
+
+        batchStockIdSequence.seed();
+
+        BDDMockito.verify(jdbcTemplate, BDDMockito.never()).execute(BDDMockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Move the emulated sequence table forward when the database has no sequences")
+    void seed_updateSequenceTable_whenSequencesNotSupported() {
+        BDDMockito.when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM batch_stock", Long.class))
+                .thenReturn(120L);
+        BDDMockito.when(dialect.supportsSequences())
+                .thenReturn(false);
+
+        batchStockIdSequence.seed();
+
+        BDDMockito.verify(jdbcTemplate).update("UPDATE batch_stock_seq SET next_val = ? WHERE next_val < ?", 170L, 170L);
+    }
+}
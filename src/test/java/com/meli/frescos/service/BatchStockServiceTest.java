@@ -1,26 +1,46 @@
 package com.meli.frescos.service;
 
+import com.meli.frescos.controller.dto.OrderProductsRequest;
 import com.meli.frescos.exception.BatchStockByIdNotFoundException;
 import com.meli.frescos.exception.BatchStockFilterOrderInvalidException;
+import com.meli.frescos.exception.BatchStockFilterScopeInvalidException;
+import com.meli.frescos.exception.NotEnoughSpaceInSectionException;
+import com.meli.frescos.exception.NotEnoughStockException;
 import com.meli.frescos.exception.NullDueDateException;
+import com.meli.frescos.exception.ProductNotPermittedInSectionException;
 import com.meli.frescos.model.*;
+import com.meli.frescos.repository.BatchStockDebit;
 import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.ProductAvailability;
+import com.meli.frescos.repository.ProductStockSummary;
+import com.meli.frescos.repository.SectionQuantity;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -42,6 +62,33 @@ public class BatchStockServiceTest {
     @Mock
     IOrderProductService orderProductService;
 
+    @Mock
+    SectionOccupancyLedger sectionOccupancyLedger;
+
+    @Mock
+    StockAllocator stockAllocator;
+
+    @Mock
+    IStockReservationService stockReservationService;
+
+    @Mock
+    EntityManager entityManager;
+
+    @Mock
+    BatchStockExpiryIndex batchStockExpiryIndex;
+
+    @Mock
+    IOutboxService outboxService;
+
+    @Mock
+    NearExpiryFeed nearExpiryFeed;
+
+    @Mock
+    IProductStockSummaryService productStockSummaryService;
+
+    @Mock
+    InventoryLockManager inventoryLockManager;
+
     private SellerModel seller;
     private ProductModel product;
     private WarehouseModel warehouse;
@@ -59,7 +106,7 @@ public class BatchStockServiceTest {
         product = new ProductModel(1L, "Melão", "Melão", new BigDecimal(4.5), CategoryEnum.FRESH, 10.0, 10.0, LocalDate.now(), seller);
         warehouse = new WarehouseModel(1L, "São Paulo", "SP", "São Paulo", "Rua A", "11111-111");
         section = new SectionModel(1L, "Sessão Frutas", CategoryEnum.FRESH, 200.0, 25.0, warehouse);
-        batchStock = new BatchStockModel(1L, "ABC123", 50, LocalDate.of(2022,10,10), LocalDateTime.of(2022,10,10,15,00), LocalDate.of(2023,01,15), product, section);
+        batchStock = new BatchStockModel(1L, "ABC123", 50, LocalDate.of(2022,10,10), LocalDateTime.of(2022,10,10,15,00), LocalDate.of(2023,01,15), product, section, 0L);
         batchStockList.add(batchStock);
     }
 
@@ -108,6 +155,23 @@ public class BatchStockServiceTest {
         assertThat(batchStockTest.getId()).isEqualTo(batchStock.getId());
     }
 
+    @Test
+    @DisplayName("Record a created OutboxEvent when a new BatchStock is saved")
+    void saveBatchStock_recordOutboxEvent_whenNew() {
+        BatchStockModel newBatchStock = new BatchStockModel(null, "ABC123", 50, LocalDate.now(), LocalDateTime.now(), LocalDate.now().plusWeeks(5), product, section, 0L);
+        OutboxEventModel event = OutboxEventModel.builder().eventType(OutboxEventTypeEnum.BATCH_STOCK_CREATED).aggregateId(1L).build();
+        BDDMockito.when(sectionService.getById(section.getId()))
+                .thenReturn(section);
+        BDDMockito.when(batchStockRepository.save(newBatchStock))
+                .thenReturn(batchStock);
+        BDDMockito.when(outboxService.newEvent(ArgumentMatchers.eq(OutboxEventTypeEnum.BATCH_STOCK_CREATED), ArgumentMatchers.eq(1L), ArgumentMatchers.any(BatchStockChange.class)))
+                .thenReturn(event);
+
+        batchStockService.save(newBatchStock);
+
+        BDDMockito.verify(outboxService).record(List.of(event));
+    }
+
     @Test
     @DisplayName("Return a list batch stock by product ID")
     void getByProductId_returnListBatchStock_whenSucess() {
@@ -145,103 +209,232 @@ public class BatchStockServiceTest {
 
         BDDMockito.when(sectionService.getById(ArgumentMatchers.anyLong()))
                 .thenReturn(section);
-        BDDMockito.when(batchStockRepository.findBySectionAndDueDateBetween(ArgumentMatchers.any(SectionModel.class), ArgumentMatchers.any(), ArgumentMatchers.any()))
+        BDDMockito.when(batchStockExpiryIndex.getBySection(1L, LocalDate.now(), dueDate, 0, 10))
+                .thenReturn(List.of(batchStock.getId()));
+        BDDMockito.when(batchStockRepository.findAllFetchedById(List.of(batchStock.getId())))
                 .thenReturn(batchStockList);
 
-        List<BatchStockModel> batchStockTest = batchStockService.getBySectionIdAndDueDate(1L, plusDays);
+        List<BatchStockModel> batchStockTest = batchStockService.getBySectionIdAndDueDate(1L, plusDays, 0, 10);
 
         assertThat(batchStockTest).isNotNull();
         assertThat(batchStockTest).isEqualTo(batchStockList);
     }
 
+    @Test
+    @DisplayName("Open the near-expiry feed of a warehouse")
+    void subscribeNearExpiry_returnEmitter_whenWarehouseInformed() {
+        SseEmitter emitter = new SseEmitter();
+        BDDMockito.when(nearExpiryFeed.subscribe(1L, null, 10)).thenReturn(emitter);
+
+        assertThat(batchStockService.subscribeNearExpiry(1L, null, 10)).isEqualTo(emitter);
+    }
+
+    @Test
+    @DisplayName("Throw BatchStockFilterScopeInvalidException when both warehouse and section are informed")
+    void subscribeNearExpiry_throwBatchStockFilterScopeInvalidException_whenBothInformed() {
+        assertThrows(BatchStockFilterScopeInvalidException.class, () -> batchStockService.subscribeNearExpiry(1L, 1L, 10));
+        assertThrows(BatchStockFilterScopeInvalidException.class, () -> batchStockService.subscribeNearExpiry(null, null, 10));
+
+        BDDMockito.verifyNoInteractions(nearExpiryFeed);
+    }
+
     @Test
     @DisplayName("Return a list batch stock empty by section ID and due date expired")
     void getBySectionIdAndDueDate_returnListEmpty_whenDueDateIsExpired() {
         BDDMockito.when(sectionService.getById(ArgumentMatchers.anyLong()))
                 .thenReturn(section);
-        BDDMockito.when(batchStockRepository.findBySectionAndDueDateBetween(ArgumentMatchers.any(SectionModel.class), ArgumentMatchers.any(), ArgumentMatchers.any()))
+        BDDMockito.when(batchStockExpiryIndex.getBySection(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt()))
                 .thenReturn(new ArrayList<>());
 
-        List<BatchStockModel> batchStockTest = batchStockService.getBySectionIdAndDueDate(1L, 15);
+        List<BatchStockModel> batchStockTest = batchStockService.getBySectionIdAndDueDate(1L, 15, 0, 10);
 
         assertThat(batchStockTest).isEmpty();
+        BDDMockito.verify(batchStockRepository, BDDMockito.never()).findAllFetchedById(ArgumentMatchers.any());
     }
 
     @Test
-    @DisplayName("Return a list batch stock by Category and due date")
+    @DisplayName("Return a list batch stock by Category and due date in the index order")
     void getByCategoryAndDueDate_returnListBatchStock_whenCategoryExistsAndDueDateNotExpired() {
-        List<SectionModel> sectionList = new ArrayList<>();
-        sectionList.add(section);
-        int plusDays = 10;
-        LocalDate dueDate = LocalDate.now().plusDays(plusDays);
-        batchStockList.get(0).setDueDate(dueDate);
-
-        BDDMockito.when(sectionService.getByCategory(ArgumentMatchers.any()))
-                .thenReturn(sectionList);
+        BatchStockModel batchStock2 = new BatchStockModel(2L, "ABC123", 100, LocalDate.now(), LocalDateTime.now(), LocalDate.now().plusDays(5), product, section, 0L);
+        batchStockList.get(0).setDueDate(LocalDate.now().plusDays(2));
+        batchStockList.add(batchStock2);
 
-        BDDMockito.when(batchStockRepository.findBySectionAndDueDateBetween(ArgumentMatchers.any(SectionModel.class), ArgumentMatchers.any(), ArgumentMatchers.any()))
+        BDDMockito.when(batchStockExpiryIndex.getByCategory(CategoryEnum.FRESH, LocalDate.now(), LocalDate.now().plusDays(5), false, 0, 10))
+                .thenReturn(List.of(batchStock2.getId(), batchStock.getId()));
+        BDDMockito.when(batchStockRepository.findAllFetchedById(ArgumentMatchers.anyCollection()))
                 .thenReturn(batchStockList);
 
-        List<BatchStockModel> batchStockTest = batchStockService.getByCategoryAndDueDate(CategoryEnum.FRESH, 5);
+        List<BatchStockModel> batchStockTest = batchStockService.getByCategoryAndDueDate(CategoryEnum.FRESH, 5, false, 0, 10);
 
-        assertThat(batchStockTest).isNotNull();
-        assertThat(batchStockTest).isEqualTo(batchStockList);
+        assertThat(batchStockTest).containsExactly(batchStock2, batchStock);
     }
 
     @Test
-    @DisplayName("Return a list batch stock empty when Category not exists or due date expired")
-    void getByCategoryAndDueDate_returnListBatchStock_whenCategoryNotExistsOrDueDateExpired() {
-        List<SectionModel> sectionList = new ArrayList<>();
-        sectionList.add(section);
-
-        BDDMockito.when(sectionService.getByCategory(ArgumentMatchers.any()))
-                .thenReturn(sectionList);
-
-        BDDMockito.when(batchStockRepository.findBySectionAndDueDateBetween(ArgumentMatchers.any(SectionModel.class), ArgumentMatchers.any(), ArgumentMatchers.any()))
-                .thenReturn(new ArrayList<>());
+    @DisplayName("Skip the indexed batch stocks no longer in the database")
+    void getByCategoryAndDueDate_skipMissingBatchStock_whenIndexIsStale() {
+        BDDMockito.when(batchStockExpiryIndex.getByCategory(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.anyBoolean(), ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt()))
+                .thenReturn(List.of(99L, batchStock.getId()));
+        BDDMockito.when(batchStockRepository.findAllFetchedById(ArgumentMatchers.anyCollection()))
+                .thenReturn(batchStockList);
 
-        List<BatchStockModel> batchStockTest = batchStockService.getByCategoryAndDueDate(CategoryEnum.FRESH, 10);
+        List<BatchStockModel> batchStockTest = batchStockService.getByCategoryAndDueDate(CategoryEnum.FRESH, 10, true, 0, 10);
 
-        assertThat(batchStockTest).isEmpty();
+        assertThat(batchStockTest).containsExactly(batchStock);
     }
 
     @Test
-    @DisplayName("Return the sum quantity of products by product ID")
+    @DisplayName("Return the total quantity of product read from the stock summary")
     void getTotalBatchStockQuantity_returnCorrectQuantity_whenSuccess() {
-        batchStockList.get(0).setQuantity(50);
-        BatchStockModel batchStock2 = new BatchStockModel(1L, "ABC123", 100, LocalDate.of(2022,10,10), LocalDateTime.of(2022,10,10,15,00), LocalDate.of(2023,01,15), product, section);
-        batchStockList.add(batchStock2);
-        int totalQuantity = 150;
-
         BDDMockito.when(productService.getById(ArgumentMatchers.anyLong()))
                 .thenReturn(product);
-        BDDMockito.when(batchStockService.getByProductId(ArgumentMatchers.anyLong()))
-                .thenReturn(batchStockList);
+        BDDMockito.when(productStockSummaryService.getByProductId(1L))
+                .thenReturn(Optional.of(createStockSummary(1L, 150L, LocalDate.now().plusDays(20))));
 
         int totalQuantityTest = batchStockService.getTotalBatchStockQuantity(1L);
 
-        assertThat(totalQuantityTest).isPositive();
-        assertThat(totalQuantityTest).isEqualTo(totalQuantity);
+        assertThat(totalQuantityTest).isEqualTo(150);
+        BDDMockito.verify(batchStockRepository, BDDMockito.never()).findByProduct(ArgumentMatchers.any());
     }
 
     @Test
-    @DisplayName("Return the closest due date of product by product ID")
+    @DisplayName("Return the closest due date of product read from the stock summary")
     void getClosestDueDate_returnClosestDueDate_whenSuccess() throws NullDueDateException {
-        LocalDate dueDate1 = LocalDate.now().plusDays(30);
-        LocalDate dueDate2 = LocalDate.now().plusDays(20);
-        batchStockList.get(0).setDueDate(dueDate1);
-        BatchStockModel batchStock2 = new BatchStockModel(1L, "ABC123", 100, LocalDate.of(2022,10,10), LocalDateTime.of(2022,10,10,15,00), dueDate2, product, section);
-        batchStockList.add(batchStock2);
-
+        LocalDate dueDate = LocalDate.now().plusDays(20);
         BDDMockito.when(productService.getById(ArgumentMatchers.anyLong()))
                 .thenReturn(product);
-        BDDMockito.when(batchStockService.getByProductId(ArgumentMatchers.anyLong()))
-                .thenReturn(batchStockList);
+        BDDMockito.when(productStockSummaryService.getByProductId(1L))
+                .thenReturn(Optional.of(createStockSummary(1L, 150L, dueDate)));
 
         LocalDate dueDateTest = batchStockService.getClosestDueDate(1L);
 
-        assertThat(dueDateTest).isNotNull();
-        assertThat(dueDateTest).isEqualTo(dueDate2);
+        assertThat(dueDateTest).isEqualTo(dueDate);
+    }
+
+    @Test
+    @DisplayName("Throw NullDueDateException when the product has no batch stock")
+    void getClosestDueDate_throwNullDueDateException_whenNoBatchStock() {
+        BDDMockito.when(productService.getById(ArgumentMatchers.anyLong()))
+                .thenReturn(product);
+        BDDMockito.when(productStockSummaryService.getByProductId(1L))
+                .thenReturn(Optional.of(createStockSummary(1L, 0L, null)));
+
+        assertThrows(NullDueDateException.class, () -> batchStockService.getClosestDueDate(1L));
+    }
+
+    @Test
+    @DisplayName("Return the stock summary of all products indexed by product ID")
+    void getStockSummary_returnSummaryByProductId_whenSuccess() {
+        LocalDate dueDate = LocalDate.now().plusDays(30);
+        Map<Long, ProductStockSummary> summaryMap = Map.of(
+                1L, createStockSummary(1L, 150L, dueDate),
+                2L, createStockSummary(2L, 10L, dueDate.plusDays(1)));
+
+        BDDMockito.when(productStockSummaryService.getAll())
+                .thenReturn(summaryMap);
+
+        Map<Long, ProductStockSummary> summaryTest = batchStockService.getStockSummary();
+
+        assertThat(summaryTest).hasSize(2);
+        assertThat(summaryTest.get(1L).getTotalQuantity()).isEqualTo(150L);
+        assertThat(summaryTest.get(1L).getClosestDueDate()).isEqualTo(dueDate);
+        BDDMockito.verifyNoInteractions(batchStockRepository);
+    }
+
+    @Test
+    @DisplayName("Return the missing quantity of each product, summing repeated order lines")
+    void getStockShortfall_returnMissingQuantityByProductId_whenStockInsufficient() {
+        List<OrderProductsRequest> orderProducts = new ArrayList<>();
+        orderProducts.add(new OrderProductsRequest(1L, 30, null));
+        orderProducts.add(new OrderProductsRequest(1L, 30, null));
+        orderProducts.add(new OrderProductsRequest(2L, 5, null));
+        orderProducts.add(new OrderProductsRequest(3L, 1, null));
+
+        BDDMockito.when(productStockSummaryService.getSellableQuantity(ArgumentMatchers.anyCollection()))
+                .thenReturn(Map.of(1L, 60L, 2L, 5L, 3L, 0L));
+        BDDMockito.when(stockReservationService.getHeldQuantity(ArgumentMatchers.anyCollection(), ArgumentMatchers.any()))
+                .thenReturn(Map.of(1L, 10L));
+
+        Map<Long, Integer> shortfallTest = batchStockService.getStockShortfall(orderProducts);
+
+        assertThat(shortfallTest).containsOnly(Map.entry(1L, 10), Map.entry(3L, 1));
+        BDDMockito.verify(batchStockRepository, BDDMockito.never()).findAvailabilityByProductIds(ArgumentMatchers.anyCollection(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("Read the availability from the batch stocks of products with a stale summary")
+    void getStockShortfall_queryBatchStocks_whenSummaryStale() {
+        List<OrderProductsRequest> orderProducts = new ArrayList<>();
+        orderProducts.add(new OrderProductsRequest(1L, 60, null));
+        orderProducts.add(new OrderProductsRequest(2L, 5, null));
+
+        BDDMockito.when(productStockSummaryService.getSellableQuantity(ArgumentMatchers.anyCollection()))
+                .thenReturn(Map.of(2L, 5L));
+        BDDMockito.when(batchStockRepository.findAvailabilityByProductIds(List.of(1L), LocalDate.now().plusWeeks(3)))
+                .thenReturn(List.of(createAvailability(1L, 50L)));
+
+        Map<Long, Integer> shortfallTest = batchStockService.getStockShortfall(orderProducts);
+
+        assertThat(shortfallTest).containsOnly(Map.entry(1L, 10));
+    }
+
+    ProductAvailability createAvailability(Long productId, Long availableQuantity) {
+        return new ProductAvailability() {
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Long getAvailableQuantity() {
+                return availableQuantity;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Return the product quantity summed by section")
+    void getQuantityBySection_returnGroupedQuantity_whenSuccess() {
+        List<SectionQuantity> quantityList = List.of(createSectionQuantity(1L, 150L), createSectionQuantity(2L, 10L));
+        BDDMockito.when(batchStockRepository.findQuantityBySectionByProductId(1L))
+                .thenReturn(quantityList);
+
+        List<SectionQuantity> quantityTest = batchStockService.getQuantityBySection(1L);
+
+        assertThat(quantityTest).isEqualTo(quantityList);
+        BDDMockito.verify(batchStockRepository, BDDMockito.never()).findAll();
+    }
+
+    SectionQuantity createSectionQuantity(Long sectionId, Long quantity) {
+        return new SectionQuantity() {
+            @Override
+            public Long getSectionId() {
+                return sectionId;
+            }
+
+            @Override
+            public Long getQuantity() {
+                return quantity;
+            }
+        };
+    }
+
+    ProductStockSummary createStockSummary(Long productId, Long totalQuantity, LocalDate closestDueDate) {
+        return new ProductStockSummary() {
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Long getTotalQuantity() {
+                return totalQuantity;
+            }
+
+            @Override
+            public LocalDate getClosestDueDate() {
+                return closestDueDate;
+            }
+        };
     }
 
     @Test
@@ -261,6 +454,128 @@ public class BatchStockServiceTest {
                 .doesNotThrowAnyException();
     }
 
+    @Test
+    @DisplayName("Throw NotEnoughSpaceInSectionException when section ledger has not enough free room")
+    void validateBatches_throwNotEnoughSpaceInSectionException_whenSectionIsFull() {
+        section.setTotalSize(100.0);
+        batchStockList.get(0).setQuantity(2);
+        batchStockList.get(0).getProduct().setUnitVolume(5.);
+
+        BDDMockito.when(sectionService.getById(ArgumentMatchers.anyLong()))
+                .thenReturn(section);
+        BDDMockito.when(sectionOccupancyLedger.getUsedVolume(section.getId()))
+                .thenReturn(95.0);
+
+        assertThrows(NotEnoughSpaceInSectionException.class, () -> batchStockService.validateBatches(product, batchStockList));
+    }
+
+    @Test
+    @DisplayName("Save products and batches of many inbound orders, validating each section once")
+    void saveInboundOrders_saveAllBatches_whenSuccess() throws Exception {
+        section.setCategory(CategoryEnum.FRESH);
+        product.setCategory(CategoryEnum.FRESH);
+        List<BatchStockModel> inboundBatchStockList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            BatchStockModel inboundBatchStock = new BatchStockModel(null, "IN" + i, 2, LocalDate.now(), LocalDateTime.now(), LocalDate.now().plusDays(30), product, SectionModel.builder().id(section.getId()).build(), 0L);
+            inboundBatchStockList.add(inboundBatchStock);
+        }
+
+        BDDMockito.when(sectionService.getAllById(Set.of(section.getId())))
+                .thenReturn(List.of(section));
+        BDDMockito.when(batchStockRepository.saveAllAndFlush(inboundBatchStockList))
+                .thenReturn(inboundBatchStockList);
+
+        List<BatchStockModel> savedBatchStockList = batchStockService.saveInboundOrders(inboundBatchStockList);
+
+        assertThat(savedBatchStockList).allSatisfy(b -> assertThat(b.getSection()).isSameAs(section));
+        BDDMockito.verify(productService).saveAll(List.of(product));
+        BDDMockito.verify(productStockSummaryService).add(ArgumentMatchers.anyList());
+        BDDMockito.verify(sectionOccupancyLedger, BDDMockito.times(3)).add(section.getId(), 2 * product.getUnitVolume());
+        BDDMockito.verify(sectionService, BDDMockito.never()).getById(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("Throw ProductNotPermittedInSectionException without saving when any product category differs from its section")
+    void saveInboundOrders_throwProductNotPermittedInSectionException_whenCategoryInvalid() {
+        section.setCategory(CategoryEnum.FROZEN);
+        product.setCategory(CategoryEnum.FRESH);
+        List<BatchStockModel> inboundBatchStockList = List.of(new BatchStockModel(null, "IN", 2, LocalDate.now(), LocalDateTime.now(), LocalDate.now().plusDays(30), product, SectionModel.builder().id(section.getId()).build(), 0L));
+
+        BDDMockito.when(sectionService.getAllById(Set.of(section.getId())))
+                .thenReturn(List.of(section));
+
+        assertThrows(ProductNotPermittedInSectionException.class, () -> batchStockService.saveInboundOrders(inboundBatchStockList));
+        BDDMockito.verifyNoInteractions(productService, batchStockRepository);
+    }
+
+    @Test
+    @DisplayName("Add the new BatchStock volume to the section ledger on creation")
+    void saveBatchStock_addVolumeToSectionLedger_whenNewBatchStock() {
+        batchStock.setId(null);
+        BDDMockito.when(sectionService.getById(ArgumentMatchers.anyLong()))
+                .thenReturn(section);
+        BDDMockito.when(batchStockRepository.save(ArgumentMatchers.any(BatchStockModel.class)))
+                .thenReturn(batchStock);
+        BDDMockito.when(outboxService.newEvent(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new OutboxEventModel());
+
+        batchStockService.save(batchStock);
+
+        BDDMockito.verify(sectionOccupancyLedger).add(section.getId(), batchStock.getQuantity() * product.getUnitVolume());
+    }
+
+    @Test
+    @DisplayName("Not add the volume of a new BatchStock to the section ledger when the transaction rolls back")
+    void saveBatchStock_notAddVolumeToSectionLedger_whenTransactionRollsBack() {
+        batchStock.setId(null);
+        BDDMockito.when(sectionService.getById(ArgumentMatchers.anyLong()))
+                .thenReturn(section);
+        BDDMockito.when(batchStockRepository.save(ArgumentMatchers.any(BatchStockModel.class)))
+                .thenReturn(batchStock);
+        BDDMockito.when(outboxService.newEvent(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new OutboxEventModel());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            batchStockService.save(batchStock);
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        BDDMockito.verifyNoInteractions(sectionOccupancyLedger);
+    }
+
+    @Test
+    @DisplayName("Give a new BatchStock to the allocator only when the transaction commits")
+    void saveBatchStock_notifyAllocatorOnlyOnCommit_whenNewBatchStock() {
+        batchStock.setId(null);
+        BDDMockito.when(sectionService.getById(ArgumentMatchers.anyLong()))
+                .thenReturn(section);
+        BDDMockito.when(batchStockRepository.save(ArgumentMatchers.any(BatchStockModel.class)))
+                .thenReturn(batchStock);
+        BDDMockito.when(outboxService.newEvent(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new OutboxEventModel());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            batchStockService.save(batchStock);
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        BDDMockito.verify(stockAllocator, BDDMockito.never()).onBatchStockCreated(ArgumentMatchers.any());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            batchStockService.save(batchStock);
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        BDDMockito.verify(stockAllocator).onBatchStockCreated(batchStock);
+    }
+
     @Test
     @DisplayName("Return a list BatchStock by due date valid of products")
     void findValidProductsByDueDate_returnListBatchStock_whenSuccess() {
@@ -282,22 +597,245 @@ public class BatchStockServiceTest {
     @Test
     @DisplayName("Don't return exceptions when successfully consuming batch stock on purchase")
     void consumeBatchStockOnPurchase_notReturnException_whenSuccess() {
-        PurchaseOrderModel purchaseOrder = new PurchaseOrderModel(1L, LocalDate.now(), OrderStatusEnum.OPEN, new BuyerModel("Buyer Name", "123.456.789-00"));
+        PurchaseOrderModel purchaseOrder = new PurchaseOrderModel(1L, LocalDate.now(), OrderStatusEnum.OPEN, new BuyerModel("Buyer Name", "123.456.789-00"), null);
         List<OrderProductsModel> orderProducts = new ArrayList<>();
         orderProducts.add(new OrderProductsModel(batchStockList.get(0).getProduct(), 0, purchaseOrder));
 
-        BDDMockito.when(orderProductService.getByPurchaseId(ArgumentMatchers.anyLong()))
+        BDDMockito.when(orderProductService.getByPurchaseIds(List.of(purchaseOrder.getId())))
                 .thenReturn(orderProducts);
 
         Assertions.assertThatCode(() -> batchStockService.consumeBatchStockOnPurchase(purchaseOrder))
                 .doesNotThrowAnyException();
     }
 
+    @Test
+    @DisplayName("Debit the held quantities without allocating again when the purchase has reservations")
+    void consumeBatchStockOnPurchase_debitHeldQuantities_whenReserved() throws Exception {
+        PurchaseOrderModel purchaseOrder = new PurchaseOrderModel(1L, LocalDate.now(), OrderStatusEnum.OPEN, new BuyerModel("Buyer Name", "123.456.789-00"), null);
+        List<OrderProductsModel> orderProducts = new ArrayList<>();
+        orderProducts.add(new OrderProductsModel(product, 5, purchaseOrder));
+        List<BatchStockDebit> heldDebits = List.of(new BatchStockDebit(1L, section.getId(), product.getId(), 5));
+
+        BDDMockito.when(orderProductService.getByPurchaseIds(List.of(purchaseOrder.getId())))
+                .thenReturn(orderProducts);
+        BDDMockito.when(stockReservationService.getHeldDebits(purchaseOrder.getId()))
+                .thenReturn(heldDebits);
+
+        batchStockService.consumeBatchStockOnPurchase(purchaseOrder);
+
+        BDDMockito.verify(stockReservationService).consume(purchaseOrder.getId(), heldDebits);
+        BDDMockito.verify(batchStockRepository).debitQuantities(heldDebits);
+        BDDMockito.verify(productStockSummaryService).recompute(List.of(product.getId()));
+        BDDMockito.verify(sectionOccupancyLedger).add(section.getId(), -5 * product.getUnitVolume());
+        BDDMockito.verify(outboxService).newEvent(ArgumentMatchers.eq(OutboxEventTypeEnum.BATCH_STOCK_DEBITED), ArgumentMatchers.eq(1L), ArgumentMatchers.any(BatchStockChange.class));
+        BDDMockito.verify(stockAllocator, BDDMockito.never()).allocate(ArgumentMatchers.anyMap(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("Lock the ordered products until completion when the allocator requires product locks")
+    void consumeBatchStockOnPurchases_lockProducts_whenAllocatorRequiresProductLocks() {
+        PurchaseOrderModel purchaseOrder = PurchaseOrderModel.builder().id(1L).build();
+        List<BatchStockDebit> heldDebits = List.of(new BatchStockDebit(1L, section.getId(), product.getId(), 5));
+
+        BDDMockito.when(orderProductService.getByPurchaseIds(List.of(1L)))
+                .thenReturn(List.of(new OrderProductsModel(product, 5, purchaseOrder)));
+        BDDMockito.when(stockReservationService.getHeldDebits(1L))
+                .thenReturn(heldDebits);
+        BDDMockito.when(stockAllocator.requiresProductLocks())
+                .thenReturn(true);
+
+        batchStockService.consumeBatchStockOnPurchases(List.of(1L));
+
+        BDDMockito.verify(inventoryLockManager).lockUntilCompletion("debit", Set.of(product.getId()), List.of());
+    }
+
+    @Test
+    @DisplayName("Leave the ordered products unlocked when the allocator locks the BatchStock rows itself")
+    void consumeBatchStockOnPurchases_notLockProducts_whenAllocatorLocksRows() {
+        PurchaseOrderModel purchaseOrder = PurchaseOrderModel.builder().id(1L).build();
+        List<BatchStockDebit> heldDebits = List.of(new BatchStockDebit(1L, section.getId(), product.getId(), 5));
+
+        BDDMockito.when(orderProductService.getByPurchaseIds(List.of(1L)))
+                .thenReturn(List.of(new OrderProductsModel(product, 5, purchaseOrder)));
+        BDDMockito.when(stockReservationService.getHeldDebits(1L))
+                .thenReturn(heldDebits);
+        BDDMockito.when(stockAllocator.requiresProductLocks())
+                .thenReturn(false);
+
+        batchStockService.consumeBatchStockOnPurchases(List.of(1L));
+
+        BDDMockito.verify(inventoryLockManager, BDDMockito.never()).lockUntilCompletion(ArgumentMatchers.eq("debit"), ArgumentMatchers.any(), ArgumentMatchers.any());
+        BDDMockito.verify(batchStockRepository).debitQuantities(heldDebits);
+    }
+
+    @Test
+    @DisplayName("Keep the holds of an order whose holds no longer cover it and is left out for lack of stock")
+    void consumeBatchStockOnPurchases_keepHolds_whenPartiallyHeldOrderShort() throws Exception {
+        PurchaseOrderModel purchaseOrder = PurchaseOrderModel.builder().id(1L).build();
+        List<OrderProductsModel> orderProducts = List.of(new OrderProductsModel(product, 5, purchaseOrder));
+
+        BDDMockito.when(orderProductService.getByPurchaseIds(List.of(1L)))
+                .thenReturn(orderProducts);
+        BDDMockito.when(stockReservationService.getHeldDebits(1L))
+                .thenReturn(List.of(new BatchStockDebit(1L, section.getId(), product.getId(), 2)));
+        BDDMockito.when(stockAllocator.allocate(ArgumentMatchers.eq(Map.of(product.getId(), 5)), ArgumentMatchers.any()))
+                .thenThrow(new NotEnoughStockException("Estoque insuficiente para atender o pedido!", Set.of(product.getId())));
+
+        Map<Long, Set<Long>> shortProductIdsByPurchase = batchStockService.consumeBatchStockOnPurchases(List.of(1L));
+
+        assertThat(shortProductIdsByPurchase).containsEntry(1L, Set.of(product.getId()));
+        BDDMockito.verify(stockReservationService, BDDMockito.never()).consume(ArgumentMatchers.anyLong(), ArgumentMatchers.anyList());
+        BDDMockito.verify(batchStockRepository, BDDMockito.never()).debitQuantities(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("Allocate the orders without reservations once with the quantity summed by product and merge the debits")
+    void consumeBatchStockOnPurchases_allocateGroupedByProduct_whenNotReserved() throws Exception {
+        PurchaseOrderModel firstOrder = PurchaseOrderModel.builder().id(1L).build();
+        PurchaseOrderModel secondOrder = PurchaseOrderModel.builder().id(2L).build();
+        List<OrderProductsModel> orderProducts = List.of(
+                new OrderProductsModel(product, 5, firstOrder),
+                new OrderProductsModel(product, 3, secondOrder));
+
+        BDDMockito.when(orderProductService.getByPurchaseIds(List.of(1L, 2L)))
+                .thenReturn(orderProducts);
+        BDDMockito.when(stockAllocator.allocate(ArgumentMatchers.eq(Map.of(product.getId(), 8)), ArgumentMatchers.any()))
+                .thenReturn(List.of(new BatchStockDebit(1L, section.getId(), product.getId(), 6), new BatchStockDebit(1L, section.getId(), product.getId(), 2)));
+
+        Map<Long, Set<Long>> shortProductIdsByPurchase = batchStockService.consumeBatchStockOnPurchases(List.of(1L, 2L));
+
+        assertThat(shortProductIdsByPurchase).isEmpty();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BatchStockDebit>> captor = ArgumentCaptor.forClass(List.class);
+        BDDMockito.verify(batchStockRepository).debitQuantities(captor.capture());
+        assertThat(captor.getValue()).singleElement().satisfies(d -> {
+            assertThat(d.getBatchStockId()).isEqualTo(1L);
+            assertThat(d.getQuantity()).isEqualTo(8);
+        });
+        BDDMockito.verify(stockAllocator).allocate(ArgumentMatchers.anyMap(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("Leave out only the order without enough stock when the summed quantity does not fit")
+    void consumeBatchStockOnPurchases_returnShortOrder_whenSumNotAvailable() throws Exception {
+        PurchaseOrderModel firstOrder = PurchaseOrderModel.builder().id(1L).build();
+        PurchaseOrderModel secondOrder = PurchaseOrderModel.builder().id(2L).build();
+        List<OrderProductsModel> orderProducts = List.of(
+                new OrderProductsModel(product, 5, firstOrder),
+                new OrderProductsModel(product, 50, secondOrder));
+        NotEnoughStockException notEnoughStock = new NotEnoughStockException("Estoque insuficiente para atender o pedido!", Set.of(product.getId()));
+
+        BDDMockito.when(orderProductService.getByPurchaseIds(List.of(1L, 2L)))
+                .thenReturn(orderProducts);
+        BDDMockito.when(stockAllocator.allocate(ArgumentMatchers.eq(Map.of(product.getId(), 55)), ArgumentMatchers.any()))
+                .thenThrow(notEnoughStock);
+        BDDMockito.when(stockAllocator.allocate(ArgumentMatchers.eq(Map.of(product.getId(), 5)), ArgumentMatchers.any()))
+                .thenReturn(List.of(new BatchStockDebit(1L, section.getId(), product.getId(), 5)));
+        BDDMockito.when(stockAllocator.allocate(ArgumentMatchers.eq(Map.of(product.getId(), 50)), ArgumentMatchers.any()))
+                .thenThrow(notEnoughStock);
+
+        Map<Long, Set<Long>> shortProductIdsByPurchase = batchStockService.consumeBatchStockOnPurchases(List.of(1L, 2L));
+
+        assertThat(shortProductIdsByPurchase).containsOnlyKeys(2L);
+        assertThat(shortProductIdsByPurchase.get(2L)).containsExactly(product.getId());
+        BDDMockito.verify(sectionOccupancyLedger).add(section.getId(), -5 * product.getUnitVolume());
+    }
+
+    @Test
+    @DisplayName("Evict the debited products from the allocator when a BatchStock had less stock than allocated")
+    void consumeBatchStockOnPurchases_evictProducts_whenDebitRaced() throws Exception {
+        PurchaseOrderModel purchaseOrder = PurchaseOrderModel.builder().id(1L).build();
+        List<OrderProductsModel> orderProducts = List.of(new OrderProductsModel(product, 5, purchaseOrder));
+
+        BDDMockito.when(orderProductService.getByPurchaseIds(List.of(1L)))
+                .thenReturn(orderProducts);
+        BDDMockito.when(stockAllocator.allocate(ArgumentMatchers.eq(Map.of(product.getId(), 5)), ArgumentMatchers.any()))
+                .thenReturn(List.of(new BatchStockDebit(2L, section.getId(), product.getId(), 3), new BatchStockDebit(1L, section.getId(), product.getId(), 2)));
+        BDDMockito.doThrow(new OptimisticLockingFailureException("BatchStocks sem quantidade para o débito: [1]"))
+                .when(batchStockRepository).debitQuantities(ArgumentMatchers.anyList());
+
+        assertThrows(OptimisticLockingFailureException.class, () -> batchStockService.consumeBatchStockOnPurchases(List.of(1L)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BatchStockDebit>> captor = ArgumentCaptor.forClass(List.class);
+        BDDMockito.verify(batchStockRepository).debitQuantities(captor.capture());
+        assertThat(captor.getValue()).extracting(BatchStockDebit::getBatchStockId).containsExactly(1L, 2L);
+        BDDMockito.verify(stockAllocator).evict(product.getId());
+        BDDMockito.verify(stockAllocator, BDDMockito.never()).release(ArgumentMatchers.anyList());
+        BDDMockito.verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    @DisplayName("Update the BatchStock and its section ledger volume when the version is the one read by the client")
+    void updateBatchStock_returnUpdatedBatchStock_whenVersionMatches() throws Exception {
+        section.setTotalSize(1000.0);
+        batchStock.setVersion(4L);
+        BatchStockModel changedBatchStock = new BatchStockModel(null, "ABC123", 30, LocalDate.now(), LocalDateTime.now(), LocalDate.now().plusWeeks(5), null, null, 4L);
+
+        BDDMockito.when(batchStockRepository.findById(batchStock.getId()))
+                .thenReturn(Optional.of(batchStock));
+        BDDMockito.when(sectionService.getById(section.getId()))
+                .thenReturn(section);
+        BDDMockito.when(batchStockRepository.saveAndFlush(changedBatchStock))
+                .thenReturn(changedBatchStock);
+        BDDMockito.when(outboxService.newEvent(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new OutboxEventModel());
+
+        BatchStockModel updatedBatchStock = batchStockService.updateBatchStock(changedBatchStock, batchStock.getId());
+
+        assertThat(updatedBatchStock.getId()).isEqualTo(batchStock.getId());
+        BDDMockito.verify(sectionOccupancyLedger).add(section.getId(), -20 * product.getUnitVolume());
+        BDDMockito.verify(stockAllocator).onBatchStockUpdated(changedBatchStock, 50);
+        BDDMockito.verify(productStockSummaryService).recompute(List.of(product.getId()));
+    }
+
+    @Test
+    @DisplayName("Throw ObjectOptimisticLockingFailureException without writing when the BatchStock changed after the client read it")
+    void updateBatchStock_throwObjectOptimisticLockingFailureException_whenVersionIsStale() {
+        batchStock.setVersion(5L);
+        BatchStockModel changedBatchStock = new BatchStockModel(null, "ABC123", 30, LocalDate.now(), LocalDateTime.now(), LocalDate.now().plusWeeks(5), null, null, 4L);
+
+        BDDMockito.when(batchStockRepository.findById(batchStock.getId()))
+                .thenReturn(Optional.of(batchStock));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> batchStockService.updateBatchStock(changedBatchStock, batchStock.getId()));
+        BDDMockito.verify(batchStockRepository, BDDMockito.never()).saveAndFlush(ArgumentMatchers.any());
+        BDDMockito.verifyNoInteractions(sectionOccupancyLedger, outboxService);
+    }
+
+    @Test
+    @DisplayName("Give the allocated quantities back to the allocator when the transaction rolls back after the debit")
+    void consumeBatchStockOnPurchases_releaseAllocatedDebits_whenTransactionRollsBack() throws Exception {
+        PurchaseOrderModel purchaseOrder = PurchaseOrderModel.builder().id(1L).build();
+        List<OrderProductsModel> orderProducts = List.of(new OrderProductsModel(product, 5, purchaseOrder));
+        List<BatchStockDebit> allocatedDebits = List.of(new BatchStockDebit(1L, section.getId(), product.getId(), 5));
+
+        BDDMockito.when(orderProductService.getByPurchaseIds(List.of(1L)))
+                .thenReturn(orderProducts);
+        BDDMockito.when(stockAllocator.allocate(ArgumentMatchers.eq(Map.of(product.getId(), 5)), ArgumentMatchers.any()))
+                .thenReturn(allocatedDebits);
+        BDDMockito.when(outboxService.newEvent(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new OutboxEventModel());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            batchStockService.consumeBatchStockOnPurchases(List.of(1L));
+            BDDMockito.verify(stockAllocator, BDDMockito.never()).release(ArgumentMatchers.anyList());
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        BDDMockito.verify(stockAllocator).release(allocatedDebits);
+        BDDMockito.verify(sectionOccupancyLedger, BDDMockito.never()).add(ArgumentMatchers.anyLong(), ArgumentMatchers.anyDouble());
+    }
+
     @Test
     @DisplayName("Return a list batch stock sorted by batch")
     void getByProductOrder_returnOrderBatchStock_whenSuccess() {
         batchStockList.get(0).setBatchNumber("456DEF");
-        BatchStockModel batchStock2 = new BatchStockModel(1L, "123ABC", 50, LocalDate.of(2022,10,10), LocalDateTime.of(2022,10,10,15,00), LocalDate.of(2023,01,15), product, section);
+        BatchStockModel batchStock2 = new BatchStockModel(1L, "123ABC", 50, LocalDate.of(2022,10,10), LocalDateTime.of(2022,10,10,15,00), LocalDate.of(2023,01,15), product, section, 0L);
         batchStockList.add(batchStock2);
 
         BDDMockito.when(productService.getById(ArgumentMatchers.anyLong()))
@@ -316,7 +854,7 @@ public class BatchStockServiceTest {
     @DisplayName("Return a list batch stock sorted by quantity product")
     void getByProductOrder_returnOrderQuantity_whenSuccess() {
         batchStockList.get(0).setQuantity(20);
-        BatchStockModel batchStock2 = new BatchStockModel(1L, "123ABC", 50, LocalDate.of(2022,10,10), LocalDateTime.of(2022,10,10,15,00), LocalDate.of(2023,01,15), product, section);
+        BatchStockModel batchStock2 = new BatchStockModel(1L, "123ABC", 50, LocalDate.of(2022,10,10), LocalDateTime.of(2022,10,10,15,00), LocalDate.of(2023,01,15), product, section, 0L);
         batchStockList.add(batchStock2);
 
         BDDMockito.when(productService.getById(ArgumentMatchers.anyLong()))
@@ -335,7 +873,7 @@ public class BatchStockServiceTest {
     @DisplayName("Return a list batch stock sorted by due date")
     void getByProductOrder_returnOrderDueDate_whenSuccess() {
         batchStockList.get(0).setDueDate(LocalDate.of(2023,01,15));
-        BatchStockModel batchStock2 = new BatchStockModel(1L, "123ABC", 50, LocalDate.of(2022,10,10), LocalDateTime.of(2022,10,10,15,00), LocalDate.of(2022,12,15), product, section);
+        BatchStockModel batchStock2 = new BatchStockModel(1L, "123ABC", 50, LocalDate.of(2022,10,10), LocalDateTime.of(2022,10,10,15,00), LocalDate.of(2022,12,15), product, section, 0L);
         batchStockList.add(batchStock2);
 
         BDDMockito.when(productService.getById(ArgumentMatchers.anyLong()))
@@ -358,4 +896,16 @@ public class BatchStockServiceTest {
         });
     }
 
+    @Test
+    @DisplayName("Pass every streamed batch stock to the action")
+    void forEachBatchStock_acceptEveryBatchStock_whenSuccess() {
+        BDDMockito.when(batchStockRepository.streamAll())
+                .thenReturn(batchStockList.stream());
+
+        List<BatchStockModel> exported = new ArrayList<>();
+        batchStockService.forEachBatchStock(exported::add);
+
+        assertThat(exported).isEqualTo(batchStockList);
+    }
+
 }
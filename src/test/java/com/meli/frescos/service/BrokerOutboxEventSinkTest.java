@@ -0,0 +1,49 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.OutboxEventModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BrokerOutboxEventSinkTest {
+
+    @Test
+    @DisplayName("Return the events after the last offset seen by the consumer")
+    void poll_returnEventsAfterOffset_whenPublished() {
+        BrokerOutboxEventSink brokerOutboxEventSink = new BrokerOutboxEventSink(10);
+        brokerOutboxEventSink.publish(List.of(event(1L), event(2L), event(3L)));
+
+        assertThat(brokerOutboxEventSink.poll(1L, 10)).extracting(r -> r.event().getId()).containsExactly(2L, 3L);
+        assertThat(brokerOutboxEventSink.poll(0L, 1)).extracting(r -> r.event().getId()).containsExactly(1L);
+        assertThat(brokerOutboxEventSink.poll(3L, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Return an event published after a newer one to the consumers past the newer one")
+    void poll_returnLateEvent_whenPublishedAfterNewerOne() {
+        BrokerOutboxEventSink brokerOutboxEventSink = new BrokerOutboxEventSink(10);
+        brokerOutboxEventSink.publish(List.of(event(10L)));
+        long lastOffset = brokerOutboxEventSink.poll(0L, 10).get(0).offset();
+
+        brokerOutboxEventSink.publish(List.of(event(9L)));
+
+        assertThat(brokerOutboxEventSink.poll(lastOffset, 10)).extracting(r -> r.event().getId()).containsExactly(9L);
+    }
+
+    @Test
+    @DisplayName("Drop the oldest events beyond the capacity, appending again the events published again")
+    void publish_dropOldest_whenFull() {
+        BrokerOutboxEventSink brokerOutboxEventSink = new BrokerOutboxEventSink(3);
+        brokerOutboxEventSink.publish(List.of(event(1L), event(2L)));
+        brokerOutboxEventSink.publish(List.of(event(2L), event(3L)));
+
+        assertThat(brokerOutboxEventSink.poll(0L, 10)).extracting(r -> r.event().getId()).containsExactly(2L, 2L, 3L);
+    }
+
+    OutboxEventModel event(Long id) {
+        return OutboxEventModel.builder().id(id).build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.CommentModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommentFeedCacheTest {
+
+    private final CommentFeedCache commentFeedCache = new CommentFeedCache(10, 50, 600);
+
+    @Test
+    @DisplayName("Load the first page once until the product is invalidated")
+    void get_loadOnce_untilInvalidated() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<Long, Slice<CommentModel>> loader = productId -> {
+            loads.incrementAndGet();
+            return new SliceImpl<>(List.of(CommentModel.builder().id(productId).build()));
+        };
+
+        commentFeedCache.get(1L, loader);
+        Slice<CommentModel> cached = commentFeedCache.get(1L, loader);
+        commentFeedCache.get(2L, loader);
+
+        assertThat(cached.getContent().get(0).getId()).isEqualTo(1L);
+        assertThat(loads).hasValue(2);
+
+        commentFeedCache.invalidate(1L);
+        commentFeedCache.get(1L, loader);
+        commentFeedCache.get(2L, loader);
+
+        assertThat(loads).hasValue(3);
+    }
+}
@@ -4,7 +4,6 @@ import com.meli.frescos.exception.InvalidCommentException;
 import com.meli.frescos.model.BuyerModel;
 import com.meli.frescos.model.CommentModel;
 import com.meli.frescos.model.ProductModel;
-import com.meli.frescos.repository.BatchStockRepository;
 import com.meli.frescos.repository.CommentRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,10 +13,15 @@ import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
-import java.math.BigInteger;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -32,11 +36,17 @@ class CommentServiceTest {
     @Mock
     private CommentRepository commentRepository;
     @Mock
-    private BatchStockRepository batchStockRepository;
+    private PurchasedProductIndex purchasedProductIndex;
 
     @Mock
     IProductService iProductService;
 
+    @Mock
+    IBuyerService iBuyerService;
+
+    @Mock
+    CommentFeedCache commentFeedCache;
+
     @Test
     @DisplayName("Create a new Comment successfully")
     void save_returnsCreatedComment_whenSuccess() throws InvalidCommentException {
@@ -53,14 +63,12 @@ class CommentServiceTest {
         commentModel.setBuyer(buyer);
         commentModel.setId(1L);
 
-        BDDMockito.when(commentRepository.save(ArgumentMatchers.any(CommentModel.class)))
+        BDDMockito.when(commentRepository.saveAndFlush(ArgumentMatchers.any(CommentModel.class)))
                 .thenReturn(commentModel);
-        BDDMockito.when(commentRepository.findByBuyerIdAndProductId(ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong()))
-                .thenReturn(null);
         BDDMockito.when(iProductService.getById(ArgumentMatchers.anyLong()))
                 .thenReturn(productModel);
-        BDDMockito.when(batchStockRepository.findByBuyerAndProduct(ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong()))
-                .thenReturn(BigInteger.valueOf(1L));
+        BDDMockito.when(purchasedProductIndex.hasPurchased(1L, 1L))
+                .thenReturn(true);
 
         CommentModel newComment = commentService.save(commentModel);
 
@@ -90,8 +98,10 @@ class CommentServiceTest {
 
         BDDMockito.when(iProductService.getById(ArgumentMatchers.anyLong()))
                 .thenReturn(productModel);
-        BDDMockito.when(batchStockRepository.findByBuyerAndProduct(ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong()))
-                .thenReturn(BigInteger.valueOf(0L));
+        BDDMockito.when(iBuyerService.getById(ArgumentMatchers.anyLong()))
+                .thenReturn(buyer);
+        BDDMockito.when(purchasedProductIndex.hasPurchased(1L, 1L))
+                .thenReturn(false);
 
         assertThrows(
                 InvalidCommentException.class,
@@ -102,7 +112,7 @@ class CommentServiceTest {
     }
 
     @Test
-    @DisplayName("Throws a InvalidCommentException when User did not bought the Product")
+    @DisplayName("Throws a InvalidCommentException when User already commented on the Product")
     void save_throwInvalidCommentException_whenBuyerAlreadyCommented() {
 
         ProductModel productModel = new ProductModel();
@@ -119,10 +129,10 @@ class CommentServiceTest {
 
         BDDMockito.when(iProductService.getById(ArgumentMatchers.anyLong()))
                 .thenReturn(productModel);
-        BDDMockito.when(batchStockRepository.findByBuyerAndProduct(ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong()))
-                .thenReturn(BigInteger.valueOf(1L));
-        BDDMockito.when(commentRepository.findByBuyerIdAndProductId(ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong()))
-                .thenReturn(commentModel);
+        BDDMockito.when(purchasedProductIndex.hasPurchased(1L, 1L))
+                .thenReturn(true);
+        BDDMockito.when(commentRepository.saveAndFlush(ArgumentMatchers.any(CommentModel.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
 
         assertThrows(
                 InvalidCommentException.class,
@@ -134,32 +144,71 @@ class CommentServiceTest {
 
 
     @Test
-    @DisplayName("Return a list of  Comment successfully")
+    @DisplayName("Return the first page of the comment feed as the recent comments")
     void getRecentComments_returnListOfComment_whenSuccess() {
+        CommentModel commentModel = createComment(1L, LocalDateTime.now());
+        List<CommentModel> commentModelList = new ArrayList<>();
+        commentModelList.add(commentModel);
 
-        ProductModel productModel = new ProductModel();
-        productModel.setId(1L);
+        BDDMockito.when(commentFeedCache.getPageSize())
+                .thenReturn(50);
+        stubCacheLoad();
+        BDDMockito.when(commentRepository.findFirstPageByProductId(1L, PageRequest.ofSize(50)))
+                .thenReturn(new SliceImpl<>(commentModelList));
 
-        BuyerModel buyer = new BuyerModel();
-        buyer.setId(1L);
+        Slice<CommentModel> newCommentModelList = commentService.getRecentComments(1L);
 
-        CommentModel commentModel = new CommentModel();
-        commentModel.setComment("test");
-        commentModel.setProduct(productModel);
-        commentModel.setBuyer(buyer);
-        commentModel.setId(1L);
+        assertEquals(commentModelList.size(), newCommentModelList.getNumberOfElements());
+        assertEquals(commentModelList.get(0).getId(), newCommentModelList.getContent().get(0).getId());
+    }
 
-        List<CommentModel> commentModelList = new ArrayList<>();
-        commentModelList.add(commentModel);
+    @Test
+    @DisplayName("Return a smaller first page cut from the cached first page")
+    void getPage_returnCutFirstPage_whenLimitBelowPageSize() {
+        LocalDateTime now = LocalDateTime.now();
+        List<CommentModel> commentModelList = List.of(createComment(3L, now), createComment(2L, now.minusMinutes(1)), createComment(1L, now.minusMinutes(2)));
+
+        BDDMockito.when(commentFeedCache.getPageSize())
+                .thenReturn(50);
+        BDDMockito.when(commentFeedCache.get(ArgumentMatchers.eq(1L), ArgumentMatchers.any()))
+                .thenReturn(new SliceImpl<>(commentModelList));
+
+        Slice<CommentModel> page = commentService.getPage(1L, null, null, 2);
+
+        assertThat(page.getContent()).extracting(CommentModel::getId).containsExactly(3L, 2L);
+        assertThat(page.hasNext()).isTrue();
+        BDDMockito.verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    @DisplayName("Read the pages after the first one from the database")
+    void getPage_queryRepository_whenCursorInformed() {
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<CommentModel> commentModelList = List.of(createComment(1L, createdAt.minusMinutes(1)));
+
+        BDDMockito.when(commentFeedCache.getPageSize())
+                .thenReturn(50);
+        BDDMockito.when(commentRepository.findPageByProductIdBefore(1L, createdAt, 2L, PageRequest.ofSize(10)))
+                .thenReturn(new SliceImpl<>(commentModelList));
 
-        BDDMockito.when(commentRepository.findByProductIdOrderByCreatedAtDesc(ArgumentMatchers.anyLong()))
-                .thenReturn(commentModelList);
+        Slice<CommentModel> page = commentService.getPage(1L, createdAt, 2L, 10);
 
-        List<CommentModel> newCommentModelList = commentService.getRecentComments(commentModel.getId());
+        assertThat(page.getContent()).isEqualTo(commentModelList);
+        BDDMockito.verify(commentFeedCache, BDDMockito.never()).get(ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+    }
 
-        assertEquals(commentModelList.size(), newCommentModelList.size());
-        assertEquals(commentModelList.get(0).getId(), newCommentModelList.get(0).getId());
+    @SuppressWarnings("unchecked")
+    void stubCacheLoad() {
+        BDDMockito.when(commentFeedCache.get(ArgumentMatchers.anyLong(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> invocation.getArgument(1, Function.class).apply(invocation.getArgument(0)));
+    }
 
+    CommentModel createComment(Long id, LocalDateTime createdAt) {
+        CommentModel commentModel = new CommentModel();
+        commentModel.setId(id);
+        commentModel.setComment("test");
+        commentModel.setCreatedAt(createdAt);
+        return commentModel;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,147 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.exception.NotEnoughStockException;
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.model.ProductModel;
+import com.meli.frescos.model.SectionModel;
+import com.meli.frescos.repository.BatchStockDebit;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class FefoAllocatorTest {
+
+    @InjectMocks
+    FefoAllocator fefoAllocator;
+
+    @Mock
+    BatchStockRepository batchStockRepository;
+
+    @Mock
+    StockReservationRepository stockReservationRepository;
+
+    private final LocalDate minDueDate = LocalDate.now().plusWeeks(3);
+
+    private ProductModel product;
+
+    private SectionModel section;
+
+    @BeforeEach
+    void setup() {
+        product = ProductModel.builder().id(1L).unitVolume(1.0).build();
+        section = SectionModel.builder().id(1L).build();
+    }
+
+    @Test
+    @DisplayName("Debit the batches with the closest valid due date first")
+    void allocate_debitClosestDueDateFirst_whenSuccess() throws NotEnoughStockException {
+        List<BatchStockModel> batchStockList = new ArrayList<>();
+        batchStockList.add(createBatchStock(1L, 100, minDueDate.minusDays(1)));
+        batchStockList.add(createBatchStock(2L, 10, minDueDate.plusDays(1)));
+        batchStockList.add(createBatchStock(3L, 10, minDueDate.plusDays(5)));
+        BDDMockito.when(batchStockRepository.findByProductIdOrderByDueDateAsc(1L))
+                .thenReturn(batchStockList);
+
+        List<BatchStockDebit> debits = fefoAllocator.allocate(Map.of(1L, 15), minDueDate);
+
+        assertThat(debits).hasSize(2);
+        assertThat(debits.get(0).getBatchStockId()).isEqualTo(2L);
+        assertThat(debits.get(0).getQuantity()).isEqualTo(10);
+        assertThat(debits.get(1).getBatchStockId()).isEqualTo(3L);
+        assertThat(debits.get(1).getQuantity()).isEqualTo(5);
+        assertThat(fefoAllocator.getAvailableQuantity(1L, minDueDate)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Throw NotEnoughStockException and keep stock untouched when any product is short")
+    void allocate_throwNotEnoughStockException_whenStockNotAvailable() {
+        List<BatchStockModel> batchStockList = new ArrayList<>();
+        batchStockList.add(createBatchStock(1L, 10, minDueDate.plusDays(1)));
+        BDDMockito.when(batchStockRepository.findByProductIdOrderByDueDateAsc(1L))
+                .thenReturn(batchStockList);
+
+        assertThrows(NotEnoughStockException.class, () -> fefoAllocator.allocate(Map.of(1L, 11), minDueDate));
+        assertThat(fefoAllocator.getAvailableQuantity(1L, minDueDate)).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Never debit more than the available stock under concurrent order closing")
+    void allocate_neverOversell_whenConcurrentOrders() throws Exception {
+        int batches = 20;
+        int quantityPerBatch = 50;
+        List<BatchStockModel> batchStockList = new ArrayList<>();
+        for (long i = 1; i <= batches; i++) {
+            batchStockList.add(createBatchStock(i, quantityPerBatch, minDueDate.plusDays(i)));
+        }
+        BDDMockito.when(batchStockRepository.findByProductIdOrderByDueDateAsc(1L))
+                .thenReturn(batchStockList);
+
+        int orders = 2000;
+        AtomicInteger debitedQuantity = new AtomicInteger();
+        AtomicInteger successfulOrders = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            int quantity = 1 + i % 3;
+            futures.add(executor.submit(() -> {
+                try {
+                    List<BatchStockDebit> debits = fefoAllocator.allocate(Map.of(1L, quantity), minDueDate);
+                    debitedQuantity.addAndGet(debits.stream().mapToInt(BatchStockDebit::getQuantity).sum());
+                    successfulOrders.incrementAndGet();
+                } catch (NotEnoughStockException ignored) {
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        int totalStock = batches * quantityPerBatch;
+        assertThat(debitedQuantity.get()).isLessThanOrEqualTo(totalStock);
+        assertThat(debitedQuantity.get() + fefoAllocator.getAvailableQuantity(1L, minDueDate)).isEqualTo(totalStock);
+        assertThat(fefoAllocator.getAvailableQuantity(1L, minDueDate)).isLessThan(3);
+        assertThat(successfulOrders.get()).isLessThan(orders);
+    }
+
+    @Test
+    @DisplayName("Make released quantities available again")
+    void release_restoreAvailableQuantity_whenDebitNotPersisted() throws NotEnoughStockException {
+        List<BatchStockModel> batchStockList = new ArrayList<>();
+        batchStockList.add(createBatchStock(1L, 10, minDueDate.plusDays(1)));
+        BDDMockito.when(batchStockRepository.findByProductIdOrderByDueDateAsc(1L))
+                .thenReturn(batchStockList);
+
+        List<BatchStockDebit> debits = fefoAllocator.allocate(Map.of(1L, 10), minDueDate);
+        fefoAllocator.release(debits);
+
+        assertThat(fefoAllocator.getAvailableQuantity(1L, minDueDate)).isEqualTo(10);
+    }
+
+    BatchStockModel createBatchStock(Long id, int quantity, LocalDate dueDate) {
+        return new BatchStockModel(id, "LOT" + id, quantity, LocalDate.now(), LocalDateTime.now(), dueDate, product, section, 0L);
+    }
+}
@@ -0,0 +1,147 @@
+package com.meli.frescos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InventoryLockManagerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InventoryLockManager inventoryLockManager;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        inventoryLockManager = new InventoryLockManager(meterRegistry, 16);
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Block other threads on the same product until the locks are closed")
+    void lock_blockSameProduct_untilClosed() throws Exception {
+        CountDownLatch acquired = new CountDownLatch(1);
+        AtomicBoolean released = new AtomicBoolean();
+
+        Future<?> other;
+        try (InventoryLockManager.Locks locks = inventoryLockManager.lock("update", List.of(1L), List.of(1L))) {
+            other = executor.submit(() -> {
+                try (InventoryLockManager.Locks otherLocks = inventoryLockManager.lock("debit", List.of(1L), List.of())) {
+                    assertThat(released).isTrue();
+                    acquired.countDown();
+                }
+            });
+            assertThat(acquired.await(200, TimeUnit.MILLISECONDS)).isFalse();
+            released.set(true);
+        }
+
+        other.get(5, TimeUnit.SECONDS);
+        assertThat(acquired.getCount()).isZero();
+        assertThat(meterRegistry.get(InventoryLockManager.METRIC_NAME).tag("operation", "debit").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Not deadlock when threads lock the same products in different orders")
+    void lock_notDeadlock_whenProductsInDifferentOrder() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            List<Long> productIds = thread % 2 == 0 ? List.of(1L, 2L, 3L, 4L, 5L) : List.of(5L, 4L, 3L, 2L, 1L);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    try (InventoryLockManager.Locks locks = inventoryLockManager.lock("debit", productIds, List.of())) {
+                        counter.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(counter).hasValue(8000);
+    }
+
+    @Test
+    @DisplayName("Not lock again the stripes already held by the thread")
+    void lock_skipHeldStripes_whenNested() {
+        try (InventoryLockManager.Locks outer = inventoryLockManager.lock("update", List.of(1L), List.of(1L));
+             InventoryLockManager.Locks inner = inventoryLockManager.lock("save", List.of(1L), List.of(1L))) {
+            assertThat(inner).isNotNull();
+        }
+
+        try (InventoryLockManager.Locks locks = inventoryLockManager.lock("update", List.of(1L), List.of(1L))) {
+            assertThat(locks).isNotNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Throw IllegalStateException when a nested call takes a stripe below a held one")
+    void lock_throwIllegalStateException_whenNestedStripeBelowHeld() throws Exception {
+        Long lowProductId = productIdWithStripe(0);
+        Long highProductId = productIdWithStripe(15);
+
+        try (InventoryLockManager.Locks outer = inventoryLockManager.lock("update", List.of(highProductId), List.of())) {
+            assertThrows(IllegalStateException.class, () -> inventoryLockManager.lock("save", List.of(lowProductId), List.of()));
+        }
+
+        try (InventoryLockManager.Locks outer = inventoryLockManager.lock("update", List.of(lowProductId), List.of());
+             InventoryLockManager.Locks inner = inventoryLockManager.lock("save", List.of(lowProductId, highProductId), List.of())) {
+            assertThat(inner).isNotNull();
+        }
+        executor.submit(() -> inventoryLockManager.lock("debit", List.of(lowProductId, highProductId), List.of()).close()).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Release the locks when the transaction completes")
+    void lockUntilCompletion_release_whenTransactionCompletes() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            inventoryLockManager.lockUntilCompletion("debit", List.of(1L), List.of());
+            assertThat(executor.submit(() -> inventoryLockManager.lock("debit", List.of(1L), List.of()).close()))
+                    .satisfies(f -> assertThrows(Exception.class, () -> f.get(200, TimeUnit.MILLISECONDS)));
+            TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        executor.submit(() -> inventoryLockManager.lock("debit", List.of(1L), List.of()).close()).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Throw IllegalStateException when locking until completion outside a transaction")
+    void lockUntilCompletion_throwIllegalStateException_whenNoTransaction() {
+        assertThrows(IllegalStateException.class, () -> inventoryLockManager.lockUntilCompletion("debit", List.of(1L), List.of()));
+    }
+
+    private Long productIdWithStripe(int stripe) {
+        return LongStream.rangeClosed(1, 10_000)
+                .filter(id -> inventoryLockManager.stripeOf(id, InventoryLockManager.PRODUCT_SALT) == stripe)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,64 @@
+package com.meli.frescos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticLockRetryTest {
+
+    OptimisticLockRetry optimisticLockRetry;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setup() {
+        optimisticLockRetry = new OptimisticLockRetry(transactionManager, meterRegistry, 3);
+    }
+
+    @Test
+    @DisplayName("Run the action again in a new transaction after an optimistic lock failure")
+    void execute_retry_whenOptimisticLockFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = optimisticLockRetry.execute(status -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("Row was updated by another transaction");
+            }
+            return "updated";
+        });
+
+        assertThat(result).isEqualTo("updated");
+        assertThat(meterRegistry.counter(OptimisticLockRetry.METRIC_NAME).count()).isEqualTo(2);
+        BDDMockito.verify(transactionManager, BDDMockito.times(2)).rollback(BDDMockito.any());
+        BDDMockito.verify(transactionManager).commit(BDDMockito.any());
+    }
+
+    @Test
+    @DisplayName("Rethrow the optimistic lock failure of the last attempt")
+    void execute_throwOptimisticLockingFailureException_whenAttemptsExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> optimisticLockRetry.execute(status -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("Row was updated by another transaction");
+        }));
+
+        assertThat(attempts).hasValue(3);
+    }
+}
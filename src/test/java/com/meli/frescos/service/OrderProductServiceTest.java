@@ -19,6 +19,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -37,6 +38,44 @@ class OrderProductServiceTest {
     PurchaseOrderRepository purchaseOrderRepository;
 
 
+    @Test
+    @DisplayName("Save every order line in a single batch with the products loaded in a single query")
+    void saveAll_insertOrderProductsInBatch_whenSuccess() {
+        PurchaseOrderModel purchaseOrderModel = new PurchaseOrderModel();
+        purchaseOrderModel.setId(1L);
+        ProductModel firstProduct = new ProductModel();
+        firstProduct.setId(1L);
+        ProductModel secondProduct = new ProductModel();
+        secondProduct.setId(2L);
+        List<OrderProductsRequest> requests = List.of(new OrderProductsRequest(1L, 2, 1L), new OrderProductsRequest(2L, 3, 1L), new OrderProductsRequest(1L, 1, 1L));
+
+        BDDMockito.when(productRepository.findAllById(Set.of(1L, 2L)))
+                .thenReturn(List.of(firstProduct, secondProduct));
+
+        List<OrderProductsModel> orderProducts = orderProductService.saveAll(purchaseOrderModel, requests);
+
+        assertEquals(3, orderProducts.size());
+        assertEquals(secondProduct, orderProducts.get(1).getProductModel());
+        assertEquals(3, orderProducts.get(1).getQuantity());
+        assertEquals(purchaseOrderModel, orderProducts.get(2).getPurchaseOrderModel());
+        BDDMockito.verify(orderProductsRepository).insertAll(orderProducts);
+        BDDMockito.verifyNoInteractions(purchaseOrderRepository);
+    }
+
+    @Test
+    @DisplayName("Throw ProductByIdNotFoundException without saving when a product does not exist")
+    void saveAll_throwProductByIdNotFoundException_whenProductNotExists() {
+        ProductModel productModel = new ProductModel();
+        productModel.setId(1L);
+        List<OrderProductsRequest> requests = List.of(new OrderProductsRequest(1L, 2, 1L), new OrderProductsRequest(2L, 3, 1L));
+
+        BDDMockito.when(productRepository.findAllById(Set.of(1L, 2L)))
+                .thenReturn(List.of(productModel));
+
+        assertThrows(ProductByIdNotFoundException.class, () -> orderProductService.saveAll(new PurchaseOrderModel(), requests));
+        BDDMockito.verify(orderProductsRepository, BDDMockito.never()).insertAll(ArgumentMatchers.any());
+    }
+
     @Test
     @DisplayName("Test OrderProductService save method with valid parameters")
     void save_returnOrderProductModel_whenSuccess() {
@@ -0,0 +1,86 @@
+package com.meli.frescos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.meli.frescos.model.BatchStockChange;
+import com.meli.frescos.model.OutboxEventModel;
+import com.meli.frescos.model.OutboxEventTypeEnum;
+import com.meli.frescos.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxServiceTest {
+
+    OutboxService outboxService;
+
+    @Mock
+    OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    OutboxEventSink outboxEventSink;
+
+    private final List<OutboxEventModel> events = List.of(
+            OutboxEventModel.builder().id(1L).eventType(OutboxEventTypeEnum.BATCH_STOCK_CREATED).aggregateId(1L).payload("{}").build(),
+            OutboxEventModel.builder().id(2L).eventType(OutboxEventTypeEnum.BATCH_STOCK_DEBITED).aggregateId(1L).payload("{}").build());
+
+    @BeforeEach
+    void setup() {
+        outboxService = new OutboxService(outboxEventRepository, outboxEventSink, new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    @DisplayName("Serialize the payload as JSON when creating an event")
+    void newEvent_serializePayload_whenSuccess() {
+        OutboxEventModel event = outboxService.newEvent(OutboxEventTypeEnum.BATCH_STOCK_DEBITED, 1L,
+                new BatchStockChange(1L, 2L, 3L, null, -5, null));
+
+        assertThat(event.getEventType()).isEqualTo(OutboxEventTypeEnum.BATCH_STOCK_DEBITED);
+        assertThat(event.getAggregateId()).isEqualTo(1L);
+        assertThat(event.getPayload()).contains("\"productId\":2").contains("\"quantityDelta\":-5");
+        assertThat(event.getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Insert nothing when there are no events")
+    void record_insertNothing_whenEmpty() {
+        outboxService.record(List.of());
+
+        BDDMockito.verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("Publish the oldest events and remove them from the outbox")
+    void publishNext_publishAndRemove_whenEvents() {
+        BDDMockito.when(outboxEventRepository.findAllByOrderByIdAsc(ArgumentMatchers.any())).thenReturn(events);
+
+        int published = outboxService.publishNext(10);
+
+        assertThat(published).isEqualTo(2);
+        BDDMockito.verify(outboxEventSink).publish(events);
+        BDDMockito.verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Keep the events in the outbox when the sink fails")
+    void publishNext_keepEvents_whenSinkFails() {
+        BDDMockito.when(outboxEventRepository.findAllByOrderByIdAsc(ArgumentMatchers.any())).thenReturn(events);
+        BDDMockito.doThrow(new IllegalStateException("sink")).when(outboxEventSink).publish(events);
+
+        assertThrows(IllegalStateException.class, () -> outboxService.publishNext(10));
+
+        BDDMockito.verify(outboxEventRepository, BDDMockito.never()).deleteAllByIdInBatch(ArgumentMatchers.any());
+    }
+}
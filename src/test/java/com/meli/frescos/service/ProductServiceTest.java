@@ -14,6 +14,9 @@ import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import static org.assertj.core.api.Assertions.assertThat;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -34,6 +37,9 @@ class ProductServiceTest {
     @Mock
     private ISellerService sellerService;
 
+    @Mock
+    private IProductStockSummaryService productStockSummaryService;
+
     @Test
     @DisplayName("Return all storage Product")
     void getAll_returnAllProducts_whenSuccess() {
@@ -50,6 +56,22 @@ class ProductServiceTest {
         assertThat(productsTest).isEqualTo(products);
     }
 
+    @Test
+    @DisplayName("Return a page of Product after the given id")
+    void getPage_returnProductsAfterId_whenSuccess() {
+        SellerModel seller = new SellerModel(1L, "Afonso", "123.456.789-00", 4.5);
+        List<ProductModel> products = new ArrayList<>();
+        products.add(new ProductModel(2L, "Manga", "Manga Tommy", new BigDecimal(2.99), CategoryEnum.FRESH, 5.0, 5.0, LocalDate.now(), seller));
+
+        BDDMockito.when(repository.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.anyLong(), ArgumentMatchers.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(products));
+
+        Slice<ProductModel> productsTest = service.getPage(1L, 10);
+
+        assertThat(productsTest.getContent()).isEqualTo(products);
+        assertThat(productsTest.hasNext()).isFalse();
+    }
+
     @Test
     @DisplayName("Return a Product by id")
     void getById_returnProduct_whenSucess() {
@@ -91,6 +113,22 @@ class ProductServiceTest {
         assertEquals(product.getProductTitle(), productTest.getProductTitle());
     }
 
+    @Test
+    @DisplayName("Create the empty stock summary of a new Product")
+    void saveProduct_createStockSummary_whenNew() {
+        SellerModel seller = new SellerModel(1L, "Afonso", "123.456.789-00", 4.5);
+        ProductModel product = new ProductModel(null, "Manga", "Manga Tommy", new BigDecimal(2.99), CategoryEnum.FRESH, 5.0, 5.0, LocalDate.now(), seller);
+
+        BDDMockito.when(sellerService.getById(ArgumentMatchers.anyLong()))
+                .thenReturn(seller);
+        BDDMockito.when(repository.save(product))
+                .thenReturn(new ProductModel(7L, "Manga", "Manga Tommy", new BigDecimal(2.99), CategoryEnum.FRESH, 5.0, 5.0, LocalDate.now(), seller));
+
+        service.save(product);
+
+        BDDMockito.verify(productStockSummaryService).create(List.of(7L));
+    }
+
     @Test
     @DisplayName("Return all storage Product by category fresh")
     void getByCategory_returnListProductsFresh_whenSucess() {
@@ -147,4 +185,23 @@ class ProductServiceTest {
         });
     }
 
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Save all Products loading each seller once")
+    void saveAll_loadSellerOnce_whenProductsShareSeller() {
+        SellerModel seller = new SellerModel(1L, "Afonso", "123.456.789-00", 4.5);
+        List<ProductModel> products = new ArrayList<>();
+        products.add(new ProductModel(null, "Manga", "Manga Tommy", new BigDecimal(2.99), CategoryEnum.FRESH, 5.0, 5.0, LocalDate.now(), SellerModel.builder().id(1L).build()));
+        products.add(new ProductModel(null, "Uva", "Uva Itália", new BigDecimal(4.99), CategoryEnum.FRESH, 1.0, 1.0, LocalDate.now(), SellerModel.builder().id(1L).build()));
+
+        BDDMockito.when(sellerService.getById(1L))
+                .thenReturn(seller);
+        BDDMockito.when(repository.saveAll(products))
+                .thenReturn(products);
+
+        List<ProductModel> productsTest = service.saveAll(products);
+
+        assertThat(productsTest).allSatisfy(p -> assertThat(p.getSeller()).isEqualTo(seller));
+        BDDMockito.verify(sellerService, BDDMockito.times(1)).getById(1L);
+    }
+}
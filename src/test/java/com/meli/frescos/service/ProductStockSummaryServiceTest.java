@@ -0,0 +1,147 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.BatchStockModel;
+import com.meli.frescos.model.ProductModel;
+import com.meli.frescos.model.ProductStockSummaryModel;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.ProductStockSummaryRepository;
+import com.meli.frescos.repository.ProductStockTotals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class ProductStockSummaryServiceTest {
+
+    @InjectMocks
+    ProductStockSummaryService productStockSummaryService;
+
+    @Mock
+    ProductStockSummaryRepository productStockSummaryRepository;
+
+    @Mock
+    BatchStockRepository batchStockRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    @DisplayName("Add the new batches with one update by product, splitting the sellable quantity")
+    void add_updateOncePerProduct_whenSuccess() {
+        BDDMockito.when(productStockSummaryRepository.add(ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong(), ArgumentMatchers.any()))
+                .thenReturn(1);
+
+        productStockSummaryService.add(List.of(
+                createBatchStock(2L, 10, today.plusDays(5)),
+                createBatchStock(1L, 20, today.plusWeeks(4)),
+                createBatchStock(2L, 30, today.plusWeeks(5))));
+
+        BDDMockito.verify(productStockSummaryRepository).add(1L, 20L, 20L, today.plusWeeks(4));
+        BDDMockito.verify(productStockSummaryRepository).add(2L, 40L, 30L, today.plusDays(5));
+        BDDMockito.verify(productStockSummaryRepository, BDDMockito.never()).findAllForUpdate(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("Recompute the summary of a product that has none yet")
+    void add_recomputeProduct_whenSummaryMissing() {
+        ProductStockSummaryModel summary = new ProductStockSummaryModel(1L, 0L, 0L, today, null);
+        BDDMockito.when(productStockSummaryRepository.add(ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong(), ArgumentMatchers.anyLong(), ArgumentMatchers.any()))
+                .thenReturn(0);
+        BDDMockito.when(productStockSummaryRepository.findAllForUpdate(Set.of(1L)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(summary));
+        BDDMockito.when(batchStockRepository.findStockTotalsByProductIds(Set.of(1L), today.plusWeeks(3)))
+                .thenReturn(List.of(createTotals(1L, 20L, 20L, today.plusWeeks(4))));
+
+        productStockSummaryService.add(List.of(createBatchStock(1L, 20, today.plusWeeks(4))));
+
+        BDDMockito.verify(productStockSummaryRepository).insertEmpty(List.of(1L), today);
+        assertThat(summary.getTotalQuantity()).isEqualTo(20L);
+        assertThat(summary.getClosestDueDate()).isEqualTo(today.plusWeeks(4));
+    }
+
+    @Test
+    @DisplayName("Reset the summary of a product without batch stocks")
+    void recompute_resetSummary_whenNoBatchStock() {
+        ProductStockSummaryModel summary = new ProductStockSummaryModel(1L, 50L, 50L, today.minusDays(1), today.plusDays(30));
+        BDDMockito.when(productStockSummaryRepository.findAllForUpdate(Set.of(1L)))
+                .thenReturn(List.of(summary));
+        BDDMockito.when(batchStockRepository.findStockTotalsByProductIds(Set.of(1L), today.plusWeeks(3)))
+                .thenReturn(List.of());
+
+        productStockSummaryService.recompute(List.of(1L, 1L));
+
+        assertThat(summary.getTotalQuantity()).isZero();
+        assertThat(summary.getSellableQuantity()).isZero();
+        assertThat(summary.getSellableAsOf()).isEqualTo(today);
+        assertThat(summary.getClosestDueDate()).isNull();
+        BDDMockito.verify(productStockSummaryRepository, BDDMockito.never()).insertEmpty(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("Return the products whose summary differs from their batch stocks")
+    void getInconsistent_returnMismatchedProducts_whenSuccess() {
+        List<Long> productIds = List.of(1L, 2L, 3L, 4L);
+        BDDMockito.when(productStockSummaryRepository.findAllById(productIds))
+                .thenReturn(List.of(
+                        new ProductStockSummaryModel(1L, 20L, 20L, today, today.plusWeeks(4)),
+                        new ProductStockSummaryModel(2L, 20L, 20L, today, today.plusWeeks(4)),
+                        new ProductStockSummaryModel(3L, 20L, 99L, today.minusDays(1), today.plusWeeks(4))));
+        BDDMockito.when(batchStockRepository.findStockTotalsByProductIds(productIds, today.plusWeeks(3)))
+                .thenReturn(List.of(
+                        createTotals(1L, 20L, 20L, today.plusWeeks(4)),
+                        createTotals(2L, 25L, 25L, today.plusWeeks(4)),
+                        createTotals(3L, 20L, 20L, today.plusWeeks(4))));
+
+        assertThat(productStockSummaryService.getInconsistent(productIds)).containsExactly(2L, 4L);
+    }
+
+    @Test
+    @DisplayName("Leave out the sellable quantity of summaries not computed today")
+    void getSellableQuantity_skipStaleSummary_whenNotComputedToday() {
+        BDDMockito.when(productStockSummaryRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(
+                        new ProductStockSummaryModel(1L, 20L, 15L, today, today.plusDays(5)),
+                        new ProductStockSummaryModel(2L, 20L, 20L, today.minusDays(1), today.plusWeeks(3))));
+
+        assertThat(productStockSummaryService.getSellableQuantity(List.of(1L, 2L))).containsOnlyKeys(1L).containsEntry(1L, 15L);
+    }
+
+    BatchStockModel createBatchStock(Long productId, int quantity, LocalDate dueDate) {
+        return BatchStockModel.builder().product(ProductModel.builder().id(productId).build()).quantity(quantity).dueDate(dueDate).build();
+    }
+
+    ProductStockTotals createTotals(Long productId, Long totalQuantity, Long sellableQuantity, LocalDate closestDueDate) {
+        return new ProductStockTotals() {
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Long getTotalQuantity() {
+                return totalQuantity;
+            }
+
+            @Override
+            public Long getSellableQuantity() {
+                return sellableQuantity;
+            }
+
+            @Override
+            public LocalDate getClosestDueDate() {
+                return closestDueDate;
+            }
+        };
+    }
+}
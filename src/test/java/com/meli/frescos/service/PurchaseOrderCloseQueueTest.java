@@ -0,0 +1,46 @@
+package com.meli.frescos.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PurchaseOrderCloseQueueTest {
+
+    @Test
+    @DisplayName("Queue a PurchaseOrder only once while it is waiting")
+    void offer_queueOnce_whenRequestedTwice() throws InterruptedException {
+        PurchaseOrderCloseQueue purchaseOrderCloseQueue = new PurchaseOrderCloseQueue(10);
+
+        purchaseOrderCloseQueue.offer(1L);
+        purchaseOrderCloseQueue.offer(1L);
+        purchaseOrderCloseQueue.offer(2L);
+
+        assertThat(purchaseOrderCloseQueue.poll(10, 0)).containsExactly(1L, 2L);
+        assertThat(purchaseOrderCloseQueue.offer(1L)).isTrue();
+        assertThat(purchaseOrderCloseQueue.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Refuse the PurchaseOrder when the queue is full")
+    void offer_returnFalse_whenFull() {
+        PurchaseOrderCloseQueue purchaseOrderCloseQueue = new PurchaseOrderCloseQueue(1);
+
+        assertThat(purchaseOrderCloseQueue.offer(1L)).isTrue();
+        assertThat(purchaseOrderCloseQueue.offer(2L)).isFalse();
+        assertThat(purchaseOrderCloseQueue.offer(2L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Return micro-batches of at most the given size in arrival order")
+    void poll_returnBatch_whenQueued() throws InterruptedException {
+        PurchaseOrderCloseQueue purchaseOrderCloseQueue = new PurchaseOrderCloseQueue(10);
+        for (long id = 1; id <= 5; id++) {
+            purchaseOrderCloseQueue.offer(id);
+        }
+
+        assertThat(purchaseOrderCloseQueue.poll(3, 0)).containsExactly(1L, 2L, 3L);
+        assertThat(purchaseOrderCloseQueue.poll(3, 0)).containsExactly(4L, 5L);
+        assertThat(purchaseOrderCloseQueue.poll(3, 0)).isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+package com.meli.frescos.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class PurchaseOrderCloseWorkersTest {
+
+    PurchaseOrderCloseWorkers purchaseOrderCloseWorkers;
+
+    @Mock
+    PurchaseOrderCloseQueue purchaseOrderCloseQueue;
+
+    @Mock
+    IPurchaseOrderService purchaseOrderService;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setup() {
+        OptimisticLockRetry optimisticLockRetry = new OptimisticLockRetry(transactionManager, new SimpleMeterRegistry(), 3);
+        purchaseOrderCloseWorkers = new PurchaseOrderCloseWorkers(purchaseOrderCloseQueue, purchaseOrderService, optimisticLockRetry, 1, 32, false, 2);
+    }
+
+    @Test
+    @DisplayName("Close the batch again in a new transaction when its debits lost a race")
+    void close_retryBatch_whenDebitRaced() {
+        BDDMockito.doThrow(new OptimisticLockingFailureException("BatchStocks sem quantidade para o débito: [1]"))
+                .doNothing()
+                .when(purchaseOrderService).closeOrders(List.of(1L, 2L));
+
+        purchaseOrderCloseWorkers.close(List.of(1L, 2L));
+
+        BDDMockito.verify(purchaseOrderService, BDDMockito.times(2)).closeOrders(List.of(1L, 2L));
+        BDDMockito.verify(purchaseOrderService, BDDMockito.never()).closeOrders(List.of(1L));
+        BDDMockito.verify(transactionManager).rollback(BDDMockito.any());
+        BDDMockito.verify(transactionManager).commit(BDDMockito.any());
+    }
+
+    @Test
+    @DisplayName("Close the PurchaseOrders one by one when the batch keeps failing")
+    void close_closeEachOrder_whenBatchFails() {
+        BDDMockito.doThrow(new IllegalStateException("falha"))
+                .when(purchaseOrderService).closeOrders(List.of(1L, 2L));
+
+        purchaseOrderCloseWorkers.close(List.of(1L, 2L));
+
+        BDDMockito.verify(purchaseOrderService).closeOrders(List.of(1L));
+        BDDMockito.verify(purchaseOrderService).closeOrders(List.of(2L));
+    }
+
+    @Test
+    @DisplayName("Reopen the PurchaseOrder when it fails to close on every attempt")
+    void close_reopenOrder_whenAttemptsExhausted() {
+        BDDMockito.doThrow(new IllegalStateException("falha"))
+                .when(purchaseOrderService).closeOrders(List.of(1L));
+
+        purchaseOrderCloseWorkers.close(List.of(1L));
+        BDDMockito.verify(purchaseOrderService, BDDMockito.never()).failClose(BDDMockito.anyLong(), BDDMockito.anyString());
+
+        purchaseOrderCloseWorkers.close(List.of(1L));
+        BDDMockito.verify(purchaseOrderService).failClose(1L, "Falha ao fechar o pedido de compra após 2 tentativas");
+    }
+
+    @Test
+    @DisplayName("Start counting the attempts again when the PurchaseOrder closes")
+    void close_resetAttempts_whenOrderCloses() {
+        BDDMockito.doThrow(new IllegalStateException("falha"))
+                .doNothing()
+                .doThrow(new IllegalStateException("falha"))
+                .when(purchaseOrderService).closeOrders(List.of(1L));
+
+        purchaseOrderCloseWorkers.close(List.of(1L));
+        purchaseOrderCloseWorkers.close(List.of(1L));
+        purchaseOrderCloseWorkers.close(List.of(1L));
+
+        BDDMockito.verify(purchaseOrderService, BDDMockito.never()).failClose(BDDMockito.anyLong(), BDDMockito.anyString());
+    }
+}
@@ -4,6 +4,7 @@ import com.meli.frescos.controller.dto.OrderProductsRequest;
 import com.meli.frescos.controller.dto.PurchaseOrderRequest;
 import com.meli.frescos.exception.OrderProductIsInvalidException;
 import com.meli.frescos.exception.PurchaseOrderByIdNotFoundException;
+import com.meli.frescos.exception.PurchaseOrderCloseQueueFullException;
 import com.meli.frescos.model.*;
 import com.meli.frescos.repository.PurchaseOrderRepository;
 import org.junit.jupiter.api.DisplayName;
@@ -19,7 +20,9 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -42,6 +45,18 @@ class PurchaseOrderServiceTest {
     @Mock
     IBatchStockService iBatchStockService;
 
+    @Mock
+    IStockReservationService iStockReservationService;
+
+    @Mock
+    PurchaseOrderCloseQueue purchaseOrderCloseQueue;
+
+    @Mock
+    IOutboxService iOutboxService;
+
+    @Mock
+    PurchasedProductIndex purchasedProductIndex;
+
     @Test
     @DisplayName("Create new purchase order when successfully")
     void save_returnPurchaseOrderModel_whenSuccess() {
@@ -75,7 +90,7 @@ class PurchaseOrderServiceTest {
 
     @Test
     @DisplayName("Create order products and purchase and return sum price orders when success")
-    void savePurchasePrice_returnSumPriceOrders_whenSuccess() {
+    void savePurchasePrice_returnSumPriceOrders_whenSuccess() throws Exception {
         OrderProductsRequest orderProductsRequest = new OrderProductsRequest(1L, 1, 1L);
 
         List<OrderProductsRequest> orderProductsRequests = new ArrayList<>();
@@ -98,13 +113,6 @@ class PurchaseOrderServiceTest {
         orderProductsModel.setQuantity(orderProductsRequest.getQuantity());
         orderProductsModel.setProductModel(productModel);
 
-        BatchStockModel batchStockModel = new BatchStockModel();
-        batchStockModel.setQuantity(200);
-
-        List<BatchStockModel> batchStockModelList = new ArrayList<>();
-        batchStockModelList.add(batchStockModel);
-        batchStockModelList.add(batchStockModel);
-
         BuyerModel buyerModel = new BuyerModel();
         buyerModel.setId(1L);
         buyerModel.setCpf("08392648609");
@@ -115,9 +123,9 @@ class PurchaseOrderServiceTest {
 
         Mockito.when(purchaseOrderRepository.save(ArgumentMatchers.any(PurchaseOrderModel.class))).thenReturn(purchaseOrderModel);
 
-        Mockito.when(iBatchStockService.findValidProductsByDueDate(ArgumentMatchers.anyLong(), ArgumentMatchers.any())).thenReturn(batchStockModelList);
+        Mockito.when(iBatchStockService.getStockShortfall(purchaseOrderRequest.getProducts())).thenReturn(Map.of());
 
-        Mockito.when(iOrderProductService.save(ArgumentMatchers.any(OrderProductsRequest.class))).thenReturn(orderProductsModel);
+        Mockito.when(iOrderProductService.saveAll(purchaseOrderModel, purchaseOrderRequest.getProducts())).thenReturn(List.of(orderProductsModel, orderProductsModel));
 
 
         BigDecimal purchasePrice = purchaseOrderService.savePurchaseGetPrice(purchaseOrderRequest);
@@ -125,6 +133,7 @@ class PurchaseOrderServiceTest {
         BigDecimal result = new BigDecimal(30);
 
         assertEquals(result, purchasePrice);
+        Mockito.verify(iStockReservationService).reserve(ArgumentMatchers.eq(purchaseOrderModel), ArgumentMatchers.anyMap());
 
     }
 
@@ -139,15 +148,7 @@ class PurchaseOrderServiceTest {
 
         PurchaseOrderRequest purchaseOrderRequest = new PurchaseOrderRequest(LocalDate.now(), 1L, orderProductsRequests);
 
-        BatchStockModel batchStockModel = new BatchStockModel();
-        batchStockModel.setQuantity(10);
-        batchStockModel.setId(1L);
-
-        List<BatchStockModel> batchStockModelList = new ArrayList<>();
-        batchStockModelList.add(batchStockModel);
-        batchStockModelList.add(batchStockModel);
-
-        Mockito.when(iBatchStockService.findValidProductsByDueDate(ArgumentMatchers.anyLong(), ArgumentMatchers.any())).thenReturn(batchStockModelList);
+        Mockito.when(iBatchStockService.getStockShortfall(purchaseOrderRequest.getProducts())).thenReturn(Map.of(1L, 80));
 
         assertThrows(OrderProductIsInvalidException.class, () -> {
             purchaseOrderService.savePurchaseGetPrice(purchaseOrderRequest);
@@ -204,6 +205,102 @@ class PurchaseOrderServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Move an OPEN PurchaseOrder to CLOSING and queue it when close is requested")
+    void requestClose_queuePurchaseOrder_whenOpen() {
+        PurchaseOrderModel openPurchaseOrder = PurchaseOrderModel.builder().id(1L).orderStatus(OrderStatusEnum.OPEN).build();
+        PurchaseOrderModel closingPurchaseOrder = PurchaseOrderModel.builder().id(1L).orderStatus(OrderStatusEnum.CLOSING).build();
+
+        Mockito.when(purchaseOrderRepository.findById(1L))
+                .thenReturn(Optional.of(openPurchaseOrder))
+                .thenReturn(Optional.of(closingPurchaseOrder));
+        Mockito.when(purchaseOrderCloseQueue.offer(1L)).thenReturn(true);
+
+        PurchaseOrderModel result = purchaseOrderService.requestClose(1L);
+
+        assertEquals(OrderStatusEnum.CLOSING, result.getOrderStatus());
+        Mockito.verify(purchaseOrderRepository).transition(1L, OrderStatusEnum.OPEN, OrderStatusEnum.CLOSING, null);
+        Mockito.verify(purchaseOrderCloseQueue).offer(1L);
+    }
+
+    @Test
+    @DisplayName("Throw PurchaseOrderCloseQueueFullException leaving the PurchaseOrder CLOSING when the close queue is full")
+    void requestClose_throwPurchaseOrderCloseQueueFullException_whenQueueFull() {
+        PurchaseOrderModel closingPurchaseOrder = PurchaseOrderModel.builder().id(1L).orderStatus(OrderStatusEnum.CLOSING).build();
+
+        Mockito.when(purchaseOrderRepository.findById(1L)).thenReturn(Optional.of(closingPurchaseOrder));
+        Mockito.when(purchaseOrderCloseQueue.offer(1L)).thenReturn(false);
+
+        assertThrows(PurchaseOrderCloseQueueFullException.class, () -> purchaseOrderService.requestClose(1L));
+        Mockito.verify(purchaseOrderRepository, Mockito.never()).transition(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("Leave a CLOSED PurchaseOrder as is when close is requested again")
+    void requestClose_doNothing_whenAlreadyClosed() {
+        PurchaseOrderModel closedPurchaseOrder = PurchaseOrderModel.builder().id(1L).orderStatus(OrderStatusEnum.CLOSED).build();
+
+        Mockito.when(purchaseOrderRepository.findById(1L)).thenReturn(Optional.of(closedPurchaseOrder));
+
+        PurchaseOrderModel result = purchaseOrderService.requestClose(1L);
+
+        assertEquals(OrderStatusEnum.CLOSED, result.getOrderStatus());
+        Mockito.verify(purchaseOrderRepository, Mockito.never()).transition(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+        Mockito.verifyNoInteractions(purchaseOrderCloseQueue);
+    }
+
+    @Test
+    @DisplayName("Debit only the PurchaseOrders still CLOSING and reopen the ones without stock")
+    void closeOrders_closeOnlyClosingOrders_whenRetried() {
+        Mockito.when(purchaseOrderRepository.transition(1L, OrderStatusEnum.CLOSING, OrderStatusEnum.CLOSED, null)).thenReturn(1);
+        Mockito.when(purchaseOrderRepository.transition(2L, OrderStatusEnum.CLOSING, OrderStatusEnum.CLOSED, null)).thenReturn(0);
+        Mockito.when(purchaseOrderRepository.transition(3L, OrderStatusEnum.CLOSING, OrderStatusEnum.CLOSED, null)).thenReturn(1);
+        Mockito.when(iBatchStockService.consumeBatchStockOnPurchases(List.of(1L, 3L))).thenReturn(Map.of(3L, Set.of(7L)));
+
+        purchaseOrderService.closeOrders(List.of(1L, 2L, 3L));
+
+        Mockito.verify(purchaseOrderRepository).transition(3L, OrderStatusEnum.CLOSED, OrderStatusEnum.OPEN,
+                "Pedido de compra inválido. Produtos com ID 7 em quantidades insuficiente");
+        Mockito.verify(purchaseOrderRepository, Mockito.never()).transition(1L, OrderStatusEnum.CLOSED, OrderStatusEnum.OPEN, null);
+        Mockito.verify(iOutboxService).newEvent(ArgumentMatchers.eq(OutboxEventTypeEnum.PURCHASE_ORDER_CLOSED), ArgumentMatchers.eq(1L), ArgumentMatchers.any());
+        Mockito.verify(iOutboxService).newEvent(ArgumentMatchers.eq(OutboxEventTypeEnum.PURCHASE_ORDER_CLOSE_FAILED), ArgumentMatchers.eq(3L), ArgumentMatchers.any());
+        Mockito.verify(iOutboxService).record(ArgumentMatchers.argThat(events -> events.size() == 2));
+        Mockito.verify(purchasedProductIndex).onPurchaseOrdersClosed(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("Reopen a CLOSING PurchaseOrder with the reason when it cannot be closed")
+    void failClose_reopenOrder_whenClosing() {
+        OutboxEventModel event = new OutboxEventModel();
+        Mockito.when(purchaseOrderRepository.transition(1L, OrderStatusEnum.CLOSING, OrderStatusEnum.OPEN, "falha")).thenReturn(1);
+        Mockito.when(iOutboxService.newEvent(ArgumentMatchers.eq(OutboxEventTypeEnum.PURCHASE_ORDER_CLOSE_FAILED), ArgumentMatchers.eq(1L), ArgumentMatchers.any()))
+                .thenReturn(event);
+
+        purchaseOrderService.failClose(1L, "falha");
+
+        Mockito.verify(iOutboxService).record(List.of(event));
+    }
+
+    @Test
+    @DisplayName("Leave a PurchaseOrder no longer CLOSING as is when it cannot be closed")
+    void failClose_doNothing_whenNotClosing() {
+        Mockito.when(purchaseOrderRepository.transition(1L, OrderStatusEnum.CLOSING, OrderStatusEnum.OPEN, "falha")).thenReturn(0);
+
+        purchaseOrderService.failClose(1L, "falha");
+
+        Mockito.verifyNoInteractions(iOutboxService);
+    }
+
+    @Test
+    @DisplayName("Skip the stock debit when every PurchaseOrder was already closed")
+    void closeOrders_doNothing_whenAlreadyClosed() {
+        Mockito.when(purchaseOrderRepository.transition(1L, OrderStatusEnum.CLOSING, OrderStatusEnum.CLOSED, null)).thenReturn(0);
+
+        purchaseOrderService.closeOrders(List.of(1L));
+
+        Mockito.verifyNoInteractions(iBatchStockService, iOutboxService, purchasedProductIndex);
+    }
+
 //    @Test
 //    void updateStatus_returnVoid_whenSuccess() throws Exception {
 //        PurchaseOrderModel purchaseOrderModel = new PurchaseOrderModel();
@@ -0,0 +1,92 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.OrderStatusEnum;
+import com.meli.frescos.repository.BuyerPurchasedProduct;
+import com.meli.frescos.repository.OrderProductsRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class PurchasedProductIndexTest {
+
+    @InjectMocks
+    PurchasedProductIndex purchasedProductIndex;
+
+    @Mock
+    OrderProductsRepository orderProductsRepository;
+
+    @Test
+    @DisplayName("Return the seeded purchases without reading the database")
+    void hasPurchased_returnSeededPurchase_whenSuccess() {
+        List<BuyerPurchasedProduct> purchasedProducts = new ArrayList<>();
+        for (long productId = 100; productId >= 1; productId -= 3) {
+            purchasedProducts.add(createBuyerPurchasedProduct(1L, productId));
+            purchasedProducts.add(createBuyerPurchasedProduct(2L, productId + 1));
+        }
+        BDDMockito.when(orderProductsRepository.findPurchasedProducts(OrderStatusEnum.CLOSED))
+                .thenReturn(purchasedProducts);
+
+        purchasedProductIndex.seed();
+
+        for (long productId = 100; productId >= 1; productId -= 3) {
+            assertThat(purchasedProductIndex.hasPurchased(1L, productId)).isTrue();
+            assertThat(purchasedProductIndex.hasPurchased(2L, productId + 1)).isTrue();
+        }
+        BDDMockito.verify(orderProductsRepository, BDDMockito.never()).existsPurchasedProduct(BDDMockito.anyLong(), BDDMockito.anyLong(), BDDMockito.any());
+    }
+
+    @Test
+    @DisplayName("Check the database once when the purchase is not in the index")
+    void hasPurchased_loadFromDatabase_whenNotInIndex() {
+        BDDMockito.when(orderProductsRepository.existsPurchasedProduct(1L, 5L, OrderStatusEnum.CLOSED))
+                .thenReturn(true);
+        BDDMockito.when(orderProductsRepository.existsPurchasedProduct(1L, 6L, OrderStatusEnum.CLOSED))
+                .thenReturn(false);
+
+        assertThat(purchasedProductIndex.hasPurchased(1L, 5L)).isTrue();
+        assertThat(purchasedProductIndex.hasPurchased(1L, 5L)).isTrue();
+        assertThat(purchasedProductIndex.hasPurchased(1L, 6L)).isFalse();
+        BDDMockito.verify(orderProductsRepository, BDDMockito.times(1)).existsPurchasedProduct(1L, 5L, OrderStatusEnum.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Add the products of the closed purchase orders to the index")
+    void onPurchaseOrdersClosed_addPurchases_whenSuccess() {
+        BDDMockito.when(orderProductsRepository.findPurchasedProducts(OrderStatusEnum.CLOSED))
+                .thenReturn(List.of(createBuyerPurchasedProduct(1L, 3L)));
+        BDDMockito.when(orderProductsRepository.findPurchasedProductsByPurchaseOrderIds(List.of(10L, 11L)))
+                .thenReturn(List.of(createBuyerPurchasedProduct(1L, 1L), createBuyerPurchasedProduct(1L, 3L), createBuyerPurchasedProduct(2L, 2L)));
+
+        purchasedProductIndex.seed();
+        purchasedProductIndex.onPurchaseOrdersClosed(List.of(10L, 11L));
+
+        assertThat(purchasedProductIndex.hasPurchased(1L, 1L)).isTrue();
+        assertThat(purchasedProductIndex.hasPurchased(1L, 3L)).isTrue();
+        assertThat(purchasedProductIndex.hasPurchased(2L, 2L)).isTrue();
+        BDDMockito.verify(orderProductsRepository, BDDMockito.never()).existsPurchasedProduct(BDDMockito.anyLong(), BDDMockito.anyLong(), BDDMockito.any());
+    }
+
+    BuyerPurchasedProduct createBuyerPurchasedProduct(Long buyerId, Long productId) {
+        return new BuyerPurchasedProduct() {
+            @Override
+            public Long getBuyerId() {
+                return buyerId;
+            }
+
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+        };
+    }
+}
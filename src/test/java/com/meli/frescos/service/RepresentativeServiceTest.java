@@ -37,6 +37,9 @@ class RepresentativeServiceTest {
     @Mock
     IWarehouseService warehouseService;
 
+    @Mock
+    RepresentativeWarehouseTable representativeWarehouseTable;
+
     @Test
     @DisplayName("Create a new Representative successfully")
     void saveNewRepresentative_returnCreatedRepresentative_whenSuccess() throws WarehouseNotFoundException {
@@ -47,6 +50,7 @@ class RepresentativeServiceTest {
 
         RepresentativeModel responseModel = RepresentativeModel
                 .builder()
+                .id(2L)
                 .name(name)
                 .build();
 
@@ -58,6 +62,7 @@ class RepresentativeServiceTest {
 
         assertEquals(name, responseRepresentative.getName());
         assertEquals(warehouse_id, responseRepresentative.getWarehouse().getId());
+        Mockito.verify(representativeWarehouseTable).put(2L, warehouse_id);
     }
 
     @Test
@@ -141,48 +146,47 @@ class RepresentativeServiceTest {
     void validateRepresentative_whenSuccess() throws RepresentativeWarehouseNotAssociatedException, RepresentativeNotFoundException, WarehouseNotFoundException {
         Long warehouse_id = 1L;
         Long representative_id = 1L;
-        String name = "Representative 1";
-        WarehouseModel warehouseResponse = new WarehouseModel();
-        warehouseResponse.setId(warehouse_id);
-
-        RepresentativeModel representativeModel = new RepresentativeModel()
-                .builder()
-                .id(representative_id)
-                .name(name)
-                .warehouse(new WarehouseModel()
-                        .builder()
-                        .id(warehouse_id)
-                        .build()
-                ).build();
 
-        Mockito.when(representativeRepository.findById(ArgumentMatchers.anyLong())).thenReturn(Optional.of(representativeModel));
+        Mockito.when(representativeWarehouseTable.getWarehouseId(representative_id)).thenReturn(warehouse_id);
 
         representativeService.validateRepresentative(representative_id, warehouse_id);
+
+        Mockito.verifyNoInteractions(representativeRepository, warehouseService);
     }
 
     @Test
     @DisplayName("Throw when Representative does not belong to the warehouse")
-    void validateRepresentative_throwException() {
+    void validateRepresentative_throwException() throws WarehouseNotFoundException {
         Long warehouse_id = 1L;
         Long representative_id = 1L;
-        String name = "Representative 1";
-        WarehouseModel warehouseResponse = new WarehouseModel();
-        warehouseResponse.setId(warehouse_id);
-
-        RepresentativeModel representativeModel = new RepresentativeModel()
-                .builder()
-                .id(representative_id)
-                .name(name)
-                .warehouse(new WarehouseModel()
-                        .builder()
-                        .id(warehouse_id)
-                        .build()
-                ).build();
 
-        Mockito.when(representativeRepository.findById(ArgumentMatchers.anyLong())).thenReturn(Optional.of(representativeModel));
+        Mockito.when(representativeWarehouseTable.getWarehouseId(representative_id)).thenReturn(warehouse_id);
+        Mockito.when(warehouseService.getById(2L)).thenReturn(new WarehouseModel());
 
         assertThrows(RepresentativeWarehouseNotAssociatedException.class, () -> {
             representativeService.validateRepresentative(representative_id, 2L);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Throw RepresentativeNotFoundException when Representative does not exist")
+    void validateRepresentative_throwsRepresentativeNotFoundException_whenRepresentativeDoesNotExist() throws WarehouseNotFoundException {
+        Mockito.when(representativeWarehouseTable.getWarehouseId(-1L)).thenReturn(null);
+        Mockito.when(warehouseService.getById(1L)).thenReturn(new WarehouseModel());
+
+        assertThrows(RepresentativeNotFoundException.class, () -> {
+            representativeService.validateRepresentative(-1L, 1L);
+        });
+    }
+
+    @Test
+    @DisplayName("Throw WarehouseNotFoundException when Warehouse does not exist")
+    void validateRepresentative_throwsWarehouseNotFoundException_whenWarehouseDoesNotExist() throws WarehouseNotFoundException {
+        Mockito.when(representativeWarehouseTable.getWarehouseId(1L)).thenReturn(1L);
+        Mockito.when(warehouseService.getById(-1L)).thenThrow(new WarehouseNotFoundException("Warehouse com ID -1 não encontrado"));
+
+        assertThrows(WarehouseNotFoundException.class, () -> {
+            representativeService.validateRepresentative(1L, -1L);
+        });
+    }
+}
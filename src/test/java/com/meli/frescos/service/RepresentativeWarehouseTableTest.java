@@ -0,0 +1,93 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.model.RepresentativeModel;
+import com.meli.frescos.model.WarehouseModel;
+import com.meli.frescos.repository.RepresentativeRepository;
+import com.meli.frescos.repository.RepresentativeWarehouse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class RepresentativeWarehouseTableTest {
+
+    @InjectMocks
+    RepresentativeWarehouseTable representativeWarehouseTable;
+
+    @Mock
+    RepresentativeRepository representativeRepository;
+
+    @Test
+    @DisplayName("Return the seeded warehouse without reading the database")
+    void getWarehouseId_returnSeededWarehouse_whenSuccess() {
+        List<RepresentativeWarehouse> representatives = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            representatives.add(createRepresentativeWarehouse(id, id + 1000));
+        }
+        BDDMockito.when(representativeRepository.findAllWarehouseIds())
+                .thenReturn(representatives);
+
+        representativeWarehouseTable.seed();
+
+        for (long id = 1; id <= 100; id++) {
+            assertThat(representativeWarehouseTable.getWarehouseId(id)).isEqualTo(id + 1000);
+        }
+        BDDMockito.verify(representativeRepository, BDDMockito.never()).findById(BDDMockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Load the warehouse from database once when representative is not in the table")
+    void getWarehouseId_loadFromDatabase_whenNotInTable() {
+        RepresentativeModel representative = new RepresentativeModel(7L, "Representante", WarehouseModel.builder().id(3L).build());
+        BDDMockito.when(representativeRepository.findById(7L))
+                .thenReturn(Optional.of(representative));
+
+        assertThat(representativeWarehouseTable.getWarehouseId(7L)).isEqualTo(3L);
+        assertThat(representativeWarehouseTable.getWarehouseId(7L)).isEqualTo(3L);
+        BDDMockito.verify(representativeRepository, BDDMockito.times(1)).findById(7L);
+    }
+
+    @Test
+    @DisplayName("Return null when representative does not exist")
+    void getWarehouseId_returnNull_whenRepresentativeDoesNotExist() {
+        BDDMockito.when(representativeRepository.findById(-1L))
+                .thenReturn(Optional.empty());
+
+        assertThat(representativeWarehouseTable.getWarehouseId(-1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Replace the warehouse of a representative already in the table")
+    void put_replaceWarehouse_whenRepresentativeInTable() {
+        representativeWarehouseTable.put(1L, 10L);
+        representativeWarehouseTable.put(2L, 20L);
+        representativeWarehouseTable.put(1L, 11L);
+
+        assertThat(representativeWarehouseTable.getWarehouseId(1L)).isEqualTo(11L);
+        assertThat(representativeWarehouseTable.getWarehouseId(2L)).isEqualTo(20L);
+    }
+
+    RepresentativeWarehouse createRepresentativeWarehouse(Long representativeId, Long warehouseId) {
+        return new RepresentativeWarehouse() {
+            @Override
+            public Long getRepresentativeId() {
+                return representativeId;
+            }
+
+            @Override
+            public Long getWarehouseId() {
+                return warehouseId;
+            }
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.SectionOccupancy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class SectionOccupancyLedgerTest {
+
+    @InjectMocks
+    SectionOccupancyLedger sectionOccupancyLedger;
+
+    @Mock
+    BatchStockRepository batchStockRepository;
+
+    @Spy
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Return the seeded used volume and apply incremental changes")
+    void getUsedVolume_returnSeededVolumePlusChanges_whenSuccess() {
+        BDDMockito.when(batchStockRepository.findSectionOccupancy())
+                .thenReturn(createOccupancyList(1L, 50.0));
+
+        sectionOccupancyLedger.seed();
+        sectionOccupancyLedger.add(1L, 20.0);
+        sectionOccupancyLedger.add(1L, -5.0);
+
+        assertThat(sectionOccupancyLedger.getUsedVolume(1L)).isEqualTo(65.0);
+        BDDMockito.verify(batchStockRepository, BDDMockito.never()).findUsedVolumeBySectionId(1L);
+    }
+
+    @Test
+    @DisplayName("Load the used volume from database when section is not in the ledger")
+    void getUsedVolume_loadFromDatabase_whenSectionNotSeeded() {
+        BDDMockito.when(batchStockRepository.findUsedVolumeBySectionId(2L))
+                .thenReturn(30.0);
+
+        assertThat(sectionOccupancyLedger.getUsedVolume(2L)).isEqualTo(30.0);
+        assertThat(sectionOccupancyLedger.getUsedVolume(2L)).isEqualTo(30.0);
+        BDDMockito.verify(batchStockRepository, BDDMockito.times(1)).findUsedVolumeBySectionId(2L);
+    }
+
+    @Test
+    @DisplayName("Correct the ledger and record the drift when it differs from database in two reconciliations in a row")
+    void reconcile_correctDrift_whenLedgerDiffersFromDatabaseTwice() {
+        BDDMockito.when(batchStockRepository.findSectionOccupancy())
+                .thenReturn(createOccupancyList(1L, 50.0))
+                .thenReturn(createOccupancyList(1L, 40.0));
+
+        sectionOccupancyLedger.seed();
+        sectionOccupancyLedger.reconcile();
+
+        assertThat(sectionOccupancyLedger.getUsedVolume(1L)).isEqualTo(50.0);
+        assertThat(sectionOccupancyLedger.getDriftedSectionCount()).isZero();
+
+        sectionOccupancyLedger.reconcile();
+
+        assertThat(sectionOccupancyLedger.getUsedVolume(1L)).isEqualTo(40.0);
+        assertThat(sectionOccupancyLedger.getLastTotalDrift()).isEqualTo(10.0);
+        assertThat(sectionOccupancyLedger.getDriftedSectionCount()).isEqualTo(1L);
+        assertThat(sectionOccupancyLedger.getReconciliationCount()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Keep the ledger when a change committed during the database read shows up as drift only once")
+    void reconcile_keepLedger_whenDriftIsNotRepeated() {
+        BDDMockito.when(batchStockRepository.findSectionOccupancy())
+                .thenReturn(createOccupancyList(1L, 50.0))
+                .thenReturn(createOccupancyList(1L, 50.0))
+                .thenReturn(createOccupancyList(1L, 60.0));
+
+        sectionOccupancyLedger.seed();
+        sectionOccupancyLedger.reconcile();
+        sectionOccupancyLedger.add(1L, 10.0);
+        sectionOccupancyLedger.reconcile();
+        sectionOccupancyLedger.reconcile();
+
+        assertThat(sectionOccupancyLedger.getUsedVolume(1L)).isEqualTo(60.0);
+        assertThat(sectionOccupancyLedger.getDriftedSectionCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Publish the drift of the reconciliation as meters")
+    void reconcile_publishDriftMeters_whenLedgerDiffersFromDatabase() {
+        BDDMockito.when(batchStockRepository.findSectionOccupancy())
+                .thenReturn(createOccupancyList(1L, 50.0))
+                .thenReturn(createOccupancyList(1L, 44.0));
+
+        sectionOccupancyLedger.seed();
+        sectionOccupancyLedger.reconcile();
+        sectionOccupancyLedger.reconcile();
+
+        assertThat(meterRegistry.get("frescos.section.occupancy.drift.last.total").gauge().value()).isEqualTo(6.0);
+        assertThat(meterRegistry.get("frescos.section.occupancy.drift.max").gauge().value()).isEqualTo(6.0);
+        assertThat(meterRegistry.get("frescos.section.occupancy.drift.sections").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("frescos.section.occupancy.reconciliations").functionCounter().count()).isEqualTo(2.0);
+    }
+
+    List<SectionOccupancy> createOccupancyList(Long sectionId, Double usedVolume) {
+        List<SectionOccupancy> occupancyList = new ArrayList<>();
+        occupancyList.add(new SectionOccupancy() {
+            @Override
+            public Long getSectionId() {
+                return sectionId;
+            }
+
+            @Override
+            public Double getUsedVolume() {
+                return usedVolume;
+            }
+        });
+        return occupancyList;
+    }
+}
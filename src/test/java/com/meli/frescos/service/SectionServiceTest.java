@@ -190,4 +190,16 @@ public class SectionServiceTest {
         assertEquals(sectionList, responseSection);
         assertEquals(2, responseSection.size());
     }
+
+    @Test
+    @DisplayName("Throw SectionByIdNotFoundException when any of the Section IDs is not found")
+    void getAllById_throwsSectionByIdNotFoundException_whenAnyIdIsInvalid() {
+        List<Long> ids = List.of(1L, 2L);
+        SectionModel section = SectionModel.builder().id(1L).build();
+
+        Mockito.when(sectionRepository.findAllById(ids)).thenReturn(List.of(section));
+
+        SectionByIdNotFoundException exception = assertThrows(SectionByIdNotFoundException.class, () -> sectionService.getAllById(ids));
+        assertEquals("O setor com o id 2 não foi encontrado.", exception.getMessage());
+    }
 }
@@ -12,6 +12,9 @@ import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -191,4 +194,16 @@ class SellerServiceTest {
         assertThat(sellerTest).isNotNull();
         assertThat(sellerTest.get()).isEqualTo(seller);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Return the sellers after the given id")
+    void getPage_returnSellersAfterId_whenSuccess() {
+        List<SellerModel> sellers = List.of(new SellerModel(2L, "Vendedor 2", "12345678900", 4.2));
+        BDDMockito.when(repository.findByIdGreaterThanOrderByIdAsc(1L, PageRequest.ofSize(10)))
+                .thenReturn(new SliceImpl<>(sellers));
+
+        Slice<SellerModel> sellersTest = service.getPage(1L, 10);
+
+        assertThat(sellersTest.getContent()).isEqualTo(sellers);
+    }
+}
@@ -0,0 +1,98 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.exception.NotEnoughStockException;
+import com.meli.frescos.repository.BatchStockDebit;
+import com.meli.frescos.repository.BatchStockRepository;
+import com.meli.frescos.repository.HeldQuantity;
+import com.meli.frescos.repository.StockReservationRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class SkipLockedStockAllocatorTest {
+
+    @InjectMocks
+    SkipLockedStockAllocator skipLockedStockAllocator;
+
+    @Mock
+    BatchStockRepository batchStockRepository;
+
+    @Mock
+    StockReservationRepository stockReservationRepository;
+
+    private final LocalDate minDueDate = LocalDate.now().plusWeeks(3);
+
+    @Test
+    @DisplayName("Debit the unlocked batches in FEFO order, discounting the held quantities")
+    void allocate_debitUnlockedBatches_whenSuccess() throws NotEnoughStockException {
+        BDDMockito.when(batchStockRepository.findUnlockedDebitsForUpdate(1L, minDueDate))
+                .thenReturn(List.of(new BatchStockDebit(10L, 1L, 1L, 10), new BatchStockDebit(11L, 1L, 1L, 10)));
+        BDDMockito.when(stockReservationRepository.findHeldQuantityByBatchStockIdsForShare(List.of(10L, 11L)))
+                .thenReturn(List.of(createHeldQuantity(10L, 3L), createHeldQuantity(10L, 1L)));
+
+        List<BatchStockDebit> debits = skipLockedStockAllocator.allocate(Map.of(1L, 8), minDueDate);
+
+        assertThat(debits).extracting(BatchStockDebit::getBatchStockId).containsExactly(10L, 11L);
+        assertThat(debits).extracting(BatchStockDebit::getQuantity).containsExactly(6, 2);
+        BDDMockito.verify(batchStockRepository, BDDMockito.never()).findDebitsForUpdate(BDDMockito.anyLong(), BDDMockito.any());
+    }
+
+    @Test
+    @DisplayName("Wait for the locked batches when the unlocked ones are not enough")
+    void allocate_waitForLockedBatches_whenUnlockedNotEnough() throws NotEnoughStockException {
+        BDDMockito.when(batchStockRepository.findUnlockedDebitsForUpdate(1L, minDueDate))
+                .thenReturn(List.of(new BatchStockDebit(11L, 1L, 1L, 3)));
+        BDDMockito.when(batchStockRepository.findDebitsForUpdate(1L, minDueDate))
+                .thenReturn(List.of(new BatchStockDebit(10L, 1L, 1L, 5), new BatchStockDebit(11L, 1L, 1L, 3)));
+
+        List<BatchStockDebit> debits = skipLockedStockAllocator.allocate(Map.of(1L, 7), minDueDate);
+
+        assertThat(debits).extracting(BatchStockDebit::getBatchStockId).containsExactly(10L, 11L);
+        assertThat(debits).extracting(BatchStockDebit::getQuantity).containsExactly(5, 2);
+    }
+
+    @Test
+    @DisplayName("Lock the products in id order and throw when any of them is short")
+    void allocate_throwNotEnoughStockException_whenProductShort() {
+        Map<Long, Integer> quantityByProduct = new LinkedHashMap<>();
+        quantityByProduct.put(2L, 5);
+        quantityByProduct.put(1L, 5);
+        BDDMockito.when(batchStockRepository.findUnlockedDebitsForUpdate(1L, minDueDate))
+                .thenReturn(List.of(new BatchStockDebit(10L, 1L, 1L, 10)));
+
+        NotEnoughStockException exception = assertThrows(NotEnoughStockException.class, () -> skipLockedStockAllocator.allocate(quantityByProduct, minDueDate));
+
+        assertThat(exception.getProductIds()).containsExactly(2L);
+        InOrder inOrder = BDDMockito.inOrder(batchStockRepository);
+        inOrder.verify(batchStockRepository).findUnlockedDebitsForUpdate(1L, minDueDate);
+        inOrder.verify(batchStockRepository).findUnlockedDebitsForUpdate(2L, minDueDate);
+    }
+
+    HeldQuantity createHeldQuantity(Long batchStockId, Long quantity) {
+        return new HeldQuantity() {
+            @Override
+            public Long getBatchStockId() {
+                return batchStockId;
+            }
+
+            @Override
+            public Long getQuantity() {
+                return quantity;
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package com.meli.frescos.service;
+
+import com.meli.frescos.exception.NotEnoughStockException;
+import com.meli.frescos.model.PurchaseOrderModel;
+import com.meli.frescos.model.StockReservationModel;
+import com.meli.frescos.repository.BatchStockDebit;
+import com.meli.frescos.repository.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+    StockReservationService stockReservationService;
+
+    @Mock
+    StockReservationRepository stockReservationRepository;
+
+    @Mock
+    StockAllocator stockAllocator;
+
+    private final List<BatchStockDebit> debits = List.of(
+            new BatchStockDebit(1L, 1L, 1L, 5),
+            new BatchStockDebit(2L, 1L, 2L, 3));
+
+    @BeforeEach
+    void setup() {
+        stockReservationService = new StockReservationService(stockReservationRepository, stockAllocator, 30);
+    }
+
+    @Test
+    @DisplayName("Save a hold for each allocated debit with the configured expiration")
+    void reserve_saveHolds_whenSuccess() throws NotEnoughStockException {
+        PurchaseOrderModel purchaseOrder = PurchaseOrderModel.builder().id(1L).build();
+        BDDMockito.when(stockAllocator.allocate(ArgumentMatchers.anyMap(), ArgumentMatchers.any()))
+                .thenReturn(debits);
+
+        stockReservationService.reserve(purchaseOrder, Map.of(1L, 5, 2L, 3));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockReservationModel>> captor = ArgumentCaptor.forClass(List.class);
+        BDDMockito.verify(stockReservationRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).hasSize(2);
+        assertThat(captor.getValue()).allSatisfy(r -> {
+            assertThat(r.getPurchaseOrder()).isEqualTo(purchaseOrder);
+            assertThat(r.getExpiresAt()).isAfter(LocalDateTime.now().plusMinutes(29));
+        });
+        assertThat(captor.getValue().get(0).getBatchStock().getId()).isEqualTo(1L);
+        assertThat(captor.getValue().get(0).getQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Throw NotEnoughStockException without saving holds when stock is insufficient")
+    void reserve_throwNotEnoughStockException_whenStockInsufficient() throws NotEnoughStockException {
+        BDDMockito.when(stockAllocator.allocate(ArgumentMatchers.anyMap(), ArgumentMatchers.any()))
+                .thenThrow(new NotEnoughStockException("Estoque insuficiente para atender o pedido!", Set.of(1L)));
+
+        assertThrows(NotEnoughStockException.class, () -> stockReservationService.reserve(PurchaseOrderModel.builder().id(1L).build(), Map.of(1L, 5)));
+
+        BDDMockito.verifyNoInteractions(stockReservationRepository);
+    }
+
+    @Test
+    @DisplayName("Return the held debits without removing the holds")
+    void getHeldDebits_returnDebits_whenHoldsActive() {
+        BDDMockito.when(stockReservationRepository.findDebitsByPurchaseOrderId(1L)).thenReturn(debits);
+
+        assertThat(stockReservationService.getHeldDebits(1L)).isEqualTo(debits);
+        BDDMockito.verify(stockReservationRepository, BDDMockito.never()).deleteByPurchaseOrderId(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("Remove the holds converted into debits of a closed purchase")
+    void consume_removeHolds_whenHoldsActive() {
+        BDDMockito.when(stockReservationRepository.deleteByPurchaseOrderId(1L)).thenReturn(2);
+
+        stockReservationService.consume(1L, debits);
+
+        BDDMockito.verify(stockReservationRepository).deleteByPurchaseOrderId(1L);
+    }
+
+    @Test
+    @DisplayName("Throw OptimisticLockingFailureException when the holds were released by the sweeper in between")
+    void consume_throwOptimisticLockingFailureException_whenHoldsReleased() {
+        BDDMockito.when(stockReservationRepository.deleteByPurchaseOrderId(1L)).thenReturn(0);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> stockReservationService.consume(1L, debits));
+    }
+
+    @Test
+    @DisplayName("Give the expired holds back to the allocator")
+    void releaseExpired_releaseDebits_whenExpired() {
+        BDDMockito.when(stockReservationRepository.findDebitsByExpiresAtBefore(ArgumentMatchers.any())).thenReturn(debits);
+        BDDMockito.when(stockReservationRepository.deleteByExpiresAtBefore(ArgumentMatchers.any())).thenReturn(2);
+
+        int released = stockReservationService.releaseExpired();
+
+        assertThat(released).isEqualTo(2);
+        BDDMockito.verify(stockAllocator).release(debits);
+    }
+}
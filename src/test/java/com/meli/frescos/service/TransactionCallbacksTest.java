@@ -0,0 +1,65 @@
+package com.meli.frescos.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionCallbacksTest {
+
+    private final List<String> calls = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Run the commit action before the after completion actions when the transaction commits")
+    void onCompletion_runCommitActionBeforeCompletion_whenCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionCallbacks.afterCompletion(() -> calls.add("completion"));
+        TransactionCallbacks.onCompletion(() -> calls.add("commit"), () -> calls.add("rollback"));
+
+        commit();
+
+        assertThat(calls).containsExactly("commit", "completion");
+    }
+
+    @Test
+    @DisplayName("Run only the rollback action when the transaction rolls back")
+    void onCompletion_runRollbackAction_whenRolledBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionCallbacks.onCompletion(() -> calls.add("commit"), () -> calls.add("rollback"));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(calls).containsExactly("rollback");
+    }
+
+    @Test
+    @DisplayName("Run the commit action immediately without a transaction")
+    void afterCommit_runImmediately_whenNoTransaction() {
+        TransactionCallbacks.afterCommit(() -> calls.add("commit"));
+
+        assertThat(calls).containsExactly("commit");
+        assertThrows(IllegalStateException.class, () -> TransactionCallbacks.afterCompletion(() -> calls.add("completion")));
+    }
+
+    private void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+}